@@ -0,0 +1,62 @@
+#!/bin/sh
+# Generates an AppCDS archive of the classes loaded while the application starts (application
+# classes and org.json) and compares the startup time with and without it.
+#
+# Usage: scripts/appcds.sh [runs] [cli|gui]
+#
+# Application classes are compiled into build/tradingSimulator.jar with javac. The GUI forms are
+# only compiled by IntelliJ, so to benchmark the GUI point CLASSES at its output directory, e.g.
+#   CLASSES=out/production/Project-Starter scripts/appcds.sh 5 gui
+# The CLI is benchmarked by creating a new account and asking for a quote of SP500 through
+# standard input; set INPUT to script a different session.
+set -e
+cd "$(dirname "$0")/.."
+
+RUNS=${1:-5}
+MODE=${2:-cli}
+BUILD=build
+JSON_JAR=lib/spec/json-20210307.jar
+APP_JAR=$BUILD/tradingSimulator.jar
+ARCHIVE=$BUILD/tradingSimulator.jsa
+CP=$APP_JAR:$JSON_JAR
+INPUT=${INPUT:-'new\nBench\n10000\nquote\nSP500\n'}
+if [ "$MODE" = cli ]; then
+    ARGS="-cli -startup-benchmark"
+else
+    ARGS="-startup-benchmark"
+fi
+
+mkdir -p $BUILD
+if [ -z "$CLASSES" ]; then
+    CLASSES=$BUILD/classes
+    rm -rf $CLASSES
+    javac -nowarn -d $CLASSES -cp $JSON_JAR $(find src/main -name '*.java')
+fi
+# CDS only archives classes loaded from jar files, not from directories.
+jar --create --file $APP_JAR --main-class ui.Main -C "$CLASSES" .
+
+# run [java options...]: starts the application once and prints its startup line
+run() {
+    printf "$INPUT" | java "$@" -cp $CP ui.Main $ARGS | grep '^startup:'
+}
+
+echo "Training run, dumping $ARCHIVE"
+rm -f $ARCHIVE
+run -XX:ArchiveClassesAtExit=$ARCHIVE -Xlog:cds=off -Xlog:cds+dynamic=off
+
+# bench label [java options...]: runs the application RUNS times and prints the mean times
+bench() {
+    label=$1
+    shift
+    i=0
+    while [ $i -lt "$RUNS" ]; do
+        run "$@"
+        i=$((i + 1))
+    done | awk -v label="$label" '
+        { frame += $4; quote += $8; n++ }
+        END { printf "%-12s first frame %6.1f ms, first quote %6.1f ms (mean of %d)\n",
+                     label, frame / n, quote / n, n }'
+}
+
+bench "default CDS"
+bench "AppCDS" -XX:SharedArchiveFile=$ARCHIVE
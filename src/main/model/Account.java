@@ -2,21 +2,39 @@ package model;
 
 import model.exception.InsufficientBalanceException;
 import model.exception.InsufficientFundsException;
-import org.json.JSONArray;
+import model.metrics.Counter;
+import model.metrics.LatencyHistogram;
+import model.metrics.MetricsRegistry;
 import org.json.JSONObject;
 import persistence.Writable;
 
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 
 /*
  * Represents an account having owner name, balance (in dollars), and portfolio of securities.
  * Maintains a list of securities, and other account details
  */
 public class Account implements Writable {
+    private static final LatencyHistogram TRADE_LATENCY = MetricsRegistry.getInstance().histogram("account.trade");
+    private static final Counter FILLS = MetricsRegistry.getInstance().counter("account.fills");
+    private static final Counter REJECTIONS = MetricsRegistry.getInstance().counter("account.rejections");
+
     private final String name;               // the account owner name
     private double balance;                  // the current balance of the account
     private final List<Security> securities; // the ETFs allowed to be traded in this account
+    private final NavigableMap<String, Security> tickerIndex; // securities sorted by ticker
+    private final Map<Security, Integer> rowIndex;            // index of each security in securities
+    private boolean logging = true;          // whether trades are recorded in the EventLog
+    private final Valuation valuation;       // mark-to-market valuation of the positions
+    private final RiskLimits riskLimits = new RiskLimits(); // pre-trade limits every order is checked against
+    private final MarginTerms marginTerms = new MarginTerms(); // interest, borrow fees and maintenance margin
 
     /*
      * REQUIRES: accountName.length() > 0, fund not null, initialBalance > 0
@@ -28,7 +46,13 @@ public class Account implements Writable {
         name = accountName;
         securities = new ArrayList<>();
         securities.add(firstSecurity);
+        tickerIndex = new TreeMap<>();
+        tickerIndex.put(firstSecurity.getTicker(), firstSecurity);
+        rowIndex = new IdentityHashMap<>();
+        rowIndex.put(firstSecurity, 0);
         balance = initialBalance;
+        valuation = new Valuation(0);
+        valuation.track(firstSecurity);
 
         logEvent("Account created: " + this);
     }
@@ -39,11 +63,56 @@ public class Account implements Writable {
      *          set to initialBalance. Account starts maintaining the list securities.
      */
     public Account(String accountName, double balance, List<Security> securities) {
+        this(accountName, balance, 0, securities);
+    }
+
+    /*
+     * REQUIRES: accountName.length() > 0, securities not null, initialBalance > 0
+     * EFFECTS: name of account is set to accountName, initial balance is set to initialBalance
+     *          and profit and loss realized so far is set to realizedPnl. Account starts
+     *          maintaining the list securities.
+     */
+    public Account(String accountName, double balance, double realizedPnl, List<Security> securities) {
+        this(accountName, balance, realizedPnl, securities, true);
+    }
+
+    /*
+     * REQUIRES: accountName.length() > 0, securities not null, initialBalance > 0
+     * EFFECTS: Returns an account like Account(accountName, balance, realizedPnl, securities)
+     *          whose logging is off from the start, so that creating it records nothing in
+     *          the EventLog. Batch simulations and stress tests create their accounts with it.
+     */
+    public static Account withoutLogging(String accountName, double balance, double realizedPnl,
+                                         List<Security> securities) {
+        return new Account(accountName, balance, realizedPnl, securities, false);
+    }
+
+    /*
+     * REQUIRES: accountName.length() > 0, securities not null, initialBalance > 0
+     * EFFECTS: name of account is set to accountName, initial balance is set to initialBalance
+     *          and profit and loss realized so far is set to realizedPnl. Account starts
+     *          maintaining the list securities, recording its events only if logging.
+     */
+    private Account(String accountName, double balance, double realizedPnl, List<Security> securities,
+                    boolean logging) {
+        this.logging = logging;
         this.name = accountName;
         this.securities = securities;
+        this.tickerIndex = new TreeMap<>();
+        this.rowIndex = new IdentityHashMap<>();
+        for (int i = 0; i < securities.size(); i++) {
+            tickerIndex.putIfAbsent(securities.get(i).getTicker(), securities.get(i));
+            rowIndex.putIfAbsent(securities.get(i), i);
+        }
         this.balance = balance;
+        this.valuation = new Valuation(realizedPnl);
+        for (Security security : securities) {
+            valuation.track(security);
+        }
 
-        logEvent("Account loaded: " + this);
+        if (logging) {
+            logEvent("Account loaded: " + this);
+        }
     }
 
     /*
@@ -52,11 +121,14 @@ public class Account implements Writable {
      * EFFECTS: Adds the input security to the account if the ticker
      *          is unique for the provided security.
      */
-    public void addFund(Security security) {
+    public synchronized void addFund(Security security) {
         if (findFund(security.getTicker()) != null) {
             return;
         }
         securities.add(security);
+        tickerIndex.put(security.getTicker(), security);
+        rowIndex.put(security, securities.size() - 1);
+        valuation.track(security);
         logEvent(String.format("Added new security: %s with expected return %.2f and volatility %.2f",
                 security.getTicker(), security.getYearlyReturn(), security.getVolatility()));
     }
@@ -66,56 +138,505 @@ public class Account implements Writable {
      * MODIFIES: this
      * EFFECTS: if the ask price of the security multiplied by
      *          order amount is greater than account balance,
-     *          then balance is reduced by order times ask price
-     *          of the security and order is added to the position, otherwise
-     *          InsufficientBalanceException is thrown.
+     *          or the order breaks a risk limit of the account,
+     *          InsufficientBalanceException is thrown with the reason, otherwise
+     *          balance is reduced by order times ask price
+     *          of the security and order is added to the position.
      */
     public void buyFundAtAskPrice(int order, Security security) throws InsufficientBalanceException {
-        double askPrice = security.getAskPrice();
-        double orderAmount = order * askPrice;
-        if (orderAmount > balance) {
-            logEvent(String.format("Failed to buy: %s QTY%d at $%.2f", security.getTicker(), order, askPrice));
-            throw new InsufficientBalanceException();
+        RejectReason reason = buy(order, security);
+        if (reason != RejectReason.NONE) {
+            throw new InsufficientBalanceException(reason);
         }
-        security.setSecurityPosition(security.getSecurityPosition() + order);
-        balance -= orderAmount;
-        logEvent(String.format("Bought security: %s QTY%d at $%.2f", security.getTicker(), order, askPrice));
     }
 
     /*
      * REQUIRES: security not null, order > 0
      * MODIFIES: this
      * EFFECTS: if the order amount is greater than securities owned in the
-     *          account an InsufficientFundException is thrown, otherwise
+     *          account, or the order breaks a risk limit of the account,
+     *          InsufficientFundsException is thrown with the reason, otherwise
      *          balance is increased by order times bid price of the security
      *          and order is subtracted from the position of the security
      */
     public void sellFundAtBidPrice(int order, Security security) throws InsufficientFundsException {
-        double bidPrice = security.getBidPrice();
-        if (order > security.getSecurityPosition()) {
-            logEvent(String.format("Failed to sell: %s QTY%d at $%.2f", security.getTicker(), order, bidPrice));
-            throw new InsufficientFundsException();
+        RejectReason reason = sell(order, security);
+        if (reason != RejectReason.NONE) {
+            throw new InsufficientFundsException(reason);
         }
-        security.setSecurityPosition(security.getSecurityPosition() - order);
-        balance += order * bidPrice;
-        logEvent(String.format("Sold security: %s QTY%d at $%.2f", security.getTicker(), order, bidPrice));
     }
 
     /*
-     * REQUIRES: ticker not null
-     * EFFECTS: Searches the list of securities for the given ticker
-     *          returns a reference if it can find the fund, returns
-     *          null if it cannot.
+     * REQUIRES: security not null, order > 0
+     * MODIFIES: this
+     * EFFECTS: Checks buying order securities at ask price against the risk limits of the
+     *          account, which by default only require order times ask price to be at most
+     *          balance. If a limit is broken nothing is applied and the reason is returned,
+     *          otherwise balance is reduced by order times ask price, order is added to the
+     *          position and RejectReason.NONE is returned.
+     */
+    public RejectReason buy(int order, Security security) {
+        return trade(Order.Side.BUY, order, security, null);
+    }
+
+    /*
+     * REQUIRES: security not null, order > 0, result not null
+     * MODIFIES: this, result
+     * EFFECTS: Same as buy(order, security), and also fills result with the outcome and
+     *          the ask price the order was checked at. Returns the reason.
+     */
+    public RejectReason buy(int order, Security security, TradeResult result) {
+        return trade(Order.Side.BUY, order, security, result);
+    }
+
+    /*
+     * REQUIRES: security not null, order > 0
+     * MODIFIES: this
+     * EFFECTS: Checks selling order securities at bid price against the risk limits of the
+     *          account, which by default only require order to be at most the position.
+     *          If a limit is broken nothing is applied and the reason is returned, otherwise
+     *          balance is increased by order times bid price, order is subtracted from the
+     *          position and RejectReason.NONE is returned.
+     */
+    public RejectReason sell(int order, Security security) {
+        return trade(Order.Side.SELL, order, security, null);
+    }
+
+    /*
+     * REQUIRES: security not null, order > 0, result not null
+     * MODIFIES: this, result
+     * EFFECTS: Same as sell(order, security), and also fills result with the outcome and
+     *          the bid price the order was checked at. Returns the reason.
+     */
+    public RejectReason sell(int order, Security security, TradeResult result) {
+        return trade(Order.Side.SELL, order, security, result);
+    }
+
+    /*
+     * REQUIRES: side, security not null, order > 0
+     * MODIFIES: this, result
+     * EFFECTS: Checks order securities on the given side against the risk limits, buys at
+     *          ask price and sells at bid price, and applies the fill unless a limit is broken.
+     *          Fills result with the outcome unless it is null, and returns the reason.
+     *          Nothing is allocated unless logging is on.
+     */
+    private synchronized RejectReason trade(Order.Side side, int order, Security security, TradeResult result) {
+        long start = System.nanoTime();
+        boolean buying = side == Order.Side.BUY;
+        double price = buying ? security.getAskPrice() : security.getBidPrice();
+        applyCorporateActions(security);
+        int quantity = buying ? order : -order;
+        RejectReason reason = riskLimits.check(quantity, price, security.getSecurityPosition(), balance,
+                getEquity(), start);
+        boolean filled = reason == RejectReason.NONE;
+        if (filled) {
+            applyFill(security, quantity, price);
+            FILLS.increment();
+        } else {
+            REJECTIONS.increment();
+        }
+        if (logging) {
+            String action = filled ? (buying ? "Bought security" : "Sold security")
+                    : (buying ? "Failed to buy" : "Failed to sell");
+            logEvent(String.format("%s: %s QTY%d at $%.2f", action, security.getTicker(), order, price));
+            recordTrade(side, order, security, price,
+                    filled ? TradeRecord.Status.FILLED : TradeRecord.Status.REJECTED);
+        }
+        if (result != null) {
+            result.set(reason, side, order, security, price);
+        }
+        TRADE_LATENCY.recordSince(start);
+        return reason;
+    }
+
+    /*
+     * REQUIRES: orders not null, every order security is traded in this account
+     * MODIFIES: this
+     * EFFECTS: Executes all orders atomically with submitBasket(orders). If any security would
+     *          end with a position below what may be sold short InsufficientFundsException is
+     *          thrown, if any other limit is broken, such as the net cost of the basket being
+     *          greater than balance, InsufficientBalanceException is thrown. In both cases
+     *          nothing is applied.
      */
-    public Security findFund(String ticker) {
-        Security ans = null;
+    public void executeBasket(List<Order> orders) throws InsufficientBalanceException,
+            InsufficientFundsException {
+        RejectReason reason = submitBasket(orders);
+        if (reason == RejectReason.INSUFFICIENT_POSITION) {
+            throw new InsufficientFundsException(reason);
+        } else if (reason != RejectReason.NONE) {
+            throw new InsufficientBalanceException(reason);
+        }
+    }
+
+    /*
+     * REQUIRES: orders not null, every order security is traded in this account
+     * MODIFIES: this
+     * EFFECTS: Executes all orders atomically using one market snapshot. History of every
+     *          security in the basket is updated once, then all legs are priced from the
+     *          last stored prices (buys at ask, sells at bid). The basket counts as one order
+     *          towards the rate limit, the net change of every position is checked against the
+     *          position limits and the net cost against buying power. If a limit is broken
+     *          nothing is applied and the reason is returned. Otherwise all legs are applied,
+     *          buys before sells, a single event is logged for the basket and RejectReason.NONE
+     *          is returned.
+     */
+    public synchronized RejectReason submitBasket(List<Order> orders) {
+        Map<Security, Integer> netQuantities = netQuantities(orders);
+        for (Security security : netQuantities.keySet()) {
+            security.updateHistory();
+            applyCorporateActions(security);
+        }
+
+        double bought = 0;
+        double sold = 0;
+        for (Order order : orders) {
+            Security security = order.getSecurity();
+            if (order.getSide() == Order.Side.BUY) {
+                bought += order.getQuantity() * security.lastAskPrice();
+            } else {
+                sold += order.getQuantity() * security.lastBidPrice();
+            }
+        }
+
+        RejectReason reason = checkBasket(netQuantities, bought - sold);
+        if (reason != RejectReason.NONE) {
+            if (logging) {
+                logEvent(String.format("Failed basket: %d orders, %s", orders.size(), reason));
+            }
+            recordBasket(orders, TradeRecord.Status.REJECTED);
+            REJECTIONS.increment();
+            return reason;
+        }
+
+        for (Order order : orders) {
+            if (order.getSide() == Order.Side.BUY) {
+                applyFill(order.getSecurity(), order.getQuantity(), order.getSecurity().lastAskPrice());
+            }
+        }
+        for (Order order : orders) {
+            if (order.getSide() == Order.Side.SELL) {
+                applyFill(order.getSecurity(), -order.getQuantity(), order.getSecurity().lastBidPrice());
+            }
+        }
+        if (logging) {
+            logEvent(String.format("Executed basket: %d orders, bought $%.2f, sold $%.2f",
+                    orders.size(), bought, sold));
+        }
+        recordBasket(orders, TradeRecord.Status.FILLED);
+        FILLS.add(orders.size());
+        return RejectReason.NONE;
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: Checks a basket changing positions by netQuantities at a net cost against
+     *          the risk limits and returns the first limit broken, or RejectReason.NONE.
+     */
+    private RejectReason checkBasket(Map<Security, Integer> netQuantities, double netCost) {
+        double equity = getEquity();
+        RejectReason reason = riskLimits.checkRate(System.nanoTime());
+        for (Map.Entry<Security, Integer> entry : netQuantities.entrySet()) {
+            Security security = entry.getKey();
+            int quantity = entry.getValue();
+            if (reason != RejectReason.NONE) {
+                return reason;
+            }
+            if (quantity != 0) {
+                double price = (quantity > 0) ? security.lastAskPrice() : security.lastBidPrice();
+                reason = riskLimits.checkLeg(quantity, price, security.getSecurityPosition(), equity);
+            }
+        }
+        return (reason != RejectReason.NONE) ? reason : riskLimits.checkCost(netCost, balance, equity);
+    }
+
+    /*
+     * REQUIRES: targetWeights not null, every key is traded in this account,
+     *           weights >= 0 and sum of weights <= 1
+     * MODIFIES: this
+     * EFFECTS: Rebalances the account to targetWeights with executeBasket(...) and returns
+     *          the orders of the basket. See ordersToWeights(...) for how they are chosen.
+     */
+    public synchronized List<Order> rebalanceToWeights(Map<Security, Double> targetWeights)
+            throws InsufficientBalanceException, InsufficientFundsException {
+        List<Order> orders = ordersToWeights(targetWeights);
+        if (!orders.isEmpty()) {
+            executeBasket(orders);
+        }
+        return orders;
+    }
+
+    /*
+     * REQUIRES: targetWeights not null, every key is traded in this account,
+     *           weights >= 0 and sum of weights <= 1
+     * EFFECTS: Returns the orders that would rebalance the account so that each security holds
+     *          approximately its target weight of total equity, where equity is balance plus
+     *          every position valued at bid price. Securities of this account missing from
+     *          targetWeights are given weight 0. Target quantities are rounded down using ask
+     *          price so the basket never costs more than the equity. The orders are not executed,
+     *          pass them to submitBasket(...) or executeBasket(...).
+     */
+    public synchronized List<Order> ordersToWeights(Map<Security, Double> targetWeights) {
+        double equity = balance;
+        for (Security security : securities) {
+            security.updateHistory();
+            equity += security.getSecurityPosition() * security.lastBidPrice();
+        }
+
+        List<Order> orders = new ArrayList<>();
         for (Security security : securities) {
-            if (security.getTicker().equals(ticker)) {
-                ans = security;
+            double weight = targetWeights.getOrDefault(security, 0.0);
+            int target = (int) Math.floor(weight * equity / security.lastAskPrice());
+            int delta = target - security.getSecurityPosition();
+            if (delta > 0) {
+                orders.add(Order.buy(delta, security));
+            } else if (delta < 0) {
+                orders.add(Order.sell(-delta, security));
+            }
+        }
+        return orders;
+    }
+
+    /*
+     * REQUIRES: quantity != 0
+     * MODIFIES: this, security
+     * EFFECTS: Applies a fill of quantity securities at price, bought if quantity is positive
+     *          and sold otherwise. Balance, position, volume and cost basis are updated.
+     *          Positions may be short, in which case cost basis is the negative of the
+     *          proceeds of the short sales. A fill reducing a position releases the average
+     *          cost of the securities closed from cost basis and realizes the difference to
+     *          what they were closed at as profit and loss; any remainder opens a position
+     *          on the other side.
+     */
+    private void applyFill(Security security, int quantity, double price) {
+        int position = security.getSecurityPosition();
+        double cost = security.getCostBasis();
+        if (position == 0 || Integer.signum(position) == Integer.signum(quantity)) {
+            cost += quantity * price;
+        } else {
+            int closed = Math.min(Math.abs(quantity), Math.abs(position)) * Integer.signum(quantity);
+            double released = cost * -closed / position;
+            valuation.realize(-closed * price - released);
+            cost += (quantity - closed) * price - released;
+        }
+        security.setSecurityPosition(position + quantity);
+        security.setCostBasis(cost);
+        security.addVolume(Math.abs(quantity));
+        balance -= quantity * price;
+        valuation.positionChanged(security);
+    }
+
+    /*
+     * REQUIRES: days >= 0, the valuation marks positions at the prices of the last day
+     * MODIFIES: this, securities
+     * EFFECTS: Applies pending corporate actions with applyCorporateActions(), then
+     *          settles the financing of days trading days: every day interest on balance
+     *          and the fee for borrowing short positions are added to balance and realized as
+     *          profit and loss. Then if equity is below the maintenance margin of the gross
+     *          exposure, liquidates positions with liquidate(). Returns the number of positions
+     *          liquidated.
+     */
+    public synchronized int accrueDays(int days) {
+        applyCorporateActions();
+        double financing = 0;
+        for (int i = 0; i < days; i++) {
+            double amount = marginTerms.dailyFinancing(balance, valuation.getShortValue());
+            balance += amount;
+            financing += amount;
+        }
+        if (financing != 0) {
+            valuation.realize(financing);
+            if (logging) {
+                logEvent(String.format("Accrued interest and fees of $%.2f over %d days", financing, days));
+            }
+        }
+        if (marginTerms.isMarginCall(getEquity(), valuation.getGrossExposure())) {
+            return liquidate();
+        }
+        return 0;
+    }
+
+    /*
+     * MODIFIES: this, securities
+     * EFFECTS: Meets a margin call by closing positions at the last stored prices, longs at
+     *          bid and shorts at ask, largest exposure first, until equity is back above the
+     *          maintenance margin or no positions are left. Liquidations are not checked
+     *          against the risk limits. Returns the number of positions closed.
+     */
+    private int liquidate() {
+        int closed = 0;
+        while (marginTerms.isMarginCall(getEquity(), valuation.getGrossExposure())) {
+            Security largest = null;
+            double largestExposure = 0;
+            for (Security security : valuation.getHeld()) {
+                double exposure = Math.abs(valuation.getMarketValue(security));
+                if (largest == null || exposure > largestExposure) {
+                    largest = security;
+                    largestExposure = exposure;
+                }
+            }
+            if (largest == null) {
                 break;
             }
+            int position = largest.getSecurityPosition();
+            Order.Side side = (position > 0) ? Order.Side.SELL : Order.Side.BUY;
+            double price = (position > 0) ? largest.lastBidPrice() : largest.lastAskPrice();
+            applyFill(largest, -position, price);
+            if (logging) {
+                logEvent(String.format("Margin call, liquidated: %s QTY%d at $%.2f",
+                        largest.getTicker(), position, price));
+            }
+            recordTrade(side, Math.abs(position), largest, price, TradeRecord.Status.FILLED);
+            FILLS.increment();
+            closed++;
+        }
+        return closed;
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: Brings the history of every security held up to date and applies the corporate
+     *          actions that took effect, so that the valuation marks every position at its
+     *          current bid price, and returns the valuation. Securities without a position are
+     *          not visited, so the cost does not grow with the number of securities traded.
+     */
+    public synchronized Valuation markToMarket() {
+        for (Security security : valuation.getHeld()) {
+            security.updateHistory();
+            applyCorporateActions(security);
+        }
+        return valuation;
+    }
+
+    /*
+     * REQUIRES: security is a security of this account, applied >= 0
+     * MODIFIES: this
+     * EFFECTS: Records that only the first applied corporate actions of security, in order of
+     *          ex-day, were applied to the position, as in a save file taken before the others
+     *          were. The others are applied with the next corporate actions applied.
+     */
+    public synchronized void setActionsApplied(Security security, int applied) {
+        valuation.setActionsApplied(security, Math.min(applied, security.getCorporateActions().size()));
+    }
+
+    /*
+     * MODIFIES: this, securities
+     * EFFECTS: Applies every corporate action that took effect on a security held by this
+     *          account since it was last applied, in one pass over the positions. Actions on
+     *          securities without a position change nothing and are applied before the next
+     *          trade in the security.
+     */
+    public synchronized void applyCorporateActions() {
+        for (Security security : valuation.getHeld()) {
+            applyCorporateActions(security);
+        }
+    }
+
+    /*
+     * MODIFIES: this, security
+     * EFFECTS: Applies the corporate actions of security not applied to this account yet,
+     *          in order of ex-day.
+     */
+    private void applyCorporateActions(Security security) {
+        List<CorporateAction> actions = security.getCorporateActions();
+        int applied = valuation.getActionsApplied(security);
+        if (applied == actions.size()) {
+            return;
+        }
+        for (; applied < actions.size(); applied++) {
+            applyCorporateAction(security, actions.get(applied));
+        }
+        valuation.setActionsApplied(security, applied);
+    }
+
+    /*
+     * MODIFIES: this, security
+     * EFFECTS: Applies action to the position in security. A dividend pays the amount per share
+     *          held into balance, or charges it if the position is short, and realizes it as
+     *          profit and loss. A split multiplies the position by its ratio keeping the cost
+     *          basis; a fraction of a share left over is paid out in cash at the bid price.
+     */
+    private void applyCorporateAction(Security security, CorporateAction action) {
+        int position = security.getSecurityPosition();
+        if (position == 0) {
+            return;
+        }
+        if (action.getType() == CorporateAction.Type.DIVIDEND) {
+            double cash = position * action.getAmount();
+            balance += cash;
+            valuation.realize(cash);
+            if (logging) {
+                logEvent(String.format("Dividend: %s QTY%d at $%.2f, paid $%.2f",
+                        security.getTicker(), position, action.getAmount(), cash));
+            }
+            return;
+        }
+        double exact = position * action.getAmount();
+        int split = (int) exact;
+        double cost = security.getCostBasis();
+        double fraction = exact - split;
+        if (fraction != 0) {
+            double released = cost * fraction / exact;
+            double cash = fraction * security.lastBidPrice();
+            balance += cash;
+            valuation.realize(cash - released);
+            cost -= released;
+        }
+        security.setSecurityPosition(split);
+        security.setCostBasis(cost);
+        valuation.positionChanged(security);
+        if (logging) {
+            logEvent(String.format("Split: %s QTY%d became QTY%d", security.getTicker(), position, split));
         }
-        return ans;
+    }
+
+    /*
+     * EFFECTS: Returns total equity, balance plus every position valued at its last bid price.
+     */
+    public double getEquity() {
+        return balance + valuation.getMarketValue();
+    }
+
+    /*
+     * EFFECTS: Returns net signed quantity per security in orders, keeping the order
+     *          in which securities first appear.
+     */
+    private static Map<Security, Integer> netQuantities(List<Order> orders) {
+        Map<Security, Integer> netQuantities = new LinkedHashMap<>();
+        for (Order order : orders) {
+            netQuantities.merge(order.getSecurity(), order.signedQuantity(), Integer::sum);
+        }
+        return netQuantities;
+    }
+
+    /*
+     * REQUIRES: ticker not null
+     * EFFECTS: Searches the securities for the given ticker
+     *          returns a reference if it can find the fund, returns
+     *          null if it cannot.
+     */
+    public synchronized Security findFund(String ticker) {
+        return tickerIndex.get(ticker);
+    }
+
+    /*
+     * REQUIRES: security not null
+     * EFFECTS: Returns the index of security in getSecurities(), or -1 if it is not a
+     *          security of this account, without searching the list.
+     */
+    public synchronized int indexOf(Security security) {
+        Integer row = rowIndex.get(security);
+        return (row == null) ? -1 : row;
+    }
+
+    /*
+     * REQUIRES: prefix not null
+     * EFFECTS: Returns the securities whose ticker starts with prefix, sorted by ticker.
+     */
+    public synchronized List<Security> findFundsByPrefix(String prefix) {
+        if (prefix.isEmpty()) {
+            return new ArrayList<>(tickerIndex.values());
+        }
+        return new ArrayList<>(tickerIndex.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values());
     }
 
 
@@ -136,32 +657,50 @@ public class Account implements Writable {
     }
 
     /*
-     * EFFECTS: returns this account as a JSON object
+     * EFFECTS: Returns a consistent, immutable snapshot of this account and its securities.
+     *          Trades are synchronized with taking the snapshot, so balance and positions
+     *          always match. The snapshot can be written out on another thread. It is taken
+     *          at the latest time of the clocks of the securities.
      */
-    @Override
-    public JSONObject toJson() {
-        JSONObject json = new JSONObject();
-        json.put("name", name);
-        json.put("balance", balance);
-        json.put("securities", fundsToJson());
-        return json;
+    public synchronized AccountSnapshot snapshot() {
+        List<AccountSnapshot.SecuritySnapshot> snapshots = new ArrayList<>(securities.size());
+        Instant marketTime = Instant.MIN;
+        for (Security security : securities) {
+            snapshots.add(security.snapshot(valuation.getActionsApplied(security)));
+            Instant now = security.getClock().now();
+            marketTime = now.isAfter(marketTime) ? now : marketTime;
+        }
+        if (securities.isEmpty()) {
+            marketTime = MarketClock.getDefault().now();
+        }
+        return new AccountSnapshot(name, balance, valuation.getRealizedPnl(), riskLimits, marginTerms, snapshots,
+                marketTime);
     }
 
     /*
-     * EFFECTS: returns securities in this account as a JSON array
+     * EFFECTS: returns this account as a JSON object
      */
-    private JSONArray fundsToJson() {
-        JSONArray jsonArray = new JSONArray();
-        for (Security f : securities) {
-            jsonArray.put(f.toJson());
-        }
-        return jsonArray;
+    @Override
+    public JSONObject toJson() {
+        return snapshot().toJson();
     }
 
     public List<Security> getSecurities() {
         return securities;
     }
 
+    public RiskLimits getRiskLimits() {
+        return riskLimits;
+    }
+
+    public MarginTerms getMarginTerms() {
+        return marginTerms;
+    }
+
+    public Valuation getValuation() {
+        return valuation;
+    }
+
     public double getBalance() {
         return balance;
     }
@@ -170,7 +709,46 @@ public class Account implements Writable {
         return name;
     }
 
+    /*
+     * MODIFIES: this
+     * EFFECTS: Turns recording of this account's events in the EventLog on or off.
+     *          Trades are recorded in the TradeLog only while it is on. Batch simulations
+     *          turn it off so that thousands of accounts do not fill the logs of the
+     *          user's session.
+     */
+    public void setLogging(boolean logging) {
+        this.logging = logging;
+    }
+
+    /*
+     * EFFECTS: Records every leg of a basket in the TradeLog with the given status,
+     *          buys at ask price and sells at bid price, unless logging is turned off.
+     */
+    private void recordBasket(List<Order> orders, TradeRecord.Status status) {
+        for (Order order : orders) {
+            Security security = order.getSecurity();
+            double price = (order.getSide() == Order.Side.BUY) ? security.lastAskPrice() : security.lastBidPrice();
+            recordTrade(order.getSide(), order.getQuantity(), security, price, status);
+        }
+    }
+
+    /*
+     * EFFECTS: Records quantity of security traded on side at price with the given status in
+     *          the TradeLog, at the current time of the security clock, unless logging is turned off.
+     */
+    private void recordTrade(Order.Side side, int quantity, Security security, double price,
+                             TradeRecord.Status status) {
+        if (!logging) {
+            return;
+        }
+        TradeLog.getInstance().record(new TradeRecord(security.getClock().nowMillis(), name,
+                security.getTicker(), side, quantity, price, status));
+    }
+
     private void logEvent(String event) {
+        if (!logging) {
+            return;
+        }
         EventLog eventLog = EventLog.getInstance();
         Event e = new Event("Account@" + this.hashCode() + ": " + event);
         eventLog.logEvent(e);
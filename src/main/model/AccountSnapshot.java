@@ -0,0 +1,371 @@
+package model;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import persistence.HistoryCodec;
+import persistence.Writable;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/*
+ * Represents an immutable, consistent copy of an account and its securities taken at one
+ * point in time. Histories are shared with the securities they were taken from: each
+ * snapshot only reads the prefix of history that existed when it was taken, which is
+ * never modified again, so it can be written out on another thread while trading continues.
+ */
+public class AccountSnapshot implements Writable {
+    private final String name;                         // the account owner name
+    private final double balance;                      // balance of the account when taken
+    private final double realizedPnl;                  // profit and loss realized when taken
+    private final RiskLimits riskLimits;               // copy of the risk limits when taken
+    private final MarginTerms marginTerms;             // copy of the financing terms when taken
+    private final List<SecuritySnapshot> securities;   // snapshots of the account securities
+    private final Instant marketTime;                  // time of the market clock when taken
+
+    /*
+     * REQUIRES: name not null, securities not null, marketTime not null
+     * EFFECTS: Creates a snapshot of an account with name, balance, realized profit and loss,
+     *          copies of riskLimits and marginTerms, and securities, taken at marketTime.
+     */
+    AccountSnapshot(String name, double balance, double realizedPnl, RiskLimits riskLimits,
+                    MarginTerms marginTerms, List<SecuritySnapshot> securities, Instant marketTime) {
+        this.name = name;
+        this.balance = balance;
+        this.realizedPnl = realizedPnl;
+        this.riskLimits = new RiskLimits();
+        this.riskLimits.setLimits(riskLimits);
+        this.marginTerms = new MarginTerms();
+        this.marginTerms.setTerms(marginTerms);
+        this.securities = Collections.unmodifiableList(securities);
+        this.marketTime = marketTime;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getBalance() {
+        return balance;
+    }
+
+    public double getRealizedPnl() {
+        return realizedPnl;
+    }
+
+    public List<SecuritySnapshot> getSecurities() {
+        return securities;
+    }
+
+    public Instant getMarketTime() {
+        return marketTime;
+    }
+
+    /*
+     * EFFECTS: Returns a copy of the financing terms of the account when taken.
+     */
+    public MarginTerms getMarginTerms() {
+        MarginTerms copy = new MarginTerms();
+        copy.setTerms(marginTerms);
+        return copy;
+    }
+
+    /*
+     * EFFECTS: returns this snapshot as a JSON object, in the same format as Account.toJson()
+     */
+    @Override
+    public JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        json.put("name", name);
+        json.put("balance", balance);
+        json.put("realizedPnl", realizedPnl);
+        json.put("riskLimits", riskLimits.toJson());
+        json.put("marginTerms", marginTerms.toJson());
+        json.put("marketTime", marketTime.toString());
+        JSONArray jsonArray = new JSONArray();
+        for (SecuritySnapshot s : securities) {
+            jsonArray.put(s.toJson());
+        }
+        json.put("securities", jsonArray);
+        return json;
+    }
+
+    /*
+     * Represents an immutable copy of a security taken at one point in time.
+     */
+    public static class SecuritySnapshot implements Writable {
+        private final String ticker;         // Ticker symbol that represents security
+        private final double yearlyReturn;   // Average annual percent return of the security
+        private final double volatility;     // Annual standard deviation of the percent return
+        private volatile TieredHistory prices; // Price history, sharing the sealed segments of the security,
+                                               // null until decoded if taken of an encoded history
+        private final int length;            // Number of prices in history when taken
+        private final double lastPrice;      // Last price of history
+        private final String encodedHistory; // History as loaded, Base64 HistoryCodec, null if never encoded
+        private final double[] tail;         // Prices appended after encodedHistory, null if never encoded
+        private final Instant lastUpdate;    // Time of last history update
+        private final int securityPosition;  // Number of securities account owned
+        private final double costBasis;      // Amount paid for the securities account owned
+        private final List<CorporateAction> corporateActions; // Applied and scheduled corporate actions
+        private final int actionsApplied;    // Number of corporate actions applied to the position
+        private final Map<Integer, Long> volumes; // Quantity traded by day of history, days with trades only
+
+        /*
+         * REQUIRES: prices has at least one price and is never modified afterwards,
+         *           actionsApplied at most the number of corporate actions with ex-day in history
+         * EFFECTS: Creates a snapshot of a security with the given fields.
+         */
+        SecuritySnapshot(String ticker, double yearlyReturn, double volatility, TieredHistory prices,
+                         Instant lastUpdate, int securityPosition, double costBasis,
+                         List<CorporateAction> corporateActions, int actionsApplied, Map<Integer, Long> volumes) {
+            this.ticker = ticker;
+            this.yearlyReturn = yearlyReturn;
+            this.volatility = volatility;
+            this.prices = prices;
+            this.length = prices.size();
+            this.lastPrice = prices.getDouble(length - 1);
+            this.encodedHistory = null;
+            this.tail = null;
+            this.lastUpdate = lastUpdate;
+            this.securityPosition = securityPosition;
+            this.costBasis = costBasis;
+            this.corporateActions = Collections.unmodifiableList(corporateActions);
+            this.actionsApplied = actionsApplied;
+            this.volumes = Collections.unmodifiableMap(volumes);
+        }
+
+        /*
+         * REQUIRES: encodedHistory produced by HistoryCodec.toBase64(...) with encodedSize prices,
+         *           tail never modified afterwards, lastPrice the last price of encodedHistory
+         *           followed by tail, actionsApplied at most the number of corporate actions
+         *           with ex-day in history
+         * EFFECTS: Creates a snapshot of a security whose history has not been decoded. History is
+         *          decoded on the first request for one of its prices; the last price and saving
+         *          to JSON do not need it.
+         */
+        SecuritySnapshot(String ticker, double yearlyReturn, double volatility, String encodedHistory,
+                         int encodedSize, double[] tail, double lastPrice, Instant lastUpdate,
+                         int securityPosition, double costBasis, List<CorporateAction> corporateActions,
+                         int actionsApplied, Map<Integer, Long> volumes) {
+            this.ticker = ticker;
+            this.yearlyReturn = yearlyReturn;
+            this.volatility = volatility;
+            this.length = encodedSize + tail.length;
+            this.lastPrice = lastPrice;
+            this.encodedHistory = encodedHistory;
+            this.tail = tail;
+            this.lastUpdate = lastUpdate;
+            this.securityPosition = securityPosition;
+            this.costBasis = costBasis;
+            this.corporateActions = Collections.unmodifiableList(corporateActions);
+            this.actionsApplied = actionsApplied;
+            this.volumes = Collections.unmodifiableMap(volumes);
+        }
+
+        /*
+         * EFFECTS: Returns prices of history, decoding them first one at a time into a tiered
+         *          history if this was taken of an encoded history.
+         */
+        private TieredHistory prices() {
+            TieredHistory decoded = prices;
+            if (decoded == null) {
+                synchronized (this) {
+                    decoded = prices;
+                    if (decoded == null) {
+                        decoded = new TieredHistory();
+                        PrimitiveIterator.OfDouble iterator = pricesFrom(0);
+                        while (iterator.hasNext()) {
+                            decoded.addDouble(iterator.nextDouble());
+                        }
+                        prices = decoded;
+                    }
+                }
+            }
+            return decoded;
+        }
+
+        public String getTicker() {
+            return ticker;
+        }
+
+        public double getYearlyReturn() {
+            return yearlyReturn;
+        }
+
+        public double getVolatility() {
+            return volatility;
+        }
+
+        public int getHistorySize() {
+            return length;
+        }
+
+        /*
+         * REQUIRES: 0 <= i < getHistorySize()
+         * EFFECTS: Returns price of day i in history.
+         */
+        public double getPrice(int i) {
+            return prices().getDouble(i);
+        }
+
+        /*
+         * REQUIRES: 0 <= from <= getHistorySize()
+         * EFFECTS: Returns an iterator over the prices of history from day from on. A history
+         *          that was not decoded is not decoded in full: prices appended after the
+         *          encoding are read as they are, and encoded prices are decoded one at a time,
+         *          so no copy of the whole history is made.
+         */
+        public PrimitiveIterator.OfDouble pricesFrom(int from) {
+            TieredHistory decoded = prices;
+            if (decoded != null) {
+                return new PrimitiveIterator.OfDouble() {
+                    private int day = from; // Day of the next price
+
+                    @Override
+                    public boolean hasNext() {
+                        return day < length;
+                    }
+
+                    @Override
+                    public double nextDouble() {
+                        if (day >= length) {
+                            throw new NoSuchElementException();
+                        }
+                        return decoded.getDouble(day++);
+                    }
+                };
+            }
+            if (from >= length - tail.length) {
+                int offset = length - tail.length;
+                return new PrimitiveIterator.OfDouble() {
+                    private int day = from; // Day of the next price
+
+                    @Override
+                    public boolean hasNext() {
+                        return day < length;
+                    }
+
+                    @Override
+                    public double nextDouble() {
+                        if (day >= length) {
+                            throw new NoSuchElementException();
+                        }
+                        return tail[day++ - offset];
+                    }
+                };
+            }
+            HistoryCodec.Decoder decoder = new HistoryCodec.Decoder(Base64.getDecoder().decode(encodedHistory));
+            for (int day = 0; day < from; day++) {
+                decoder.next();
+            }
+            return new PrimitiveIterator.OfDouble() {
+                private int day = from; // Day of the next price
+
+                @Override
+                public boolean hasNext() {
+                    return day < length;
+                }
+
+                @Override
+                public double nextDouble() {
+                    if (day >= length) {
+                        throw new NoSuchElementException();
+                    }
+                    int encoded = length - tail.length;
+                    return (day++ < encoded) ? decoder.next() : tail[day - 1 - encoded];
+                }
+            };
+        }
+
+        /*
+         * EFFECTS: Returns the last price of history without decoding it.
+         */
+        public double getLastPrice() {
+            return lastPrice;
+        }
+
+        /*
+         * EFFECTS: Returns a copy of history as a list.
+         */
+        public List<Double> getHistory() {
+            TieredHistory prices = prices();
+            List<Double> history = new ArrayList<>(length);
+            for (int i = 0; i < length; i++) {
+                history.add(prices.getDouble(i));
+            }
+            return history;
+        }
+
+        public Instant getLastUpdate() {
+            return lastUpdate;
+        }
+
+        public int getSecurityPosition() {
+            return securityPosition;
+        }
+
+        public double getCostBasis() {
+            return costBasis;
+        }
+
+        public List<CorporateAction> getCorporateActions() {
+            return corporateActions;
+        }
+
+        /*
+         * EFFECTS: Returns the number of corporate actions, in order of ex-day, that were applied
+         *          to the position when taken. The others with ex-day in history are still pending.
+         */
+        public int getActionsApplied() {
+            return actionsApplied;
+        }
+
+        /*
+         * EFFECTS: Returns the quantity traded on every day of history with trades, by day.
+         */
+        public Map<Integer, Long> getVolumes() {
+            return volumes;
+        }
+
+        /*
+         * EFFECTS: returns this snapshot as a JSON object, in the same format as Security.toJson().
+         *          History is stored compressed with HistoryCodec as a Base64 string. A history
+         *          that was never decoded is written as loaded, followed by the prices appended
+         *          to it since, so saving does not decode it.
+         */
+        @Override
+        public JSONObject toJson() {
+            JSONObject json = new JSONObject();
+            json.put("ticker", ticker);
+            json.put("yearlyReturn", yearlyReturn);
+            json.put("volatility", volatility);
+            json.put("historyEncoding", HistoryCodec.ENCODING);
+            if (encodedHistory == null) {
+                json.put("history", HistoryCodec.toBase64(prices::getDouble, length));
+            } else {
+                json.put("history", encodedHistory);
+                if (tail.length > 0) {
+                    json.put("historyTail", HistoryCodec.toBase64(tail, tail.length));
+                }
+            }
+            json.put("lastPrice", lastPrice);
+            json.put("lastUpdate", lastUpdate.toString());
+            json.put("securityPosition", securityPosition);
+            json.put("costBasis", costBasis);
+            json.put("actionsApplied", actionsApplied);
+            JSONArray actions = new JSONArray();
+            for (CorporateAction action : corporateActions) {
+                actions.put(action.toJson());
+            }
+            json.put("corporateActions", actions);
+            json.put("volumes", new JSONObject(volumes));
+            return json;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package model;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/*
+ * Represents a read-only view of price history adjusted for corporate actions, so that prices
+ * before a dividend or split are comparable with prices after it. Nothing is copied: a price is
+ * read from the stored history when requested and multiplied by the combined adjustment factor
+ * of every action after it. Only one factor per action is computed when the view is created.
+ * The view covers the history as it was when created.
+ */
+public class AdjustedHistory extends AbstractList<Double> implements RandomAccess {
+    private final TieredHistory history;  // Unadjusted prices, never modified by this view
+    private final int size;               // Number of prices in history when created
+    private final int[] days;             // Ex-days of the actions applied to history, ascending
+    private final double[] factors;       // factors[k] is the product of the factors of actions k and later
+
+    /*
+     * REQUIRES: history not null, actions sorted by day, every action day < history.size()
+     * EFFECTS: Creates a view of history adjusted for actions.
+     */
+    AdjustedHistory(TieredHistory history, List<CorporateAction> actions) {
+        this.history = history;
+        this.size = history.size();
+        this.days = new int[actions.size()];
+        this.factors = new double[actions.size() + 1];
+        factors[actions.size()] = 1;
+        for (int k = actions.size() - 1; k >= 0; k--) {
+            CorporateAction action = actions.get(k);
+            days[k] = action.getDay();
+            factors[k] = factors[k + 1] * action.adjustmentFactor(history.getDouble(action.getDay() - 1));
+        }
+    }
+
+    /*
+     * REQUIRES: 0 <= i < size()
+     * EFFECTS: Returns price of day i adjusted for every corporate action after it.
+     */
+    public double getDouble(int i) {
+        int k = 0;
+        int high = days.length;
+        while (k < high) {
+            int mid = (k + high) >>> 1;
+            if (days[mid] <= i) {
+                k = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return history.getDouble(i) * factors[k];
+    }
+
+    @Override
+    public Double get(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException(i);
+        }
+        return getDouble(i);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
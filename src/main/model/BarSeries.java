@@ -0,0 +1,176 @@
+package model;
+
+import java.util.Arrays;
+
+/*
+ * Represents open, high, low, close and volume bars of a fixed time interval.
+ * Ticks are aggregated into the bar containing their timestamp. Bars are stored in
+ * parallel primitive columns ordered by start time, so a time range can be found
+ * with a binary search over the start time column.
+ */
+public class BarSeries {
+    private static final int INITIAL_CAPACITY = 16; // Initial number of bars that can be stored
+
+    private final long intervalMillis; // Length of each bar in milliseconds
+    private long[] starts;             // Start time of each bar in epoch milliseconds
+    private double[] opens;            // First price of each bar
+    private double[] highs;            // Highest price of each bar
+    private double[] lows;             // Lowest price of each bar
+    private double[] closes;           // Last price of each bar
+    private long[] volumes;            // Quantity traded in each bar
+    private int size;                  // Number of bars stored
+
+    /*
+     * REQUIRES: intervalMillis > 0
+     * EFFECTS: Creates an empty series of bars of length intervalMillis.
+     */
+    public BarSeries(long intervalMillis) {
+        this.intervalMillis = intervalMillis;
+        starts = new long[INITIAL_CAPACITY];
+        opens = new double[INITIAL_CAPACITY];
+        highs = new double[INITIAL_CAPACITY];
+        lows = new double[INITIAL_CAPACITY];
+        closes = new double[INITIAL_CAPACITY];
+        volumes = new long[INITIAL_CAPACITY];
+    }
+
+    /*
+     * REQUIRES: timeMillis is not before the start of the last bar, price > 0
+     * MODIFIES: this
+     * EFFECTS: Adds a price tick at timeMillis to the bar containing it,
+     *          starting a new bar aligned to the interval if needed.
+     */
+    public void addTick(long timeMillis, double price) {
+        if (size == 0 || timeMillis >= starts[size - 1] + intervalMillis) {
+            startBar(Math.floorDiv(timeMillis, intervalMillis) * intervalMillis, price);
+        } else {
+            int last = size - 1;
+            highs[last] = Math.max(highs[last], price);
+            lows[last] = Math.min(lows[last], price);
+            closes[last] = price;
+        }
+    }
+
+    /*
+     * REQUIRES: size() > 0, quantity > 0
+     * MODIFIES: this
+     * EFFECTS: Adds quantity to the volume of the last bar.
+     */
+    public void addVolume(long quantity) {
+        volumes[size - 1] += quantity;
+    }
+
+    /*
+     * REQUIRES: 0 <= i < size(), quantity >= 0
+     * MODIFIES: this
+     * EFFECTS: Sets the volume of bar i to quantity.
+     */
+    public void setVolume(int i, long quantity) {
+        volumes[i] = quantity;
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: Appends a bar starting at start with all prices set to price and no volume.
+     */
+    private void startBar(long start, double price) {
+        if (size == starts.length) {
+            int grown = size * 2;
+            starts = Arrays.copyOf(starts, grown);
+            opens = Arrays.copyOf(opens, grown);
+            highs = Arrays.copyOf(highs, grown);
+            lows = Arrays.copyOf(lows, grown);
+            closes = Arrays.copyOf(closes, grown);
+            volumes = Arrays.copyOf(volumes, grown);
+        }
+        starts[size] = start;
+        opens[size] = price;
+        highs[size] = price;
+        lows[size] = price;
+        closes[size] = price;
+        volumes[size] = 0;
+        size++;
+    }
+
+    /*
+     * EFFECTS: Returns the index of the first bar starting at or after timeMillis,
+     *          or size() if there is no such bar.
+     */
+    public int indexAtOrAfter(long timeMillis) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] < timeMillis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /*
+     * EFFECTS: Returns the index of the first bar that ends after fromMillis, i.e. the
+     *          first bar overlapping a range starting at fromMillis, or size() if there is none.
+     */
+    public int firstIndexOverlapping(long fromMillis) {
+        return indexAtOrAfter(fromMillis - intervalMillis + 1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    /*
+     * REQUIRES: 0 <= i < size()
+     * EFFECTS: Returns start time of bar i in epoch milliseconds.
+     */
+    public long start(int i) {
+        return starts[i];
+    }
+
+    /*
+     * REQUIRES: 0 <= i < size()
+     * EFFECTS: Returns first price of bar i.
+     */
+    public double open(int i) {
+        return opens[i];
+    }
+
+    /*
+     * REQUIRES: 0 <= i < size()
+     * EFFECTS: Returns highest price of bar i.
+     */
+    public double high(int i) {
+        return highs[i];
+    }
+
+    /*
+     * REQUIRES: 0 <= i < size()
+     * EFFECTS: Returns lowest price of bar i.
+     */
+    public double low(int i) {
+        return lows[i];
+    }
+
+    /*
+     * REQUIRES: 0 <= i < size()
+     * EFFECTS: Returns last price of bar i.
+     */
+    public double close(int i) {
+        return closes[i];
+    }
+
+    /*
+     * REQUIRES: 0 <= i < size()
+     * EFFECTS: Returns quantity traded in bar i.
+     */
+    public long volume(int i) {
+        return volumes[i];
+    }
+}
@@ -0,0 +1,102 @@
+package model;
+
+import org.json.JSONObject;
+import persistence.Writable;
+
+/*
+ * Represents a corporate action of a security: a cash dividend paying an amount per share,
+ * or a split replacing every share with ratio shares. An action takes effect on its ex-day,
+ * the index in history of the first price that no longer includes it. Prices open that day
+ * lowered by the dividend or divided by the ratio of the split.
+ */
+public class CorporateAction implements Writable {
+    /*
+     * Represents the kind of a corporate action.
+     */
+    public enum Type {
+        DIVIDEND,
+        SPLIT
+    }
+
+    private final Type type;      // Dividend or split
+    private final int day;        // Index in history of the ex-day
+    private final double amount;  // Cash per share of a dividend, new shares per share of a split
+
+    /*
+     * REQUIRES: type not null, day > 0, amount > 0
+     * EFFECTS: Creates a corporate action of type taking effect on day with amount.
+     */
+    public CorporateAction(Type type, int day, double amount) {
+        this.type = type;
+        this.day = day;
+        this.amount = amount;
+    }
+
+    /*
+     * REQUIRES: day > 0, amountPerShare > 0 and less than the price before day
+     * EFFECTS: Returns a dividend paying amountPerShare for every share held before day.
+     */
+    public static CorporateAction dividend(int day, double amountPerShare) {
+        return new CorporateAction(Type.DIVIDEND, day, amountPerShare);
+    }
+
+    /*
+     * REQUIRES: day > 0, ratio > 0
+     * EFFECTS: Returns a split replacing every share held before day with ratio shares,
+     *          for example 2 for a two-for-one split and 0.1 for a one-for-ten reverse split.
+     */
+    public static CorporateAction split(int day, double ratio) {
+        return new CorporateAction(Type.SPLIT, day, ratio);
+    }
+
+    /*
+     * REQUIRES: previousClose > amount if this is a dividend
+     * EFFECTS: Returns the price a security that closed at previousClose opens at on the ex-day.
+     */
+    public double exPrice(double previousClose) {
+        return (type == Type.DIVIDEND) ? previousClose - amount : previousClose / amount;
+    }
+
+    /*
+     * REQUIRES: previousClose > amount if this is a dividend
+     * EFFECTS: Returns the factor that prices before the ex-day are multiplied by to be
+     *          comparable with prices from the ex-day on, given the close before the ex-day.
+     */
+    public double adjustmentFactor(double previousClose) {
+        return exPrice(previousClose) / previousClose;
+    }
+
+    /*
+     * EFFECTS: returns this action as a JSON object
+     */
+    @Override
+    public JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        json.put("type", type.name());
+        json.put("day", day);
+        json.put("amount", amount);
+        return json;
+    }
+
+    /*
+     * EFFECTS: returns a string representation of this action
+     */
+    @Override
+    public String toString() {
+        return (type == Type.DIVIDEND)
+                ? String.format("day %d: dividend of $%.2f per share", day, amount)
+                : String.format("day %d: split of %s for 1", day, amount);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getDay() {
+        return day;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+}
@@ -0,0 +1,51 @@
+package model;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/*
+ * Represents a market clock that only moves when it is advanced. Used to simulate
+ * long horizons as fast as the market can generate them, independent of real time.
+ */
+public class DiscreteClock extends MarketClock {
+    private volatile long now;      // current time of the clock in nanoseconds since the epoch
+
+    /*
+     * REQUIRES: start not null
+     * EFFECTS: Creates a clock standing still at start.
+     */
+    public DiscreteClock(Instant start) {
+        this.now = toNanos(start);
+    }
+
+    @Override
+    public long nowNanos() {
+        return now;
+    }
+
+    /*
+     * EFFECTS: Returns Duration.ZERO, since time on this clock does not depend on real time.
+     */
+    @Override
+    public Duration realTimeOf(Duration simulated) {
+        return Duration.ZERO;
+    }
+
+    /*
+     * REQUIRES: length is not negative
+     * MODIFIES: this
+     * EFFECTS: Moves the clock forward by length.
+     */
+    public synchronized void advance(Duration length) {
+        now += length.toNanos();
+    }
+
+    /*
+     * REQUIRES: days >= 0
+     * MODIFIES: this
+     * EFFECTS: Moves the clock forward by the given number of simulated trading days.
+     */
+    public void advanceDays(int days) {
+        advance(Security.dayLength().multipliedBy(days));
+    }
+}
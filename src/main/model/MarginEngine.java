@@ -0,0 +1,115 @@
+package model;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Represents the batch that settles the financing of many accounts at simulated day boundaries.
+ * The engine listens to a calendar security: every price Security.updateHistory() appends to it
+ * closes one trading day. settle() applies the corporate actions that took effect and accrues
+ * all days closed since the last settlement on every account at once, so dividends, splits,
+ * interest, borrow fees and margin calls are computed in one pass per batch instead of on every
+ * price. Large account sets are evaluated in parallel on a work-stealing pool. An engine that is
+ * no longer used must be closed, or the calendar keeps it and its accounts reachable.
+ */
+public class MarginEngine implements PriceListener {
+    private static final int PARALLEL_THRESHOLD = 64; // Fewest accounts evaluated in parallel
+
+    private final Security calendar;                 // security whose days are settled
+    private final List<Account> accounts;            // accounts settled every batch
+    private final ForkJoinPool pool;                 // workers evaluating large account sets
+    private final AtomicInteger pendingDays;         // days closed since the last settlement
+
+    /*
+     * REQUIRES: calendar not null, parallelism > 0
+     * MODIFIES: calendar
+     * EFFECTS: Creates an engine with no accounts settling the days of calendar,
+     *          evaluating large account sets on parallelism worker threads.
+     */
+    public MarginEngine(Security calendar, int parallelism) {
+        this.calendar = calendar;
+        this.accounts = new CopyOnWriteArrayList<>();
+        this.pool = new ForkJoinPool(parallelism);
+        this.pendingDays = new AtomicInteger();
+        calendar.addPriceListener(this);
+    }
+
+    /*
+     * REQUIRES: account not null
+     * MODIFIES: this
+     * EFFECTS: Adds account to the accounts settled every batch.
+     */
+    public void addAccount(Account account) {
+        accounts.add(account);
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: Counts a closed trading day if the price was appended to the calendar.
+     */
+    @Override
+    public void priceChanged(Security security, double price) {
+        if (security == calendar) {
+            pendingDays.incrementAndGet();
+        }
+    }
+
+    /*
+     * MODIFIES: this, accounts
+     * EFFECTS: Brings the calendar up to date, then marks every account to market and accrues
+     *          the days closed since the last settlement with Account.accrueDays(...). Returns
+     *          the number of positions liquidated by margin calls over all accounts.
+     */
+    public synchronized int settle() {
+        calendar.updateHistory();
+        int days = pendingDays.getAndSet(0);
+        if (days == 0) {
+            return 0;
+        }
+        if (accounts.size() < PARALLEL_THRESHOLD) {
+            int liquidated = 0;
+            for (Account account : accounts) {
+                liquidated += settle(account, days);
+            }
+            return liquidated;
+        }
+        return pool.submit(() -> accounts.parallelStream()
+                .mapToInt(account -> settle(account, days))
+                .sum()).join();
+    }
+
+    /*
+     * MODIFIES: account
+     * EFFECTS: Marks account to market and accrues days trading days on it. Returns the number
+     *          of positions liquidated.
+     */
+    private static int settle(Account account, int days) {
+        account.markToMarket();
+        return account.accrueDays(days);
+    }
+
+    /*
+     * MODIFIES: this, calendar
+     * EFFECTS: Stops listening to the calendar, drops the accounts and shuts down the worker
+     *          threads, after any settlement in progress. The engine settles nothing afterwards.
+     */
+    public synchronized void close() {
+        calendar.removePriceListener(this);
+        accounts.clear();
+        pendingDays.set(0);
+        pool.shutdown();
+    }
+
+    /*
+     * EFFECTS: Returns the number of days closed since the last settlement.
+     */
+    public int getPendingDays() {
+        return pendingDays.get();
+    }
+
+    public List<Account> getAccounts() {
+        return accounts;
+    }
+}
@@ -0,0 +1,94 @@
+package model;
+
+import org.json.JSONObject;
+import persistence.Writable;
+
+/*
+ * Represents the financing terms of an account: the interest paid on a cash balance, the
+ * interest charged on a debit balance borrowed on margin, the fee charged for borrowing the
+ * securities sold short and the maintenance margin below which positions are liquidated.
+ * Rates are annual and accrue once per trading day. Borrowing itself is allowed by the
+ * leverage and short selling limits of RiskLimits. By default no interest or fees accrue.
+ */
+public class MarginTerms implements Writable {
+    private double cashRate = 0;             // Annual interest paid on a positive balance
+    private double debitRate = 0;            // Annual interest charged on a negative balance
+    private double borrowRate = 0;           // Annual fee charged on the value of short positions
+    private double maintenanceMargin = 0.25; // Smallest equity as a share of gross exposure
+
+    /*
+     * REQUIRES: shortValue >= 0
+     * EFFECTS: Returns the interest earned on balance, or charged if balance is negative,
+     *          minus the fee for borrowing securities worth shortValue, for one trading day.
+     */
+    public double dailyFinancing(double balance, double shortValue) {
+        double interest = balance * ((balance >= 0) ? cashRate : debitRate);
+        return (interest - shortValue * borrowRate) / Security.TRADING_DAYS_PER_INTERVAL;
+    }
+
+    /*
+     * REQUIRES: grossExposure >= 0
+     * EFFECTS: Returns true if equity is below the maintenance margin of grossExposure, the
+     *          value of long positions plus the value of short positions.
+     */
+    public boolean isMarginCall(double equity, double grossExposure) {
+        return grossExposure > 0 && equity < maintenanceMargin * grossExposure;
+    }
+
+    /*
+     * REQUIRES: source not null
+     * MODIFIES: this
+     * EFFECTS: Sets every term to the corresponding term of source.
+     */
+    public void setTerms(MarginTerms source) {
+        cashRate = source.cashRate;
+        debitRate = source.debitRate;
+        borrowRate = source.borrowRate;
+        maintenanceMargin = source.maintenanceMargin;
+    }
+
+    /*
+     * EFFECTS: returns the terms as a JSON object.
+     */
+    @Override
+    public JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        json.put("cashRate", cashRate);
+        json.put("debitRate", debitRate);
+        json.put("borrowRate", borrowRate);
+        json.put("maintenanceMargin", maintenanceMargin);
+        return json;
+    }
+
+    public double getCashRate() {
+        return cashRate;
+    }
+
+    public void setCashRate(double cashRate) {
+        this.cashRate = cashRate;
+    }
+
+    public double getDebitRate() {
+        return debitRate;
+    }
+
+    public void setDebitRate(double debitRate) {
+        this.debitRate = debitRate;
+    }
+
+    public double getBorrowRate() {
+        return borrowRate;
+    }
+
+    public void setBorrowRate(double borrowRate) {
+        this.borrowRate = borrowRate;
+    }
+
+    public double getMaintenanceMargin() {
+        return maintenanceMargin;
+    }
+
+    public void setMaintenanceMargin(double maintenanceMargin) {
+        this.maintenanceMargin = maintenanceMargin;
+    }
+}
@@ -0,0 +1,181 @@
+package model;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/*
+ * Represents the source of time for the market. Securities generate history for the
+ * time that passes on their clock, so a clock running faster than real time runs the
+ * market faster. Securities use the default clock unless given another one. Time is kept in
+ * nanoseconds since the epoch, so that reading it does not allocate; it fits a long until 2262.
+ */
+public abstract class MarketClock {
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+    private static volatile MarketClock defaultClock = realTime(); // clock given to new securities
+
+    /*
+     * EFFECTS: Returns the current time of the market in nanoseconds since the epoch.
+     */
+    public abstract long nowNanos();
+
+    /*
+     * EFFECTS: Returns the current time of the market.
+     */
+    public Instant now() {
+        return toInstant(nowNanos());
+    }
+
+    /*
+     * EFFECTS: Returns the current time of the market in milliseconds since the epoch.
+     */
+    public long nowMillis() {
+        return Math.floorDiv(nowNanos(), NANOS_PER_MILLI);
+    }
+
+    /*
+     * REQUIRES: time not null, within the range of a long in nanoseconds since the epoch
+     * EFFECTS: Returns time in nanoseconds since the epoch.
+     */
+    public static long toNanos(Instant time) {
+        return Math.addExact(Math.multiplyExact(time.getEpochSecond(), NANOS_PER_SECOND), time.getNano());
+    }
+
+    /*
+     * EFFECTS: Returns the instant nanos nanoseconds after the epoch.
+     */
+    public static Instant toInstant(long nanos) {
+        return Instant.ofEpochSecond(Math.floorDiv(nanos, NANOS_PER_SECOND), Math.floorMod(nanos, NANOS_PER_SECOND));
+    }
+
+    /*
+     * REQUIRES: simulated is not negative
+     * EFFECTS: Returns how much real time passes while simulated time passes on this clock.
+     *          Returns Duration.ZERO if time on this clock does not depend on real time.
+     */
+    public abstract Duration realTimeOf(Duration simulated);
+
+    /*
+     * EFFECTS: Returns a clock following real time.
+     */
+    public static MarketClock realTime() {
+        return new RealTimeClock();
+    }
+
+    /*
+     * REQUIRES: speed > 0
+     * EFFECTS: Returns a clock starting at the current real time and running speed times
+     *          faster than real time from then on.
+     */
+    public static MarketClock accelerated(double speed) {
+        return new AcceleratedClock(speed);
+    }
+
+    /*
+     * REQUIRES: start not null
+     * EFFECTS: Returns a clock standing still at start until it is advanced, so that
+     *          the market runs as fast as its events can be processed.
+     */
+    public static DiscreteClock discrete(Instant start) {
+        return new DiscreteClock(start);
+    }
+
+    /*
+     * REQUIRES: time not null
+     * EFFECTS: Returns a clock running like this clock but reading time now, if time is after
+     *          the current time of this clock, so that a market saved ahead of this clock, for
+     *          example by a faster clock, continues where it was saved. Otherwise returns this.
+     */
+    public MarketClock resumeFrom(Instant time) {
+        Instant now = now();
+        if (!time.isAfter(now)) {
+            return this;
+        }
+        return new OffsetClock(this, Duration.between(now, time).toNanos());
+    }
+
+    public static MarketClock getDefault() {
+        return defaultClock;
+    }
+
+    /*
+     * REQUIRES: clock not null
+     * MODIFIES: this
+     * EFFECTS: Sets the clock given to securities created from now on.
+     */
+    public static void setDefault(MarketClock clock) {
+        defaultClock = clock;
+    }
+
+    /*
+     * Represents a clock following real time from when it was created, measured with
+     * System.nanoTime() so that adjustments of the system clock do not move the market.
+     */
+    private static class RealTimeClock extends MarketClock {
+        private final long origin;         // real time the clock was started at, in epoch nanoseconds
+        private final long originNanos;    // System.nanoTime() when the clock was started
+
+        private RealTimeClock() {
+            this.originNanos = System.nanoTime();
+            this.origin = toNanos(Instant.now());
+        }
+
+        @Override
+        public long nowNanos() {
+            return origin + (System.nanoTime() - originNanos);
+        }
+
+        @Override
+        public Duration realTimeOf(Duration simulated) {
+            return simulated;
+        }
+    }
+
+    /*
+     * Represents a clock running a fixed number of times faster than real time.
+     */
+    private static class AcceleratedClock extends MarketClock {
+        private final double speed;        // simulated nanoseconds per real nanosecond
+        private final long origin;         // real time the clock was started at, in epoch nanoseconds
+        private final long originNanos;    // System.nanoTime() when the clock was started
+
+        private AcceleratedClock(double speed) {
+            this.speed = speed;
+            this.origin = toNanos(Instant.now());
+            this.originNanos = System.nanoTime();
+        }
+
+        @Override
+        public long nowNanos() {
+            return origin + (long) ((System.nanoTime() - originNanos) * speed);
+        }
+
+        @Override
+        public Duration realTimeOf(Duration simulated) {
+            return Duration.ofNanos((long) (simulated.toNanos() / speed));
+        }
+    }
+
+    /*
+     * Represents a clock running like another clock, a fixed offset ahead of it.
+     */
+    private static class OffsetClock extends MarketClock {
+        private final MarketClock base;    // clock this clock runs like
+        private final long offset;         // nanoseconds this clock is ahead of base
+
+        private OffsetClock(MarketClock base, long offset) {
+            this.base = base;
+            this.offset = offset;
+        }
+
+        @Override
+        public long nowNanos() {
+            return base.nowNanos() + offset;
+        }
+
+        @Override
+        public Duration realTimeOf(Duration simulated) {
+            return base.realTimeOf(simulated);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package model;
+
+/*
+ * Represents a single leg of a basket order: a side, a quantity and the
+ * security to be traded.
+ */
+public class Order {
+    /*
+     * Represents the direction of an order.
+     */
+    public enum Side {
+        BUY,
+        SELL
+    }
+
+    private final Side side;          // Buy or sell
+    private final int quantity;       // Number of securities to trade
+    private final Security security;  // Security to be traded
+
+    /*
+     * REQUIRES: side not null, quantity > 0, security not null
+     * EFFECTS: Creates an order leg with the given side, quantity and security.
+     */
+    public Order(Side side, int quantity, Security security) {
+        this.side = side;
+        this.quantity = quantity;
+        this.security = security;
+    }
+
+    /*
+     * REQUIRES: quantity > 0, security not null
+     * EFFECTS: Returns a buy order leg for quantity of security.
+     */
+    public static Order buy(int quantity, Security security) {
+        return new Order(Side.BUY, quantity, security);
+    }
+
+    /*
+     * REQUIRES: quantity > 0, security not null
+     * EFFECTS: Returns a sell order leg for quantity of security.
+     */
+    public static Order sell(int quantity, Security security) {
+        return new Order(Side.SELL, quantity, security);
+    }
+
+    /*
+     * EFFECTS: Returns quantity signed by side, positive for buys and negative for sells.
+     */
+    public int signedQuantity() {
+        return side == Side.BUY ? quantity : -quantity;
+    }
+
+    public Side getSide() {
+        return side;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public Security getSecurity() {
+        return security;
+    }
+
+    /*
+     * EFFECTS: returns a string representation of order
+     */
+    @Override
+    public String toString() {
+        return String.format("%s %s QTY%d", side, security.getTicker(), quantity);
+    }
+}
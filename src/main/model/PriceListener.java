@@ -0,0 +1,16 @@
+package model;
+
+/*
+ * Represents an observer of the prices generated by a security.
+ */
+@FunctionalInterface
+public interface PriceListener {
+
+    /*
+     * REQUIRES: security not null, price > 0
+     * EFFECTS: Called every time a price is appended to the history of security,
+     *          while the security is locked. Must return quickly and must not
+     *          call back into the security.
+     */
+    void priceChanged(Security security, double price);
+}
@@ -0,0 +1,143 @@
+package model;
+
+import java.util.List;
+
+/*
+ * Represents a multi-resolution view of a price history. Level 0 is the daily history itself,
+ * each higher level stores open, high, low and close of fixed size buckets of days
+ * (weeks, months, quarters and years of trading days). Aggregates are maintained
+ * incrementally as prices are appended, so readers can pick the coarsest level that
+ * still has at least one point per pixel. Aggregates are stored as tiered histories, so
+ * older buckets live in memory-mapped segments like the daily history.
+ */
+public class PricePyramid {
+    private static final int[] BUCKET_SIZES = {1, 5, 21, 63, 252}; // Days per point of each level
+
+    private final List<Double> history;      // Daily prices, level 0 of the pyramid
+    private final TieredHistory[] opens;     // Open of each bucket per level, index 0 unused
+    private final TieredHistory[] highs;     // High of each bucket per level, index 0 unused
+    private final TieredHistory[] lows;      // Low of each bucket per level, index 0 unused
+    private final TieredHistory[] closes;    // Close of each bucket per level, index 0 unused
+    private int days;                        // Number of daily prices aggregated
+
+    /*
+     * REQUIRES: history not null
+     * EFFECTS: Creates a pyramid over history and aggregates all prices already in it.
+     *          Prices appended to history afterwards must also be passed to append(...).
+     */
+    public PricePyramid(List<Double> history) {
+        this.history = history;
+        int levels = BUCKET_SIZES.length;
+        opens = new TieredHistory[levels];
+        highs = new TieredHistory[levels];
+        lows = new TieredHistory[levels];
+        closes = new TieredHistory[levels];
+        for (int level = 1; level < levels; level++) {
+            opens[level] = new TieredHistory();
+            highs[level] = new TieredHistory();
+            lows[level] = new TieredHistory();
+            closes[level] = new TieredHistory();
+        }
+        for (Double price : history) {
+            aggregate(price);
+        }
+    }
+
+    /*
+     * REQUIRES: price is the price just appended to history
+     * MODIFIES: this
+     * EFFECTS: Adds price to the last bucket of every aggregate level,
+     *          opening a new bucket where the previous one is full.
+     */
+    public void append(double price) {
+        aggregate(price);
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: Aggregates the next daily price into every level above 0.
+     */
+    private void aggregate(double price) {
+        for (int level = 1; level < BUCKET_SIZES.length; level++) {
+            if (days % BUCKET_SIZES[level] == 0) {
+                opens[level].addDouble(price);
+                highs[level].addDouble(price);
+                lows[level].addDouble(price);
+                closes[level].addDouble(price);
+            } else {
+                int bucket = days / BUCKET_SIZES[level];
+                highs[level].setLastDouble(Math.max(highs[level].getDouble(bucket), price));
+                lows[level].setLastDouble(Math.min(lows[level].getDouble(bucket), price));
+                closes[level].setLastDouble(price);
+            }
+        }
+        days++;
+    }
+
+    /*
+     * REQUIRES: daysPerPoint > 0
+     * EFFECTS: Returns the coarsest level whose bucket size is at most daysPerPoint.
+     */
+    public int levelFor(double daysPerPoint) {
+        int level = 0;
+        while (level + 1 < BUCKET_SIZES.length && BUCKET_SIZES[level + 1] <= daysPerPoint) {
+            level++;
+        }
+        return level;
+    }
+
+    /*
+     * EFFECTS: Returns number of levels in this pyramid.
+     */
+    public int levels() {
+        return BUCKET_SIZES.length;
+    }
+
+    /*
+     * REQUIRES: 0 <= level < levels()
+     * EFFECTS: Returns number of days aggregated into each point of level.
+     */
+    public int bucketSize(int level) {
+        return BUCKET_SIZES[level];
+    }
+
+    /*
+     * REQUIRES: 0 <= level < levels()
+     * EFFECTS: Returns number of points in level, the last one may be a partial bucket.
+     */
+    public int size(int level) {
+        return (days + BUCKET_SIZES[level] - 1) / BUCKET_SIZES[level];
+    }
+
+    /*
+     * REQUIRES: 0 <= level < levels(), 0 <= i < size(level)
+     * EFFECTS: Returns first price of bucket i in level.
+     */
+    public double open(int level, int i) {
+        return (level == 0) ? history.get(i) : opens[level].getDouble(i);
+    }
+
+    /*
+     * REQUIRES: 0 <= level < levels(), 0 <= i < size(level)
+     * EFFECTS: Returns highest price of bucket i in level.
+     */
+    public double high(int level, int i) {
+        return (level == 0) ? history.get(i) : highs[level].getDouble(i);
+    }
+
+    /*
+     * REQUIRES: 0 <= level < levels(), 0 <= i < size(level)
+     * EFFECTS: Returns lowest price of bucket i in level.
+     */
+    public double low(int level, int i) {
+        return (level == 0) ? history.get(i) : lows[level].getDouble(i);
+    }
+
+    /*
+     * REQUIRES: 0 <= level < levels(), 0 <= i < size(level)
+     * EFFECTS: Returns last price of bucket i in level.
+     */
+    public double close(int level, int i) {
+        return (level == 0) ? history.get(i) : closes[level].getDouble(i);
+    }
+}
@@ -0,0 +1,25 @@
+package model;
+
+/*
+ * Represents why a trade was rejected by the pre-trade checks of an account,
+ * or NONE if it was accepted.
+ */
+public enum RejectReason {
+    NONE("Order accepted."),
+    INSUFFICIENT_BALANCE("You do not have enough cash."),
+    INSUFFICIENT_POSITION("You do not have enough of this position to sell."),
+    ORDER_NOTIONAL("Order value is above the limit for a single order."),
+    POSITION_LIMIT("Position would be above the limit for a single security."),
+    CONCENTRATION("Position would be too large a share of account equity."),
+    RATE_LIMIT("Too many orders in the last second.");
+
+    private final String message;   // Explanation shown to the user
+
+    RejectReason(String message) {
+        this.message = message;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,180 @@
+package model;
+
+import org.json.JSONObject;
+import persistence.Writable;
+
+/*
+ * Represents the pre-trade risk limits of an account and the state needed to enforce them.
+ * Every order is checked against: orders per second, the value of a single order, the
+ * short position allowed, the size of a position, the share of equity a position may take
+ * and the buying power given by leverage. Checks only compare primitives and allocate nothing.
+ * By default an account is a cash account: no leverage, no short selling and no other limits.
+ */
+public class RiskLimits implements Writable {
+    private static final long SECOND_NANOS = 1_000_000_000L;
+
+    private double maxOrderNotional = Double.POSITIVE_INFINITY;   // Largest value of a single order
+    private int maxPosition = Integer.MAX_VALUE;                  // Largest position in a single security
+    private double maxConcentration = Double.POSITIVE_INFINITY;   // Largest position value as share of equity
+    private int maxOrdersPerSecond = Integer.MAX_VALUE;           // Most orders accepted in one second
+    private double maxLeverage = 1;                               // Largest cost of buys as multiple of equity
+    private int maxShortPosition = 0;                             // Largest number of securities sold short
+
+    private long windowStart;                    // System.nanoTime() the current one second window started at
+    private int ordersInWindow;                  // Orders checked in the current window
+
+    /*
+     * REQUIRES: quantity != 0, price > 0
+     * MODIFIES: this
+     * EFFECTS: Checks an order for quantity securities at price, a buy if quantity is positive
+     *          and a sell otherwise, against every limit. position is the current position in
+     *          the security, balance and equity those of the account, and nowNanos the current
+     *          System.nanoTime(). Counts the order towards the rate limit and returns the first
+     *          limit it breaks, or RejectReason.NONE.
+     */
+    public RejectReason check(int quantity, double price, int position, double balance, double equity,
+                              long nowNanos) {
+        RejectReason reason = checkRate(nowNanos);
+        if (reason == RejectReason.NONE) {
+            reason = checkLeg(quantity, price, position, equity);
+        }
+        if (reason == RejectReason.NONE && quantity > 0) {
+            reason = checkCost(quantity * price, balance, equity);
+        }
+        return reason;
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: Counts an order at nowNanos towards the rate limit and returns RATE_LIMIT if
+     *          more than maxOrdersPerSecond orders were checked in the current second.
+     */
+    public RejectReason checkRate(long nowNanos) {
+        if (ordersInWindow == 0 || nowNanos - windowStart >= SECOND_NANOS) {
+            windowStart = nowNanos;
+            ordersInWindow = 0;
+        }
+        return (++ordersInWindow > maxOrdersPerSecond) ? RejectReason.RATE_LIMIT : RejectReason.NONE;
+    }
+
+    /*
+     * REQUIRES: quantity != 0, price > 0
+     * EFFECTS: Checks changing a position of position securities by quantity at price against
+     *          the short selling, order value, position size and concentration limits. The
+     *          position size and concentration limits only apply to orders that increase the
+     *          size of the position, so a position above them can always be reduced.
+     */
+    public RejectReason checkLeg(int quantity, double price, int position, double equity) {
+        long after = (long) position + quantity;
+        if (after < -maxShortPosition) {
+            return RejectReason.INSUFFICIENT_POSITION;
+        }
+        if (Math.abs(quantity) * price > maxOrderNotional) {
+            return RejectReason.ORDER_NOTIONAL;
+        }
+        if (Math.abs(after) <= Math.abs((long) position)) {
+            return RejectReason.NONE;
+        }
+        if (Math.abs(after) > maxPosition) {
+            return RejectReason.POSITION_LIMIT;
+        }
+        if (Math.abs(after) * price > maxConcentration * Math.max(equity, 0)) {
+            return RejectReason.CONCENTRATION;
+        }
+        return RejectReason.NONE;
+    }
+
+    /*
+     * EFFECTS: Checks paying cost against buying power, which is balance plus what can be
+     *          borrowed against equity with maxLeverage.
+     */
+    public RejectReason checkCost(double cost, double balance, double equity) {
+        double buyingPower = balance + (maxLeverage - 1) * Math.max(equity, 0);
+        return (cost > buyingPower) ? RejectReason.INSUFFICIENT_BALANCE : RejectReason.NONE;
+    }
+
+    /*
+     * REQUIRES: source not null
+     * MODIFIES: this
+     * EFFECTS: Sets every limit to the corresponding limit of source.
+     */
+    public void setLimits(RiskLimits source) {
+        maxOrderNotional = source.maxOrderNotional;
+        maxPosition = source.maxPosition;
+        maxConcentration = source.maxConcentration;
+        maxOrdersPerSecond = source.maxOrdersPerSecond;
+        maxLeverage = source.maxLeverage;
+        maxShortPosition = source.maxShortPosition;
+    }
+
+    /*
+     * EFFECTS: returns the limits as a JSON object. Limits that are not set are left out.
+     */
+    @Override
+    public JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        if (maxOrderNotional != Double.POSITIVE_INFINITY) {
+            json.put("maxOrderNotional", maxOrderNotional);
+        }
+        if (maxPosition != Integer.MAX_VALUE) {
+            json.put("maxPosition", maxPosition);
+        }
+        if (maxConcentration != Double.POSITIVE_INFINITY) {
+            json.put("maxConcentration", maxConcentration);
+        }
+        if (maxOrdersPerSecond != Integer.MAX_VALUE) {
+            json.put("maxOrdersPerSecond", maxOrdersPerSecond);
+        }
+        json.put("maxLeverage", maxLeverage);
+        json.put("maxShortPosition", maxShortPosition);
+        return json;
+    }
+
+    public double getMaxOrderNotional() {
+        return maxOrderNotional;
+    }
+
+    public void setMaxOrderNotional(double maxOrderNotional) {
+        this.maxOrderNotional = maxOrderNotional;
+    }
+
+    public int getMaxPosition() {
+        return maxPosition;
+    }
+
+    public void setMaxPosition(int maxPosition) {
+        this.maxPosition = maxPosition;
+    }
+
+    public double getMaxConcentration() {
+        return maxConcentration;
+    }
+
+    public void setMaxConcentration(double maxConcentration) {
+        this.maxConcentration = maxConcentration;
+    }
+
+    public int getMaxOrdersPerSecond() {
+        return maxOrdersPerSecond;
+    }
+
+    public void setMaxOrdersPerSecond(int maxOrdersPerSecond) {
+        this.maxOrdersPerSecond = maxOrdersPerSecond;
+    }
+
+    public double getMaxLeverage() {
+        return maxLeverage;
+    }
+
+    public void setMaxLeverage(double maxLeverage) {
+        this.maxLeverage = maxLeverage;
+    }
+
+    public int getMaxShortPosition() {
+        return maxShortPosition;
+    }
+
+    public void setMaxShortPosition(int maxShortPosition) {
+        this.maxShortPosition = maxShortPosition;
+    }
+}
@@ -1,24 +1,39 @@
 package model;
 
-import org.json.JSONArray;
+import model.metrics.Counter;
+import model.metrics.LatencyHistogram;
+import model.metrics.MetricsRegistry;
 import org.json.JSONObject;
+import persistence.HistoryCodec;
 import persistence.Writable;
 
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /*
  * Represents an ETF available for trading.
  * Maintains a price history and amount of position held by the account.
  */
 public class Security implements Writable {
+    private static final LatencyHistogram UPDATE_LATENCY =
+            MetricsRegistry.getInstance().histogram("security.updateHistory");
+    private static final LatencyHistogram QUOTE_LATENCY = MetricsRegistry.getInstance().histogram("security.quote");
+    private static final Counter DAYS_GENERATED = MetricsRegistry.getInstance().counter("security.daysGenerated");
+
     private final Random random = new Random();
 
     public static final int UPDATE_INTERVAL = 15;        // History update interval in seconds. At least 2.
     public static final int DAYS_PER_INTERVAL = 1;       // History days past per interval
+    private static final long NANOS_PER_SECOND = 1_000_000_000L; // Nanoseconds in a second
     public static final int TRADING_DAYS_PER_INTERVAL = 252; // Trading days per year.
     public static final double ASK_SPREAD = 0.01;         // Difference of ask price and mean in dollars
     public static final double BID_SPREAD = 0.01;         // Difference of mean and bid price in dollars
@@ -28,9 +43,24 @@ public class Security implements Writable {
     protected final double yearlyReturn;        // Average annual percent return of the security
     private final double volatility;            // Annual standard deviation of the percent return
 
-    private final List<Double> history;         // Price history stored in this list
+    private TieredHistory history;              // Price history, older prices memory-mapped, null until decoded
+    private String encodedHistory;              // History as loaded, Base64 HistoryCodec, null once decoded
+    private int encodedSize;                    // Number of prices in encodedHistory
+    private double[] pendingPrices;             // Prices appended before history was decoded
+    private int pendingSize;                    // Number of prices in pendingPrices
+    private double lastPrice;                   // Last price of history, kept so quotes never decode history
+    private PricePyramid pyramid;               // Multi-resolution aggregates of history, null until requested
+    private BarSeries bars;                     // Daily OHLCV bars of history, null until first requested
+    private TickGenerator tickGenerator;        // Generator of intraday ticks, null if days are not split
+    private TickStore ticks;                    // Most recent intraday ticks, null if days are not split
     protected Instant lastHistoryUpdate;        // Time of last history update
     private int securityPosition;               // Number of securities account owns
+    private double costBasis;                   // Amount paid for the securities account owns
+    private final List<PriceListener> listeners = new ArrayList<>(); // Notified of every new price
+    private final NavigableMap<Integer, CorporateAction> scheduledActions = new TreeMap<>(); // By ex-day
+    private final List<CorporateAction> appliedActions = new CopyOnWriteArrayList<>(); // Ex-day in history
+    private final NavigableMap<Integer, Long> volumes = new TreeMap<>(); // Quantity traded by day of history
+    private MarketClock clock = MarketClock.getDefault(); // Source of time of the market
 
     /*
      * REQUIRES: ticker.length() > 0, initialPrice > 0, yearlyReturn > 0, volatility > 0
@@ -41,8 +71,10 @@ public class Security implements Writable {
         this.tickerSymbol = ticker;
         this.yearlyReturn = yearlyReturn;
         this.volatility = volatility;
-        this.history = new ArrayList<>();
-        history.add(initialPrice);
+        this.history = new TieredHistory();
+        history.addDouble(initialPrice);
+        this.lastPrice = initialPrice;
+        this.pyramid = new PricePyramid(history);
         this.lastHistoryUpdate = now();
     }
 
@@ -51,26 +83,94 @@ public class Security implements Writable {
      *           history not null, lastUpdate not null, securityPosition > 0
      * EFFECTS: A representation of an ETF is created with the input parameters,
      *          ticker, initial price, yearly return, volatility, securityPosition and lastUpdate.
-     *          The fund starts maintaining the history provided.
+     *          The fund starts maintaining a copy of the history provided. Cost basis of the
+     *          position is its value at the last price of history until set otherwise.
      */
     public Security(String ticker, double yearlyReturn, double volatility, List<Double> history,
                     Instant lastUpdate, int securityPosition) {
         this.tickerSymbol = ticker;
         this.yearlyReturn = yearlyReturn;
         this.volatility = volatility;
-        this.history = history;
+        this.history = new TieredHistory(history);
+        this.lastPrice = history.get(history.size() - 1);
+        this.pyramid = new PricePyramid(this.history);
         this.lastHistoryUpdate = lastUpdate;
         this.securityPosition = securityPosition;
+        this.costBasis = securityPosition * lastPrice();
     }
 
+    /*
+     * REQUIRES: ticker.length() > 0, yearlyReturn > 0, volatility > 0, encodedHistory produced by
+     *           HistoryCodec.toBase64(...) with at least one price, tail not null,
+     *           lastPrice the last price of encodedHistory followed by tail, lastUpdate not null
+     * EFFECTS: A representation of an ETF is created with the input parameters, like the
+     *          constructor taking a history list, except that history is kept encoded and only
+     *          decoded, followed by tail, on first access to it. Quotes, trades and new days of
+     *          history do not need it decoded.
+     */
+    public Security(String ticker, double yearlyReturn, double volatility, String encodedHistory,
+                    List<Double> tail, double lastPrice, Instant lastUpdate, int securityPosition) {
+        this.tickerSymbol = ticker;
+        this.yearlyReturn = yearlyReturn;
+        this.volatility = volatility;
+        this.encodedHistory = encodedHistory;
+        this.encodedSize = HistoryCodec.sizeOfBase64(encodedHistory);
+        this.pendingPrices = new double[Math.max(16, tail.size())];
+        for (Double price : tail) {
+            pendingPrices[pendingSize++] = price;
+        }
+        this.lastPrice = lastPrice;
+        this.lastHistoryUpdate = lastUpdate;
+        this.securityPosition = securityPosition;
+        this.costBasis = securityPosition * lastPrice;
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: Returns history, decoding it first if it was loaded encoded.
+     */
+    private synchronized TieredHistory history() {
+        if (history == null) {
+            TieredHistory decoded = new TieredHistory();
+            HistoryCodec.Decoder decoder = new HistoryCodec.Decoder(Base64.getDecoder().decode(encodedHistory));
+            while (decoder.remaining() > 0) {
+                decoded.addDouble(decoder.next());
+            }
+            for (int i = 0; i < pendingSize; i++) {
+                decoded.addDouble(pendingPrices[i]);
+            }
+            history = decoded;
+            encodedHistory = null;
+            pendingPrices = null;
+            pendingSize = 0;
+        }
+        return history;
+    }
+
+    /*
+     * EFFECTS: Returns true if history has been decoded, or was never encoded.
+     */
+    public synchronized boolean isHistoryLoaded() {
+        return history != null;
+    }
+
+    /*
+     * EFFECTS: Returns number of prices in history without decoding it.
+     */
+    private int historySize() {
+        return (history != null) ? history.size() : encodedSize + pendingSize;
+    }
 
     /*
      * MODIFIES: this
      * EFFECTS: Updates price history if needed and returns ask price.
      */
     public double getAskPrice() {
+        long start = System.nanoTime();
         updateHistory();
-        return lastPrice() + ASK_SPREAD;
+        double askPrice = lastAskPrice();
+        QUOTE_LATENCY.recordSince(start);
+        return askPrice;
     }
 
     /*
@@ -78,7 +178,26 @@ public class Security implements Writable {
      * EFFECTS: Updates price history if needed and returns bid price.
      */
     public double getBidPrice() {
+        long start = System.nanoTime();
         updateHistory();
+        double bidPrice = lastBidPrice();
+        QUOTE_LATENCY.recordSince(start);
+        return bidPrice;
+    }
+
+    /*
+     * EFFECTS: Returns ask price using the last price stored in history,
+     *          without updating history.
+     */
+    public double lastAskPrice() {
+        return lastPrice() + ASK_SPREAD;
+    }
+
+    /*
+     * EFFECTS: Returns bid price using the last price stored in history,
+     *          without updating history.
+     */
+    public double lastBidPrice() {
         return lastPrice() - BID_SPREAD;
     }
 
@@ -88,45 +207,336 @@ public class Security implements Writable {
      */
     public List<Double> getHistory() {
         updateHistory();
-        return history;
+        return history();
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: Updates price history if needed and returns the multi-resolution
+     *          aggregates of history, building them if history was loaded encoded.
+     */
+    public synchronized PricePyramid getPyramid() {
+        updateHistory();
+        if (pyramid == null) {
+            pyramid = new PricePyramid(history());
+        }
+        return pyramid;
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: Updates price history if needed and returns daily open, high, low, close
+     *          and volume bars of history. Bars are built from history on first request
+     *          and kept up to date afterwards.
+     */
+    public BarSeries getBars() {
+        updateHistory();
+        return bars();
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: Updates price history if needed and returns the intraday ticks of the most
+     *          recent day, or null if intraday ticks are not generated.
+     */
+    public TickStore getTicks() {
+        updateHistory();
+        return ticks;
+    }
+
+    /*
+     * REQUIRES: ticksPerDay >= 0
+     * MODIFIES: this
+     * EFFECTS: If ticksPerDay > 0, every simulated day from now on is generated as ticksPerDay
+     *          intraday ticks, whose close is appended to history and whose open, high, low and
+     *          close make up the daily bar. The ticks of the most recent day are kept. Ticks are
+     *          seeded from the random returns of this security. If ticksPerDay is 0, days are
+     *          generated as a single daily return again.
+     */
+    public synchronized void setTicksPerDay(int ticksPerDay) {
+        if (ticksPerDay == 0) {
+            tickGenerator = null;
+            ticks = null;
+            return;
+        }
+        tickGenerator = new TickGenerator(ticksPerDay, returnPerDay(), stdDevPerDay(), random.nextLong());
+        ticks = new TickStore(ticksPerDay);
+        bars();
+    }
+
+    /*
+     * REQUIRES: quantity > 0
+     * MODIFIES: this
+     * EFFECTS: Adds quantity traded to the volume of the last day of history, and of the
+     *          current bar if bars have been built.
+     */
+    public synchronized void addVolume(int quantity) {
+        volumes.merge(historySize() - 1, (long) quantity, Long::sum);
+        if (bars != null) {
+            bars.addVolume(quantity);
+        }
+    }
+
+    /*
+     * REQUIRES: 0 <= day < number of prices in history, volume >= 0
+     * MODIFIES: this
+     * EFFECTS: Sets the quantity traded on day of history to volume, as read from a save file.
+     */
+    public synchronized void setVolume(int day, long volume) {
+        volumes.put(day, volume);
+        if (bars != null) {
+            bars.setVolume(day, volume);
+        }
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: Returns bars, building them from history if they do not exist yet.
+     *          Each price in history is placed one simulated day before the next,
+     *          the last one at the time of the last history update, so bar i is day i
+     *          of history and is given the volume traded on that day.
+     */
+    private BarSeries bars() {
+        if (bars == null) {
+            long dayMillis = dayLength().toMillis();
+            long last = lastHistoryUpdate.toEpochMilli();
+            bars = new BarSeries(dayMillis);
+            TieredHistory prices = history();
+            for (int i = 0; i < prices.size(); i++) {
+                bars.addTick(last - (prices.size() - 1 - i) * dayMillis, prices.getDouble(i));
+            }
+            for (Map.Entry<Integer, Long> volume : volumes.entrySet()) {
+                bars.setVolume(volume.getKey(), volume.getValue());
+            }
+        }
+        return bars;
+    }
+
+    /*
+     * EFFECTS: Returns the real time length of a simulated day.
+     */
+    public static Duration dayLength() {
+        return Duration.ofSeconds(UPDATE_INTERVAL).dividedBy(DAYS_PER_INTERVAL);
     }
 
     /*
      * EFFECTS: Returns the last price stored in history to caller.
      */
     private double lastPrice() {
-        return history.get(history.size() - 1);
+        return lastPrice;
     }
 
     /*
      * MODIFIES: this
-     * EFFECTS: If real time passed is greater than set UPDATE_INTERVAL,
+     * EFFECTS: If time passed on the clock is greater than set UPDATE_INTERVAL,
      *          then a history is generated using a random return
-     *          for total days passed. Stores the time of the last history
-     *          update for future reference.
+     *          for total days passed. If intraday ticks are generated, only the
+     *          days whose ticks fit in the tick store are generated tick by tick,
+     *          since older ticks would be replaced anyway. Stores the time of the
+     *          last history update for future reference. Synchronized so that
+     *          concurrent readers cannot generate the same days twice.
      */
-    public void updateHistory() {
-        for (int i = tradingDaysPassed() - 1; i >= 0; i--) {
-            history.add(lastPrice() * randomReturn());
+    public synchronized void updateHistory() {
+        long start = System.nanoTime();
+        int days = tradingDaysPassed();
+        if (days < 0) {
+            lastHistoryUpdate = now();
+            days = 0;
+        }
+        Instant previousUpdate = lastHistoryUpdate;
+        int firstTickDay = days + 1;
+        if (tickGenerator != null) {
+            int ticksPerDay = tickGenerator.getTicksPerDay();
+            firstTickDay -= (ticks.getCapacity() + ticksPerDay - 1) / ticksPerDay;
+        }
+        for (int i = 1; i <= days; i++) {
+            Instant time = previousUpdate.plus(dayLength().multipliedBy(i));
+            if (i >= firstTickDay) {
+                appendTickDay(time);
+            } else {
+                appendPrice(exPrice(lastPrice()) * randomReturn(), time);
+            }
             lastHistoryUpdate = now();
         }
+        DAYS_GENERATED.add(days);
+        UPDATE_LATENCY.recordSince(start);
     }
 
     /*
-     * EFFECTS: Returns Instant.now(). Function for mocking purposes.
+     * MODIFIES: this
+     * EFFECTS: Appends price to history, or to the prices pending if history is not decoded,
+     *          and to the aggregates of history if they have been built.
+     *          Adds it to bars at time if bars have been built, then notifies price listeners.
+     */
+    private void appendPrice(double price, Instant time) {
+        if (history != null) {
+            history.addDouble(price);
+        } else {
+            if (pendingSize == pendingPrices.length) {
+                pendingPrices = Arrays.copyOf(pendingPrices, pendingSize * 2);
+            }
+            pendingPrices[pendingSize++] = price;
+        }
+        lastPrice = price;
+        if (pyramid != null) {
+            pyramid.append(price);
+        }
+        if (bars != null) {
+            bars.addTick(time.toEpochMilli(), price);
+        }
+        for (PriceListener listener : listeners) {
+            listener.priceChanged(this, price);
+        }
+    }
+
+    /*
+     * REQUIRES: tickGenerator not null
+     * MODIFIES: this
+     * EFFECTS: Generates the intraday ticks of the day ending at close, opening at the previous
+     *          close adjusted for a corporate action of the day, appends its closing price to
+     *          history and, if bars have been built, its open, high and low to bars.
+     */
+    private void appendTickDay(Instant close) {
+        double open = exPrice(lastPrice());
+        long length = dayLength().toNanos();
+        long end = close.getEpochSecond() * 1_000_000_000L + close.getNano();
+        double price = tickGenerator.generateDay(open, end - length, length, ticks);
+        if (bars != null) {
+            bars.addTick(close.toEpochMilli(), open);
+            bars.addTick(close.toEpochMilli(), tickGenerator.getHigh());
+            bars.addTick(close.toEpochMilli(), tickGenerator.getLow());
+        }
+        appendPrice(price, close);
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: Returns the price the next day opens at given previousClose. If a corporate
+     *          action is scheduled for the next day it is applied: the open is adjusted
+     *          for it and it is moved to the applied actions.
+     */
+    private double exPrice(double previousClose) {
+        CorporateAction action = scheduledActions.remove(historySize());
+        if (action == null) {
+            return previousClose;
+        }
+        appliedActions.add(action);
+        return action.exPrice(previousClose);
+    }
+
+    /*
+     * REQUIRES: action not null, actions with a day in history are added in order of day
+     * MODIFIES: this
+     * EFFECTS: Schedules action to be applied when its ex-day is generated, replacing any
+     *          action scheduled for the same day. An action whose ex-day is already in history,
+     *          such as one read from a save file, is recorded as applied instead.
+     */
+    public synchronized void addCorporateAction(CorporateAction action) {
+        if (action.getDay() < historySize()) {
+            appliedActions.add(action);
+        } else {
+            scheduledActions.put(action.getDay(), action);
+        }
+    }
+
+    /*
+     * EFFECTS: Returns the corporate actions whose ex-day is in history, in order of day.
+     *          Accounts holding this security apply every action they have not applied yet.
+     */
+    public List<CorporateAction> getCorporateActions() {
+        return appliedActions;
+    }
+
+    /*
+     * EFFECTS: Returns the corporate actions scheduled after the last day of history, in order of day.
+     */
+    public synchronized List<CorporateAction> getScheduledActions() {
+        return new ArrayList<>(scheduledActions.values());
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: Updates price history if needed and returns a view of history adjusted for
+     *          the corporate actions applied so far. Stored history is not modified.
+     */
+    public synchronized AdjustedHistory getAdjustedHistory() {
+        updateHistory();
+        return new AdjustedHistory(history(), appliedActions);
+    }
+
+    /*
+     * REQUIRES: listener not null
+     * MODIFIES: this
+     * EFFECTS: Notifies listener of every price appended to history from now on.
+     */
+    public synchronized void addPriceListener(PriceListener listener) {
+        listeners.add(listener);
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: Stops notifying listener of prices appended to history.
+     */
+    public synchronized void removePriceListener(PriceListener listener) {
+        listeners.remove(listener);
+    }
+
+    /*
+     * EFFECTS: Returns the current time of the clock. Function for mocking purposes.
      */
     protected Instant now() {
-        return Instant.now();
+        return MarketClock.toInstant(nowNanos());
+    }
+
+    /*
+     * EFFECTS: Returns the current time of the clock in nanoseconds since the epoch, without
+     *          allocating. Function for mocking purposes.
+     */
+    protected long nowNanos() {
+        return clock.nowNanos();
+    }
+
+    /*
+     * REQUIRES: clock not null
+     * MODIFIES: this
+     * EFFECTS: Makes this security follow clock. History continues from the current
+     *          time of clock; time that passed on the previous clock since the last
+     *          update is not generated.
+     */
+    public synchronized void setClock(MarketClock clock) {
+        this.clock = clock;
+        this.lastHistoryUpdate = now();
+    }
+
+    /*
+     * REQUIRES: clock not null
+     * MODIFIES: this
+     * EFFECTS: Makes this security follow clock as if it had been created on it. History
+     *          continues from the last update, so the days that passed on clock since
+     *          then are generated on the next update.
+     */
+    public synchronized void resumeOn(MarketClock clock) {
+        this.clock = clock;
     }
 
     /*
      * EFFECTS: Calculate trading days passed. This function
-     *          converts real time passed to time in simulation.
+     *          converts time passed on the clock to time in simulation.
+     *          The clock is read in nanoseconds and whole seconds are compared
+     *          directly, so that quoting a price does not allocate. Returns -1 if
+     *          the last update is ahead of the clock, for example after a faster
+     *          clock saved it.
      */
     private int tradingDaysPassed() {
-        Duration elapsed = Duration.between(lastHistoryUpdate, now());
-        Duration chunk = Duration.ofSeconds(UPDATE_INTERVAL);
-        return Math.toIntExact(elapsed.dividedBy(chunk))
+        long now = nowNanos();
+        long seconds = Math.floorDiv(now, NANOS_PER_SECOND) - lastHistoryUpdate.getEpochSecond();
+        if (Math.floorMod(now, NANOS_PER_SECOND) < lastHistoryUpdate.getNano()) {
+            seconds--;
+        }
+        if (seconds < 0) {
+            return -1;
+        }
+        return Math.toIntExact(seconds / UPDATE_INTERVAL)
                 * DAYS_PER_INTERVAL;
     }
 
@@ -153,30 +563,52 @@ public class Security implements Writable {
         return volatility / Math.sqrt(TRADING_DAYS_PER_INTERVAL);
     }
 
+    /*
+     * MODIFIES: this
+     * EFFECTS: Returns an immutable snapshot of this security, with every corporate action with
+     *          ex-day in history applied to the position.
+     */
+    public AccountSnapshot.SecuritySnapshot snapshot() {
+        return snapshot(appliedActions.size());
+    }
+
+    /*
+     * REQUIRES: actionsApplied <= getCorporateActions().size()
+     * EFFECTS: Returns an immutable snapshot of this security, with the first actionsApplied
+     *          corporate actions applied to the position. The snapshot shares the sealed
+     *          segments of history and copies only the prices still in heap. A history
+     *          that was never decoded is not decoded: the snapshot shares its encoding.
+     *          The volume of the days with trades is copied.
+     */
+    public synchronized AccountSnapshot.SecuritySnapshot snapshot(int actionsApplied) {
+        List<CorporateAction> actions = new ArrayList<>(appliedActions);
+        actions.addAll(scheduledActions.values());
+        NavigableMap<Integer, Long> volumes = new TreeMap<>(this.volumes);
+        if (history == null) {
+            return new AccountSnapshot.SecuritySnapshot(tickerSymbol, yearlyReturn, volatility, encodedHistory,
+                    encodedSize, Arrays.copyOf(pendingPrices, pendingSize), lastPrice, lastHistoryUpdate,
+                    securityPosition, costBasis, actions, actionsApplied, volumes);
+        }
+        return new AccountSnapshot.SecuritySnapshot(tickerSymbol, yearlyReturn, volatility,
+                new TieredHistory(history), lastHistoryUpdate, securityPosition, costBasis, actions, actionsApplied,
+                volumes);
+    }
+
     /*
      * EFFECTS: returns this Security as a JSON object
      */
     @Override
     public JSONObject toJson() {
-        JSONObject json = new JSONObject();
-        json.put("ticker", tickerSymbol);
-        json.put("yearlyReturn", yearlyReturn);
-        json.put("volatility", volatility);
-        json.put("history", historyToJson());
-        json.put("lastUpdate", lastHistoryUpdate.toString());
-        json.put("securityPosition", securityPosition);
-        return json;
+        return snapshot().toJson();
     }
 
     /*
-     * EFFECTS: returns the history as a JSON array
+     * MODIFIES: this
+     * EFFECTS: Seeds the random returns of this security so that the prices it
+     *          generates from now on are reproducible.
      */
-    private JSONArray historyToJson() {
-        JSONArray jsonArray = new JSONArray();
-        for (Double d : history) {
-            jsonArray.put(d);
-        }
-        return jsonArray;
+    public void setSeed(long seed) {
+        random.setSeed(seed);
     }
 
     public int getSecurityPosition() {
@@ -187,6 +619,14 @@ public class Security implements Writable {
         this.securityPosition = securityPosition;
     }
 
+    public double getCostBasis() {
+        return costBasis;
+    }
+
+    public void setCostBasis(double costBasis) {
+        this.costBasis = costBasis;
+    }
+
     public String getTicker() {
         return tickerSymbol;
     }
@@ -203,6 +643,10 @@ public class Security implements Writable {
         return volatility;
     }
 
+    public MarketClock getClock() {
+        return clock;
+    }
+
     public Instant getLastHistoryUpdate() {
         return lastHistoryUpdate;
     }
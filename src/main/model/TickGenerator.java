@@ -0,0 +1,68 @@
+package model;
+
+import java.util.SplittableRandom;
+
+/*
+ * Represents a generator of intraday price ticks. A simulated day is split into ticksPerDay
+ * equal steps; each step moves the price by a random return whose mean and standard deviation
+ * are the daily ones scaled down to one step, so a day of ticks follows the same distribution
+ * as one daily return of the security. Generation allocates nothing per tick.
+ */
+public class TickGenerator {
+    private final int ticksPerDay;          // Number of ticks in a simulated day
+    private final double drift;             // Mean return of one tick
+    private final double volatility;        // Standard deviation of the return of one tick
+    private final SplittableRandom random;  // Source of random returns
+    private double high;                    // Highest price of the last day generated
+    private double low;                     // Lowest price of the last day generated
+
+    /*
+     * REQUIRES: ticksPerDay > 0, returnPerDay > 0, stdDevPerDay >= 0
+     * EFFECTS: Creates a generator of ticksPerDay ticks a day for a security whose daily price
+     *          is multiplied by returnPerDay on average, with standard deviation stdDevPerDay.
+     *          Ticks are reproducible from seed.
+     */
+    public TickGenerator(int ticksPerDay, double returnPerDay, double stdDevPerDay, long seed) {
+        this.ticksPerDay = ticksPerDay;
+        this.drift = (returnPerDay - 1) / ticksPerDay;
+        this.volatility = stdDevPerDay / Math.sqrt(ticksPerDay);
+        this.random = new SplittableRandom(seed);
+    }
+
+    /*
+     * REQUIRES: open > 0, lengthNanos >= ticksPerDay
+     * MODIFIES: this, store
+     * EFFECTS: Generates the ticks of one day starting at startNanos and lasting lengthNanos,
+     *          from opening price open. Ticks are evenly spaced and the last one is at the end
+     *          of the day. Appends them to store and returns the closing price.
+     */
+    public double generateDay(double open, long startNanos, long lengthNanos, TickStore store) {
+        long step = lengthNanos / ticksPerDay;
+        long time = startNanos + lengthNanos - ticksPerDay * step;
+        double price = open;
+        double dayHigh = open;
+        double dayLow = open;
+        for (int i = 0; i < ticksPerDay; i++) {
+            price *= 1 + drift + volatility * random.nextGaussian();
+            time += step;
+            dayHigh = Math.max(dayHigh, price);
+            dayLow = Math.min(dayLow, price);
+            store.append(time, price);
+        }
+        high = dayHigh;
+        low = dayLow;
+        return price;
+    }
+
+    public int getTicksPerDay() {
+        return ticksPerDay;
+    }
+
+    public double getHigh() {
+        return high;
+    }
+
+    public double getLow() {
+        return low;
+    }
+}
@@ -0,0 +1,96 @@
+package model;
+
+/*
+ * Represents the most recent intraday price ticks of a security. Ticks are stored in two
+ * parallel primitive columns, timestamp and price, used as a ring buffer: once capacity
+ * ticks are stored, each new tick replaces the oldest one. Ticks are ordered by time, so
+ * a time range can be found with a binary search over the timestamp column.
+ */
+public class TickStore {
+    private final long[] times;     // Timestamp of each tick in epoch nanoseconds
+    private final double[] prices;  // Price of each tick
+    private int next;               // Slot the next tick is stored in
+    private long total;             // Number of ticks ever appended
+
+    /*
+     * REQUIRES: capacity > 0
+     * EFFECTS: Creates an empty store keeping the last capacity ticks.
+     */
+    public TickStore(int capacity) {
+        times = new long[capacity];
+        prices = new double[capacity];
+    }
+
+    /*
+     * REQUIRES: timeNanos is not before the time of the last tick, price > 0
+     * MODIFIES: this
+     * EFFECTS: Appends a tick, replacing the oldest tick if the store is full.
+     */
+    public void append(long timeNanos, double price) {
+        times[next] = timeNanos;
+        prices[next] = price;
+        next = (next + 1 == times.length) ? 0 : next + 1;
+        total++;
+    }
+
+    /*
+     * EFFECTS: Returns the number of ticks stored, at most the capacity.
+     */
+    public int size() {
+        return (int) Math.min(total, times.length);
+    }
+
+    /*
+     * EFFECTS: Returns the number of ticks ever appended, including replaced ticks.
+     */
+    public long getTotalTicks() {
+        return total;
+    }
+
+    public int getCapacity() {
+        return times.length;
+    }
+
+    /*
+     * REQUIRES: 0 <= i < size()
+     * EFFECTS: Returns the timestamp of the i-th stored tick, oldest first, in epoch nanoseconds.
+     */
+    public long getTime(int i) {
+        return times[slot(i)];
+    }
+
+    /*
+     * REQUIRES: 0 <= i < size()
+     * EFFECTS: Returns the price of the i-th stored tick, oldest first.
+     */
+    public double getPrice(int i) {
+        return prices[slot(i)];
+    }
+
+    /*
+     * EFFECTS: Returns the index of the first stored tick at or after timeNanos,
+     *          or size() if there is no such tick.
+     */
+    public int indexAtOrAfter(long timeNanos) {
+        int low = 0;
+        int high = size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (getTime(mid) < timeNanos) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /*
+     * EFFECTS: Returns the slot holding the i-th stored tick, oldest first.
+     */
+    private int slot(int i) {
+        int oldest = (total > times.length) ? next : 0;
+        int slot = oldest + i;
+        return (slot >= times.length) ? slot - times.length : slot;
+    }
+}
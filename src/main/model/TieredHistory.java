@@ -0,0 +1,257 @@
+package model;
+
+import java.io.IOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/*
+ * Represents an append-only list of prices stored in two tiers. The most recent prices are
+ * kept in a primitive in-heap buffer. Once the buffer holds HOT_CAPACITY prices beyond a full
+ * segment, the oldest SEGMENT_SIZE prices are sealed into an immutable memory-mapped segment
+ * and dropped from the heap. Sealed prices are paged in by the operating system on demand,
+ * so heap use stays flat however long the history grows. Short histories never leave the heap.
+ * All segments of a history are appended to one file, which is deleted once the history is
+ * garbage collected; mapped segments stay valid until they are collected themselves. Copies
+ * share the sealed segments of the history they copy. Only the last price can be replaced.
+ * Prices are appended by one thread at a time, while other threads may read them concurrently.
+ */
+public class TieredHistory extends AbstractList<Double> implements RandomAccess {
+    public static final int HOT_CAPACITY = 1024;  // Most recent prices always kept in heap
+    public static final int SEGMENT_SIZE = 4096;  // Number of prices in a sealed segment
+
+    private static final Cleaner CLEANER = Cleaner.create(); // Deletes segment files of collected histories
+    private static Path segmentDirectory;         // Directory holding segment files, created on first seal
+
+    private volatile Tiers tiers;                 // Sealed segments and hot buffer, replaced together
+    private volatile int size;                    // Number of prices, written after the prices it counts
+    private SegmentFile segmentFile;              // File this history seals into, null until first seal
+    private boolean sealing;                      // False once sealing failed, prices then stay in heap
+
+    /*
+     * EFFECTS: Creates an empty history.
+     */
+    public TieredHistory() {
+        tiers = new Tiers(new DoubleBuffer[0], new double[16]);
+        sealing = true;
+    }
+
+    /*
+     * REQUIRES: prices not null
+     * EFFECTS: Creates a history holding prices, sealing older prices into segments. The sealed
+     *          segments of a TieredHistory are shared rather than sealed again.
+     */
+    public TieredHistory(Collection<Double> prices) {
+        this();
+        if (prices instanceof TieredHistory) {
+            TieredHistory other = (TieredHistory) prices;
+            Tiers shared;
+            int otherSize;
+            do {
+                shared = other.tiers;
+                otherSize = other.size;
+            } while (shared != other.tiers);
+            int cold = shared.segments.length * SEGMENT_SIZE;
+            double[] hot = new double[Math.max(16, Integer.highestOneBit(otherSize - cold) * 2)];
+            System.arraycopy(shared.hot, 0, hot, 0, otherSize - cold);
+            tiers = new Tiers(shared.segments, hot);
+            size = otherSize;
+            return;
+        }
+        for (Double price : prices) {
+            addDouble(price);
+        }
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: Appends price, sealing the oldest hot prices into a segment if the hot
+     *          buffer holds a full segment beyond HOT_CAPACITY.
+     */
+    public void addDouble(double price) {
+        Tiers current = tiers;
+        int hotSize = size - current.segments.length * SEGMENT_SIZE;
+        if (hotSize == current.hot.length) {
+            current = new Tiers(current.segments, Arrays.copyOf(current.hot, hotSize * 2));
+            tiers = current;
+        }
+        current.hot[hotSize] = price;
+        size++;
+        modCount++;
+        if (sealing && hotSize + 1 >= HOT_CAPACITY + SEGMENT_SIZE) {
+            seal();
+        }
+    }
+
+    /*
+     * REQUIRES: 0 <= i < size()
+     * EFFECTS: Returns price i without boxing.
+     */
+    public double getDouble(int i) {
+        Tiers current = tiers;
+        int cold = current.segments.length * SEGMENT_SIZE;
+        if (i >= cold) {
+            return current.hot[i - cold];
+        }
+        return current.segments[i / SEGMENT_SIZE].get(i % SEGMENT_SIZE);
+    }
+
+    /*
+     * REQUIRES: size() > 0
+     * MODIFIES: this
+     * EFFECTS: Replaces the last price with price.
+     */
+    public void setLastDouble(double price) {
+        Tiers current = tiers;
+        current.hot[size - 1 - current.segments.length * SEGMENT_SIZE] = price;
+        tiers = current; // publishes the new price to readers
+    }
+
+    /*
+     * EFFECTS: Returns number of prices sealed into memory-mapped segments.
+     */
+    public int coldSize() {
+        return tiers.segments.length * SEGMENT_SIZE;
+    }
+
+    /*
+     * EFFECTS: Returns the file segments of this history are sealed into, or null if none was.
+     */
+    Path segmentFile() {
+        return (segmentFile == null) ? null : segmentFile.path;
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: Appends the oldest SEGMENT_SIZE hot prices to the segment file of this history,
+     *          maps them read-only and removes them from the hot buffer. If the file cannot be
+     *          written, stops sealing and keeps all prices in heap.
+     */
+    private void seal() {
+        Tiers current = tiers;
+        DoubleBuffer segment;
+        try {
+            if (segmentFile == null) {
+                segmentFile = new SegmentFile(Files.createTempFile(segmentDirectory(), "history", ".bin"));
+                CLEANER.register(this, segmentFile);
+            }
+            ByteBuffer bytes = ByteBuffer.allocate(SEGMENT_SIZE * Double.BYTES);
+            bytes.asDoubleBuffer().put(current.hot, 0, SEGMENT_SIZE);
+            long offset = segmentFile.length;
+            try (FileChannel channel = FileChannel.open(segmentFile.path, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes, offset + bytes.position());
+                }
+                segment = channel.map(FileChannel.MapMode.READ_ONLY, offset, bytes.capacity()).asDoubleBuffer();
+            }
+            segmentFile.length += bytes.capacity();
+        } catch (IOException | UnsupportedOperationException e) {
+            sealing = false;
+            return;
+        }
+        int hotSize = size - current.segments.length * SEGMENT_SIZE - SEGMENT_SIZE;
+        DoubleBuffer[] segments = Arrays.copyOf(current.segments, current.segments.length + 1);
+        segments[current.segments.length] = segment;
+        double[] remaining = new double[Math.max(16, Integer.highestOneBit(hotSize) * 2)];
+        System.arraycopy(current.hot, SEGMENT_SIZE, remaining, 0, hotSize);
+        tiers = new Tiers(segments, remaining);
+    }
+
+    /*
+     * EFFECTS: Returns the directory segment files are written to, creating it and a hook
+     *          deleting it at exit if needed.
+     */
+    private static synchronized Path segmentDirectory() throws IOException {
+        if (segmentDirectory == null) {
+            Path directory = Files.createTempDirectory("tradingSimulator-history");
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> deleteDirectory(directory)));
+            segmentDirectory = directory;
+        }
+        return segmentDirectory;
+    }
+
+    /*
+     * EFFECTS: Deletes directory and the segment files left in it, ignoring failures.
+     */
+    private static void deleteDirectory(Path directory) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(directory);
+        } catch (IOException e) {
+            // left to the temporary directory of the operating system
+        }
+    }
+
+    /*
+     * REQUIRES: price not null
+     * MODIFIES: this
+     * EFFECTS: Appends price and returns true.
+     */
+    @Override
+    public boolean add(Double price) {
+        addDouble(price);
+        return true;
+    }
+
+    @Override
+    public Double get(int i) {
+        if (i < 0 || i >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size());
+        }
+        return getDouble(i);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /*
+     * Represents the sealed segments and the hot buffer of a history at one time. A new instance
+     * is published whenever segments are sealed or the hot buffer grows, so readers never see a
+     * segment count that does not match the hot buffer.
+     */
+    private static final class Tiers {
+        private final DoubleBuffer[] segments;    // Sealed segments, oldest first, never modified
+        private final double[] hot;               // Prices that are not sealed, oldest first
+
+        Tiers(DoubleBuffer[] segments, double[] hot) {
+            this.segments = segments;
+            this.hot = hot;
+        }
+    }
+
+    /*
+     * Represents the file the segments of one history are appended to. Deletes the file when
+     * the history is garbage collected, so it must never refer to the history itself.
+     */
+    private static final class SegmentFile implements Runnable {
+        private final Path path;                  // Path of the file
+        private long length;                      // Number of bytes sealed into the file
+
+        SegmentFile(Path path) {
+            this.path = path;
+        }
+
+        @Override
+        public void run() {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                // deleted with the segment directory at exit
+            }
+        }
+    }
+}
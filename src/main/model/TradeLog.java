@@ -0,0 +1,346 @@
+package model;
+
+import persistence.TradeJournal;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.IntStream;
+
+/**
+ * Represents the audit trail of every trade attempted in the system.
+ * We use the Singleton Design Pattern, like EventLog, so that every account
+ * records its trades in the same place.
+ * Trades are stored in parallel primitive columns, with account names and tickers
+ * replaced by ids. A time index and a per-ticker index answer range queries
+ * without scanning every trade. Trades can be journaled to an append-only file.
+ */
+public class TradeLog {
+    /** the only TradeLog in the system (Singleton Design Pattern) */
+    private static TradeLog theLog;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long[] times;        // market time of each trade in epoch milliseconds
+    private int[] accounts;      // account id of each trade
+    private int[] tickers;       // ticker id of each trade
+    private byte[] sides;        // Order.Side ordinal of each trade
+    private int[] quantities;    // quantity of each trade
+    private double[] prices;     // price of each trade
+    private byte[] statuses;     // TradeRecord.Status ordinal of each trade
+    private int size;            // number of trades stored
+
+    private final List<String> accountNames;        // account name of each account id
+    private final Map<String, Integer> accountIds;  // account id of each account name
+    private final List<String> tickerNames;         // ticker of each ticker id
+    private final Map<String, Integer> tickerIds;   // ticker id of each ticker
+    private final List<int[]> tickerRows;           // rows of each ticker id, in insertion order
+    private int[] tickerRowCounts;                  // number of rows used in each tickerRows array
+
+    private boolean ordered;     // true if trades were recorded in time order
+    private int[] byTime;        // rows sorted by time, null if ordered or not built yet
+    private TradeJournal journal; // file trades are appended to, null if not journaled
+
+    /**
+     * Prevent external construction.
+     * (Singleton Design Pattern).
+     */
+    private TradeLog() {
+        accountNames = new ArrayList<>();
+        accountIds = new HashMap<>();
+        tickerNames = new ArrayList<>();
+        tickerIds = new HashMap<>();
+        tickerRows = new ArrayList<>();
+        clearColumns();
+    }
+
+    /**
+     * Gets instance of TradeLog - creates it
+     * if it doesn't already exist.
+     * (Singleton Design Pattern)
+     * @return  instance of TradeLog
+     */
+    public static synchronized TradeLog getInstance() {
+        if (theLog == null) {
+            theLog = new TradeLog();
+        }
+        return theLog;
+    }
+
+    /**
+     * Loads the trades journaled in the file at destination and appends
+     * every trade recorded from now on to it.
+     * @param destination path of the journal file
+     * @throws IOException if the journal cannot be read or opened
+     */
+    public synchronized void open(String destination) throws IOException {
+        close();
+        TradeJournal opened = new TradeJournal(destination);
+        opened.open(this::store);
+        journal = opened;
+    }
+
+    /**
+     * Opens the journal at destination like open(...), but on a background thread, so that
+     * replaying a long journal does not delay the caller. Returns once the background thread
+     * holds this log, so trades recorded from then on wait for the replay and are journaled
+     * after the trades replayed.
+     * @param destination path of the journal file
+     * @return a future completed once the journal is open, or exceptionally if it cannot be
+     *         read or opened
+     */
+    public CompletableFuture<Void> openAsync(String destination) {
+        CountDownLatch locked = new CountDownLatch(1);
+        CompletableFuture<Void> opened = CompletableFuture.runAsync(() -> {
+            synchronized (this) {
+                locked.countDown();
+                try {
+                    open(destination);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }
+        });
+        try {
+            locked.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return opened;
+    }
+
+    /**
+     * Stops journaling trades to a file.
+     * @throws IOException if the journal cannot be closed
+     */
+    public synchronized void close() throws IOException {
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+    }
+
+    /**
+     * Records a trade, appending it to the journal if one is open.
+     * If the journal cannot be written, it is closed, the failure is logged
+     * to the EventLog and trades are only kept in memory from then on.
+     * @param record the trade to be recorded
+     */
+    public synchronized void record(TradeRecord record) {
+        store(record);
+        if (journal != null) {
+            try {
+                journal.append(record);
+            } catch (IOException e) {
+                try {
+                    journal.close();
+                } catch (IOException ignored) {
+                    // the journal is abandoned either way
+                }
+                journal = null;
+                EventLog.getInstance().logEvent(new Event("Trade journal stopped, unable to write: "
+                        + e.getMessage()));
+            }
+        }
+    }
+
+    /**
+     * Returns the trades of ticker from fromMillis inclusive to toMillis exclusive,
+     * ordered by time.
+     * @param ticker the ticker of the trades, or null for trades of every ticker
+     * @param fromMillis start of the time range in epoch milliseconds
+     * @param toMillis end of the time range in epoch milliseconds
+     * @return the trades in the range
+     */
+    public synchronized List<TradeRecord> query(String ticker, long fromMillis, long toMillis) {
+        int[] rows;
+        int count;
+        if (ticker == null) {
+            rows = timeIndex();
+            count = size;
+        } else {
+            Integer id = tickerIds.get(ticker);
+            if (id == null) {
+                return new ArrayList<>();
+            }
+            rows = tickerRows.get(id);
+            count = tickerRowCounts[id];
+            if (!ordered) {
+                rows = sortByTime(Arrays.copyOf(rows, count));
+            }
+        }
+        List<TradeRecord> result = new ArrayList<>();
+        for (int i = firstAtOrAfter(rows, count, fromMillis); i < count && times[row(rows, i)] < toMillis; i++) {
+            result.add(get(row(rows, i)));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the trade at row, rows being numbered in the order trades were recorded.
+     * @param row the row of the trade, 0 <= row < size()
+     * @return the trade at row
+     */
+    public synchronized TradeRecord get(int row) {
+        return new TradeRecord(times[row], accountNames.get(accounts[row]), tickerNames.get(tickers[row]),
+                Order.Side.values()[sides[row]], quantities[row], prices[row],
+                TradeRecord.Status.values()[statuses[row]]);
+    }
+
+    /**
+     * Returns the number of trades recorded.
+     * @return the number of trades
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Clears the trades kept in memory. Trades already journaled stay in the journal.
+     */
+    public synchronized void clear() {
+        accountNames.clear();
+        accountIds.clear();
+        tickerNames.clear();
+        tickerIds.clear();
+        tickerRows.clear();
+        clearColumns();
+    }
+
+    /**
+     * Empties the columns and indices of trades.
+     */
+    private void clearColumns() {
+        times = new long[INITIAL_CAPACITY];
+        accounts = new int[INITIAL_CAPACITY];
+        tickers = new int[INITIAL_CAPACITY];
+        sides = new byte[INITIAL_CAPACITY];
+        quantities = new int[INITIAL_CAPACITY];
+        prices = new double[INITIAL_CAPACITY];
+        statuses = new byte[INITIAL_CAPACITY];
+        tickerRowCounts = new int[INITIAL_CAPACITY];
+        size = 0;
+        ordered = true;
+        byTime = null;
+    }
+
+    /**
+     * Stores a trade in the columns and indices, without journaling it.
+     * @param record the trade to be stored
+     */
+    private void store(TradeRecord record) {
+        if (size == times.length) {
+            int grown = size * 2;
+            times = Arrays.copyOf(times, grown);
+            accounts = Arrays.copyOf(accounts, grown);
+            tickers = Arrays.copyOf(tickers, grown);
+            sides = Arrays.copyOf(sides, grown);
+            quantities = Arrays.copyOf(quantities, grown);
+            prices = Arrays.copyOf(prices, grown);
+            statuses = Arrays.copyOf(statuses, grown);
+        }
+        if (size > 0 && record.getTimeMillis() < times[size - 1]) {
+            ordered = false;
+        }
+        byTime = null;
+        int ticker = tickerId(record.getTicker());
+        times[size] = record.getTimeMillis();
+        accounts[size] = accountId(record.getAccount());
+        tickers[size] = ticker;
+        sides[size] = (byte) record.getSide().ordinal();
+        quantities[size] = record.getQuantity();
+        prices[size] = record.getPrice();
+        statuses[size] = (byte) record.getStatus().ordinal();
+
+        int[] rows = tickerRows.get(ticker);
+        if (tickerRowCounts[ticker] == rows.length) {
+            rows = Arrays.copyOf(rows, rows.length * 2);
+            tickerRows.set(ticker, rows);
+        }
+        rows[tickerRowCounts[ticker]++] = size;
+        size++;
+    }
+
+    /**
+     * Returns the id of an account name, assigning the next id if it is new.
+     */
+    private int accountId(String name) {
+        Integer id = accountIds.get(name);
+        if (id == null) {
+            id = accountNames.size();
+            accountNames.add(name);
+            accountIds.put(name, id);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the id of a ticker, assigning the next id and an empty row index if it is new.
+     */
+    private int tickerId(String ticker) {
+        Integer id = tickerIds.get(ticker);
+        if (id == null) {
+            id = tickerNames.size();
+            tickerNames.add(ticker);
+            tickerIds.put(ticker, id);
+            tickerRows.add(new int[4]);
+            if (id == tickerRowCounts.length) {
+                tickerRowCounts = Arrays.copyOf(tickerRowCounts, id * 2);
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Returns rows of every trade sorted by time, or null if trades were recorded in
+     * time order, in which case rows are their own time index.
+     */
+    private int[] timeIndex() {
+        if (ordered) {
+            return null;
+        }
+        if (byTime == null) {
+            byTime = sortByTime(IntStream.range(0, size).toArray());
+        }
+        return byTime;
+    }
+
+    /**
+     * Returns rows sorted by the time of their trade, keeping the order of rows with equal times.
+     */
+    private int[] sortByTime(int[] rows) {
+        return Arrays.stream(rows).boxed()
+                .sorted((a, b) -> Long.compare(times[a], times[b]))
+                .mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Returns the row at position i of rows, or i itself if rows is null.
+     */
+    private static int row(int[] rows, int i) {
+        return (rows == null) ? i : rows[i];
+    }
+
+    /**
+     * Returns the first position in the first count rows whose trade is at or after timeMillis.
+     */
+    private int firstAtOrAfter(int[] rows, int count, long timeMillis) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (times[row(rows, mid)] < timeMillis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,87 @@
+package model;
+
+import java.time.Instant;
+
+/*
+ * Represents one trade attempted by an account: when it happened, who traded what,
+ * on which side, how many at which price, and whether it was filled or rejected.
+ */
+public class TradeRecord {
+    /*
+     * Represents the outcome of a trade.
+     */
+    public enum Status {
+        FILLED,
+        REJECTED
+    }
+
+    public static final String CSV_HEADER = "time,account,ticker,side,quantity,price,status";
+
+    private final long timeMillis;      // Market time of the trade in epoch milliseconds
+    private final String account;       // Name of the account that traded
+    private final String ticker;        // Ticker of the security traded
+    private final Order.Side side;      // Buy or sell
+    private final int quantity;         // Number of securities traded
+    private final double price;         // Price of a single security
+    private final Status status;        // Filled or rejected
+
+    /*
+     * REQUIRES: account, ticker, side and status not null, quantity > 0
+     * EFFECTS: Creates a record of a trade with the given fields.
+     */
+    public TradeRecord(long timeMillis, String account, String ticker, Order.Side side, int quantity,
+                       double price, Status status) {
+        this.timeMillis = timeMillis;
+        this.account = account;
+        this.ticker = ticker;
+        this.side = side;
+        this.quantity = quantity;
+        this.price = price;
+        this.status = status;
+    }
+
+    /*
+     * EFFECTS: Returns this record as a line of comma separated values in the order of CSV_HEADER.
+     */
+    public String toCsv() {
+        return String.format("%s,%s,%s,%s,%d,%.4f,%s",
+                Instant.ofEpochMilli(timeMillis), account, ticker, side, quantity, price, status);
+    }
+
+    /*
+     * EFFECTS: Returns a human readable representation of this record.
+     */
+    @Override
+    public String toString() {
+        return String.format("%s %s %s %s QTY%d at $%.2f %s",
+                Instant.ofEpochMilli(timeMillis), account, side, ticker, quantity, price, status);
+    }
+
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    public String getAccount() {
+        return account;
+    }
+
+    public String getTicker() {
+        return ticker;
+    }
+
+    public Order.Side getSide() {
+        return side;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+}
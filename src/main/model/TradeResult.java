@@ -0,0 +1,66 @@
+package model;
+
+/*
+ * Represents the outcome of the last trade filled into it: the side, quantity, security
+ * and price of the order, and the reason it was rejected, or RejectReason.NONE if it was
+ * filled. A caller placing many orders can allocate one result and pass it to every trade.
+ */
+public class TradeResult {
+    private RejectReason reason = RejectReason.NONE; // Why the trade was rejected, or NONE
+    private Order.Side side;                         // Buy or sell
+    private int quantity;                            // Number of securities ordered
+    private Security security;                       // Security traded, null before the first trade
+    private double price;                            // Price the order was checked and filled at
+
+    /*
+     * REQUIRES: reason, side, security not null, quantity > 0
+     * MODIFIES: this
+     * EFFECTS: Overwrites this result with the outcome of a trade.
+     */
+    void set(RejectReason reason, Order.Side side, int quantity, Security security, double price) {
+        this.reason = reason;
+        this.side = side;
+        this.quantity = quantity;
+        this.security = security;
+        this.price = price;
+    }
+
+    /*
+     * EFFECTS: Returns true if the trade was filled.
+     */
+    public boolean isFilled() {
+        return reason == RejectReason.NONE;
+    }
+
+    /*
+     * EFFECTS: Returns the message shown to the user for this result: the executed order
+     *          if it was filled and the reason otherwise.
+     */
+    public String getMessage() {
+        if (!isFilled()) {
+            return reason.getMessage();
+        }
+        return String.format("Order successfully executed: %s %s QTY%d at $%.2f.",
+                (side == Order.Side.BUY) ? "Bought" : "Sold", security.getTicker(), quantity, price);
+    }
+
+    public RejectReason getReason() {
+        return reason;
+    }
+
+    public Order.Side getSide() {
+        return side;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public Security getSecurity() {
+        return security;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+}
@@ -0,0 +1,223 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Represents the mark-to-market valuation of the positions of an account. Keeps the market
+ * value and cost basis of every position and running totals of both, so that a price tick
+ * or a fill updates the totals in constant time instead of summing every position again.
+ * Positions are marked at bid price, the price they could be sold for. The value of short
+ * positions is kept separately as well, so that gross exposure is known for margin.
+ * The securities with a position are kept apart, so that marking to market only needs to
+ * visit those however many securities are tracked.
+ */
+public class Valuation implements PriceListener {
+    private final Map<Security, Holding> holdings; // state of every tracked position
+    private final Set<Security> held;              // tracked securities with a position
+    private double marketValue;                    // sum of position times mark of all holdings
+    private double shortValue;                     // sum of -position times mark of short holdings
+    private double costBasis;                      // sum of cost basis of all holdings
+    private double realizedPnl;                    // profit and loss realized by sells
+
+    /*
+     * REQUIRES: realizedPnl is the profit and loss realized before this valuation was created
+     * EFFECTS: Creates a valuation tracking no positions.
+     */
+    Valuation(double realizedPnl) {
+        this.holdings = new IdentityHashMap<>();
+        this.held = Collections.newSetFromMap(new LinkedHashMap<>());
+        this.realizedPnl = realizedPnl;
+    }
+
+    /*
+     * REQUIRES: security not null
+     * MODIFIES: this, security
+     * EFFECTS: Starts tracking the position and prices of security, unless already tracked.
+     *          The current position already reflects the corporate actions applied to security.
+     *          The listener is added without holding the lock of this, since security calls
+     *          priceChanged(...) holding its own lock. A price appended meanwhile is either
+     *          read as the mark or marked by priceChanged(...) once the holding exists.
+     */
+    void track(Security security) {
+        synchronized (this) {
+            if (holdings.containsKey(security)) {
+                return;
+            }
+        }
+        security.addPriceListener(this);
+        synchronized (this) {
+            Holding holding = new Holding(security.getSecurityPosition(), security.getCostBasis(),
+                    security.lastBidPrice(), security.getCorporateActions().size());
+            holdings.put(security, holding);
+            marketValue += holding.position * holding.mark;
+            shortValue += holding.shortValue();
+            costBasis += holding.cost;
+            if (holding.position != 0) {
+                held.add(security);
+            }
+        }
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: Marks the position in security at the bid price of the new price.
+     */
+    @Override
+    public synchronized void priceChanged(Security security, double price) {
+        Holding holding = holdings.get(security);
+        if (holding == null) {
+            return;
+        }
+        double mark = price - Security.BID_SPREAD;
+        marketValue += holding.position * (mark - holding.mark);
+        if (holding.position < 0) {
+            shortValue -= holding.position * (mark - holding.mark);
+        }
+        holding.mark = mark;
+    }
+
+    /*
+     * REQUIRES: security is tracked
+     * MODIFIES: this
+     * EFFECTS: Updates the totals with the current position and cost basis of security.
+     */
+    synchronized void positionChanged(Security security) {
+        Holding holding = holdings.get(security);
+        int position = security.getSecurityPosition();
+        double cost = security.getCostBasis();
+        marketValue += (position - holding.position) * holding.mark;
+        costBasis += cost - holding.cost;
+        shortValue -= holding.shortValue();
+        holding.position = position;
+        holding.cost = cost;
+        shortValue += holding.shortValue();
+        if (position != 0) {
+            held.add(security);
+        } else {
+            held.remove(security);
+        }
+    }
+
+    /*
+     * EFFECTS: Returns the tracked securities with a position, in order they were first held.
+     */
+    synchronized List<Security> getHeld() {
+        return new ArrayList<>(held);
+    }
+
+    /*
+     * REQUIRES: security is tracked
+     * EFFECTS: Returns the number of corporate actions of security applied to the position.
+     */
+    synchronized int getActionsApplied(Security security) {
+        return holdings.get(security).actionsApplied;
+    }
+
+    /*
+     * REQUIRES: security is tracked
+     * MODIFIES: this
+     * EFFECTS: Records that the first actionsApplied corporate actions of security were applied.
+     */
+    synchronized void setActionsApplied(Security security, int actionsApplied) {
+        holdings.get(security).actionsApplied = actionsApplied;
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: Adds amount to realized profit and loss.
+     */
+    synchronized void realize(double amount) {
+        realizedPnl += amount;
+    }
+
+    /*
+     * EFFECTS: Returns the sum of every position valued at its last bid price.
+     */
+    public synchronized double getMarketValue() {
+        return marketValue;
+    }
+
+    /*
+     * EFFECTS: Returns the value of every short position at its last bid price, as a positive amount.
+     */
+    public synchronized double getShortValue() {
+        return shortValue;
+    }
+
+    /*
+     * EFFECTS: Returns the value of long positions plus the value of short positions.
+     */
+    public synchronized double getGrossExposure() {
+        return marketValue + 2 * shortValue;
+    }
+
+    /*
+     * EFFECTS: Returns the sum of the cost basis of every position.
+     */
+    public synchronized double getCostBasis() {
+        return costBasis;
+    }
+
+    /*
+     * EFFECTS: Returns profit and loss of open positions, market value minus cost basis.
+     */
+    public synchronized double getUnrealizedPnl() {
+        return marketValue - costBasis;
+    }
+
+    /*
+     * EFFECTS: Returns profit and loss realized by closing positions.
+     */
+    public synchronized double getRealizedPnl() {
+        return realizedPnl;
+    }
+
+    /*
+     * EFFECTS: Returns the position in security valued at its last bid price,
+     *          0 if security is not tracked.
+     */
+    public synchronized double getMarketValue(Security security) {
+        Holding holding = holdings.get(security);
+        return (holding == null) ? 0 : holding.position * holding.mark;
+    }
+
+    /*
+     * EFFECTS: Returns profit and loss of the open position in security,
+     *          0 if security is not tracked.
+     */
+    public synchronized double getUnrealizedPnl(Security security) {
+        Holding holding = holdings.get(security);
+        return (holding == null) ? 0 : holding.position * holding.mark - holding.cost;
+    }
+
+    /*
+     * Represents the last known position, cost basis and mark of a security, and how many
+     * of its corporate actions were applied to the position.
+     */
+    private static class Holding {
+        private int position;       // number of securities held
+        private double cost;        // cost basis of the position
+        private double mark;        // last bid price of the security
+        private int actionsApplied; // number of corporate actions applied to the position
+
+        private Holding(int position, double cost, double mark, int actionsApplied) {
+            this.position = position;
+            this.cost = cost;
+            this.mark = mark;
+            this.actionsApplied = actionsApplied;
+        }
+
+        /*
+         * EFFECTS: Returns the value of the position if it is short, as a positive amount, 0 otherwise.
+         */
+        private double shortValue() {
+            return (position < 0) ? -position * mark : 0;
+        }
+    }
+}
@@ -1,9 +1,25 @@
 package model.exception;
 
+import model.RejectReason;
+
 /**
  * Represents insufficient balance exception.
+ * Carries the reason the trade was rejected for. Thrown by the compatibility wrappers of
+ * Account around the trades returning a RejectReason, so no stack trace is captured.
  */
 public class InsufficientBalanceException extends Exception {
+    private final RejectReason reason;
+
     public InsufficientBalanceException() {
+        this(RejectReason.INSUFFICIENT_BALANCE);
+    }
+
+    public InsufficientBalanceException(RejectReason reason) {
+        super(reason.getMessage(), null, false, false);
+        this.reason = reason;
+    }
+
+    public RejectReason getReason() {
+        return reason;
     }
-}
\ No newline at end of file
+}
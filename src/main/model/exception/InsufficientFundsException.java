@@ -1,9 +1,25 @@
 package model.exception;
 
+import model.RejectReason;
+
 /**
  * Represents insufficient funds exception.
+ * Carries the reason the trade was rejected for. Thrown by the compatibility wrappers of
+ * Account around the trades returning a RejectReason, so no stack trace is captured.
  */
 public class InsufficientFundsException extends Exception {
+    private final RejectReason reason;
+
     public InsufficientFundsException() {
+        this(RejectReason.INSUFFICIENT_POSITION);
+    }
+
+    public InsufficientFundsException(RejectReason reason) {
+        super(reason.getMessage(), null, false, false);
+        this.reason = reason;
+    }
+
+    public RejectReason getReason() {
+        return reason;
     }
 }
@@ -0,0 +1,41 @@
+package model.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Represents a monotonically increasing count. Increments do not allocate
+ * and do not contend between threads.
+ */
+public class Counter {
+    private final LongAdder count;
+
+    /**
+     * Creates a counter starting at zero.
+     */
+    Counter() {
+        count = new LongAdder();
+    }
+
+    /**
+     * Adds one to this counter.
+     */
+    public void increment() {
+        count.increment();
+    }
+
+    /**
+     * Adds amount to this counter.
+     * @param amount  the amount to add, not negative
+     */
+    public void add(long amount) {
+        count.add(amount);
+    }
+
+    /**
+     * Gets the current count.
+     * @return  the sum of all increments
+     */
+    public long get() {
+        return count.sum();
+    }
+}
@@ -0,0 +1,26 @@
+package model.metrics;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * Represents a value that is sampled when read, such as a queue length or a file size.
+ */
+public class Gauge {
+    private final DoubleSupplier value;
+
+    /**
+     * Creates a gauge reading its value from the given supplier.
+     * @param value  supplies the current value, called on the reading thread
+     */
+    Gauge(DoubleSupplier value) {
+        this.value = value;
+    }
+
+    /**
+     * Gets the current value.
+     * @return  the value returned by the supplier
+     */
+    public double get() {
+        return value.getAsDouble();
+    }
+}
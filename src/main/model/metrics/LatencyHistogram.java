@@ -0,0 +1,126 @@
+package model.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Represents a histogram of latencies in nanoseconds with log-linear buckets, in the
+ * style of HdrHistogram. Each power of two is split into SUB_BUCKETS linear buckets,
+ * so any recorded value is reported within 1/SUB_BUCKETS of its true value. Recording
+ * is a few arithmetic operations and one atomic increment, and never allocates.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts;
+    private final LongAdder count;
+    private final LongAdder sum;
+    private final AtomicLongArray max;
+
+    /**
+     * Creates an empty histogram.
+     */
+    LatencyHistogram() {
+        counts = new AtomicLongArray(BUCKETS);
+        count = new LongAdder();
+        sum = new LongAdder();
+        max = new AtomicLongArray(1);
+    }
+
+    /**
+     * Records a latency.
+     * @param nanos  the latency in nanoseconds, negative values are recorded as zero
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        count.increment();
+        sum.add(value);
+        long current = max.get(0);
+        while (value > current && !max.compareAndSet(0, current, value)) {
+            current = max.get(0);
+        }
+    }
+
+    /**
+     * Records the time elapsed since start.
+     * @param start  a value previously returned by System.nanoTime()
+     */
+    public void recordSince(long start) {
+        record(System.nanoTime() - start);
+    }
+
+    /**
+     * Gets the number of latencies recorded.
+     * @return  the number of latencies recorded
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Gets the mean latency.
+     * @return  the mean latency in nanoseconds, 0 if nothing was recorded
+     */
+    public double getMean() {
+        long n = count.sum();
+        return (n == 0) ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * Gets the largest latency recorded.
+     * @return  the largest latency in nanoseconds, 0 if nothing was recorded
+     */
+    public long getMax() {
+        return max.get(0);
+    }
+
+    /**
+     * Gets a percentile of the recorded latencies.
+     * @param percentile  the percentile between 0 and 100
+     * @return  the upper bound of the bucket holding the percentile in nanoseconds,
+     *          0 if nothing was recorded
+     */
+    public long getPercentile(double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank && seen > 0) {
+                return Math.min(upperBoundOf(i), getMax());
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Gets the bucket a value falls into. Values below SUB_BUCKETS have a bucket each,
+     * above that each power of two is split into SUB_BUCKETS equal buckets.
+     */
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> exponent) - SUB_BUCKETS;
+        return (exponent + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Gets the largest value that falls into bucket.
+     */
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS - 1;
+        long subBucket = bucket % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << exponent) - 1;
+    }
+}
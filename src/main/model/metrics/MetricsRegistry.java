@@ -0,0 +1,208 @@
+package model.metrics;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Represents the registry of all metrics in the system.
+ * We use the Singleton Design Pattern, like EventLog, so that every class can look up
+ * its metrics once into static fields and update them without allocating.
+ * Metrics can be read with report() or through JMX once registerJmx() is called.
+ */
+public class MetricsRegistry {
+    /** the only MetricsRegistry in the system (Singleton Design Pattern) */
+    private static MetricsRegistry theRegistry;
+
+    private static final String JMX_NAME = "tradingSimulator:type=Metrics";
+
+    private final Map<String, Counter> counters;
+    private final Map<String, Gauge> gauges;
+    private final Map<String, LatencyHistogram> histograms;
+    private boolean registeredJmx;
+
+    /**
+     * Prevent external construction.
+     * (Singleton Design Pattern).
+     */
+    private MetricsRegistry() {
+        counters = new ConcurrentSkipListMap<>();
+        gauges = new ConcurrentSkipListMap<>();
+        histograms = new ConcurrentSkipListMap<>();
+    }
+
+    /**
+     * Gets instance of MetricsRegistry - creates it
+     * if it doesn't already exist.
+     * (Singleton Design Pattern)
+     * @return  instance of MetricsRegistry
+     */
+    public static synchronized MetricsRegistry getInstance() {
+        if (theRegistry == null) {
+            theRegistry = new MetricsRegistry();
+        }
+        return theRegistry;
+    }
+
+    /**
+     * Gets the counter with the given name, creating it if it doesn't exist.
+     * @param name  the name of the counter
+     * @return  the counter
+     */
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, n -> new Counter());
+    }
+
+    /**
+     * Registers a gauge with the given name, replacing any gauge with the same name.
+     * @param name  the name of the gauge
+     * @param value  supplies the value of the gauge when it is read
+     * @return  the gauge
+     */
+    public Gauge gauge(String name, DoubleSupplier value) {
+        Gauge gauge = new Gauge(value);
+        gauges.put(name, gauge);
+        return gauge;
+    }
+
+    /**
+     * Gets the latency histogram with the given name, creating it if it doesn't exist.
+     * @param name  the name of the histogram
+     * @return  the histogram
+     */
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, n -> new LatencyHistogram());
+    }
+
+    /**
+     * Gets a text report of all metrics, one per line, sorted by name.
+     * Latencies are reported in microseconds.
+     * @return  the report
+     */
+    public String report() {
+        StringBuilder report = new StringBuilder();
+        for (Map.Entry<String, Counter> e : counters.entrySet()) {
+            report.append(String.format("%-32s %d%n", e.getKey(), e.getValue().get()));
+        }
+        for (Map.Entry<String, Gauge> e : gauges.entrySet()) {
+            report.append(String.format("%-32s %.2f%n", e.getKey(), e.getValue().get()));
+        }
+        for (Map.Entry<String, LatencyHistogram> e : histograms.entrySet()) {
+            LatencyHistogram h = e.getValue();
+            report.append(String.format("%-32s count=%d mean=%.1fus p50=%.1fus p99=%.1fus max=%.1fus%n",
+                    e.getKey(), h.getCount(), h.getMean() / 1e3, h.getPercentile(50) / 1e3,
+                    h.getPercentile(99) / 1e3, h.getMax() / 1e3));
+        }
+        return report.toString();
+    }
+
+    /**
+     * Registers all metrics as attributes of one MBean on the platform MBean server.
+     * Does nothing if already registered.
+     * @throws JMException  if the MBean cannot be registered
+     */
+    public synchronized void registerJmx() throws JMException {
+        if (registeredJmx) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        server.registerMBean(new MetricsMBean(), new ObjectName(JMX_NAME));
+        registeredJmx = true;
+    }
+
+    /**
+     * Represents the JMX view of the registry. Each counter and gauge is an attribute,
+     * each histogram has count, mean, p50, p99 and max attributes in microseconds.
+     * Attributes are listed from the metrics registered when they are requested.
+     */
+    private class MetricsMBean implements DynamicMBean {
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            if (counters.containsKey(attribute)) {
+                return counters.get(attribute).get();
+            }
+            if (gauges.containsKey(attribute)) {
+                return gauges.get(attribute).get();
+            }
+            int dot = attribute.lastIndexOf('.');
+            LatencyHistogram h = (dot < 0) ? null : histograms.get(attribute.substring(0, dot));
+            if (h == null) {
+                throw new AttributeNotFoundException(attribute);
+            }
+            switch (attribute.substring(dot + 1)) {
+                case "count":
+                    return (double) h.getCount();
+                case "meanMicros":
+                    return h.getMean() / 1e3;
+                case "p50Micros":
+                    return h.getPercentile(50) / 1e3;
+                case "p99Micros":
+                    return h.getPercentile(99) / 1e3;
+                case "maxMicros":
+                    return h.getMax() / 1e3;
+                default:
+                    throw new AttributeNotFoundException(attribute);
+            }
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException("Metrics are read only: " + attribute.getName());
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            AttributeList list = new AttributeList();
+            for (String name : attributes) {
+                try {
+                    list.add(new Attribute(name, getAttribute(name)));
+                } catch (AttributeNotFoundException e) {
+                    // unknown attributes are left out, as the DynamicMBean contract allows
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+            throw new ReflectionException(new NoSuchMethodException(actionName));
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            List<MBeanAttributeInfo> attributes = new ArrayList<>();
+            for (String name : counters.keySet()) {
+                attributes.add(new MBeanAttributeInfo(name, "java.lang.Long", "counter", true, false, false));
+            }
+            for (String name : gauges.keySet()) {
+                attributes.add(new MBeanAttributeInfo(name, "java.lang.Double", "gauge", true, false, false));
+            }
+            for (String name : histograms.keySet()) {
+                for (String stat : new String[]{"count", "meanMicros", "p50Micros", "p99Micros", "maxMicros"}) {
+                    attributes.add(new MBeanAttributeInfo(name + "." + stat, "java.lang.Double",
+                            "latency histogram", true, false, false));
+                }
+            }
+            return new MBeanInfo(MetricsRegistry.class.getName(), "Trading simulator metrics",
+                    attributes.toArray(new MBeanAttributeInfo[0]), null, null, null);
+        }
+    }
+}
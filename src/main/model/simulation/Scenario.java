@@ -0,0 +1,146 @@
+package model.simulation;
+
+import model.AccountSnapshot.SecuritySnapshot;
+import model.CorporateAction;
+import model.Security;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+/*
+ * Represents a stress scenario: a name and the daily price moves it applies to every security
+ * of an account. Moves are gross returns, so 0.8 is a fall of 20%. Scenarios only read the
+ * snapshots of securities they are given and never touch live state.
+ */
+public class Scenario {
+    private static final double MIN_GROSS_RETURN = 0.01; // Lowest daily gross return a path may take
+
+    /*
+     * Represents how a scenario moves the price of one security.
+     */
+    @FunctionalInterface
+    public interface Path {
+        /*
+         * REQUIRES: security not null, random not null
+         * EFFECTS: Returns the gross return of security for every day of the scenario.
+         *          Every security of an account must be given the same number of days.
+         */
+        double[] returns(SecuritySnapshot security, SplittableRandom random);
+    }
+
+    private final String name;  // name shown in the result table
+    private final Path path;    // daily moves of every security
+
+    /*
+     * REQUIRES: name not null, path not null
+     * EFFECTS: Creates a scenario called name moving prices along path.
+     */
+    public Scenario(String name, Path path) {
+        this.name = name;
+        this.path = path;
+    }
+
+    /*
+     * REQUIRES: move > -1
+     * EFFECTS: Returns a scenario moving every price by move, as a fraction, in a single day.
+     */
+    public static Scenario shock(double move) {
+        return new Scenario(String.format("shock %+.0f%%", move * 100),
+                (security, random) -> new double[] {1 + move});
+    }
+
+    /*
+     * REQUIRES: multiplier > 0, days > 0
+     * EFFECTS: Returns a scenario drawing days of random daily returns without drift, with the
+     *          volatility of every security multiplied by multiplier. Each run draws a new path.
+     */
+    public static Scenario volatilitySpike(double multiplier, int days) {
+        return new Scenario(String.format("volatility x%.1f %dd", multiplier, days), (security, random) -> {
+            double stdDev = security.getVolatility() * multiplier / Math.sqrt(Security.TRADING_DAYS_PER_INTERVAL);
+            double[] returns = new double[days];
+            for (int i = 0; i < days; i++) {
+                returns[i] = Math.max(1 + random.nextGaussian() * stdDev, MIN_GROSS_RETURN);
+            }
+            return returns;
+        });
+    }
+
+    /*
+     * REQUIRES: days > 0
+     * EFFECTS: Returns a scenario replaying, for every security, the days consecutive daily
+     *          returns of its own history that lost the most. Returns are corrected for
+     *          corporate actions. Securities with less history replay all they have and hold
+     *          their price for the remaining days.
+     */
+    public static Scenario worstHistory(int days) {
+        return new Scenario(String.format("worst %dd in history", days), (security, random) -> {
+            double[] daily = dailyReturns(security);
+            int length = Math.min(days, daily.length);
+            int worst = 0;
+            double logSum = 0;
+            for (int i = 0; i < length; i++) {
+                logSum += Math.log(daily[i]);
+            }
+            double worstSum = logSum;
+            for (int i = length; i < daily.length; i++) {
+                logSum += Math.log(daily[i]) - Math.log(daily[i - length]);
+                if (logSum < worstSum) {
+                    worstSum = logSum;
+                    worst = i - length + 1;
+                }
+            }
+            double[] returns = new double[days];
+            for (int i = 0; i < days; i++) {
+                returns[i] = (i < length) ? daily[worst + i] : 1;
+            }
+            return returns;
+        });
+    }
+
+    /*
+     * REQUIRES: name not null, returns not null and not empty
+     * EFFECTS: Returns a scenario called name applying the given daily gross returns to every
+     *          security, such as the returns of a historical market crash.
+     */
+    public static Scenario replay(String name, double[] returns) {
+        double[] copy = returns.clone();
+        return new Scenario(name, (security, random) -> copy);
+    }
+
+    /*
+     * EFFECTS: Returns the standard set of scenarios: single day shocks from -30% to +10%,
+     *          the worst week and month of history, and one path of doubled and tripled
+     *          volatility for a month.
+     */
+    public static List<Scenario> standardSet() {
+        return List.of(shock(-0.30), shock(-0.20), shock(-0.10), shock(-0.05), shock(0.10),
+                worstHistory(5), worstHistory(21), volatilitySpike(2, 21), volatilitySpike(3, 21));
+    }
+
+    /*
+     * EFFECTS: Returns the gross return of every day of the history of security after the
+     *          first, with the open of every ex-day adjusted for its corporate action.
+     */
+    static double[] dailyReturns(SecuritySnapshot security) {
+        int size = security.getHistorySize();
+        double[] returns = new double[Math.max(size - 1, 0)];
+        for (int i = 1; i < size; i++) {
+            returns[i - 1] = security.getPrice(i) / security.getPrice(i - 1);
+        }
+        for (CorporateAction action : security.getCorporateActions()) {
+            int day = action.getDay();
+            if (day > 0 && day < size) {
+                returns[day - 1] /= action.adjustmentFactor(security.getPrice(day - 1));
+            }
+        }
+        return returns;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+}
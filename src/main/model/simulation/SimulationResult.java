@@ -0,0 +1,69 @@
+package model.simulation;
+
+/*
+ * Represents the outcome of simulating one account over the whole horizon.
+ */
+public class SimulationResult {
+    public static final String CSV_HEADER = "account,seed,initialEquity,finalEquity,return,maxDrawdown,rejections";
+
+    private final String name;           // name of the simulated account
+    private final long seed;             // seed the market of the account was generated with
+    private final double initialEquity;  // equity before the first step
+    private final double finalEquity;    // equity after the last step
+    private final double maxDrawdown;    // largest fall from a previous peak of equity, as a fraction
+    private final int rejections;        // number of steps where the strategy had a trade rejected
+
+    /*
+     * REQUIRES: initialEquity > 0, 0 <= maxDrawdown <= 1, rejections >= 0
+     * EFFECTS: Creates the result of a simulated account with the given values.
+     */
+    public SimulationResult(String name, long seed, double initialEquity, double finalEquity,
+                            double maxDrawdown, int rejections) {
+        this.name = name;
+        this.seed = seed;
+        this.initialEquity = initialEquity;
+        this.finalEquity = finalEquity;
+        this.maxDrawdown = maxDrawdown;
+        this.rejections = rejections;
+    }
+
+    /*
+     * EFFECTS: Returns the total return of the account over the horizon as a fraction.
+     */
+    public double getTotalReturn() {
+        return finalEquity / initialEquity - 1;
+    }
+
+    /*
+     * EFFECTS: Returns this result as a line of comma separated values in the order
+     *          of CSV_HEADER.
+     */
+    public String toCsv() {
+        return String.format("%s,%d,%.2f,%.2f,%.6f,%.6f,%d",
+                name, seed, initialEquity, finalEquity, getTotalReturn(), maxDrawdown, rejections);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public double getInitialEquity() {
+        return initialEquity;
+    }
+
+    public double getFinalEquity() {
+        return finalEquity;
+    }
+
+    public double getMaxDrawdown() {
+        return maxDrawdown;
+    }
+
+    public int getRejections() {
+        return rejections;
+    }
+}
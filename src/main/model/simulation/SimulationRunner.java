@@ -0,0 +1,182 @@
+package model.simulation;
+
+import model.Account;
+import model.DiscreteClock;
+import model.MarketClock;
+import model.RejectReason;
+import model.Security;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/*
+ * Represents a batch of independent accounts simulated over the same horizon.
+ * Every account trades its own copy of the market, generated from its own seed, and is
+ * driven by its own strategy. Each account has its own discrete clock, advanced in fixed
+ * steps instead of waiting for UPDATE_INTERVAL of real time, and accounts are spread across
+ * a work-stealing pool.
+ */
+public class SimulationRunner {
+    private static final Instant START = Instant.EPOCH; // Simulated time of the first step
+
+    private final int steps;                      // number of steps in the horizon
+    private final int daysPerStep;                // trading days generated per step
+    private final int parallelism;                // number of worker threads
+    private final List<SecurityTemplate> market;  // securities every account is given a copy of
+    private final List<AccountTemplate> accounts; // accounts to simulate, in order added
+
+    /*
+     * REQUIRES: steps > 0, daysPerStep > 0 and a multiple of Security.DAYS_PER_INTERVAL,
+     *           parallelism > 0
+     * EFFECTS: Creates a runner with an empty market and no accounts, which simulates
+     *          steps * daysPerStep trading days on parallelism worker threads.
+     */
+    public SimulationRunner(int steps, int daysPerStep, int parallelism) {
+        this.steps = steps;
+        this.daysPerStep = daysPerStep;
+        this.parallelism = parallelism;
+        this.market = new ArrayList<>();
+        this.accounts = new ArrayList<>();
+    }
+
+    /*
+     * REQUIRES: ticker.length() > 0, initialPrice > 0, yearlyReturn > 0, volatility > 0
+     * MODIFIES: this
+     * EFFECTS: Adds a security with the given parameters to the market of every account.
+     */
+    public void addSecurity(String ticker, double initialPrice, double yearlyReturn, double volatility) {
+        market.add(new SecurityTemplate(ticker, initialPrice, yearlyReturn, volatility));
+    }
+
+    /*
+     * REQUIRES: name.length() > 0, balance > 0, strategy not null
+     * MODIFIES: this
+     * EFFECTS: Adds an account starting with balance in cash, whose market prices are
+     *          generated from seed and which is traded by strategy.
+     */
+    public void addAccount(String name, double balance, long seed, Strategy strategy) {
+        accounts.add(new AccountTemplate(name, balance, seed, strategy));
+    }
+
+    /*
+     * REQUIRES: at least one security has been added, out not null
+     * MODIFIES: out
+     * EFFECTS: Simulates every account in parallel and returns the aggregated outcome.
+     *          A header and then one line per account are written to out as comma
+     *          separated values; lines are written as accounts finish, so their order
+     *          may differ from the order accounts were added. Results in the summary keep
+     *          the order accounts were added. Throws IOException if out cannot be written.
+     */
+    public SimulationSummary run(Writer out) throws IOException {
+        out.write(SimulationResult.CSV_HEADER + System.lineSeparator());
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<SimulationResult> results = pool.submit(() -> accounts.parallelStream()
+                    .map(template -> {
+                        SimulationResult result = simulate(template);
+                        writeResult(out, result);
+                        return result;
+                    })
+                    .collect(Collectors.toList())).join();
+            out.flush();
+            return new SimulationSummary(results);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /*
+     * MODIFIES: out
+     * EFFECTS: Writes result to out as one line. Lines of different workers are never interleaved.
+     */
+    private static void writeResult(Writer out, SimulationResult result) {
+        synchronized (out) {
+            try {
+                out.write(result.toCsv() + System.lineSeparator());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /*
+     * EFFECTS: Creates the account described by template with its own copy of the market,
+     *          runs its strategy and settles its financing for every step and returns its result.
+     */
+    private SimulationResult simulate(AccountTemplate template) {
+        Random seeds = new Random(template.seed);
+        DiscreteClock clock = MarketClock.discrete(START);
+        List<Security> securities = new ArrayList<>(market.size());
+        for (SecurityTemplate security : market) {
+            Security copy = new Security(security.ticker, security.initialPrice, security.yearlyReturn,
+                    security.volatility);
+            copy.setClock(clock);
+            copy.setSeed(seeds.nextLong());
+            securities.add(copy);
+        }
+        Account account = Account.withoutLogging(template.name, template.balance, 0, securities);
+
+        double initialEquity = account.getEquity();
+        double peak = initialEquity;
+        double maxDrawdown = 0;
+        int rejections = 0;
+        for (int step = 0; step < steps; step++) {
+            if (template.strategy.onStep(account, step) != RejectReason.NONE) {
+                rejections++;
+            }
+            clock.advanceDays(daysPerStep);
+            for (Security security : securities) {
+                security.updateHistory();
+            }
+            account.accrueDays(daysPerStep);
+            double equity = account.getEquity();
+            peak = Math.max(peak, equity);
+            maxDrawdown = Math.max(maxDrawdown, (peak - equity) / peak);
+        }
+        return new SimulationResult(template.name, template.seed, initialEquity, account.getEquity(),
+                maxDrawdown, rejections);
+    }
+
+    /*
+     * Represents the parameters of a security in the market of every account.
+     */
+    private static class SecurityTemplate {
+        private final String ticker;
+        private final double initialPrice;
+        private final double yearlyReturn;
+        private final double volatility;
+
+        private SecurityTemplate(String ticker, double initialPrice, double yearlyReturn, double volatility) {
+            this.ticker = ticker;
+            this.initialPrice = initialPrice;
+            this.yearlyReturn = yearlyReturn;
+            this.volatility = volatility;
+        }
+    }
+
+    /*
+     * Represents the parameters of an account to simulate.
+     */
+    private static class AccountTemplate {
+        private final String name;
+        private final double balance;
+        private final long seed;
+        private final Strategy strategy;
+
+        private AccountTemplate(String name, double balance, long seed, Strategy strategy) {
+            this.name = name;
+            this.balance = balance;
+            this.seed = seed;
+            this.strategy = strategy;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package model.simulation;
+
+import java.util.Collections;
+import java.util.DoubleSummaryStatistics;
+import java.util.List;
+
+/*
+ * Represents the aggregated outcome of a batch simulation and the results of every account in it.
+ */
+public class SimulationSummary {
+    private final List<SimulationResult> results;       // results in the order accounts were added
+    private final DoubleSummaryStatistics returns;      // statistics of total returns
+    private final DoubleSummaryStatistics drawdowns;    // statistics of maximum drawdowns
+    private final long rejections;                      // total rejected steps of all accounts
+
+    /*
+     * REQUIRES: results not null
+     * EFFECTS: Aggregates returns, drawdowns and rejections of results with parallel reductions.
+     */
+    public SimulationSummary(List<SimulationResult> results) {
+        this.results = Collections.unmodifiableList(results);
+        this.returns = results.parallelStream().collect(DoubleSummaryStatistics::new,
+                (stats, result) -> stats.accept(result.getTotalReturn()), DoubleSummaryStatistics::combine);
+        this.drawdowns = results.parallelStream().collect(DoubleSummaryStatistics::new,
+                (stats, result) -> stats.accept(result.getMaxDrawdown()), DoubleSummaryStatistics::combine);
+        this.rejections = results.parallelStream().mapToLong(SimulationResult::getRejections).sum();
+    }
+
+    /*
+     * EFFECTS: Returns a human readable report of the aggregated outcome.
+     */
+    @Override
+    public String toString() {
+        return String.format("Accounts: %d%n"
+                        + "Return: mean %.2f%%, min %.2f%%, max %.2f%%%n"
+                        + "Max drawdown: mean %.2f%%, worst %.2f%%%n"
+                        + "Rejected steps: %d%n",
+                results.size(), getMeanReturn() * 100, getMinReturn() * 100, getMaxReturn() * 100,
+                getMeanDrawdown() * 100, getWorstDrawdown() * 100, rejections);
+    }
+
+    public List<SimulationResult> getResults() {
+        return results;
+    }
+
+    public double getMeanReturn() {
+        return returns.getAverage();
+    }
+
+    public double getMinReturn() {
+        return results.isEmpty() ? 0 : returns.getMin();
+    }
+
+    public double getMaxReturn() {
+        return results.isEmpty() ? 0 : returns.getMax();
+    }
+
+    public double getMeanDrawdown() {
+        return drawdowns.getAverage();
+    }
+
+    public double getWorstDrawdown() {
+        return results.isEmpty() ? 0 : drawdowns.getMax();
+    }
+
+    public long getRejections() {
+        return rejections;
+    }
+}
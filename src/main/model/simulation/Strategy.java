@@ -0,0 +1,71 @@
+package model.simulation;
+
+import model.Account;
+import model.RejectReason;
+import model.Security;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Represents a trading strategy driving one simulated account.
+ * A strategy is called once per simulation step, after prices for the step have been generated.
+ */
+@FunctionalInterface
+public interface Strategy {
+
+    /*
+     * REQUIRES: account not null, step >= 0
+     * MODIFIES: account
+     * EFFECTS: Places the trades of this strategy for the given step. Returns the reason the
+     *          first rejected trade of the step was rejected for, or RejectReason.NONE if every
+     *          trade was filled.
+     */
+    RejectReason onStep(Account account, int step);
+
+    /*
+     * EFFECTS: Returns a strategy that keeps all of its balance in cash.
+     */
+    static Strategy hold() {
+        return (account, step) -> RejectReason.NONE;
+    }
+
+    /*
+     * EFFECTS: Returns a strategy that invests its balance equally in every security
+     *          on the first step and holds the positions afterwards.
+     */
+    static Strategy buyAndHold() {
+        return (account, step) -> {
+            if (step != 0) {
+                return RejectReason.NONE;
+            }
+            return account.submitBasket(account.ordersToWeights(equalWeights(account.getSecurities())));
+        };
+    }
+
+    /*
+     * REQUIRES: steps > 0
+     * EFFECTS: Returns a strategy that rebalances to equal weights in every security
+     *          once every given number of steps, starting with the first step.
+     */
+    static Strategy rebalanceEvery(int steps) {
+        return (account, step) -> {
+            if (step % steps != 0) {
+                return RejectReason.NONE;
+            }
+            return account.submitBasket(account.ordersToWeights(equalWeights(account.getSecurities())));
+        };
+    }
+
+    /*
+     * EFFECTS: Returns equal weights for securities, summing to 1.
+     */
+    private static Map<Security, Double> equalWeights(List<Security> securities) {
+        Map<Security, Double> weights = new HashMap<>();
+        for (Security security : securities) {
+            weights.put(security, 1.0 / securities.size());
+        }
+        return weights;
+    }
+}
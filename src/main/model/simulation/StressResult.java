@@ -0,0 +1,107 @@
+package model.simulation;
+
+/*
+ * Represents the outcome of one stress scenario applied to an account.
+ */
+public class StressResult {
+    public static final String CSV_HEADER =
+            "scenario,days,startEquity,endEquity,return,minEquity,maxDrawdown,leverage,marginCallDay";
+
+    private final String scenario;       // name of the scenario
+    private final int days;              // number of days the scenario lasted
+    private final double startEquity;    // equity of the account before the scenario
+    private final double endEquity;      // equity after the last day
+    private final double minEquity;      // lowest equity at the end of any day
+    private final double maxDrawdown;    // largest fall from a previous peak of equity, as a fraction
+    private final double leverage;       // gross exposure over equity after the last day
+    private final int marginCallDay;     // first day ending below the maintenance margin, -1 if none
+
+    /*
+     * REQUIRES: days > 0, 0 <= maxDrawdown
+     * EFFECTS: Creates the result of a scenario with the given values.
+     */
+    public StressResult(String scenario, int days, double startEquity, double endEquity, double minEquity,
+                        double maxDrawdown, double leverage, int marginCallDay) {
+        this.scenario = scenario;
+        this.days = days;
+        this.startEquity = startEquity;
+        this.endEquity = endEquity;
+        this.minEquity = minEquity;
+        this.maxDrawdown = maxDrawdown;
+        this.leverage = leverage;
+        this.marginCallDay = marginCallDay;
+    }
+
+    /*
+     * EFFECTS: Returns the profit and loss of the account over the scenario.
+     */
+    public double getPnl() {
+        return endEquity - startEquity;
+    }
+
+    /*
+     * EFFECTS: Returns the return of the account over the scenario as a fraction,
+     *          0 if the account started without equity.
+     */
+    public double getReturn() {
+        return (startEquity > 0) ? endEquity / startEquity - 1 : 0;
+    }
+
+    /*
+     * EFFECTS: Returns true if the account ended a day of the scenario below its maintenance margin.
+     */
+    public boolean isMarginCall() {
+        return marginCallDay >= 0;
+    }
+
+    /*
+     * EFFECTS: Returns this result as a line of comma separated values in the order
+     *          of CSV_HEADER.
+     */
+    public String toCsv() {
+        return String.format("%s,%d,%.2f,%.2f,%.6f,%.2f,%.6f,%.4f,%d", scenario, days, startEquity,
+                endEquity, getReturn(), minEquity, maxDrawdown, leverage, marginCallDay);
+    }
+
+    /*
+     * EFFECTS: Returns this result as a row of a fixed width table.
+     */
+    @Override
+    public String toString() {
+        return String.format("%-24s %4d %12.2f %12.2f %8.2f%% %12.2f %7.2f%% %6.2fx %s", scenario, days,
+                startEquity, endEquity, getReturn() * 100, minEquity, maxDrawdown * 100, leverage,
+                isMarginCall() ? "day " + marginCallDay : "-");
+    }
+
+    public String getScenario() {
+        return scenario;
+    }
+
+    public int getDays() {
+        return days;
+    }
+
+    public double getStartEquity() {
+        return startEquity;
+    }
+
+    public double getEndEquity() {
+        return endEquity;
+    }
+
+    public double getMinEquity() {
+        return minEquity;
+    }
+
+    public double getMaxDrawdown() {
+        return maxDrawdown;
+    }
+
+    public double getLeverage() {
+        return leverage;
+    }
+
+    public int getMarginCallDay() {
+        return marginCallDay;
+    }
+}
@@ -0,0 +1,142 @@
+package model.simulation;
+
+import model.Account;
+import model.AccountSnapshot;
+import model.AccountSnapshot.SecuritySnapshot;
+import model.MarginTerms;
+import model.Security;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/*
+ * Represents a stress test of one account. The account is forked into an immutable snapshot,
+ * which shares the stored price history of its securities instead of copying it, so scenarios
+ * can never change live state. Every scenario values the positions of the fork day by day along
+ * its path, accruing interest and borrow fees and checking the maintenance margin. Scenarios are
+ * independent and evaluated in parallel on a work-stealing pool.
+ */
+public class StressTester {
+    private final AccountSnapshot account;   // fork of the account the scenarios are applied to
+    private final int parallelism;           // number of worker threads
+    private final double[] lastPrices;       // last price of every security when forked
+    private final int[] positions;           // position in every security when forked
+    private final double startEquity;        // equity of the fork, positions marked at bid
+
+    /*
+     * REQUIRES: account not null, account has at least one security, parallelism > 0
+     * EFFECTS: Creates a stress tester of account evaluating scenarios on parallelism worker threads.
+     */
+    public StressTester(AccountSnapshot account, int parallelism) {
+        this.account = account;
+        this.parallelism = parallelism;
+        List<SecuritySnapshot> securities = account.getSecurities();
+        this.lastPrices = new double[securities.size()];
+        this.positions = new int[securities.size()];
+        double equity = account.getBalance();
+        for (int i = 0; i < securities.size(); i++) {
+            SecuritySnapshot security = securities.get(i);
+            lastPrices[i] = security.getLastPrice();
+            positions[i] = security.getSecurityPosition();
+            equity += positions[i] * (lastPrices[i] - Security.BID_SPREAD);
+        }
+        this.startEquity = equity;
+    }
+
+    /*
+     * REQUIRES: account not null, parallelism > 0
+     * EFFECTS: Returns a stress tester of a fork of the current state of account. Later trades
+     *          on account do not change the fork.
+     */
+    public static StressTester fork(Account account, int parallelism) {
+        return new StressTester(account.snapshot(), parallelism);
+    }
+
+    /*
+     * REQUIRES: scenarios not null
+     * EFFECTS: Evaluates every scenario in parallel and returns the results in the order of
+     *          scenarios. Scenario i draws its random moves from seed + i, so results are
+     *          reproducible and repeated random scenarios follow different paths.
+     */
+    public List<StressResult> run(List<Scenario> scenarios, long seed) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.submit(() -> IntStream.range(0, scenarios.size()).parallel()
+                    .mapToObj(i -> evaluate(scenarios.get(i), new SplittableRandom(seed + i)))
+                    .collect(Collectors.toList())).join();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /*
+     * REQUIRES: scenario not null, random not null
+     * EFFECTS: Moves the prices of the fork along the path of scenario and returns the
+     *          resulting equity, drawdown, leverage and first margin call.
+     */
+    StressResult evaluate(Scenario scenario, SplittableRandom random) {
+        List<SecuritySnapshot> securities = account.getSecurities();
+        double[][] paths = new double[securities.size()][];
+        for (int i = 0; i < paths.length; i++) {
+            paths[i] = scenario.getPath().returns(securities.get(i), random);
+        }
+        MarginTerms terms = account.getMarginTerms();
+        double[] prices = lastPrices.clone();
+        double balance = account.getBalance();
+        double equity = startEquity;
+        double peak = startEquity;
+        double minEquity = startEquity;
+        double maxDrawdown = 0;
+        double grossExposure = 0;
+        int marginCallDay = -1;
+        int days = paths[0].length;
+        for (int day = 0; day < days; day++) {
+            double marketValue = 0;
+            double shortValue = 0;
+            grossExposure = 0;
+            for (int i = 0; i < prices.length; i++) {
+                prices[i] *= paths[i][day];
+                double value = positions[i] * (prices[i] - Security.BID_SPREAD);
+                marketValue += value;
+                grossExposure += Math.abs(value);
+                shortValue += (value < 0) ? -value : 0;
+            }
+            balance += terms.dailyFinancing(balance, shortValue);
+            equity = balance + marketValue;
+            minEquity = Math.min(minEquity, equity);
+            peak = Math.max(peak, equity);
+            if (peak > 0) {
+                maxDrawdown = Math.max(maxDrawdown, (peak - equity) / peak);
+            }
+            if (marginCallDay < 0 && terms.isMarginCall(equity, grossExposure)) {
+                marginCallDay = day + 1;
+            }
+        }
+        double leverage = (equity > 0) ? grossExposure / equity : Double.POSITIVE_INFINITY;
+        return new StressResult(scenario.getName(), days, startEquity, equity, minEquity, maxDrawdown,
+                leverage, marginCallDay);
+    }
+
+    /*
+     * REQUIRES: results not null, out not null
+     * MODIFIES: out
+     * EFFECTS: Writes a header and then one line per result to out as comma separated values.
+     *          Throws IOException if out cannot be written.
+     */
+    public static void writeCsv(List<StressResult> results, Writer out) throws IOException {
+        out.write(StressResult.CSV_HEADER + System.lineSeparator());
+        for (StressResult result : results) {
+            out.write(result.toCsv() + System.lineSeparator());
+        }
+        out.flush();
+    }
+
+    public double getStartEquity() {
+        return startEquity;
+    }
+}
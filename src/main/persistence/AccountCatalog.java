@@ -0,0 +1,411 @@
+package persistence;
+
+import model.Account;
+import model.AccountSnapshot;
+import model.AccountSnapshot.SecuritySnapshot;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Represents a directory of account save files with an index file listing the name, size,
+// last-modified time and tickers of every account, so listing accounts never opens their files.
+// Accounts are loaded and saved in parallel on a bounded pool of I/O threads. Every file is guarded
+// by a lock file: a lock held within this process while the file is read or written, and a FileLock
+// on it so that other processes sharing the directory wait instead of clobbering the file.
+// Files are replaced atomically, and the index is merged with the index on disk when it is written.
+// The file of a new account is reserved in the index before it is written, so two processes never
+// give the same file to different accounts
+public class AccountCatalog {
+    public static final String INDEX_FILE = "index.json"; // Name of the index file in the directory
+    private static final String LOCK_SUFFIX = ".lock";    // Suffix of the lock file guarding a file
+    private static final long RESERVED = -1;              // Size in the entry of a file not written yet
+    // Lock of every file used by this process. FileLocks are held on behalf of the whole process, so
+    // catalogs of the same directory in one process must wait for one another before taking them
+    private static final Map<Path, ReentrantLock> LOCKS = new ConcurrentHashMap<>();
+
+    private final Path directory;                      // Directory holding the account files
+    private final ExecutorService pool;                // Bounded pool of I/O threads
+    private final Map<String, Entry> entries;          // Index entries by account name, reserved ones included
+    private long indexModified;                        // Last-modified time of the index when read
+
+    // Represents the index entry of one account file
+    public static class Entry implements Writable {
+        private final String name;          // Name of the account holder
+        private final String file;          // Name of the account file in the directory
+        private final long size;            // Size of the account file in bytes
+        private final long lastModified;    // Milliseconds since the epoch the file was last written
+        private final List<String> tickers; // Tickers of the securities of the account
+
+        // EFFECTS: constructs an entry with the given fields
+        public Entry(String name, String file, long size, long lastModified, List<String> tickers) {
+            this.name = name;
+            this.file = file;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.tickers = Collections.unmodifiableList(new ArrayList<>(tickers));
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getFile() {
+            return file;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public List<String> getTickers() {
+            return tickers;
+        }
+
+        // EFFECTS: returns this entry as a JSON object
+        @Override
+        public JSONObject toJson() {
+            JSONObject json = new JSONObject();
+            json.put("name", name);
+            json.put("file", file);
+            json.put("size", size);
+            json.put("lastModified", lastModified);
+            json.put("tickers", new JSONArray(tickers));
+            return json;
+        }
+
+        // EFFECTS: parses an entry from JSON object and returns it
+        static Entry fromJson(JSONObject json) {
+            List<String> tickers = new ArrayList<>();
+            for (Object ticker : json.getJSONArray("tickers")) {
+                tickers.add((String) ticker);
+            }
+            return new Entry(json.getString("name"), json.getString("file"), json.getLong("size"),
+                    json.getLong("lastModified"), tickers);
+        }
+    }
+
+    // REQUIRES: ioThreads > 0
+    // EFFECTS: constructs a catalog of the accounts in directory, creating it if it does not exist,
+    // that loads and saves on at most ioThreads threads; throws IOException if the directory cannot
+    // be created or its index cannot be read
+    public AccountCatalog(String directory, int ioThreads) throws IOException {
+        this.directory = Paths.get(directory).toAbsolutePath().normalize();
+        this.pool = Executors.newFixedThreadPool(ioThreads, r -> {
+            Thread thread = new Thread(r, "catalog-io");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.entries = new LinkedHashMap<>();
+        Files.createDirectories(this.directory);
+        indexModified = -1;
+        refresh();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the index entries of all accounts in order of name, reading the index file
+    // again only if another catalog wrote it since; never opens account files. Accounts whose file is
+    // reserved but not written yet are left out. Throws IOException if the index cannot be read
+    public synchronized List<Entry> list() throws IOException {
+        refresh();
+        List<Entry> written = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            if (entry.getSize() != RESERVED) {
+                written.add(entry);
+            }
+        }
+        return written;
+    }
+
+    // EFFECTS: returns the index entry of the account called name, null if there is none or its file
+    // is not written yet
+    public synchronized Entry find(String name) {
+        Entry entry = entries.get(name);
+        return (entry == null || entry.getSize() == RESERVED) ? null : entry;
+    }
+
+    // EFFECTS: loads and returns the account called name; throws IOException if it is not in the
+    // index or its file cannot be read
+    public Account load(String name) throws IOException {
+        Entry entry;
+        synchronized (this) {
+            refresh();
+            entry = find(name);
+        }
+        if (entry == null) {
+            throw new IOException("No account called " + name + " in " + directory);
+        }
+        Path file = directory.resolve(entry.getFile());
+        FileChannel channel = lock(file);
+        try (channel) {
+            return new JsonReader(file.toString()).read();
+        } finally {
+            unlock(file);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: takes a snapshot of account, writes it to its file and updates the index; throws
+    // IOException if the file or the index cannot be written
+    public void save(Account account) throws IOException {
+        Entry entry = write(account.snapshot());
+        updateIndex(Collections.singletonList(entry));
+    }
+
+    // EFFECTS: returns a future completed with the accounts called names, by name, loaded in
+    // parallel on the I/O pool, or completed exceptionally if any of them cannot be loaded
+    public CompletableFuture<Map<String, Account>> loadAll(Collection<String> names) {
+        List<CompletableFuture<Account>> loads = new ArrayList<>();
+        for (String name : names) {
+            loads.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return load(name);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }, pool));
+        }
+        return CompletableFuture.allOf(loads.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            Map<String, Account> accounts = new LinkedHashMap<>();
+            for (CompletableFuture<Account> load : loads) {
+                Account account = load.join();
+                accounts.put(account.getName(), account);
+            }
+            return accounts;
+        });
+    }
+
+    // MODIFIES: this
+    // EFFECTS: takes a snapshot of every account now, then returns a future completed once all of
+    // them are written in parallel on the I/O pool and the index is updated once for all of them,
+    // or completed exceptionally if any of them cannot be written
+    public CompletableFuture<Void> saveAll(Collection<Account> accounts) {
+        List<CompletableFuture<Entry>> saves = new ArrayList<>();
+        for (Account account : accounts) {
+            AccountSnapshot snapshot = account.snapshot();
+            saves.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return write(snapshot);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }, pool));
+        }
+        return CompletableFuture.allOf(saves.toArray(new CompletableFuture<?>[0])).thenRunAsync(() -> {
+            List<Entry> written = new ArrayList<>();
+            for (CompletableFuture<Entry> save : saves) {
+                written.add(save.join());
+            }
+            try {
+                updateIndex(written);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, pool);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stops the I/O pool once the loads and saves in progress are completed
+    public void close() {
+        pool.shutdown();
+    }
+
+    // EFFECTS: writes snapshot to a temporary file and moves it over the file of its account while
+    // holding the lock of that file, and returns its new index entry; throws IOException, leaving the
+    // file as it was, if it cannot be fully written
+    private Entry write(AccountSnapshot snapshot) throws IOException {
+        Path file = directory.resolve(fileOf(snapshot.getName()));
+        Path temp = directory.resolve(file.getFileName() + ".tmp");
+        FileChannel channel = lock(file);
+        try (channel) {
+            JsonWriter writer = new JsonWriter(temp.toString());
+            writer.open();
+            writer.write(snapshot);
+            writer.close();
+            if (writer.checkError()) {
+                throw new IOException("Failed to write " + temp);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            List<String> tickers = new ArrayList<>();
+            for (SecuritySnapshot security : snapshot.getSecurities()) {
+                tickers.add(security.getTicker());
+            }
+            return new Entry(snapshot.getName(), file.getFileName().toString(), Files.size(file),
+                    Files.getLastModifiedTime(file).toMillis(), tickers);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        } finally {
+            unlock(file);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the name of the file of the account called name: the file already given to
+    // it in the index, otherwise name with every character unsafe in file names replaced, followed by
+    // a number if another account already uses that file. A new file is reserved in the index on disk
+    // while holding the lock of the index, after reading it again, so that catalogs in other processes
+    // see it; throws IOException if the index cannot be read or written
+    private synchronized String fileOf(String name) throws IOException {
+        Entry entry = entries.get(name);
+        if (entry != null) {
+            return entry.getFile();
+        }
+        Path index = directory.resolve(INDEX_FILE);
+        FileChannel channel = lock(index);
+        try (channel) {
+            indexModified = -1;
+            refresh();
+            entry = entries.get(name);
+            if (entry == null) {
+                String base = name.replaceAll("[^A-Za-z0-9_-]", "_");
+                String file = base + ".json";
+                for (int i = 2; isUsed(file) || file.equals(INDEX_FILE); i++) {
+                    file = base + "-" + i + ".json";
+                }
+                entry = new Entry(name, file, RESERVED, 0, Collections.emptyList());
+                entries.put(name, entry);
+                sortEntries();
+                writeIndex();
+            }
+            return entry.getFile();
+        } finally {
+            unlock(index);
+        }
+    }
+
+    // EFFECTS: returns true if an account in the index, written or reserved, uses file
+    private boolean isUsed(String file) {
+        for (Entry entry : entries.values()) {
+            if (entry.getFile().equals(file)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: while holding the lock of the index, reads the index on disk so that entries written
+    // by other processes are kept, puts updates into it and writes it back; throws IOException if
+    // the index cannot be read or written
+    private synchronized void updateIndex(List<Entry> updates) throws IOException {
+        Path index = directory.resolve(INDEX_FILE);
+        FileChannel channel = lock(index);
+        try (channel) {
+            indexModified = -1;
+            refresh();
+            for (Entry entry : updates) {
+                entries.put(entry.getName(), entry);
+            }
+            sortEntries();
+            writeIndex();
+        } finally {
+            unlock(index);
+        }
+    }
+
+    // REQUIRES: the lock of the index is held
+    // MODIFIES: this
+    // EFFECTS: writes entries to a temporary file and moves it over the index; throws IOException if
+    // the index cannot be written
+    private void writeIndex() throws IOException {
+        Path index = directory.resolve(INDEX_FILE);
+        Path temp = directory.resolve(INDEX_FILE + ".tmp");
+        JSONArray accounts = new JSONArray();
+        for (Entry entry : entries.values()) {
+            accounts.put(entry.toJson());
+        }
+        JSONObject json = new JSONObject();
+        json.put("accounts", accounts);
+        Files.write(temp, json.toString(4).getBytes(StandardCharsets.UTF_8));
+        Files.move(temp, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        indexModified = Files.getLastModifiedTime(index).toMillis();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads the index file into entries if it was modified since it was last read; throws
+    // IOException if it cannot be read
+    private void refresh() throws IOException {
+        Path index = directory.resolve(INDEX_FILE);
+        if (!Files.exists(index)) {
+            return;
+        }
+        long modified = Files.getLastModifiedTime(index).toMillis();
+        if (modified == indexModified) {
+            return;
+        }
+        JSONObject json = new JSONObject(new String(Files.readAllBytes(index), StandardCharsets.UTF_8));
+        entries.clear();
+        for (Object entry : json.getJSONArray("accounts")) {
+            Entry parsed = Entry.fromJson((JSONObject) entry);
+            entries.put(parsed.getName(), parsed);
+        }
+        sortEntries();
+        indexModified = modified;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: orders entries by name
+    private void sortEntries() {
+        List<Entry> sorted = new ArrayList<>(entries.values());
+        sorted.sort((a, b) -> a.getName().compareTo(b.getName()));
+        entries.clear();
+        for (Entry entry : sorted) {
+            entries.put(entry.getName(), entry);
+        }
+    }
+
+    // EFFECTS: acquires the lock of file in this process, then an exclusive FileLock on its lock
+    // file, waiting for other processes holding it, and returns the channel of the lock file.
+    // Closing the channel releases the FileLock; unlock(file) must be called afterwards. Throws
+    // IOException, holding no lock, if the lock file cannot be opened or locked
+    private FileChannel lock(Path file) throws IOException {
+        ReentrantLock lock = LOCKS.computeIfAbsent(file, f -> new ReentrantLock());
+        lock.lock();
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(lockFileOf(file), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            channel.lock();
+            return channel;
+        } catch (IOException | RuntimeException e) {
+            if (channel != null) {
+                channel.close();
+            }
+            lock.unlock();
+            throw e;
+        }
+    }
+
+    // EFFECTS: releases the lock of file in this process
+    private void unlock(Path file) {
+        LOCKS.get(file).unlock();
+    }
+
+    // EFFECTS: returns the path of the lock file guarding file
+    private Path lockFileOf(Path file) {
+        return file.resolveSibling(file.getFileName() + LOCK_SUFFIX);
+    }
+}
@@ -0,0 +1,161 @@
+package persistence;
+
+import model.Account;
+import model.AccountSnapshot;
+import model.metrics.Counter;
+import model.metrics.MetricsRegistry;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Represents a saver that periodically writes a snapshot of an account to file on a background thread.
+// The snapshot is taken in microseconds under the account lock, serializing and writing happen on the
+// I/O thread, so trading never waits for a save. Files are replaced atomically.
+public class AutoSaver {
+    private static final Counter BYTES_WRITTEN = MetricsRegistry.getInstance().counter("persistence.bytesWritten");
+
+    private final String destination;                // Destination for *.json file
+    private final Supplier<Account> source;          // Supplies the account to save, may supply null
+    private final ScheduledExecutorService executor; // Background I/O thread
+
+    private final AtomicLong saves;          // Number of successful saves
+    private final AtomicLong failures;       // Number of failed saves
+    private final AtomicLong lastLatency;    // Nanoseconds taken by the last successful save
+    private final AtomicLong maxLatency;     // Largest nanoseconds taken by a successful save
+    private final AtomicLong lastBytes;      // Bytes written by the last successful save
+    private final AtomicLong totalBytes;     // Bytes written by all successful saves
+
+    // EFFECTS: constructs an auto saver writing the account supplied by source to destination
+    public AutoSaver(String destination, Supplier<Account> source) {
+        this.destination = destination;
+        this.source = source;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "autosave");
+            thread.setDaemon(true);
+            return thread;
+        });
+        saves = new AtomicLong();
+        failures = new AtomicLong();
+        lastLatency = new AtomicLong();
+        maxLatency = new AtomicLong();
+        lastBytes = new AtomicLong();
+        totalBytes = new AtomicLong();
+    }
+
+    // REQUIRES: periodSeconds > 0
+    // MODIFIES: this
+    // EFFECTS: saves the account every periodSeconds on the background thread
+    public void start(long periodSeconds) {
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                save();
+            } catch (IOException | RuntimeException e) {
+                // failure is counted, next period tries again
+            }
+        }, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stops periodic saves, a save in progress is completed
+    public void stop() {
+        executor.shutdown();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: takes a snapshot of the account now and returns a future completed once it
+    // is written on the background thread, or completed exceptionally if writing failed
+    public CompletableFuture<Void> saveNow() {
+        Account account = source.get();
+        AccountSnapshot snapshot = (account == null) ? null : account.snapshot();
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                write(snapshot);
+                result.complete(null);
+            } catch (IOException | RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: takes a snapshot of the account and writes it; throws IOException if writing fails
+    private void save() throws IOException {
+        Account account = source.get();
+        write((account == null) ? null : account.snapshot());
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes snapshot to a temporary file and moves it over destination, records
+    // latency and bytes written; does nothing if snapshot is null; throws IOException, deleting
+    // the temporary file and counting the failure, if writing fails
+    private void write(AccountSnapshot snapshot) throws IOException {
+        if (snapshot == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        Path target = Paths.get(destination);
+        Path temp = Paths.get(destination + ".tmp");
+        try {
+            JsonWriter writer = new JsonWriter(temp.toString());
+            writer.open();
+            writer.write(snapshot);
+            writer.close();
+            if (writer.checkError()) {
+                throw new IOException("Failed to write " + temp);
+            }
+            long bytes = Files.size(temp);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            record(System.nanoTime() - start, bytes);
+        } catch (IOException e) {
+            failures.incrementAndGet();
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records a successful save taking latency nanoseconds and writing bytes
+    private void record(long latency, long bytes) {
+        saves.incrementAndGet();
+        lastLatency.set(latency);
+        maxLatency.accumulateAndGet(latency, Math::max);
+        lastBytes.set(bytes);
+        totalBytes.addAndGet(bytes);
+        BYTES_WRITTEN.add(bytes);
+    }
+
+    public long getSaves() {
+        return saves.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    public long getLastLatencyNanos() {
+        return lastLatency.get();
+    }
+
+    public long getMaxLatencyNanos() {
+        return maxLatency.get();
+    }
+
+    public long getLastBytes() {
+        return lastBytes.get();
+    }
+
+    public long getTotalBytes() {
+        return totalBytes.get();
+    }
+}
@@ -0,0 +1,300 @@
+package persistence;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Represents a simple columnar binary file, in the spirit of Parquet, for analysis in external tools.
+// Layout: magic, column count, then the name and type of every column, followed by row groups that are
+// appended as they fill up. A row group is its row count followed by the values of every column in
+// turn: longs, ints and doubles as big-endian raw values, strings as a dictionary of the distinct
+// values of the group followed by one int index per row. Row groups can be appended to an existing
+// file of the same columns at any time, so exports never rewrite what was already written
+public final class ColumnarFile {
+    public static final int MAGIC = 0x54534331;  // "TSC1", first four bytes of every file
+    public static final int ROW_GROUP_SIZE = 1 << 16; // Rows buffered before a row group is written
+
+    // Represents the type of the values of a column
+    public enum Type {
+        LONG, INT, DOUBLE, STRING
+    }
+
+    // EFFECTS: prevents construction, all methods are static
+    private ColumnarFile() {
+    }
+
+    // REQUIRES: file was written by a Writer
+    // EFFECTS: returns the values of every column of file by name, in order of the columns; throws
+    // IOException if file cannot be read or is not a columnar file
+    public static Map<String, List<Object>> read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a columnar file: " + file);
+            }
+            int count = in.readInt();
+            String[] names = new String[count];
+            Type[] types = new Type[count];
+            Map<String, List<Object>> columns = new LinkedHashMap<>();
+            for (int c = 0; c < count; c++) {
+                names[c] = in.readUTF();
+                types[c] = Type.values()[in.readByte()];
+                columns.put(names[c], new ArrayList<>());
+            }
+            while (true) {
+                int rows;
+                try {
+                    rows = in.readInt();
+                } catch (EOFException e) {
+                    return columns;
+                }
+                for (int c = 0; c < count; c++) {
+                    readColumn(in, types[c], rows, columns.get(names[c]));
+                }
+            }
+        }
+    }
+
+    // MODIFIES: values
+    // EFFECTS: reads rows values of type from in and adds them to values
+    private static void readColumn(DataInputStream in, Type type, int rows, List<Object> values) throws IOException {
+        if (type == Type.STRING) {
+            String[] dictionary = new String[in.readInt()];
+            for (int i = 0; i < dictionary.length; i++) {
+                dictionary[i] = in.readUTF();
+            }
+            for (int r = 0; r < rows; r++) {
+                values.add(dictionary[in.readInt()]);
+            }
+            return;
+        }
+        for (int r = 0; r < rows; r++) {
+            switch (type) {
+                case LONG:
+                    values.add(in.readLong());
+                    break;
+                case INT:
+                    values.add(in.readInt());
+                    break;
+                default:
+                    values.add(in.readDouble());
+                    break;
+            }
+        }
+    }
+
+    // Represents a writer appending rows to a columnar file. Rows are buffered in primitive arrays and
+    // written as a row group every ROW_GROUP_SIZE rows and when the writer is closed
+    public static class Writer implements AutoCloseable {
+        private final Type[] types;            // Type of every column
+        private final DataOutputStream out;    // Buffered stream appending to the file
+        private final long[][] longs;          // Buffered values of every LONG column, null for others
+        private final int[][] indexes;         // Buffered INT values, or dictionary indexes of STRING columns
+        private final double[][] doubles;      // Buffered values of every DOUBLE column, null for others
+        private final List<Map<String, Integer>> dictionaries; // Dictionary of every STRING column
+        private int rows;                      // Number of rows buffered
+        private int column;                    // Column the next value is set in
+
+        // REQUIRES: names.length == types.length > 0
+        // EFFECTS: opens a writer appending to file, writing the header first if file is empty or does
+        // not exist. A row group cut short by a failed write is removed first, so that rows are never
+        // appended behind it; throws IOException if file cannot be opened, or holds different columns
+        public Writer(Path file, String[] names, Type[] types) throws IOException {
+            this.types = types.clone();
+            byte[] header = header(names, types);
+            long length = Files.exists(file) ? validLength(file, header, types) : 0;
+            try (RandomAccessFile truncated = new RandomAccessFile(file.toFile(), "rw")) {
+                truncated.setLength(length);
+            }
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file.toFile(), true), 1 << 16));
+            if (length == 0) {
+                out.write(header);
+            }
+            longs = new long[types.length][];
+            indexes = new int[types.length][];
+            doubles = new double[types.length][];
+            dictionaries = new ArrayList<>();
+            for (int c = 0; c < types.length; c++) {
+                if (types[c] == Type.LONG) {
+                    longs[c] = new long[ROW_GROUP_SIZE];
+                } else if (types[c] == Type.DOUBLE) {
+                    doubles[c] = new double[ROW_GROUP_SIZE];
+                } else {
+                    indexes[c] = new int[ROW_GROUP_SIZE];
+                }
+                dictionaries.add((types[c] == Type.STRING) ? new LinkedHashMap<>() : null);
+            }
+        }
+
+        // EFFECTS: returns the header of a file of the given columns
+        private static byte[] header(String[] names, Type[] types) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream header = new DataOutputStream(bytes);
+            header.writeInt(MAGIC);
+            header.writeInt(names.length);
+            for (int c = 0; c < names.length; c++) {
+                header.writeUTF(names[c]);
+                header.writeByte(types[c].ordinal());
+            }
+            return bytes.toByteArray();
+        }
+
+        // EFFECTS: returns the length of file up to the end of its last complete row group, 0 if it is
+        // a part of header only; throws IOException if file does not begin with header
+        private static long validLength(Path file, byte[] header, Type[] types) throws IOException {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                byte[] read = in.readNBytes(header.length);
+                if (!Arrays.equals(read, 0, read.length, header, 0, read.length)) {
+                    throw new IOException("Columns of " + file + " differ from those written");
+                }
+                if (read.length < header.length) {
+                    return 0;
+                }
+                long length = header.length;
+                try {
+                    while (true) {
+                        length += skipGroup(in, types);
+                    }
+                } catch (EOFException e) {
+                    return length;
+                }
+            }
+        }
+
+        // EFFECTS: skips a row group of columns of types in and returns its length in bytes; throws
+        // EOFException if in ends before the end of the group or the group has no rows
+        private static long skipGroup(DataInputStream in, Type[] types) throws IOException {
+            long rows = in.readInt();
+            if (rows <= 0) {
+                throw new EOFException("Row group of " + rows + " rows");
+            }
+            long length = Integer.BYTES;
+            for (Type type : types) {
+                if (type == Type.STRING) {
+                    int size = in.readInt();
+                    length += Integer.BYTES;
+                    for (int i = 0; i < size; i++) {
+                        int utf = in.readUnsignedShort();
+                        in.skipNBytes(utf);
+                        length += Short.BYTES + utf;
+                    }
+                }
+                long bytes = rows * ((type == Type.LONG || type == Type.DOUBLE) ? Long.BYTES : Integer.BYTES);
+                in.skipNBytes(bytes);
+                length += bytes;
+            }
+            return length;
+        }
+
+        // REQUIRES: the next column is a LONG column
+        // MODIFIES: this
+        // EFFECTS: sets value in the next column of the current row and returns this
+        public Writer put(long value) {
+            longs[column++][rows] = value;
+            return this;
+        }
+
+        // REQUIRES: the next column is an INT column
+        // MODIFIES: this
+        // EFFECTS: sets value in the next column of the current row and returns this
+        public Writer put(int value) {
+            indexes[column++][rows] = value;
+            return this;
+        }
+
+        // REQUIRES: the next column is a DOUBLE column
+        // MODIFIES: this
+        // EFFECTS: sets value in the next column of the current row and returns this
+        public Writer put(double value) {
+            doubles[column++][rows] = value;
+            return this;
+        }
+
+        // REQUIRES: the next column is a STRING column, value not null
+        // MODIFIES: this
+        // EFFECTS: sets value in the next column of the current row and returns this
+        public Writer put(String value) {
+            Map<String, Integer> dictionary = dictionaries.get(column);
+            Integer index = dictionary.get(value);
+            if (index == null) {
+                index = dictionary.size();
+                dictionary.put(value, index);
+            }
+            indexes[column++][rows] = index;
+            return this;
+        }
+
+        // REQUIRES: a value was put in every column of the current row
+        // MODIFIES: this
+        // EFFECTS: ends the current row, writing a row group if ROW_GROUP_SIZE rows are buffered;
+        // throws IOException if it cannot be written
+        public void endRow() throws IOException {
+            column = 0;
+            rows++;
+            if (rows == ROW_GROUP_SIZE) {
+                flushGroup();
+            }
+        }
+
+        // MODIFIES: this
+        // EFFECTS: writes the buffered rows as a row group, if any; throws IOException if it cannot be written
+        private void flushGroup() throws IOException {
+            if (rows == 0) {
+                return;
+            }
+            out.writeInt(rows);
+            for (int c = 0; c < types.length; c++) {
+                writeColumn(c);
+            }
+            rows = 0;
+        }
+
+        // EFFECTS: writes the buffered values of column c
+        private void writeColumn(int c) throws IOException {
+            if (types[c] == Type.LONG) {
+                for (int r = 0; r < rows; r++) {
+                    out.writeLong(longs[c][r]);
+                }
+            } else if (types[c] == Type.DOUBLE) {
+                for (int r = 0; r < rows; r++) {
+                    out.writeDouble(doubles[c][r]);
+                }
+            } else {
+                if (types[c] == Type.STRING) {
+                    Map<String, Integer> dictionary = dictionaries.get(c);
+                    out.writeInt(dictionary.size());
+                    for (String value : dictionary.keySet()) {
+                        out.writeUTF(value);
+                    }
+                    dictionary.clear();
+                }
+                for (int r = 0; r < rows; r++) {
+                    out.writeInt(indexes[c][r]);
+                }
+            }
+        }
+
+        // MODIFIES: this
+        // EFFECTS: writes the buffered rows and closes the file; throws IOException if they cannot be written
+        @Override
+        public void close() throws IOException {
+            try {
+                flushGroup();
+            } finally {
+                out.close();
+            }
+        }
+    }
+}
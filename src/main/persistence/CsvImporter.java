@@ -0,0 +1,430 @@
+package persistence;
+
+import model.Security;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// Represents an importer of securities and their price histories from CSV files with one price per
+// line, such as "ticker,date,close", oldest first for every ticker. The file is split at line breaks
+// into chunks that are memory-mapped and parsed in parallel by a byte-level parser that allocates
+// nothing per line: tickers are matched against the bytes of those already seen, and prices are
+// parsed straight from the mapped bytes. Chunks are merged in file order, the expected return and
+// volatility of every ticker are estimated from its daily returns, and its history is handed to the
+// security encoded with HistoryCodec, so it is only decoded once the security needs it.
+// Fields are separated by commas and may not be quoted. Lines whose price field is not a positive
+// number, such as a header, are skipped
+public class CsvImporter {
+    private static final long MIN_CHUNK = 1 << 20;             // Smallest chunk worth a task of its own
+    private static final long MAX_CHUNK = Integer.MAX_VALUE;   // Largest region one buffer can map
+    private static final int CHUNKS_PER_THREAD = 4;            // Chunks per thread, to balance the load
+    private static final double[] POWERS_OF_TEN = new double[19]; // 10^i, exact as doubles
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final int tickerColumn;   // Index of the ticker field in a line
+    private final int priceColumn;    // Index of the price field in a line
+    private final int parallelism;    // Number of worker threads
+    private long linesImported;       // Lines imported by the last import
+    private long linesSkipped;        // Lines skipped by the last import
+    private int tickersSkipped;       // Tickers of the last import with too few prices to estimate from
+
+    // REQUIRES: tickerColumn >= 0, priceColumn >= 0, tickerColumn != priceColumn, parallelism > 0
+    // EFFECTS: constructs an importer reading tickers and prices from the given fields of every line,
+    // counted from 0, parsing on parallelism worker threads
+    public CsvImporter(int tickerColumn, int priceColumn, int parallelism) {
+        this.tickerColumn = tickerColumn;
+        this.priceColumn = priceColumn;
+        this.parallelism = parallelism;
+    }
+
+    // REQUIRES: parallelism > 0
+    // EFFECTS: constructs an importer of files laid out as "ticker,date,close"
+    public CsvImporter(int parallelism) {
+        this(0, 2, parallelism);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: imports every ticker of file with at least two prices and returns its security, in order
+    // of first appearance in file, with no position and lastUpdate as the time of its last price.
+    // Throws IOException if file cannot be read
+    public List<Security> importFile(Path file, Instant lastUpdate) throws IOException {
+        List<Chunk> parsed;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = split(channel);
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                parsed = pool.submit(() -> IntStream.range(0, bounds.length - 1).parallel()
+                        .mapToObj(i -> parse(channel, bounds[i], bounds[i + 1]))
+                        .collect(Collectors.toList())).join();
+            } finally {
+                pool.shutdown();
+            }
+        } catch (RuntimeException e) {
+            for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                if (cause instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) cause).getCause();
+                }
+            }
+            throw e;
+        }
+        return merge(parsed, lastUpdate);
+    }
+
+    // EFFECTS: returns the offsets splitting the file of channel into chunks, starting with 0 and ending
+    // with its size. Every chunk but the first starts after a line break. Throws IOException if the file
+    // cannot be read
+    private long[] split(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long target = Math.max(MIN_CHUNK, (size + parallelism * CHUNKS_PER_THREAD - 1)
+                / (parallelism * CHUNKS_PER_THREAD));
+        target = Math.min(target, MAX_CHUNK / 2);
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        long start = 0;
+        while (size - start > target) {
+            long position = start + target;
+            long lineStart = -1;
+            while (lineStart < 0 && position < size) {
+                buffer.clear();
+                int read = channel.read(buffer, position);
+                for (int i = 0; i < read && lineStart < 0; i++) {
+                    if (buffer.get(i) == '\n') {
+                        lineStart = position + i + 1;
+                    }
+                }
+                position += Math.max(read, 0);
+            }
+            if (lineStart < 0 || lineStart >= size) {
+                break;
+            }
+            bounds.add(lineStart);
+            start = lineStart;
+        }
+        bounds.add(size);
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    // EFFECTS: maps the bytes of channel from start to end and returns the prices of every ticker in it
+    private Chunk parse(FileChannel channel, long start, long end) {
+        Chunk chunk = new Chunk();
+        if (end <= start) {
+            return chunk;
+        }
+        MappedByteBuffer buffer;
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        int limit = buffer.limit();
+        int lineStart = 0;
+        while (lineStart < limit) {
+            int lineEnd = lineStart;
+            while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            parseLine(buffer, lineStart, lineEnd, chunk);
+            lineStart = lineEnd + 1;
+        }
+        return chunk;
+    }
+
+    // MODIFIES: chunk
+    // EFFECTS: adds the price of the line of buffer from start to end to its ticker in chunk, or counts
+    // the line as skipped if it has no ticker or positive price. Blank lines are ignored
+    private void parseLine(ByteBuffer buffer, int start, int end, Chunk chunk) {
+        if (end > start && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        if (end == start) {
+            return;
+        }
+        int tickerStart = -1;
+        int tickerEnd = -1;
+        int priceStart = -1;
+        int priceEnd = -1;
+        int column = 0;
+        int fieldStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || buffer.get(i) == ',') {
+                if (column == tickerColumn) {
+                    tickerStart = fieldStart;
+                    tickerEnd = i;
+                } else if (column == priceColumn) {
+                    priceStart = fieldStart;
+                    priceEnd = i;
+                }
+                column++;
+                fieldStart = i + 1;
+            }
+        }
+        double price = (priceStart < 0) ? Double.NaN : parseDouble(buffer, priceStart, priceEnd);
+        if (tickerStart < 0 || tickerEnd == tickerStart || !(price > 0) || Double.isInfinite(price)) {
+            chunk.skipped++;
+            return;
+        }
+        chunk.add(buffer, tickerStart, tickerEnd, price);
+    }
+
+    // EFFECTS: returns the number written in buffer from start to end, NaN if it is not a number.
+    // Plain decimals of up to 18 digits are parsed without allocating; other forms fall back on
+    // Double.parseDouble
+    static double parseDouble(ByteBuffer buffer, int start, int end) {
+        while (start < end && buffer.get(start) == ' ') {
+            start++;
+        }
+        while (end > start && buffer.get(end - 1) == ' ') {
+            end--;
+        }
+        int i = start;
+        boolean negative = i < end && buffer.get(i) == '-';
+        if (negative || (i < end && buffer.get(i) == '+')) {
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        for (; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else if (b == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                break;
+            }
+        }
+        if (i == end && digits > 0 && digits < POWERS_OF_TEN.length) {
+            double value = (fractionDigits > 0) ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+            return negative ? -value : value;
+        }
+        return parseSlow(buffer, start, end);
+    }
+
+    // EFFECTS: returns the number written in buffer from start to end using Double.parseDouble,
+    // NaN if it is not a number
+    private static double parseSlow(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+        try {
+            return Double.parseDouble(new String(bytes, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: concatenates the prices of every ticker over chunks in file order and returns a security
+    // for every ticker with at least two prices, with its return and volatility estimated from them
+    private List<Security> merge(List<Chunk> chunks, Instant lastUpdate) {
+        Map<String, Series> merged = new LinkedHashMap<>();
+        linesImported = 0;
+        linesSkipped = 0;
+        for (Chunk chunk : chunks) {
+            linesSkipped += chunk.skipped;
+            for (int t = 0; t < chunk.size; t++) {
+                Series series = chunk.series[t];
+                merged.computeIfAbsent(chunk.ticker(t), k -> new Series()).addAll(series);
+                linesImported += series.size;
+            }
+        }
+        List<Security> securities = new ArrayList<>();
+        tickersSkipped = 0;
+        for (Map.Entry<String, Series> entry : merged.entrySet()) {
+            Series series = entry.getValue();
+            if (series.size < 2) {
+                tickersSkipped++;
+                continue;
+            }
+            securities.add(new Security(entry.getKey(), estimateYearlyReturn(series.prices, series.size),
+                    estimateVolatility(series.prices, series.size),
+                    HistoryCodec.toBase64(series.prices, series.size), new ArrayList<>(),
+                    series.prices[series.size - 1], lastUpdate, 0));
+        }
+        return securities;
+    }
+
+    // REQUIRES: length >= 2, prices[0..length) > 0
+    // EFFECTS: returns the yearly return of a security whose mean daily gross return is that of the
+    // first length prices, as Security generates history
+    static double estimateYearlyReturn(double[] prices, int length) {
+        double sum = 0;
+        for (int i = 1; i < length; i++) {
+            sum += prices[i] / prices[i - 1];
+        }
+        return Math.pow(sum / (length - 1), Security.TRADING_DAYS_PER_INTERVAL) - 1;
+    }
+
+    // REQUIRES: length >= 2, prices[0..length) > 0
+    // EFFECTS: returns the yearly volatility of a security whose daily returns have the standard
+    // deviation of those of the first length prices, as Security generates history
+    static double estimateVolatility(double[] prices, int length) {
+        double mean = 0;
+        double squares = 0;
+        for (int i = 1; i < length; i++) {
+            double dailyReturn = prices[i] / prices[i - 1];
+            double delta = dailyReturn - mean;
+            mean += delta / i;
+            squares += delta * (dailyReturn - mean);
+        }
+        double variance = (length > 2) ? squares / (length - 2) : 0;
+        return Math.sqrt(variance * Security.TRADING_DAYS_PER_INTERVAL);
+    }
+
+    public long getLinesImported() {
+        return linesImported;
+    }
+
+    public long getLinesSkipped() {
+        return linesSkipped;
+    }
+
+    public int getTickersSkipped() {
+        return tickersSkipped;
+    }
+
+    // Represents a growable series of prices of one ticker
+    private static class Series {
+        private double[] prices = new double[16]; // Prices in order, only the first size are used
+        private int size;                         // Number of prices
+
+        // MODIFIES: this
+        // EFFECTS: appends price
+        void add(double price) {
+            if (size == prices.length) {
+                prices = Arrays.copyOf(prices, size * 2);
+            }
+            prices[size++] = price;
+        }
+
+        // MODIFIES: this
+        // EFFECTS: appends the prices of other
+        void addAll(Series other) {
+            if (size + other.size > prices.length) {
+                prices = Arrays.copyOf(prices, Math.max(size + other.size, prices.length * 2));
+            }
+            System.arraycopy(other.prices, 0, prices, size, other.size);
+            size += other.size;
+        }
+    }
+
+    // Represents the prices of every ticker in one chunk of a file. Tickers are kept as bytes in an
+    // open-addressing table, so matching the ticker of a line allocates nothing
+    private static class Chunk {
+        private byte[][] tickers = new byte[16][];  // Bytes of every ticker, in order of first appearance
+        private Series[] series = new Series[16];   // Prices of every ticker
+        private int[] hashes = new int[16];         // Hash of the bytes of every ticker
+        private int[] slots = new int[32];          // Ticker index + 1 in slot of its hash, 0 if empty
+        private int size;                           // Number of tickers
+        private long skipped;                       // Number of lines skipped
+
+        // MODIFIES: this
+        // EFFECTS: appends price to the ticker written in buffer from start to end, adding the ticker
+        // if it is not seen yet
+        void add(ByteBuffer buffer, int start, int end, double price) {
+            int hash = 1;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + buffer.get(i);
+            }
+            int mask = slots.length - 1;
+            int slot = mix(hash) & mask;
+            while (slots[slot] != 0) {
+                int t = slots[slot] - 1;
+                if (hashes[t] == hash && matches(tickers[t], buffer, start, end)) {
+                    series[t].add(price);
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            int t = insert(buffer, start, end, hash);
+            slots[slot] = t + 1;
+            series[t].add(price);
+            if (size * 2 > slots.length) {
+                rehash();
+            }
+        }
+
+        // MODIFIES: this
+        // EFFECTS: adds the ticker written in buffer from start to end with no prices and returns its index
+        private int insert(ByteBuffer buffer, int start, int end, int hash) {
+            if (size == tickers.length) {
+                tickers = Arrays.copyOf(tickers, size * 2);
+                series = Arrays.copyOf(series, size * 2);
+                hashes = Arrays.copyOf(hashes, size * 2);
+            }
+            byte[] bytes = new byte[end - start];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = buffer.get(start + i);
+            }
+            tickers[size] = bytes;
+            series[size] = new Series();
+            hashes[size] = hash;
+            return size++;
+        }
+
+        // MODIFIES: this
+        // EFFECTS: doubles the table and places every ticker in it again
+        private void rehash() {
+            slots = new int[slots.length * 2];
+            int mask = slots.length - 1;
+            for (int t = 0; t < size; t++) {
+                int slot = mix(hashes[t]) & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = t + 1;
+            }
+        }
+
+        // EFFECTS: returns true if bytes are the bytes of buffer from start to end
+        private static boolean matches(byte[] bytes, ByteBuffer buffer, int start, int end) {
+            if (bytes.length != end - start) {
+                return false;
+            }
+            for (int i = 0; i < bytes.length; i++) {
+                if (bytes[i] != buffer.get(start + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // EFFECTS: returns hash with its high bits spread into its low bits
+        private static int mix(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+
+        // EFFECTS: returns ticker t as a string
+        String ticker(int t) {
+            return new String(tickers[t], StandardCharsets.UTF_8).trim();
+        }
+    }
+}
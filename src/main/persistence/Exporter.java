@@ -0,0 +1,451 @@
+package persistence;
+
+import model.Account;
+import model.AccountSnapshot;
+import model.AccountSnapshot.SecuritySnapshot;
+import model.Event;
+import model.EventLog;
+import model.Security;
+import model.TradeLog;
+import model.TradeRecord;
+import org.json.JSONObject;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Represents an exporter of simulator output for analysis in external tools. Security histories,
+// positions, the trade log and the event log are appended to one file per dataset in a directory,
+// as CSV or as ColumnarFile row groups. Rows are streamed from an account snapshot and the logs
+// through buffered writers, so nothing is materialized in memory in full. The exporter remembers how
+// many days of every history of every account and how many trades and events it exported, in a state
+// file next to the data, so every export only appends what is new since the last one. The state is
+// saved after every file, so a failed export never appends the same rows twice. Positions are appended
+// as of the market time of every export, so that they line up with the trades and histories however
+// fast the market clock runs. Exports run on a background thread
+public class Exporter {
+    private static final int BUFFER_SIZE = 1 << 16; // Bytes buffered before a CSV file is written
+
+    private static final String[] HISTORY_COLUMNS = {"account", "ticker", "day", "time", "price"};
+    private static final ColumnarFile.Type[] HISTORY_TYPES = {ColumnarFile.Type.STRING, ColumnarFile.Type.STRING,
+        ColumnarFile.Type.INT, ColumnarFile.Type.LONG, ColumnarFile.Type.DOUBLE};
+    private static final String[] POSITION_COLUMNS = {"time", "account", "ticker", "position", "costBasis",
+        "lastPrice"};
+    private static final ColumnarFile.Type[] POSITION_TYPES = {ColumnarFile.Type.LONG, ColumnarFile.Type.STRING,
+        ColumnarFile.Type.STRING, ColumnarFile.Type.INT, ColumnarFile.Type.DOUBLE, ColumnarFile.Type.DOUBLE};
+    private static final String[] TRADE_COLUMNS = {"time", "account", "ticker", "side", "quantity", "price",
+        "status"};
+    private static final ColumnarFile.Type[] TRADE_TYPES = {ColumnarFile.Type.LONG, ColumnarFile.Type.STRING,
+        ColumnarFile.Type.STRING, ColumnarFile.Type.STRING, ColumnarFile.Type.INT, ColumnarFile.Type.DOUBLE,
+        ColumnarFile.Type.STRING};
+    private static final String[] EVENT_COLUMNS = {"time", "description"};
+    private static final ColumnarFile.Type[] EVENT_TYPES = {ColumnarFile.Type.LONG, ColumnarFile.Type.STRING};
+
+    // Represents the file format of an export
+    public enum Format {
+        CSV(".csv"), COLUMNAR(".col");
+
+        private final String extension; // Extension of the files of this format
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private final Path directory;                      // Directory the files are written to
+    private final Format format;                       // Format of the files
+    private final ScheduledExecutorService executor;   // Background export thread
+    private final Map<String, Map<String, Integer>> daysExported; // Days of history exported, by account
+                                                                  // and then by ticker
+    private int tradesExported;                        // Trades of the trade log exported
+    private int eventsExported;                        // Events of the event log exported
+
+    // EFFECTS: constructs an exporter writing format files to directory, creating it if it does not
+    // exist, and continuing from the state of the last export to it in format; throws IOException if
+    // the directory cannot be created or the state cannot be read
+    public Exporter(String directory, Format format) throws IOException {
+        this.directory = Paths.get(directory);
+        this.format = format;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "export");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.daysExported = new HashMap<>();
+        Files.createDirectories(this.directory);
+        readState();
+    }
+
+    // EFFECTS: takes a snapshot of account now and returns a future completed with the rows exported
+    // once its new data is written on the background thread, or completed exceptionally if writing failed
+    public CompletableFuture<Result> exportAsync(Account account) {
+        AccountSnapshot snapshot = account.snapshot();
+        long time = snapshot.getMarketTime().toEpochMilli();
+        CompletableFuture<Result> result = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                result.complete(export(snapshot, time));
+            } catch (IOException | RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    // REQUIRES: periodSeconds > 0
+    // MODIFIES: this
+    // EFFECTS: exports the new data of the account supplied by source every periodSeconds on the
+    // background thread; nothing is exported while source supplies null
+    public void start(long periodSeconds, Supplier<Account> source) {
+        executor.scheduleWithFixedDelay(() -> {
+            Account account = source.get();
+            if (account == null) {
+                return;
+            }
+            try {
+                AccountSnapshot snapshot = account.snapshot();
+                export(snapshot, snapshot.getMarketTime().toEpochMilli());
+            } catch (IOException | RuntimeException e) {
+                // the state is only saved after a complete export, next period tries again
+            }
+        }, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stops periodic exports, an export in progress is completed
+    public void stop() {
+        executor.shutdown();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends the days of history, trades and events of snapshot and the logs that are new
+    // since the last export and the positions of snapshot as of time, in market milliseconds since the
+    // epoch, saving the state of the export after every file, and returns the rows written. Throws
+    // IOException if a file cannot be written; the files written before it are not written again by
+    // the next export
+    public synchronized Result export(AccountSnapshot snapshot, long time) throws IOException {
+        long history = exportHistory(snapshot);
+        writeState();
+        long positions = exportPositions(snapshot, time);
+        long trades = exportTrades();
+        writeState();
+        long events = exportEvents();
+        writeState();
+        return new Result(history, positions, trades, events);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends the days of history of every security of snapshot not exported yet for its
+    // account to the history file, streaming them from the snapshot, counts them as exported once
+    // the file is written and returns the number of rows written
+    private long exportHistory(AccountSnapshot snapshot) throws IOException {
+        Map<String, Integer> days = new HashMap<>(daysExported.getOrDefault(snapshot.getName(), Map.of()));
+        long rows = 0;
+        long dayMillis = Security.dayLength().toMillis();
+        try (Rows out = open("history", HISTORY_COLUMNS, HISTORY_TYPES)) {
+            for (SecuritySnapshot security : snapshot.getSecurities()) {
+                int size = security.getHistorySize();
+                int from = days.getOrDefault(security.getTicker(), 0);
+                if (from > size) {
+                    from = 0;
+                }
+                long last = security.getLastUpdate().toEpochMilli();
+                PrimitiveIterator.OfDouble prices = security.pricesFrom(from);
+                for (int day = from; day < size; day++) {
+                    out.put(snapshot.getName()).put(security.getTicker()).put(day)
+                            .put(last - (size - 1 - day) * dayMillis).put(prices.nextDouble()).endRow();
+                }
+                rows += size - from;
+                days.put(security.getTicker(), size);
+            }
+        }
+        daysExported.put(snapshot.getName(), days);
+        return rows;
+    }
+
+    // EFFECTS: appends the position of every security of snapshot as of time to the positions file and
+    // returns the number of rows written
+    private long exportPositions(AccountSnapshot snapshot, long time) throws IOException {
+        try (Rows out = open("positions", POSITION_COLUMNS, POSITION_TYPES)) {
+            for (SecuritySnapshot security : snapshot.getSecurities()) {
+                out.put(time).put(snapshot.getName()).put(security.getTicker()).put(security.getSecurityPosition())
+                        .put(security.getCostBasis()).put(security.getLastPrice()).endRow();
+            }
+        }
+        return snapshot.getSecurities().size();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends the trades of the trade log not yet exported to the trades file, one at a time,
+    // counts them as exported once the file is written and returns the number of rows written. If the
+    // log was cleared since, it is exported from the start
+    private long exportTrades() throws IOException {
+        TradeLog log = TradeLog.getInstance();
+        int size = log.size();
+        if (tradesExported > size) {
+            tradesExported = 0;
+        }
+        try (Rows out = open("trades", TRADE_COLUMNS, TRADE_TYPES)) {
+            for (int row = tradesExported; row < size; row++) {
+                TradeRecord trade = log.get(row);
+                out.put(trade.getTimeMillis()).put(trade.getAccount()).put(trade.getTicker())
+                        .put(trade.getSide().name()).put(trade.getQuantity()).put(trade.getPrice())
+                        .put(trade.getStatus().name()).endRow();
+            }
+        }
+        long rows = size - tradesExported;
+        tradesExported = size;
+        return rows;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends the events of a copy of the event log not yet exported to the events file, counts
+    // them as exported once the file is written and returns the number of rows written. If the log was
+    // cleared since, it is exported from the start
+    private long exportEvents() throws IOException {
+        List<Event> events = EventLog.getInstance().getEvents();
+        if (eventsExported > events.size()) {
+            eventsExported = 0;
+        }
+        try (Rows out = open("events", EVENT_COLUMNS, EVENT_TYPES)) {
+            for (Event event : events.subList(eventsExported, events.size())) {
+                out.put(event.getDate().getTime()).put(event.getDescription()).endRow();
+            }
+        }
+        long rows = events.size() - eventsExported;
+        eventsExported = events.size();
+        return rows;
+    }
+
+    // EFFECTS: opens the file of dataset for appending rows of the given columns
+    private Rows open(String dataset, String[] names, ColumnarFile.Type[] types) throws IOException {
+        Path file = directory.resolve(dataset + format.getExtension());
+        if (format == Format.COLUMNAR) {
+            return new ColumnarRows(new ColumnarFile.Writer(file, names, types));
+        }
+        return new CsvRows(file, names);
+    }
+
+    // EFFECTS: returns the path of the state file of this format
+    private Path stateFile() {
+        return directory.resolve("export-" + format.name().toLowerCase() + ".json");
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads the state of the last export from the state file, if there is one
+    private void readState() throws IOException {
+        Path file = stateFile();
+        if (!Files.exists(file)) {
+            return;
+        }
+        JSONObject json = new JSONObject(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        JSONObject history = json.getJSONObject("history");
+        for (String account : history.keySet()) {
+            JSONObject tickers = history.getJSONObject(account);
+            Map<String, Integer> days = new HashMap<>();
+            for (String ticker : tickers.keySet()) {
+                days.put(ticker, tickers.getInt(ticker));
+            }
+            daysExported.put(account, days);
+        }
+        tradesExported = json.getInt("trades");
+        eventsExported = json.getInt("events");
+    }
+
+    // EFFECTS: writes the state of this export to a temporary file and moves it over the state file
+    private void writeState() throws IOException {
+        JSONObject json = new JSONObject();
+        json.put("history", new JSONObject(daysExported));
+        json.put("trades", tradesExported);
+        json.put("events", eventsExported);
+        Path temp = directory.resolve(stateFile().getFileName() + ".tmp");
+        Files.write(temp, json.toString(4).getBytes(StandardCharsets.UTF_8));
+        Files.move(temp, stateFile(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Represents the number of rows written to every dataset by one export
+    public static class Result {
+        private final long history;    // Days of history written
+        private final long positions;  // Positions written
+        private final long trades;     // Trades written
+        private final long events;     // Events written
+
+        // EFFECTS: constructs a result with the given row counts
+        Result(long history, long positions, long trades, long events) {
+            this.history = history;
+            this.positions = positions;
+            this.trades = trades;
+            this.events = events;
+        }
+
+        public long getHistory() {
+            return history;
+        }
+
+        public long getPositions() {
+            return positions;
+        }
+
+        public long getTrades() {
+            return trades;
+        }
+
+        public long getEvents() {
+            return events;
+        }
+
+        // EFFECTS: returns the row counts as a human readable string
+        @Override
+        public String toString() {
+            return String.format("%d days of history, %d positions, %d trades, %d events",
+                    history, positions, trades, events);
+        }
+    }
+
+    // Represents a stream of rows appended to the file of a dataset
+    private interface Rows extends AutoCloseable {
+        Rows put(long value);
+
+        Rows put(int value);
+
+        Rows put(double value);
+
+        Rows put(String value);
+
+        void endRow() throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    // Represents rows appended to a CSV file through a buffer, a header being written to new files
+    private static class CsvRows implements Rows {
+        private final BufferedWriter out;  // Buffered writer appending to the file
+        private final StringBuilder line;  // Current row
+
+        // EFFECTS: opens file for appending, writing a header of names if it is empty or does not exist
+        CsvRows(Path file, String[] names) throws IOException {
+            boolean exists = Files.exists(file) && Files.size(file) > 0;
+            out = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND), BUFFER_SIZE);
+            line = new StringBuilder();
+            if (!exists) {
+                out.write(String.join(",", names));
+                out.newLine();
+            }
+        }
+
+        // EFFECTS: separates the next value from the previous one in the current row
+        private StringBuilder next() {
+            if (line.length() > 0) {
+                line.append(',');
+            }
+            return line;
+        }
+
+        @Override
+        public Rows put(long value) {
+            next().append(value);
+            return this;
+        }
+
+        @Override
+        public Rows put(int value) {
+            next().append(value);
+            return this;
+        }
+
+        @Override
+        public Rows put(double value) {
+            next().append(value);
+            return this;
+        }
+
+        // EFFECTS: appends value, quoted if it holds a comma, quote or line break
+        @Override
+        public Rows put(String value) {
+            StringBuilder builder = next();
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+                    && value.indexOf('\r') < 0) {
+                builder.append(value);
+            } else {
+                builder.append('"').append(value.replace("\"", "\"\"")).append('"');
+            }
+            return this;
+        }
+
+        @Override
+        public void endRow() throws IOException {
+            line.append(System.lineSeparator());
+            out.append(line);
+            line.setLength(0);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    // Represents rows appended to a columnar file
+    private static class ColumnarRows implements Rows {
+        private final ColumnarFile.Writer out; // Writer of the columnar file
+
+        // EFFECTS: constructs rows appended through out
+        ColumnarRows(ColumnarFile.Writer out) {
+            this.out = out;
+        }
+
+        @Override
+        public Rows put(long value) {
+            out.put(value);
+            return this;
+        }
+
+        @Override
+        public Rows put(int value) {
+            out.put(value);
+            return this;
+        }
+
+        @Override
+        public Rows put(double value) {
+            out.put(value);
+            return this;
+        }
+
+        @Override
+        public Rows put(String value) {
+            out.put(value);
+            return this;
+        }
+
+        @Override
+        public void endRow() throws IOException {
+            out.endRow();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
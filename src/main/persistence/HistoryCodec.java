@@ -0,0 +1,248 @@
+package persistence;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.IntToDoubleFunction;
+
+// Represents a lossless codec for price histories using XOR delta encoding of doubles
+// (as in Facebook's Gorilla time series store). Consecutive prices differ by small relative
+// amounts, so their bit patterns share sign, exponent and leading mantissa bits; only the
+// meaningful bits of each XOR with the previous price are stored.
+//
+// Layout: 32 bit count, first price as 64 bits, then for every following price
+//   '0'                                      same as previous price
+//   '10' + meaningful bits                   XOR fits in the previous leading/trailing zero window
+//   '11' + 5 bit leading zeros + 6 bit (length - 1) + meaningful bits
+public final class HistoryCodec {
+    public static final String ENCODING = "xor"; // Name of this encoding in save files
+
+    private static final int MAX_LEADING_ZEROS = 31; // Largest leading zero count storable in 5 bits
+
+    // EFFECTS: prevents construction, all methods are static
+    private HistoryCodec() {
+    }
+
+    // REQUIRES: prices not null, 0 <= length <= prices.length
+    // EFFECTS: returns the first length prices encoded as bytes
+    public static byte[] encode(double[] prices, int length) {
+        return encode(i -> prices[i], length);
+    }
+
+    // REQUIRES: prices not null, prices defined for 0 <= i < length
+    // EFFECTS: returns prices 0 to length - 1 encoded as bytes, reading one price at a time
+    public static byte[] encode(IntToDoubleFunction prices, int length) {
+        BitWriter writer = new BitWriter(16 + length * 4);
+        writer.write(length, 32);
+        if (length == 0) {
+            return writer.toByteArray();
+        }
+        long previous = Double.doubleToRawLongBits(prices.applyAsDouble(0));
+        writer.write(previous, 64);
+        int leading = -1;
+        int trailing = 0;
+        for (int i = 1; i < length; i++) {
+            long bits = Double.doubleToRawLongBits(prices.applyAsDouble(i));
+            long xor = bits ^ previous;
+            previous = bits;
+            if (xor == 0) {
+                writer.write(0, 1);
+                continue;
+            }
+            int newLeading = Math.min(Long.numberOfLeadingZeros(xor), MAX_LEADING_ZEROS);
+            int newTrailing = Long.numberOfTrailingZeros(xor);
+            if (leading >= 0 && newLeading >= leading && newTrailing >= trailing) {
+                writer.write(0b10, 2);
+                writer.write(xor >>> trailing, 64 - leading - trailing);
+            } else {
+                int meaningful = 64 - newLeading - newTrailing;
+                writer.write(0b11, 2);
+                writer.write(newLeading, 5);
+                writer.write(meaningful - 1, 6);
+                writer.write(xor >>> newTrailing, meaningful);
+                leading = newLeading;
+                trailing = newTrailing;
+            }
+        }
+        return writer.toByteArray();
+    }
+
+    // REQUIRES: data was produced by encode(...)
+    // EFFECTS: returns all prices decoded from data
+    public static double[] decode(byte[] data) {
+        Decoder decoder = new Decoder(data);
+        double[] prices = new double[decoder.remaining()];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = decoder.next();
+        }
+        return prices;
+    }
+
+    // REQUIRES: prices not null, 0 <= length <= prices.length
+    // EFFECTS: returns the first length prices encoded as a Base64 string
+    public static String toBase64(double[] prices, int length) {
+        return Base64.getEncoder().encodeToString(encode(prices, length));
+    }
+
+    // REQUIRES: prices not null, prices defined for 0 <= i < length
+    // EFFECTS: returns prices 0 to length - 1 encoded as a Base64 string
+    public static String toBase64(IntToDoubleFunction prices, int length) {
+        return Base64.getEncoder().encodeToString(encode(prices, length));
+    }
+
+    // REQUIRES: text was produced by toBase64(...)
+    // EFFECTS: returns prices decoded from text as a list
+    public static List<Double> fromBase64(String text) {
+        Decoder decoder = new Decoder(Base64.getDecoder().decode(text));
+        List<Double> prices = new ArrayList<>(decoder.remaining());
+        while (decoder.remaining() > 0) {
+            prices.add(decoder.next());
+        }
+        return prices;
+    }
+
+    // REQUIRES: text was produced by toBase64(...), capacity >= number of prices in text
+    // EFFECTS: returns an array of capacity prices beginning with the prices decoded from text
+    public static double[] fromBase64(String text, int capacity) {
+        Decoder decoder = new Decoder(Base64.getDecoder().decode(text));
+        double[] prices = new double[capacity];
+        for (int i = 0; decoder.remaining() > 0; i++) {
+            prices[i] = decoder.next();
+        }
+        return prices;
+    }
+
+    // REQUIRES: text was produced by toBase64(...)
+    // EFFECTS: returns number of prices in text, decoding only its first Base64 characters
+    public static int sizeOfBase64(String text) {
+        return new Decoder(Base64.getDecoder().decode(text.substring(0, 8))).remaining();
+    }
+
+    // Represents a streaming decoder returning one price at a time without allocating.
+    public static class Decoder {
+        private final BitReader reader; // Reads bits of the encoded data
+        private int remaining;          // Number of prices not yet decoded
+        private boolean started;        // True once the first price is decoded
+        private long previous;          // Bits of the last price decoded
+        private int leading;            // Leading zeros of the current XOR window
+        private int trailing;           // Trailing zeros of the current XOR window
+
+        // REQUIRES: data was produced by encode(...)
+        // EFFECTS: constructs a decoder positioned before the first price of data
+        public Decoder(byte[] data) {
+            reader = new BitReader(data);
+            remaining = (int) reader.read(32);
+        }
+
+        // EFFECTS: returns number of prices not yet decoded
+        public int remaining() {
+            return remaining;
+        }
+
+        // REQUIRES: remaining() > 0
+        // MODIFIES: this
+        // EFFECTS: decodes and returns the next price
+        public double next() {
+            remaining--;
+            if (!started) {
+                started = true;
+                previous = reader.read(64);
+                return Double.longBitsToDouble(previous);
+            }
+            if (reader.read(1) == 0) {
+                return Double.longBitsToDouble(previous);
+            }
+            if (reader.read(1) == 1) {
+                leading = (int) reader.read(5);
+                int meaningful = (int) reader.read(6) + 1;
+                trailing = 64 - leading - meaningful;
+            }
+            long xor = reader.read(64 - leading - trailing) << trailing;
+            previous ^= xor;
+            return Double.longBitsToDouble(previous);
+        }
+    }
+
+    // Represents a growable buffer that bits are written to, most significant bit first.
+    private static class BitWriter {
+        private byte[] buffer; // Bytes written so far
+        private int bytes;     // Number of complete bytes in buffer
+        private int current;   // Bits of the byte being filled
+        private int used;      // Number of bits used in current
+
+        // EFFECTS: constructs an empty writer with room for capacity bytes
+        BitWriter(int capacity) {
+            buffer = new byte[Math.max(8, capacity)];
+        }
+
+        // REQUIRES: 0 <= count <= 64
+        // MODIFIES: this
+        // EFFECTS: writes the lowest count bits of value
+        void write(long value, int count) {
+            while (count > 0) {
+                int free = 8 - used;
+                int take = Math.min(free, count);
+                int bits = (int) ((value >>> (count - take)) & ((1 << take) - 1));
+                current |= bits << (free - take);
+                used += take;
+                count -= take;
+                if (used == 8) {
+                    flush();
+                }
+            }
+        }
+
+        // MODIFIES: this
+        // EFFECTS: appends current byte to buffer
+        private void flush() {
+            if (bytes == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            buffer[bytes++] = (byte) current;
+            current = 0;
+            used = 0;
+        }
+
+        // MODIFIES: this
+        // EFFECTS: pads the last byte with zeros and returns the bytes written
+        byte[] toByteArray() {
+            if (used > 0) {
+                flush();
+            }
+            return Arrays.copyOf(buffer, bytes);
+        }
+    }
+
+    // Represents a reader of bits from a byte array, most significant bit first.
+    private static class BitReader {
+        private final byte[] data; // Bytes read from
+        private int position;      // Index of byte being read
+        private int used;          // Number of bits already read from current byte
+
+        // EFFECTS: constructs a reader at the first bit of data
+        BitReader(byte[] data) {
+            this.data = data;
+        }
+
+        // REQUIRES: 0 <= count <= 64, count bits remain
+        // MODIFIES: this
+        // EFFECTS: reads count bits and returns them as the lowest bits of a long
+        long read(int count) {
+            long value = 0;
+            while (count > 0) {
+                int available = 8 - used;
+                int take = Math.min(available, count);
+                int bits = ((data[position] & 0xFF) >>> (available - take)) & ((1 << take) - 1);
+                value = (value << take) | bits;
+                used += take;
+                count -= take;
+                if (used == 8) {
+                    position++;
+                    used = 0;
+                }
+            }
+            return value;
+        }
+    }
+}
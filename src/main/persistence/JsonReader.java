@@ -10,24 +10,45 @@ import java.util.List;
 import java.util.stream.Stream;
 
 import model.Account;
+import model.CorporateAction;
+import model.MarginTerms;
+import model.MarketClock;
+import model.RiskLimits;
 import model.Security;
+import model.metrics.LatencyHistogram;
+import model.metrics.MetricsRegistry;
 import org.json.*;
 
 // Represents a reader that reads workroom from JSON data stored in file
 public class JsonReader {
-    private final String source; // Destination for *.json file
+    private static final LatencyHistogram LOAD_LATENCY = MetricsRegistry.getInstance().histogram("persistence.load");
+
+    private final String source;   // Destination for *.json file
+    private final boolean logging; // Whether accounts read record their events in the EventLog
+    private MarketClock clock;     // Clock followed by the securities of the account read last
 
     // EFFECTS: constructs reader to read from source file
     public JsonReader(String source) {
+        this(source, true);
+    }
+
+    // EFFECTS: constructs reader to read from source file accounts that record their events in the
+    // EventLog only if logging, so that reading a file for analysis leaves the log of the session alone
+    public JsonReader(String source, boolean logging) {
         this.source = source;
+        this.logging = logging;
     }
 
+    // MODIFIES: this
     // EFFECTS: reads workroom from file and returns it;
     // throws IOException if an error occurs reading data from file
     public Account read() throws IOException {
+        long start = System.nanoTime();
         String jsonData = readFile(source);
         JSONObject jsonObject = new JSONObject(jsonData);
-        return parseAccount(jsonObject);
+        Account account = parseAccount(jsonObject);
+        LOAD_LATENCY.recordSince(start);
+        return account;
     }
 
     // EFFECTS: reads source file as string and returns it
@@ -41,34 +62,135 @@ public class JsonReader {
         return contentBuilder.toString();
     }
 
-    // EFFECTS: parses account from JSON object and returns it
+    // EFFECTS: returns the clock followed by the securities of the account read last: the default
+    // clock, or a clock running like it from the market time the account was saved at if that is
+    // ahead of it; null if no account was read. Reading never changes the default clock, the
+    // caller decides whether the rest of the market resumes from this clock too
+    public MarketClock getClock() {
+        return clock;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: parses account from JSON object and returns it. Corporate actions that took effect
+    // but were not applied to a position when it was saved stay pending. If it was saved at a market time
+    // ahead of the default clock, its securities follow a clock resumed from that time, so that they
+    // do not stand still until the default clock catches up with it
     private Account parseAccount(JSONObject jsonObject) {
+        MarketClock clock = MarketClock.getDefault();
+        if (jsonObject.has("marketTime")) {
+            clock = clock.resumeFrom(Instant.parse(jsonObject.getString("marketTime")));
+        }
         String name = jsonObject.getString("name");
         double balance = jsonObject.getDouble("balance");
-        List<Security> securities = makeFunds(jsonObject.getJSONArray("securities"));
+        double realizedPnl = jsonObject.optDouble("realizedPnl", 0);
+        JSONArray jsonFunds = jsonObject.getJSONArray("securities");
+        List<Security> securities = makeFunds(jsonFunds);
+        for (Security security : securities) {
+            security.resumeOn(clock);
+        }
 
-        return new Account(name, balance, securities);
+        Account account = logging ? new Account(name, balance, realizedPnl, securities)
+                : Account.withoutLogging(name, balance, realizedPnl, securities);
+        for (int i = 0; i < securities.size(); i++) {
+            JSONObject jsonFund = jsonFunds.getJSONObject(i);
+            if (jsonFund.has("actionsApplied")) {
+                account.setActionsApplied(securities.get(i), jsonFund.getInt("actionsApplied"));
+            }
+        }
+        if (jsonObject.has("riskLimits")) {
+            parseRiskLimits(jsonObject.getJSONObject("riskLimits"), account.getRiskLimits());
+        }
+        if (jsonObject.has("marginTerms")) {
+            parseMarginTerms(jsonObject.getJSONObject("marginTerms"), account.getMarginTerms());
+        }
+        this.clock = clock;
+        return account;
+    }
+
+    // MODIFIES: marginTerms
+    // EFFECTS: sets the financing terms in JSON object on marginTerms
+    private void parseMarginTerms(JSONObject jsonObject, MarginTerms marginTerms) {
+        marginTerms.setCashRate(jsonObject.optDouble("cashRate", 0));
+        marginTerms.setDebitRate(jsonObject.optDouble("debitRate", 0));
+        marginTerms.setBorrowRate(jsonObject.optDouble("borrowRate", 0));
+        marginTerms.setMaintenanceMargin(jsonObject.optDouble("maintenanceMargin", 0.25));
+    }
+
+    // MODIFIES: riskLimits
+    // EFFECTS: sets the limits present in JSON object on riskLimits
+    private void parseRiskLimits(JSONObject jsonObject, RiskLimits riskLimits) {
+        if (jsonObject.has("maxOrderNotional")) {
+            riskLimits.setMaxOrderNotional(jsonObject.getDouble("maxOrderNotional"));
+        }
+        if (jsonObject.has("maxPosition")) {
+            riskLimits.setMaxPosition(jsonObject.getInt("maxPosition"));
+        }
+        if (jsonObject.has("maxConcentration")) {
+            riskLimits.setMaxConcentration(jsonObject.getDouble("maxConcentration"));
+        }
+        if (jsonObject.has("maxOrdersPerSecond")) {
+            riskLimits.setMaxOrdersPerSecond(jsonObject.getInt("maxOrdersPerSecond"));
+        }
+        riskLimits.setMaxLeverage(jsonObject.optDouble("maxLeverage", 1));
+        riskLimits.setMaxShortPosition(jsonObject.optInt("maxShortPosition", 0));
     }
 
-    // EFFECTS: parses a list of funds from JSON array and returns it
+    // EFFECTS: parses a list of funds from JSON array and returns it. Funds of older save files
+    // without a cost basis keep the cost basis they were created with, and those without
+    // corporate actions or volumes have none
     private List<Security> makeFunds(JSONArray jsonFunds) {
         List<Security> securities = new ArrayList<>();
         for (Object json : jsonFunds) {
-            Security security = makeFund((JSONObject) json);
+            JSONObject jsonFund = (JSONObject) json;
+            Security security = makeFund(jsonFund);
+            if (jsonFund.has("costBasis")) {
+                security.setCostBasis(jsonFund.getDouble("costBasis"));
+            }
+            JSONArray jsonActions = jsonFund.optJSONArray("corporateActions");
+            if (jsonActions != null) {
+                for (Object jsonAction : jsonActions) {
+                    security.addCorporateAction(parseCorporateAction((JSONObject) jsonAction));
+                }
+            }
+            JSONObject jsonVolumes = jsonFund.optJSONObject("volumes");
+            if (jsonVolumes != null) {
+                for (String day : jsonVolumes.keySet()) {
+                    security.setVolume(Integer.parseInt(day), jsonVolumes.getLong(day));
+                }
+            }
             securities.add(security);
         }
         return securities;
     }
 
-    // EFFECTS: parses a Security from JSON object and returns it
+    // EFFECTS: parses a corporate action from JSON object and returns it
+    private CorporateAction parseCorporateAction(JSONObject jsonObject) {
+        return new CorporateAction(CorporateAction.Type.valueOf(jsonObject.getString("type")),
+                jsonObject.getInt("day"), jsonObject.getDouble("amount"));
+    }
+
+    // EFFECTS: parses a Security from JSON object and returns it. A compressed history saved with
+    // its last price is kept encoded and only decoded when the security first needs it
     protected Security makeFund(JSONObject jsonObject) {
         String ticker = jsonObject.getString("ticker");
         double yearlyReturn = jsonObject.getDouble("yearlyReturn");
         double volatility = jsonObject.getDouble("volatility");
-        List<Double> history = makeHistory(jsonObject.getJSONArray("history"));
         Instant lastUpdate = Instant.parse(jsonObject.getString("lastUpdate"));
         int securityPosition = jsonObject.getInt("securityPosition");
 
+        if (isEncoded(jsonObject) && jsonObject.has("lastPrice")) {
+            return new Security(ticker,
+                    yearlyReturn,
+                    volatility,
+                    jsonObject.getString("history"),
+                    parseHistoryTail(jsonObject),
+                    jsonObject.getDouble("lastPrice"),
+                    lastUpdate,
+                    securityPosition
+            );
+        }
+        List<Double> history = parseHistory(jsonObject);
+
         return new Security(ticker,
                 yearlyReturn,
                 volatility,
@@ -78,6 +200,31 @@ public class JsonReader {
         );
     }
 
+    // EFFECTS: parses the history of a Security from JSON object and returns it. History is
+    // either compressed with HistoryCodec or, in older save files, a JSON array of prices
+    protected List<Double> parseHistory(JSONObject jsonObject) {
+        if (isEncoded(jsonObject)) {
+            List<Double> history = HistoryCodec.fromBase64(jsonObject.getString("history"));
+            history.addAll(parseHistoryTail(jsonObject));
+            return history;
+        }
+        return makeHistory(jsonObject.getJSONArray("history"));
+    }
+
+    // EFFECTS: returns true if the history in JSON object is compressed with HistoryCodec
+    private boolean isEncoded(JSONObject jsonObject) {
+        return HistoryCodec.ENCODING.equals(jsonObject.optString("historyEncoding"));
+    }
+
+    // EFFECTS: parses the prices appended to a compressed history that was saved without being
+    // decoded and returns them, empty if there are none
+    private List<Double> parseHistoryTail(JSONObject jsonObject) {
+        if (jsonObject.has("historyTail")) {
+            return HistoryCodec.fromBase64(jsonObject.getString("historyTail"));
+        }
+        return new ArrayList<>();
+    }
+
     // EFFECTS: parses a list of doubles from JSON array and returns it
     protected List<Double> makeHistory(JSONArray jsonHistory) {
         List<Double> history = new ArrayList<>();
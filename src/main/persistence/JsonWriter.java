@@ -1,5 +1,7 @@
 package persistence;
 
+import model.metrics.LatencyHistogram;
+import model.metrics.MetricsRegistry;
 import org.json.JSONObject;
 
 import java.io.FileNotFoundException;
@@ -7,6 +9,8 @@ import java.io.PrintWriter;
 
 // Represents a writer that writes JSON representation of workroom to file
 public class JsonWriter {
+    private static final LatencyHistogram SAVE_LATENCY = MetricsRegistry.getInstance().histogram("persistence.save");
+
     private static final int TAB = 4;  // Number of spaces in a tab
     private PrintWriter writer;        // PrintWriter from java.io
     private final String destination;  // destination for *.json file
@@ -26,8 +30,10 @@ public class JsonWriter {
     // MODIFIES: this
     // EFFECTS: writes JSON representation of workroom to file
     public void write(Writable wr) {
+        long start = System.nanoTime();
         JSONObject json = wr.toJson();
         saveToFile(json.toString(TAB));
+        SAVE_LATENCY.recordSince(start);
     }
 
     // MODIFIES: this
@@ -36,6 +42,12 @@ public class JsonWriter {
         writer.close();
     }
 
+    // EFFECTS: returns true if writing to file failed since it was opened, such as on a full disk;
+    // the writer itself never throws on a failed write
+    public boolean checkError() {
+        return writer.checkError();
+    }
+
     // MODIFIES: this
     // EFFECTS: writes string to file
     private void saveToFile(String json) {
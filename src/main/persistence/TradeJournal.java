@@ -0,0 +1,186 @@
+package persistence;
+
+import model.Order;
+import model.TradeRecord;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.UTFDataFormatException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Represents an append-only binary file of trade records. Account names and tickers are written
+// once, the first time they appear, and referred to by id afterwards, so each record takes a fixed
+// 31 bytes. Records are flushed as they are appended, so the file survives the application exiting
+public class TradeJournal {
+    private static final byte ACCOUNT = 'A';   // Tag of an account name definition
+    private static final byte TICKER = 'T';    // Tag of a ticker definition
+    private static final byte RECORD = 'R';    // Tag of a trade record
+
+    private final String destination;           // Path of the journal file
+    private final Map<String, Integer> accountIds;
+    private final Map<String, Integer> tickerIds;
+    private DataOutputStream out;               // Stream appending to the file, null until opened
+
+    // EFFECTS: constructs a journal of the file at destination
+    public TradeJournal(String destination) {
+        this.destination = destination;
+        this.accountIds = new HashMap<>();
+        this.tickerIds = new HashMap<>();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads every record in the file, oldest first, passing each to consumer, then opens
+    // the file for appending. A record cut short by the application exiting while it was written is
+    // removed, and so is everything from the first corrupt entry on. If the file does not exist it is
+    // created. Throws IOException if it cannot be read or opened
+    public void open(Consumer<TradeRecord> consumer) throws IOException {
+        if (new File(destination).exists()) {
+            long length = readAll(consumer);
+            try (RandomAccessFile file = new RandomAccessFile(destination, "rw")) {
+                file.setLength(length);
+            }
+        }
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(destination, true)));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends record to the file, defining its account and ticker first if they are new,
+    // and flushes it. Throws IOException if it cannot be written
+    public synchronized void append(TradeRecord record) throws IOException {
+        int account = define(accountIds, ACCOUNT, record.getAccount());
+        int ticker = define(tickerIds, TICKER, record.getTicker());
+        out.writeByte(RECORD);
+        out.writeLong(record.getTimeMillis());
+        out.writeInt(account);
+        out.writeInt(ticker);
+        out.writeByte(record.getSide().ordinal());
+        out.writeInt(record.getQuantity());
+        out.writeDouble(record.getPrice());
+        out.writeByte(record.getStatus().ordinal());
+        out.flush();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: closes the file
+    public synchronized void close() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the id of name in ids, writing a definition with tag if name is new
+    private int define(Map<String, Integer> ids, byte tag, String name) throws IOException {
+        Integer id = ids.get(name);
+        if (id == null) {
+            id = ids.size();
+            ids.put(name, id);
+            out.writeByte(tag);
+            out.writeUTF(name);
+        }
+        return id;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads every record in the file passing each to consumer, remembers the ids
+    // of the account names and tickers defined in it and returns the length of the file
+    // up to the end of the last complete and valid record or definition. Reading stops at
+    // an unknown tag or a record referring to an undefined id or an unknown side or status
+    private long readAll(Consumer<TradeRecord> consumer) throws IOException {
+        List<String> accounts = new ArrayList<>();
+        List<String> tickers = new ArrayList<>();
+        long length = 0;
+        CountingInputStream counter = new CountingInputStream(new FileInputStream(destination));
+        try (DataInputStream in = new DataInputStream(counter)) {
+            while (true) {
+                byte tag = in.readByte();
+                if (tag == ACCOUNT) {
+                    accounts.add(in.readUTF());
+                } else if (tag == TICKER) {
+                    tickers.add(in.readUTF());
+                } else if (tag == RECORD) {
+                    TradeRecord record = readRecord(in, accounts, tickers);
+                    if (record == null) {
+                        break;
+                    }
+                    consumer.accept(record);
+                } else {
+                    break;
+                }
+                length = counter.count;
+            }
+        } catch (EOFException | UTFDataFormatException e) {
+            // end of the journal, or an entry cut short by the application exiting
+        }
+        for (int i = 0; i < accounts.size(); i++) {
+            accountIds.put(accounts.get(i), i);
+        }
+        for (int i = 0; i < tickers.size(); i++) {
+            tickerIds.put(tickers.get(i), i);
+        }
+        return length;
+    }
+
+    // EFFECTS: reads the fields of a record from in, resolving its account and ticker ids, and returns
+    // it, or null if an id is not defined or the side or status is unknown
+    private static TradeRecord readRecord(DataInputStream in, List<String> accounts, List<String> tickers)
+            throws IOException {
+        long time = in.readLong();
+        int account = in.readInt();
+        int ticker = in.readInt();
+        int side = in.readByte();
+        int quantity = in.readInt();
+        double price = in.readDouble();
+        int status = in.readByte();
+        if (account < 0 || account >= accounts.size() || ticker < 0 || ticker >= tickers.size()
+                || side < 0 || side >= Order.Side.values().length
+                || status < 0 || status >= TradeRecord.Status.values().length) {
+            return null;
+        }
+        return new TradeRecord(time, accounts.get(account), tickers.get(ticker), Order.Side.values()[side],
+                quantity, price, TradeRecord.Status.values()[status]);
+    }
+
+    // Represents a buffered stream counting the bytes read from it
+    private static class CountingInputStream extends FilterInputStream {
+        private long count; // Number of bytes read so far
+
+        // EFFECTS: constructs a buffered stream reading from in
+        private CountingInputStream(InputStream in) {
+            super(new BufferedInputStream(in));
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package ui;
+
+import model.Account;
+import model.Security;
+
+import javax.swing.table.AbstractTableModel;
+
+/*
+ * Represents a table model of the positions of an account. Cells are read directly from
+ * the account securities and valuation, so no rows are copied and only changed rows fire events.
+ */
+class AccountTableModel extends AbstractTableModel {
+    private static final String[] COLUMNS = {"Security", "Position", "Value", "P&L"}; // Column names
+
+    private Account account; // Account whose positions are shown, null if none
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: Shows positions of account, account may be null for an empty table.
+     *          Fires a table data changed event.
+     */
+    public void setAccount(Account account) {
+        this.account = account;
+        fireTableDataChanged();
+    }
+
+    /*
+     * REQUIRES: security was just added to account
+     * MODIFIES: this
+     * EFFECTS: Fires a rows inserted event for the last row.
+     */
+    public void securityAdded() {
+        int row = getRowCount() - 1;
+        fireTableRowsInserted(row, row);
+    }
+
+    /*
+     * REQUIRES: security not null
+     * MODIFIES: this
+     * EFFECTS: Fires a rows updated event for the row of security, if it is in the table.
+     *          The row is looked up in the row index of the account.
+     */
+    public void positionChanged(Security security) {
+        int row = (account == null) ? -1 : account.indexOf(security);
+        if (row >= 0) {
+            fireTableRowsUpdated(row, row);
+        }
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: Fires a rows updated event for every row, so that values marked at new
+     *          prices are shown. Only visible rows are repainted.
+     */
+    public void valuesChanged() {
+        if (getRowCount() > 0) {
+            fireTableRowsUpdated(0, getRowCount() - 1);
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        return (account == null) ? 0 : account.getSecurities().size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Security security = account.getSecurities().get(row);
+        switch (column) {
+            case 0:
+                return security.getTicker();
+            case 1:
+                return security.getSecurityPosition();
+            case 2:
+                return String.format("%.2f", account.getValuation().getMarketValue(security));
+            default:
+                return String.format("%.2f", account.getValuation().getUnrealizedPnl(security));
+        }
+    }
+}
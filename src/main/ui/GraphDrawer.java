@@ -1,26 +1,56 @@
 package ui;
 
+import model.BarSeries;
+import model.PricePyramid;
 import model.Security;
+import model.metrics.LatencyHistogram;
+import model.metrics.MetricsRegistry;
 
 import javax.swing.*;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Color;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /*
  * Represents JPanel that can draw a plot of viewableSecurities
- * in guiState.
+ * in guiState. The plot can be zoomed with the mouse wheel and panned
+ * by dragging with the mouse. The chart is computed off the EDT by compute(),
+ * which reads every security under its lock, and handed to the EDT as an
+ * immutable ChartView that is only drawn there.
  */
 class GraphDrawer extends JPanel {
-    private static final int X_GRID = 365;     // Width of X used for scaling
-    private static final int Y_GRID = 10;      // Width of Y used for scaling
-    private static final int X_GRID_LINE = 30; // Grid line per X
-    private static final int Y_GRID_LINE = 1;  // Grid line per Y
+    private static final int X_GRID = 365;          // Width of X used for scaling, days visible by default
+    private static final int Y_GRID = 10;           // Width of Y used for scaling
+    private static final int X_GRID_LINE = 30;      // Grid line per X
+    private static final int Y_GRID_LINE = 1;       // Grid line per Y
+    private static final int MIN_VISIBLE_DAYS = 5;  // Most zoomed in number of days visible
+    private static final double ZOOM_STEP = 1.25;   // Change in visible days per mouse wheel notch
+    private static final int CANDLE_DAYS = 60;      // Most days visible for which candlesticks are drawn
+    private static final double CANDLE_WIDTH = 0.6; // Width of a candlestick body in days
+    private static final LatencyHistogram PAINT_LATENCY = MetricsRegistry.getInstance().histogram("gui.paintChart");
 
-    private final GuiState guiState; // Represents GUI State
-    private double maxPrice;         // Maximum price in guiState.getViewableSecurities()
+    private final GuiState guiState;                // Represents GUI State, only read on the EDT
+    private final Map<Security, PlotCache> caches;  // Running max and cached plot, only used by compute()
+    private volatile List<Security> viewable;       // Copy of the viewable securities of guiState
+    private volatile Runnable viewListener;         // Requests a new chart when the view changes
+    private ChartView view;                         // Chart drawn, only used on the EDT
+
+    private volatile double visibleDays; // Number of days visible in chart
+    private volatile double panDays;     // Number of most recent days hidden to the right of chart
+    private int dragX;                   // X coordinate of last mouse drag event
 
     private final int initialX; // On screen X initial coordinate
     private final int initialY; // On screen Y initial coordinate
@@ -34,33 +64,128 @@ class GraphDrawer extends JPanel {
      *           guiState not null.
      * MODIFIES:
      * EFFECTS: Creates GraphDrawer object and initializes internal parameters
-     *          for scaling.
+     *          for scaling. Adds mouse listeners for zooming and panning.
      */
     public GraphDrawer(Dimension size, GuiState guiState) {
         this.guiState = guiState;
-        updateMaxPrice();
+        this.caches = new HashMap<>();
+        this.viewable = List.of();
+        this.view = new ChartView(0, List.of());
         finalX = 10;
         initialY = 20;
         initialX = (int) (size.getWidth() - 50);
         finalY = (int) (size.getHeight() - 20);
         unitX = ((float) finalX - initialX) / X_GRID;
         unitY = ((float) finalY - initialY) / Y_GRID;
+        visibleDays = X_GRID;
+        panDays = 0;
+        addMouseControls();
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: Adds mouse wheel zoom and mouse drag panning to this.
+     */
+    private void addMouseControls() {
+        MouseAdapter adapter = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                dragX = e.getX();
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                pan(e.getX() - dragX);
+                dragX = e.getX();
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                zoom(e.getPreciseWheelRotation());
+            }
+        };
+        addMouseListener(adapter);
+        addMouseMotionListener(adapter);
+        addMouseWheelListener(adapter);
+    }
+
+    /*
+     * REQUIRES: listener not null
+     * MODIFIES: this
+     * EFFECTS: Sets the action requesting a new chart when the view changes.
+     */
+    public void setViewListener(Runnable listener) {
+        this.viewListener = listener;
+    }
+
+    /*
+     * REQUIRES: called on the EDT
+     * MODIFIES: this
+     * EFFECTS: Copies the viewable securities of guiState for compute() and requests a new chart.
+     */
+    public void viewChanged() {
+        viewable = List.copyOf(guiState.getViewableSecurities());
+        Runnable listener = viewListener;
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
+    /*
+     * REQUIRES: view not null, called on the EDT
+     * MODIFIES: this
+     * EFFECTS: Draws view from now on and repaints this.
+     */
+    public void show(ChartView view) {
+        this.view = view;
+        repaint();
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: Zooms out for positive rotation and in for negative rotation, keeping
+     *          the most recent visible day in place. Visible days are kept between
+     *          MIN_VISIBLE_DAYS and the longest viewable history. Requests a new chart.
+     */
+    private void zoom(double rotation) {
+        double zoomed = visibleDays * Math.pow(ZOOM_STEP, rotation);
+        visibleDays = Math.max(MIN_VISIBLE_DAYS, Math.min(Math.max(X_GRID, view.maxDays), zoomed));
+        viewChanged();
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: Pans chart by pixels, dragging right reveals older prices.
+     *          Panning is kept between most recent price and the start of the longest history.
+     *          Requests a new chart.
+     */
+    private void pan(int pixels) {
+        double daysPerPixel = visibleDays / (initialX - finalX);
+        panDays = Math.max(0, Math.min(Math.max(0, view.maxDays - 1), panDays + pixels * daysPerPixel));
+        viewChanged();
     }
 
     /*
      * REQUIRES: Graphics g not null
-     * MODIFIES: this, Graphics g
-     * EFFECTS: Updates maximum price in viewable graphs.
-     *          Draws grid and axis by calling drawGridAxis(Graphics2D g2d).
-     *          Draws each viewable security in guiState. Colors are unique to each security.
+     * MODIFIES: Graphics g
+     * EFFECTS: Draws grid and axis by calling drawGridAxis(Graphics2D g2d), then
+     *          draws the plot of each security in the chart view.
      */
     @Override
     protected void paintComponent(Graphics g) {
+        long start = System.nanoTime();
         super.paintComponent(g);
         Graphics2D g2d = (Graphics2D) g;
-        updateMaxPrice();
         drawGridAxis(g2d);
-        drawPlot(g2d);
+        Graphics2D clipped = (Graphics2D) g2d.create();
+        clipped.clipRect(finalX, initialY, initialX - finalX, finalY - initialY);
+        for (Plot plot : view.plots) {
+            clipped.setColor(plot.color);
+            clipped.draw(plot.outline);
+            clipped.fill(plot.filled);
+        }
+        clipped.dispose();
+        PAINT_LATENCY.recordSince(start);
     }
 
     /*
@@ -84,31 +209,77 @@ class GraphDrawer extends JPanel {
     }
 
     /*
-     * REQUIRES: Graphics2D g2d not null
-     * MODIFIES: Graphics2D g2d
-     * EFFECTS: Draws each viewable security in guiState. Colors are unique to each security.
-     */
-    private void drawPlot(Graphics2D g2d) {
-        for (Security security : guiState.getViewableSecurities()) {
-            g2d.setColor(generateColor(security.hashCode()));
-            List<Double> history = security.getHistory();
-            float prevX = initialX;
-            float prevY = scaleY(history.get(history.size() - 1));
-            int realWidth = (X_GRID / X_GRID_LINE) * X_GRID_LINE;
-            int lowerBound = Math.max(history.size() - realWidth, 0);
-            for (int i = history.size() - 1; --i >= lowerBound;) {
-                float nextX = prevX + unitX;
-                float nextY = scaleY(history.get(i));
-                g2d.drawLine(
-                        (int) prevX,
-                        (int) prevY,
-                        (int) nextX,
-                        (int) nextY
-                );
-                prevX = nextX;
-                prevY = nextY;
+     * REQUIRES: called by one thread at a time
+     * MODIFIES: this, viewable securities
+     * EFFECTS: Returns the chart of the viewable securities for the current zoom and pan.
+     *          Each security is read under its lock, so prices appended concurrently are
+     *          never seen half way. Colors are unique to each security. Plots are cached in
+     *          (days before last visible day, price) coordinates and only rebuilt when new
+     *          prices arrive or the view is zoomed or panned, then scaled to the maximum price
+     *          and visible days. When at most CANDLE_DAYS days are visible, daily candlesticks
+     *          are drawn instead.
+     */
+    public ChartView compute() {
+        List<Security> securities = viewable;
+        double days = visibleDays;
+        int pan = (int) panDays;
+        caches.keySet().retainAll(securities);
+        double maxPrice = 0;
+        int maxDays = 0;
+        List<DataPlot> dataPlots = new ArrayList<>();
+        for (Security security : securities) {
+            synchronized (security) {
+                List<Double> history = security.getHistory();
+                PlotCache cache = cacheFor(security);
+                maxPrice = Math.max(maxPrice, cache.runningMax(history));
+                maxDays = Math.max(maxDays, history.size());
+                if (days <= CANDLE_DAYS) {
+                    dataPlots.add(candles(security, history.size(), pan, days));
+                } else {
+                    Path2D path = cache.plot(security.getPyramid(), pan, (int) Math.ceil(days));
+                    dataPlots.add((toScreen, color) ->
+                            new Plot(color, toScreen.createTransformedShape(path), new Path2D.Double()));
+                }
+            }
+        }
+        List<Plot> plots = new ArrayList<>();
+        if (maxPrice > 0) {
+            AffineTransform toScreen = new AffineTransform(
+                    (finalX - initialX) / days, 0,
+                    0, -Y_GRID * unitY / maxPrice,
+                    initialX, finalY
+            );
+            for (int k = 0; k < securities.size(); k++) {
+                plots.add(dataPlots.get(k).toScreen(toScreen, generateColor(securities.get(k).hashCode())));
             }
         }
+        return new ChartView(maxDays, plots);
+    }
+
+    /*
+     * REQUIRES: security is locked by the caller, size is the size of its history
+     * EFFECTS: Returns the candlesticks of the visible daily bars of security in
+     *          (days before last visible day, price) coordinates.
+     */
+    private Candles candles(Security security, int size, int pan, double days) {
+        BarSeries bars = security.getBars();
+        int lastDay = size - 1 - pan;
+        int offset = bars.size() - size;
+        int firstDay = Math.max(Math.max(0, lastDay - (int) Math.ceil(days)), -offset);
+        Candles candles = new Candles(Math.max(0, lastDay - firstDay + 1));
+        for (int day = firstDay; day <= lastDay; day++) {
+            int i = day + offset;
+            candles.add(lastDay - day, bars.open(i), bars.high(i), bars.low(i), bars.close(i));
+        }
+        return candles;
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: Returns the cache of security, creating it if it does not exist.
+     */
+    private PlotCache cacheFor(Security security) {
+        return caches.computeIfAbsent(security, s -> new PlotCache(initialX - finalX));
     }
 
     /*
@@ -119,24 +290,224 @@ class GraphDrawer extends JPanel {
     }
 
     /*
-     * EFFECTS: Returns a scaled version of y.
+     * Represents an immutable chart: the plot of every viewable security in screen
+     * coordinates and the longest viewable history. Never modified once computed.
      */
-    private int scaleY(double y) {
-        return (int) (finalY - (y / maxPrice * Y_GRID * unitY));
+    static class ChartView {
+        private final int maxDays;        // Longest history in the chart
+        private final List<Plot> plots;   // Plot of every viewable security
+
+        ChartView(int maxDays, List<Plot> plots) {
+            this.maxDays = maxDays;
+            this.plots = List.copyOf(plots);
+        }
     }
 
     /*
-     * MODIFIES: this
-     * EFFECTS: Sets maxPrice to maximum price in guiState.getViewableSecurities()
-     *          If there are no securities in guiState.getViewableSecurities(),
-     *          maxPrice is set to 0.
-     */
-    private void updateMaxPrice() {
-        maxPrice = 0.0;
-        for (Security security : guiState.getViewableSecurities()) {
-            for (Double price : security.getHistory()) {
-                maxPrice = (price > maxPrice) ? price : maxPrice;
+     * Represents the plot of one security in screen coordinates: lines drawn and shapes filled.
+     */
+    private static class Plot {
+        private final Color color;    // Color of the security
+        private final Shape outline;  // Lines and hollow candle bodies
+        private final Shape filled;   // Filled candle bodies
+
+        Plot(Color color, Shape outline, Shape filled) {
+            this.color = color;
+            this.outline = outline;
+            this.filled = filled;
+        }
+    }
+
+    /*
+     * Represents the plot of one security in (days before last visible day, price) coordinates,
+     * copied out of the security so that it can be scaled to the screen without its lock.
+     */
+    private interface DataPlot {
+        /*
+         * EFFECTS: Returns this plot scaled to the screen with toScreen and drawn in color.
+         */
+        Plot toScreen(AffineTransform toScreen, Color color);
+    }
+
+    /*
+     * Represents the daily bars of candlesticks copied out of a security.
+     */
+    private static class Candles implements DataPlot {
+        private final double[] xs;      // Days before last visible day of each bar
+        private final double[] opens;   // Open of each bar
+        private final double[] highs;   // High of each bar
+        private final double[] lows;    // Low of each bar
+        private final double[] closes;  // Close of each bar
+        private int size;               // Number of bars
+
+        Candles(int capacity) {
+            xs = new double[capacity];
+            opens = new double[capacity];
+            highs = new double[capacity];
+            lows = new double[capacity];
+            closes = new double[capacity];
+        }
+
+        void add(double x, double open, double high, double low, double close) {
+            xs[size] = x;
+            opens[size] = open;
+            highs[size] = high;
+            lows[size] = low;
+            closes[size] = close;
+            size++;
+        }
+
+        /*
+         * EFFECTS: Returns a wick from low to high and a body from open to close for every bar,
+         *          scaled to the screen with toScreen. Bodies are at least a pixel wide and
+         *          filled when the close is below the open.
+         */
+        @Override
+        public Plot toScreen(AffineTransform toScreen, Color color) {
+            Path2D.Double outline = new Path2D.Double();
+            Path2D.Double filled = new Path2D.Double();
+            for (int k = 0; k < size; k++) {
+                Point2D high = toScreen.transform(new Point2D.Double(xs[k], highs[k]), null);
+                Point2D low = toScreen.transform(new Point2D.Double(xs[k], lows[k]), null);
+                Point2D open = toScreen.transform(new Point2D.Double(xs[k] - CANDLE_WIDTH / 2, opens[k]), null);
+                Point2D close = toScreen.transform(new Point2D.Double(xs[k] + CANDLE_WIDTH / 2, closes[k]), null);
+                int left = (int) Math.min(open.getX(), close.getX());
+                int top = (int) Math.min(open.getY(), close.getY());
+                int width = Math.max(1, (int) Math.abs(close.getX() - open.getX()));
+                int height = Math.max(1, (int) Math.abs(close.getY() - open.getY()));
+                outline.moveTo((int) high.getX(), (int) high.getY());
+                outline.lineTo((int) low.getX(), (int) low.getY());
+                Rectangle body = new Rectangle(left, top, width, height);
+                if (closes[k] < opens[k]) {
+                    filled.append(body, false);
+                } else {
+                    outline.append(body, false);
+                }
+            }
+            return new Plot(color, outline, filled);
+        }
+    }
+
+    /*
+     * Represents cached drawing state of a single security: the running maximum of its
+     * history and the plot of its visible prices in (days before last visible day, price) coordinates.
+     */
+    private static class PlotCache {
+        private final int pixels;  // Number of pixel columns available for the plot
+        private int scanned;       // Number of prices included in max
+        private double max;        // Maximum of the first scanned prices
+        private int plotted;       // History size the path was built for, -1 if never built
+        private int plottedPan;    // Pan the path was built for
+        private int plottedDays;   // Visible days the path was built for
+        private Path2D path;       // Cached plot
+
+        /*
+         * REQUIRES: pixels > 0
+         * EFFECTS: Creates an empty cache plotting over pixels columns.
+         */
+        PlotCache(int pixels) {
+            this.pixels = pixels;
+            this.plotted = -1;
+        }
+
+        /*
+         * REQUIRES: history not null
+         * MODIFIES: this
+         * EFFECTS: Scans prices appended since the last call and returns the maximum price in history.
+         */
+        double runningMax(List<Double> history) {
+            for (int size = history.size(); scanned < size; scanned++) {
+                max = Math.max(max, history.get(scanned));
+            }
+            return max;
+        }
+
+        /*
+         * REQUIRES: pyramid not null, pan >= 0, days > 0
+         * MODIFIES: this
+         * EFFECTS: Returns the plot of days prices ending pan days before the most recent price,
+         *          rebuilding it only if history grew or the view changed.
+         */
+        Path2D plot(PricePyramid pyramid, int pan, int days) {
+            int size = pyramid.size(0);
+            if (size != plotted || pan != plottedPan || days != plottedDays) {
+                path = build(pyramid, size - 1 - pan, days);
+                plotted = size;
+                plottedPan = pan;
+                plottedDays = days;
+            }
+            return path;
+        }
+
+        /*
+         * EFFECTS: Returns a path of days prices ending at day index last. Reads from the
+         *          coarsest level of pyramid with at least one point per pixel column, and
+         *          reduces columns holding more than one point to their low and high, so the
+         *          path has O(pixels) points however long the history is.
+         */
+        private Path2D build(PricePyramid pyramid, int last, int days) {
+            Path2D.Double p = new Path2D.Double(Path2D.WIND_NON_ZERO, 2 * pixels);
+            if (last < 0) {
+                return p;
+            }
+            double daysPerPixel = (double) days / pixels;
+            int level = pyramid.levelFor(daysPerPixel);
+            int bucket = pyramid.bucketSize(level);
+            int first = Math.max(0, last - days);
+
+            int column = -1;
+            int points = 0;
+            double x = 0;
+            double low = 0;
+            double high = 0;
+            double close = 0;
+            for (int i = last / bucket; i >= first / bucket; i--) {
+                double bucketX = Math.max(0, last - (i * bucket + (bucket - 1) / 2.0));
+                int bucketColumn = (int) (bucketX / daysPerPixel);
+                if (bucketColumn != column) {
+                    addColumn(p, points, x, low, high, close);
+                    column = bucketColumn;
+                    points = 0;
+                    x = bucketX;
+                    low = pyramid.low(level, i);
+                    high = pyramid.high(level, i);
+                    close = pyramid.close(level, i);
+                }
+                low = Math.min(low, pyramid.low(level, i));
+                high = Math.max(high, pyramid.high(level, i));
+                points++;
+            }
+            addColumn(p, points, x, low, high, close);
+            return p;
+        }
+
+        /*
+         * MODIFIES: p
+         * EFFECTS: Adds a pixel column to p: its close if it holds a single daily point,
+         *          otherwise its high and low. Does nothing if points is 0.
+         */
+        private void addColumn(Path2D.Double p, int points, double x, double low, double high, double close) {
+            if (points == 0) {
+                return;
+            }
+            if (points == 1 && low == high) {
+                lineTo(p, x, close);
+            } else {
+                lineTo(p, x, high);
+                lineTo(p, x, low);
+            }
+        }
+
+        /*
+         * MODIFIES: p
+         * EFFECTS: Moves to (x, y) if p is empty, otherwise draws a line to (x, y).
+         */
+        private void lineTo(Path2D.Double p, double x, double y) {
+            if (p.getCurrentPoint() == null) {
+                p.moveTo(x, y);
+            } else {
+                p.lineTo(x, y);
             }
         }
     }
-}
\ No newline at end of file
+}
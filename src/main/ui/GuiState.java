@@ -2,8 +2,6 @@ package ui;
 
 import model.Security;
 
-import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -13,8 +11,8 @@ import java.util.Set;
 public class GuiState {
     private int buySellState;                       // Stores buy or sell state. Buy: 0, Sell: 1
     private final Set<Security> viewableSecurities; // Stores securities selected to be viewed in chart.
-    DefaultListModel<Security> listSecurities;      // Stores securities selected to be viewed in market list.
-    DefaultTableModel tableModel;                   // Stores table model for market list.
+    SecurityListModel listSecurities;               // Lists securities of the account in market list.
+    AccountTableModel tableModel;                   // Stores table model for account positions.
 
     /*
      * EFFECTS: Creates a state for TradingSimulatorGUI. Default state is
@@ -24,10 +22,8 @@ public class GuiState {
     public GuiState() {
         buySellState = 0;
         viewableSecurities = new HashSet<>();
-        listSecurities = new DefaultListModel<>();
-        tableModel = new DefaultTableModel();
-        tableModel.addColumn("Security");
-        tableModel.addColumn("Position");
+        listSecurities = new SecurityListModel();
+        tableModel = new AccountTableModel();
     }
 
 
@@ -60,11 +56,11 @@ public class GuiState {
         }
     }
 
-    public DefaultListModel<Security> getListSecurities() {
+    public SecurityListModel getListSecurities() {
         return listSecurities;
     }
 
-    public DefaultTableModel getTableModel() {
+    public AccountTableModel getTableModel() {
         return tableModel;
     }
 
@@ -79,7 +75,7 @@ public class GuiState {
     public void reset() {
         buySellState = 0;
         viewableSecurities.clear();
-        listSecurities.clear();
-        tableModel.getDataVector().removeAllElements();
+        listSecurities.setAccount(null);
+        tableModel.setAccount(null);
     }
 }
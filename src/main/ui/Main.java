@@ -1,18 +1,58 @@
 package ui;
 
+import model.MarketClock;
+import model.TradeLog;
+import model.metrics.MetricsRegistry;
+
+import javax.management.JMException;
+import javax.swing.SwingUtilities;
+import java.util.concurrent.CompletableFuture;
+
 /*
  * Represents main class for the application.
  */
 public class Main {
+    private static final String TRADE_STORE = "./data/trades.bin"; // Journal of every trade
     /*
-     * EFFECTS: Starts the application in GUI mode unless argument
-     *          -cli is passed in, in which case starts the application in CLI mode.
+     * EFFECTS: Starts the application in GUI mode unless argument -cli is passed in, in which
+     *          case starts the application in CLI mode. The GUI is built on the event dispatch
+     *          thread. The trade journal is replayed and metrics are exposed through JMX in the
+     *          background so that they do not delay the first frame.
+     *          Arguments -speed N make the market run N times faster than real time.
+     *          Argument -startup-benchmark prints the time to the first frame and the first
+     *          quote, then exits.
      */
     public static void main(String[] args) {
-        if (args.length >= 1 && args[0].equals("-cli")) {
+        boolean cli = false;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-cli")) {
+                cli = true;
+            } else if (args[i].equals("-speed") && i + 1 < args.length) {
+                MarketClock.setDefault(MarketClock.accelerated(Double.parseDouble(args[++i])));
+            } else if (args[i].equals("-startup-benchmark")) {
+                StartupTimer.enable();
+            }
+        }
+        CompletableFuture.runAsync(Main::registerJmx);
+        TradeLog.getInstance().openAsync(TRADE_STORE).exceptionally(e -> {
+            System.out.println("Unable to open trade journal: " + TRADE_STORE);
+            return null;
+        });
+        if (cli) {
             new TradingSimulatorCLI();
         } else {
-            new TradingSimulatorGUI();
+            SwingUtilities.invokeLater(TradingSimulatorGUI::new);
+        }
+    }
+
+    /*
+     * EFFECTS: Exposes metrics through JMX, prints a message if they cannot be exposed.
+     */
+    private static void registerJmx() {
+        try {
+            MetricsRegistry.getInstance().registerJmx();
+        } catch (JMException e) {
+            System.out.println("Unable to expose metrics through JMX: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
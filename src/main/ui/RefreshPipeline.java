@@ -0,0 +1,157 @@
+package ui;
+
+import model.Account;
+import model.Security;
+import model.Valuation;
+import model.metrics.Counter;
+import model.metrics.LatencyHistogram;
+import model.metrics.MetricsRegistry;
+
+import javax.swing.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/*
+ * Represents the refresh pipeline of TradingSimulatorGUI. Refresh requests mark parts of the
+ * view dirty. Requests arriving within one frame are coalesced, the view model is computed on
+ * a background thread and handed to the view with a single SwingUtilities.invokeLater call.
+ * The view model only holds immutable values, so the view never reads the account or its
+ * securities while the background thread or trades modify them.
+ */
+class RefreshPipeline {
+    public static final int QUOTE = 1;       // Quote of the selected security
+    public static final int ACCOUNT = 2;     // Account holder name and cash
+    public static final int MARKET = 4;      // Market list of securities
+    public static final int CHART = 8;       // Chart of viewable securities
+    public static final int CONTROLS = 16;   // Chart checkbox and buy or sell radio buttons
+    public static final int ALL = QUOTE | ACCOUNT | MARKET | CHART | CONTROLS;
+
+    private static final long FRAME_MILLIS = 16; // Time requests are coalesced for before refreshing
+    private static final Counter REQUESTS = MetricsRegistry.getInstance().counter("gui.refreshRequests");
+    private static final Counter REFRESHES = MetricsRegistry.getInstance().counter("gui.refreshes");
+    private static final LatencyHistogram COMPUTE_LATENCY = MetricsRegistry.getInstance().histogram("gui.refresh");
+
+    private final Consumer<ViewModel> view;          // Applies computed view models, called on the EDT
+    private final ScheduledExecutorService executor; // Background thread computing view models
+    private final AtomicInteger dirty;               // Parts of the view requested since last refresh
+    private final AtomicBoolean scheduled;           // True if a refresh is scheduled and not yet started
+
+    private volatile Account account;   // Account the view displays
+    private volatile Security selected; // Security selected in the market list
+    private volatile GraphDrawer chart; // Chart computed for CHART, null if there is none
+
+    /*
+     * REQUIRES: view not null
+     * EFFECTS: Creates a refresh pipeline delivering view models to view on the EDT.
+     */
+    RefreshPipeline(Consumer<ViewModel> view) {
+        this.view = view;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "gui-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.dirty = new AtomicInteger();
+        this.scheduled = new AtomicBoolean();
+    }
+
+    public void setAccount(Account account) {
+        this.account = account;
+    }
+
+    public void setSelected(Security selected) {
+        this.selected = selected;
+    }
+
+    public void setChart(GraphDrawer chart) {
+        this.chart = chart;
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: Marks parts of the view in flags dirty and schedules a refresh one frame later
+     *          if none is scheduled. Safe to call from any thread.
+     */
+    public void request(int flags) {
+        REQUESTS.increment();
+        dirty.getAndUpdate(current -> current | flags);
+        if (scheduled.compareAndSet(false, true)) {
+            executor.schedule(this::refresh, FRAME_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /*
+     * EFFECTS: Computes the view model of every dirty part of the view and passes it
+     *          to view on the EDT.
+     */
+    private void refresh() {
+        scheduled.set(false);
+        int flags = dirty.getAndSet(0);
+        Account current = account;
+        if (flags == 0 || current == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        ViewModel model = compute(flags, current, selected, chart);
+        COMPUTE_LATENCY.recordSince(start);
+        REFRESHES.increment();
+        SwingUtilities.invokeLater(() -> view.accept(model));
+    }
+
+    /*
+     * REQUIRES: account not null
+     * EFFECTS: Returns the view model of parts of the view in flags. The account is read
+     *          under its lock, so that balance, equity and positions are consistent.
+     */
+    private static ViewModel compute(int flags, Account account, Security selected, GraphDrawer chart) {
+        ViewModel model = new ViewModel(flags);
+        if ((flags & QUOTE) != 0 && selected != null) {
+            String bidPrice = String.format("%.2f", selected.getBidPrice());
+            String askPrice = String.format("%.2f", selected.getAskPrice());
+            model.quote = "Current bid price: $" + bidPrice + " , ask price: $" + askPrice;
+        }
+        if ((flags & ACCOUNT) != 0) {
+            synchronized (account) {
+                Valuation valuation = account.markToMarket();
+                model.name = "Account Holder: " + account.getName();
+                model.cash = String.format("Buying Power: $%.2f, Equity: $%.2f, P&L: $%.2f",
+                        account.getBalance(), account.getEquity(),
+                        valuation.getUnrealizedPnl() + valuation.getRealizedPnl());
+            }
+        }
+        if ((flags & CHART) != 0 && chart != null) {
+            model.chart = chart.compute();
+        }
+        return model;
+    }
+
+    /*
+     * Represents the values displayed by the dirty parts of the view. Fields of parts
+     * that are not dirty are null.
+     */
+    static class ViewModel {
+        final int flags;      // Parts of the view to be refreshed
+        String quote;         // Quote label text
+        String name;          // Account holder label text
+        String cash;          // Buying power label text
+        GraphDrawer.ChartView chart; // Chart to draw
+
+        /*
+         * EFFECTS: Creates an empty view model refreshing the parts in flags.
+         */
+        ViewModel(int flags) {
+            this.flags = flags;
+        }
+
+        /*
+         * EFFECTS: Returns true if part is to be refreshed.
+         */
+        boolean has(int part) {
+            return (flags & part) != 0;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package ui;
+
+import model.Account;
+import model.Security;
+
+import javax.swing.*;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/*
+ * Represents a list model reading the securities of an account directly, instead of
+ * copying them into the list. Without a filter rows are the account securities in the
+ * order they were added. With a filter rows are the securities whose ticker starts
+ * with the filter, sorted by ticker.
+ */
+class SecurityListModel extends AbstractListModel<Security> {
+    private static final Comparator<Security> BY_TICKER = Comparator.comparing(Security::getTicker);
+
+    private Account account;         // Account whose securities are listed, null if none
+    private String filter;           // Ticker prefix filtering the list, empty for no filter
+    private List<Security> matches;  // Securities matching filter, null if there is no filter
+
+    /*
+     * EFFECTS: Creates an empty list model with no filter.
+     */
+    SecurityListModel() {
+        filter = "";
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: Lists securities of account, account may be null for an empty list.
+     *          Fires a single contents changed event.
+     */
+    public void setAccount(Account account) {
+        int oldSize = getSize();
+        this.account = account;
+        refilter();
+        fireResized(oldSize);
+    }
+
+    /*
+     * REQUIRES: prefix not null
+     * MODIFIES: this
+     * EFFECTS: Lists only securities whose ticker starts with prefix, all securities
+     *          if prefix is empty. Fires a single contents changed event.
+     */
+    public void setFilter(String prefix) {
+        int oldSize = getSize();
+        filter = prefix;
+        refilter();
+        fireResized(oldSize);
+    }
+
+    /*
+     * REQUIRES: security was just added to account
+     * MODIFIES: this
+     * EFFECTS: Fires an interval added event for the row of security. If there is a
+     *          filter, the matches are recomputed instead.
+     */
+    public void securityAdded(Security security) {
+        if (matches == null) {
+            int index = getSize() - 1;
+            fireIntervalAdded(this, index, index);
+        } else if (security.getTicker().startsWith(filter)) {
+            setFilter(filter);
+        }
+    }
+
+    /*
+     * EFFECTS: Returns index of security in this list, -1 if it is not listed. Uses the row
+     *          index of account without a filter, and a binary search by ticker of the matches
+     *          otherwise, so the list is never searched.
+     */
+    public int indexOf(Security security) {
+        if (account == null) {
+            return -1;
+        }
+        if (matches == null) {
+            return account.indexOf(security);
+        }
+        int index = Collections.binarySearch(matches, security, BY_TICKER);
+        return (index >= 0 && matches.get(index) == security) ? index : -1;
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: Recomputes matches of filter using the ticker index of account.
+     */
+    private void refilter() {
+        matches = (account == null || filter.isEmpty()) ? null : account.findFundsByPrefix(filter);
+    }
+
+    /*
+     * EFFECTS: Fires events for rows removed or added relative to oldSize and
+     *          a contents changed event for the rows that remain.
+     */
+    private void fireResized(int oldSize) {
+        int newSize = getSize();
+        if (oldSize > newSize) {
+            fireIntervalRemoved(this, newSize, oldSize - 1);
+        } else if (newSize > oldSize) {
+            fireIntervalAdded(this, oldSize, newSize - 1);
+        }
+        if (Math.min(oldSize, newSize) > 0) {
+            fireContentsChanged(this, 0, Math.min(oldSize, newSize) - 1);
+        }
+    }
+
+    @Override
+    public int getSize() {
+        if (account == null) {
+            return 0;
+        }
+        return (matches == null) ? account.getSecurities().size() : matches.size();
+    }
+
+    @Override
+    public Security getElementAt(int index) {
+        return (matches == null) ? account.getSecurities().get(index) : matches.get(index);
+    }
+}
@@ -0,0 +1,78 @@
+package ui;
+
+import java.lang.management.ManagementFactory;
+
+/*
+ * Represents the startup benchmark of the application. Measures the time from the start of the
+ * JVM to the first frame shown (the first menu in CLI mode) and to the first quote computed.
+ * Only wall clock times are recorded on the way; the start time of the JVM is read through
+ * JMX when the times are requested, so measuring loads no classes before them. When enabled,
+ * both times are printed once the first quote is computed and the application exits, so
+ * repeated launches can be timed with and without a class-data sharing archive.
+ */
+public final class StartupTimer {
+    private static volatile boolean enabled;      // True if the application exits after the first quote
+    private static volatile long firstFrame = -1; // Epoch milliseconds of the first frame, -1 if not yet
+    private static volatile long firstQuote = -1; // Epoch milliseconds of the first quote, -1 if not yet
+
+    /*
+     * EFFECTS: prevents construction, all methods are static
+     */
+    private StartupTimer() {
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: Makes the application print the startup times and exit after the first quote.
+     */
+    public static void enable() {
+        enabled = true;
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: Records the time to the first frame unless it is already recorded.
+     */
+    public static synchronized void firstFrame() {
+        if (firstFrame < 0) {
+            firstFrame = System.currentTimeMillis();
+        }
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: Records the time to the first quote unless it is already recorded. If enabled,
+     *          prints the time to the first frame and to the first quote and exits.
+     */
+    public static synchronized void firstQuote() {
+        if (firstQuote >= 0) {
+            return;
+        }
+        firstQuote = System.currentTimeMillis();
+        if (enabled) {
+            System.out.printf("startup: first frame %d ms, first quote %d ms%n", getFirstFrame(), getFirstQuote());
+            System.exit(0);
+        }
+    }
+
+    /*
+     * EFFECTS: Returns the milliseconds from the start of the JVM to time, -1 if time is -1.
+     */
+    private static long sinceStart(long time) {
+        return (time < 0) ? -1 : time - ManagementFactory.getRuntimeMXBean().getStartTime();
+    }
+
+    /*
+     * EFFECTS: Returns the milliseconds from the start of the JVM to the first frame, -1 if not yet shown.
+     */
+    public static long getFirstFrame() {
+        return sinceStart(firstFrame);
+    }
+
+    /*
+     * EFFECTS: Returns the milliseconds from the start of the JVM to the first quote, -1 if not yet computed.
+     */
+    public static long getFirstQuote() {
+        return sinceStart(firstQuote);
+    }
+}
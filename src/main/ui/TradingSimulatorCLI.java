@@ -1,18 +1,44 @@
 package ui;
 
 import model.Account;
+import model.BarSeries;
+import model.CorporateAction;
 import model.Event;
 import model.EventLog;
+import model.MarginEngine;
+import model.MarginTerms;
+import model.MarketClock;
+import model.RiskLimits;
 import model.Security;
-import model.exception.InsufficientBalanceException;
-import model.exception.InsufficientFundsException;
+import model.TickStore;
+import model.TradeLog;
+import model.TradeRecord;
+import model.TradeResult;
+import model.Valuation;
+import model.metrics.MetricsRegistry;
+import model.simulation.Scenario;
+import model.simulation.SimulationRunner;
+import model.simulation.SimulationSummary;
+import model.simulation.Strategy;
+import model.simulation.StressResult;
+import model.simulation.StressTester;
+import persistence.AccountCatalog;
+import persistence.AutoSaver;
+import persistence.CsvImporter;
+import persistence.Exporter;
 import persistence.JsonReader;
-import persistence.JsonWriter;
 
-import java.io.FileNotFoundException;
+import java.io.BufferedWriter;
+import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.CompletionException;
 
 import static java.lang.System.exit;
 
@@ -21,19 +47,27 @@ import static java.lang.System.exit;
  */
 public class TradingSimulatorCLI {
     private static final String JSON_STORE = "./data/user.json"; // Directory of user save file
-    private final JsonWriter jsonWriter;                         // jsonWriter object used for saving
+    private static final int AUTOSAVE_INTERVAL = 60;             // Seconds between automatic saves
+    private static final String CATALOG_DIR = "./data/accounts"; // Directory of the account catalog
+    private static final int CATALOG_THREADS = 4;                // I/O threads of the account catalog
+    private final AutoSaver autoSaver;                           // autoSaver object used for saving
     private final JsonReader jsonReader;                         // jsonWriter object used for loading
 
-    private final Scanner scanner; // Scanner used for user input from terminal
-    private Account account;       // Stores all account related information.
+    private final Scanner scanner;  // Scanner used for user input from terminal
+    private volatile Account account; // Stores all account related information.
+    private MarginEngine marginEngine; // Settles interest, fees and margin calls of account every day
+    private final TradeResult tradeResult = new TradeResult(); // Outcome of the last order placed
+    private AccountCatalog catalog; // Catalog of saved accounts, null until first used
 
    /*
-    * EFFECTS: Constructs ETF simulator and runs the application.
+    * EFFECTS: Constructs ETF simulator, starts saving the account every
+    *          AUTOSAVE_INTERVAL seconds in the background and runs the application.
     */
     public TradingSimulatorCLI() {
         scanner = new Scanner(System.in);
-        jsonWriter = new JsonWriter(JSON_STORE);
+        autoSaver = new AutoSaver(JSON_STORE, () -> account);
         jsonReader = new JsonReader(JSON_STORE);
+        autoSaver.start(AUTOSAVE_INTERVAL);
         run();
     }
 
@@ -44,6 +78,7 @@ public class TradingSimulatorCLI {
     public void run() {
         initialize();
         while (true) {
+            settleMargin();
             printMenu();
             String action = scanner.nextLine();
             if (action.contains("new")) {
@@ -68,6 +103,12 @@ public class TradingSimulatorCLI {
             case "hist":
                 printHistory();
                 break;
+            case "bars":
+                printBars();
+                break;
+            case "ticks":
+                printTicks();
+                break;
             case "buy":
                 executeBuy();
                 break;
@@ -77,15 +118,54 @@ public class TradingSimulatorCLI {
             case "add":
                 executeAddSecurity();
                 break;
+            case "import":
+                executeImport();
+                break;
+            case "export":
+                executeExport();
+                break;
             case "list":
                 printAllFunds();
                 break;
             case "save":
                 saveState();
                 break;
+            case "risk":
+                executeRiskLimits();
+                break;
+            case "margin":
+                executeMarginTerms();
+                break;
+            case "corp":
+                executeCorporateAction();
+                break;
+            case "trades":
+                printTrades();
+                break;
+            case "pnl":
+                printPnl();
+                break;
+            case "stats":
+                printStats();
+                break;
+            case "sim":
+                executeSimulation();
+                break;
+            case "stress":
+                executeStressTest();
+                break;
             case "load":
                 loadState();
                 break;
+            case "accts":
+                printCatalog();
+                break;
+            case "open":
+                openFromCatalog();
+                break;
+            case "store":
+                storeInCatalog();
+                break;
             case "new":
                 createAccount();
                 break;
@@ -98,6 +178,312 @@ public class TradingSimulatorCLI {
         }
     }
 
+    /*
+     * REQUIRES: Clean input from user. Numbers when prompted for limits.
+     * MODIFIES: account
+     * EFFECTS: Displays every risk limit of the account and requests a new value for it.
+     *          Limits left blank are kept.
+     */
+    private void executeRiskLimits() {
+        RiskLimits limits = account.getRiskLimits();
+        String value = inputLimit("Max order value ($)", limits.getMaxOrderNotional());
+        if (!value.isEmpty()) {
+            limits.setMaxOrderNotional(Double.parseDouble(value));
+        }
+        value = inputLimit("Max position per ETF", limits.getMaxPosition());
+        if (!value.isEmpty()) {
+            limits.setMaxPosition(Integer.parseInt(value));
+        }
+        value = inputLimit("Max share of equity per ETF (0-1)", limits.getMaxConcentration());
+        if (!value.isEmpty()) {
+            limits.setMaxConcentration(Double.parseDouble(value));
+        }
+        value = inputLimit("Max orders per second", limits.getMaxOrdersPerSecond());
+        if (!value.isEmpty()) {
+            limits.setMaxOrdersPerSecond(Integer.parseInt(value));
+        }
+        value = inputLimit("Max leverage (1 for no margin)", limits.getMaxLeverage());
+        if (!value.isEmpty()) {
+            limits.setMaxLeverage(Double.parseDouble(value));
+        }
+        value = inputLimit("Max short position per ETF (0 for no short selling)", limits.getMaxShortPosition());
+        if (!value.isEmpty()) {
+            limits.setMaxShortPosition(Integer.parseInt(value));
+        }
+        System.out.println("Risk limits updated.");
+    }
+
+    /*
+     * REQUIRES: Clean input from user. Numbers when prompted for terms.
+     * MODIFIES: account
+     * EFFECTS: Displays every financing term of the account and requests a new value for it.
+     *          Terms left blank are kept.
+     */
+    private void executeMarginTerms() {
+        MarginTerms terms = account.getMarginTerms();
+        String value = inputLimit("Annual interest on cash (0.02 for 2%)", terms.getCashRate());
+        if (!value.isEmpty()) {
+            terms.setCashRate(Double.parseDouble(value));
+        }
+        value = inputLimit("Annual interest on borrowed cash", terms.getDebitRate());
+        if (!value.isEmpty()) {
+            terms.setDebitRate(Double.parseDouble(value));
+        }
+        value = inputLimit("Annual fee on short positions", terms.getBorrowRate());
+        if (!value.isEmpty()) {
+            terms.setBorrowRate(Double.parseDouble(value));
+        }
+        value = inputLimit("Maintenance margin (0-1)", terms.getMaintenanceMargin());
+        if (!value.isEmpty()) {
+            terms.setMaintenanceMargin(Double.parseDouble(value));
+        }
+        System.out.println("Margin terms updated.");
+    }
+
+    /*
+     * REQUIRES: Clean input from user. Strings when prompted for ticker,
+     *           numbers when prompted for amount and days.
+     * MODIFIES: account
+     * EFFECTS: Requests a ticker and displays its corporate actions. Then requests a dividend
+     *          per share, or a split ratio followed by x, and the number of days until it takes
+     *          effect, and schedules it. Nothing is scheduled if the amount is left blank.
+     */
+    private void executeCorporateAction() {
+        Security security = inputFund();
+        for (CorporateAction action : security.getCorporateActions()) {
+            System.out.println("Applied " + action);
+        }
+        for (CorporateAction action : security.getScheduledActions()) {
+            System.out.println("Scheduled " + action);
+        }
+
+        System.out.print("Please enter dividend per share, or split ratio followed by x (blank to skip): ");
+        String amount = scanner.nextLine().trim();
+        if (amount.isEmpty()) {
+            return;
+        }
+        System.out.print("Please enter number of days until it takes effect: ");
+        int day = security.getHistory().size() - 1 + Math.max(1, Integer.parseInt(scanner.nextLine()));
+
+        CorporateAction action = amount.endsWith("x")
+                ? CorporateAction.split(day, Double.parseDouble(amount.substring(0, amount.length() - 1)))
+                : CorporateAction.dividend(day, Double.parseDouble(amount));
+        security.addCorporateAction(action);
+        System.out.println("Scheduled " + action);
+    }
+
+    /*
+     * MODIFIES: this
+     * EFFECTS: Starts settling the financing of the current account every trading day, closing
+     *          the engine of the previous account.
+     */
+    private void startMarginEngine() {
+        if (marginEngine != null) {
+            marginEngine.close();
+        }
+        marginEngine = new MarginEngine(account.getSecurities().get(0), 1);
+        marginEngine.addAccount(account);
+    }
+
+    /*
+     * MODIFIES: account
+     * EFFECTS: Settles the trading days passed since the last settlement and
+     *          notifies the user of positions liquidated by a margin call.
+     */
+    private void settleMargin() {
+        int liquidated = marginEngine.settle();
+        if (liquidated > 0) {
+            System.out.printf("Margin call: %d positions were liquidated.%n", liquidated);
+        }
+    }
+
+    /*
+     * EFFECTS: Displays the current value of a limit and returns the new value entered,
+     *          which is blank if the limit is to be kept.
+     */
+    private String inputLimit(String name, double current) {
+        boolean unlimited = current == Double.POSITIVE_INFINITY || current == Integer.MAX_VALUE;
+        System.out.printf("%s, currently %s (blank to keep): ", name, unlimited ? "unlimited" : current);
+        return scanner.nextLine().trim();
+    }
+
+    /*
+     * REQUIRES: Clean input from user. Integer when prompted for number.
+     * EFFECTS: Requests a ticker, a number of simulated days and a file, each of which may
+     *          be left blank. Finds the recorded trades of the ticker, or of every ticker,
+     *          in the last number of days, or ever. Writes them to the file as CSV, or
+     *          displays them if no file is given.
+     */
+    private void printTrades() {
+        System.out.print("Please enter ticker (blank for all): ");
+        String ticker = scanner.nextLine().trim();
+
+        System.out.print("Please enter number of days (blank for all): ");
+        String days = scanner.nextLine().trim();
+
+        System.out.print("Please enter file to export to (blank to display): ");
+        String destination = scanner.nextLine().trim();
+
+        long to = Long.MAX_VALUE;
+        long from = Long.MIN_VALUE;
+        if (!days.isEmpty()) {
+            to = MarketClock.getDefault().now().toEpochMilli() + 1;
+            from = to - Security.dayLength().multipliedBy(Integer.parseInt(days)).toMillis();
+        }
+        List<TradeRecord> trades = TradeLog.getInstance().query(ticker.isEmpty() ? null : ticker, from, to);
+
+        if (destination.isEmpty()) {
+            for (TradeRecord trade : trades) {
+                System.out.println(trade);
+            }
+            System.out.println(trades.size() + " trades found.");
+            return;
+        }
+        try (BufferedWriter out = new BufferedWriter(new FileWriter(destination))) {
+            out.write(TradeRecord.CSV_HEADER);
+            out.newLine();
+            for (TradeRecord trade : trades) {
+                out.write(trade.toCsv());
+                out.newLine();
+            }
+            System.out.println(trades.size() + " trades exported to " + destination);
+        } catch (IOException e) {
+            System.out.println("Unable to write to file: " + destination);
+        }
+    }
+
+    /*
+     * EFFECTS: Displays cost basis, market value and unrealized profit and loss of every
+     *          open position, followed by cash, equity and total profit and loss.
+     */
+    private void printPnl() {
+        Valuation valuation = account.markToMarket();
+        System.out.println(String.format("%-8s %10s %14s %14s %14s",
+                "Ticker", "Position", "Cost", "Value", "Unrealized"));
+        for (Security security : account.getSecurities()) {
+            if (security.getSecurityPosition() != 0) {
+                System.out.println(String.format("%-8s %10d %14.2f %14.2f %14.2f",
+                        security.getTicker(), security.getSecurityPosition(), security.getCostBasis(),
+                        valuation.getMarketValue(security), valuation.getUnrealizedPnl(security)));
+            }
+        }
+        System.out.println(String.format("Cash: $%.2f, Market value: $%.2f, Equity: $%.2f",
+                account.getBalance(), valuation.getMarketValue(), account.getEquity()));
+        System.out.println(String.format("Unrealized P&L: $%.2f, Realized P&L: $%.2f",
+                valuation.getUnrealizedPnl(), valuation.getRealizedPnl()));
+    }
+
+    /*
+     * REQUIRES: Clean input from user. Integers when prompted for numbers.
+     * EFFECTS: Simulates many accounts trading copies of the current account's market,
+     *          half buying and holding and half rebalancing monthly, each with its own seed.
+     *          Writes one line per account to a CSV file and displays the aggregated outcome.
+     */
+    private void executeSimulation() {
+        System.out.print("Please enter number of accounts to simulate: ");
+        int count = Integer.parseInt(scanner.nextLine());
+
+        System.out.print("Please enter number of trading days to simulate: ");
+        int days = Integer.parseInt(scanner.nextLine());
+
+        System.out.print("Please enter file to write results to: ");
+        String destination = scanner.nextLine();
+
+        SimulationRunner runner = new SimulationRunner(days, 1, Runtime.getRuntime().availableProcessors());
+        for (Security security : account.getSecurities()) {
+            List<Double> history = security.getHistory();
+            runner.addSecurity(security.getTicker(), history.get(history.size() - 1),
+                    security.getYearlyReturn(), security.getVolatility());
+        }
+        for (int i = 0; i < count; i++) {
+            Strategy strategy = (i % 2 == 0) ? Strategy.buyAndHold() : Strategy.rebalanceEvery(21);
+            String name = ((i % 2 == 0) ? "buyAndHold-" : "rebalance-") + i;
+            runner.addAccount(name, account.getBalance(), i, strategy);
+        }
+
+        try (BufferedWriter out = new BufferedWriter(new FileWriter(destination))) {
+            SimulationSummary summary = runner.run(out);
+            System.out.print(summary);
+        } catch (IOException e) {
+            System.out.println("Unable to write to file: " + destination);
+        }
+    }
+
+    /*
+     * REQUIRES: Clean input from user. Integer when prompted for number.
+     * EFFECTS: Requests a save file, which may be left blank for the current account, a number
+     *          of random paths and a file, which may be left blank. Forks the account and applies
+     *          the standard stress scenarios and the given number of paths of tripled volatility
+     *          to the fork. Writes every result to the file as CSV, or displays the standard
+     *          scenarios and a summary of the random paths if no file is given. The account
+     *          itself is not modified.
+     */
+    private void executeStressTest() {
+        System.out.print("Please enter save file to test (blank for current account): ");
+        String source = scanner.nextLine().trim();
+
+        System.out.print("Please enter number of random volatility paths: ");
+        int paths = Integer.parseInt(scanner.nextLine().trim());
+
+        System.out.print("Please enter file to export to (blank to display): ");
+        String destination = scanner.nextLine().trim();
+
+        StressTester tester;
+        try {
+            tester = source.isEmpty() ? StressTester.fork(account, Runtime.getRuntime().availableProcessors())
+                    : new StressTester(new JsonReader(source, false).read().snapshot(),
+                    Runtime.getRuntime().availableProcessors());
+        } catch (IOException e) {
+            System.out.println("Unable to read from file: " + source);
+            return;
+        }
+        List<Scenario> standard = Scenario.standardSet();
+        List<Scenario> scenarios = new ArrayList<>(standard);
+        scenarios.addAll(Collections.nCopies(paths, Scenario.volatilitySpike(3, 21)));
+        List<StressResult> results = tester.run(scenarios, 0);
+
+        if (!destination.isEmpty()) {
+            try (BufferedWriter out = new BufferedWriter(new FileWriter(destination))) {
+                StressTester.writeCsv(results, out);
+                System.out.println("Exported " + results.size() + " scenarios to " + destination);
+            } catch (IOException e) {
+                System.out.println("Unable to write to file: " + destination);
+            }
+            return;
+        }
+        System.out.printf("%-24s %4s %12s %12s %9s %12s %8s %7s %s%n", "Scenario", "Days", "Start",
+                "End", "Return", "Min", "Drawdown", "Lev", "Margin call");
+        for (StressResult result : results.subList(0, standard.size())) {
+            System.out.println(result);
+        }
+        printRandomPaths(results.subList(standard.size(), results.size()));
+    }
+
+    /*
+     * EFFECTS: Displays the worst and 5th percentile end equity of the results of random
+     *          paths and how many of them ended a day below the maintenance margin.
+     */
+    private void printRandomPaths(List<StressResult> results) {
+        if (results.isEmpty()) {
+            return;
+        }
+        double[] equities = new double[results.size()];
+        int marginCalls = 0;
+        for (int i = 0; i < equities.length; i++) {
+            equities[i] = results.get(i).getEndEquity();
+            marginCalls += results.get(i).isMarginCall() ? 1 : 0;
+        }
+        Arrays.sort(equities);
+        System.out.printf("%s over %d paths: worst $%.2f, 5th percentile $%.2f, margin calls %d%n",
+                results.get(0).getScenario(), equities.length, equities[0],
+                equities[(int) (0.05 * (equities.length - 1))], marginCalls);
+    }
+
+    // EFFECTS: displays all metrics
+    private void printStats() {
+        System.out.print(MetricsRegistry.getInstance().report());
+    }
+
     // EFFECTS: displays all logs
     private void printLogs() {
         EventLog eventLog = EventLog.getInstance();
@@ -106,25 +492,89 @@ public class TradingSimulatorCLI {
         }
     }
 
-    // MODIFIES: this
-    // EFFECTS: loads account from file
+    // MODIFIES: this, MarketClock
+    // EFFECTS: loads account from file, and resumes the market from the time it was saved at
     private void loadState() {
         try {
             account = jsonReader.read();
+            MarketClock.setDefault(jsonReader.getClock());
+            startMarginEngine();
             System.out.println("Loaded " + account.getName() + " from " + JSON_STORE);
         } catch (IOException e) {
             System.out.println("Unable to read from file: " + JSON_STORE);
         }
     }
 
-    // EFFECTS: saves the account to file
+    /*
+     * MODIFIES: this
+     * EFFECTS: Returns the account catalog in CATALOG_DIR, opening it on first use.
+     *          Throws IOException if it cannot be opened.
+     */
+    private AccountCatalog catalog() throws IOException {
+        if (catalog == null) {
+            catalog = new AccountCatalog(CATALOG_DIR, CATALOG_THREADS);
+        }
+        return catalog;
+    }
+
+    /*
+     * EFFECTS: Prints the name, tickers, size and last save time of every account in the
+     *          catalog, read from its index only.
+     */
+    private void printCatalog() {
+        try {
+            List<AccountCatalog.Entry> entries = catalog().list();
+            if (entries.isEmpty()) {
+                System.out.println("No accounts in " + CATALOG_DIR);
+            }
+            for (AccountCatalog.Entry entry : entries) {
+                System.out.printf("%-20s %-30s %8d bytes, saved %s%n", entry.getName(),
+                        String.join(",", entry.getTickers()), entry.getSize(),
+                        Instant.ofEpochMilli(entry.getLastModified()));
+            }
+        } catch (IOException e) {
+            System.out.println("Unable to read account catalog: " + CATALOG_DIR);
+        }
+    }
+
+    /*
+     * REQUIRES: Clean input from user. String when prompted for name.
+     * MODIFIES: this, MarketClock
+     * EFFECTS: Prompts user for the name of an account in the catalog and replaces the
+     *          current account with it. The market resumes on the clock of its securities.
+     */
+    private void openFromCatalog() {
+        System.out.print("Please enter the name of the account: ");
+        String name = scanner.nextLine();
+        try {
+            account = catalog().load(name);
+            MarketClock.setDefault(account.getSecurities().get(0).getClock());
+            startMarginEngine();
+            System.out.println("Opened " + account.getName() + " from " + CATALOG_DIR);
+        } catch (IOException e) {
+            System.out.println("Unable to open " + name + " from " + CATALOG_DIR);
+        }
+    }
+
+    /*
+     * EFFECTS: Saves a snapshot of the account to its file in the catalog and updates the index.
+     */
+    private void storeInCatalog() {
+        try {
+            catalog().save(account);
+            System.out.println("Stored " + account.getName() + " in " + CATALOG_DIR);
+        } catch (IOException e) {
+            System.out.println("Unable to write to account catalog: " + CATALOG_DIR);
+        }
+    }
+
+    // EFFECTS: saves a snapshot of the account to file and waits for the save to complete
     private void saveState() {
         try {
-            jsonWriter.open();
-            jsonWriter.write(account);
-            jsonWriter.close();
-            System.out.println("Saved " + account.getName() + " to " + JSON_STORE);
-        } catch (FileNotFoundException e) {
+            autoSaver.saveNow().join();
+            System.out.printf("Saved %s to %s (%d bytes in %.1f ms)%n", account.getName(), JSON_STORE,
+                    autoSaver.getLastBytes(), autoSaver.getLastLatencyNanos() / 1e6);
+        } catch (CompletionException e) {
             System.out.println("Unable to write to file: " + JSON_STORE);
         }
     }
@@ -154,6 +604,61 @@ public class TradingSimulatorCLI {
         System.out.println("Ticker successfully created.");
     }
 
+    /*
+     * REQUIRES: Clean input from user. Path of a CSV file when prompted.
+     * MODIFIES: this, account
+     * EFFECTS: Prompts user for a CSV file of ticker,date,close lines and adds every ticker
+     *          in it to the account, with its history and its return and volatility
+     *          estimated from it. Tickers the account already trades are not changed.
+     */
+    private void executeImport() {
+        System.out.print("Please enter the path of the CSV file: ");
+        String path = scanner.nextLine();
+        CsvImporter importer = new CsvImporter(Runtime.getRuntime().availableProcessors());
+        try {
+            long start = System.nanoTime();
+            List<Security> securities = importer.importFile(Paths.get(path), MarketClock.getDefault().now());
+            for (Security security : securities) {
+                account.addFund(security);
+            }
+            System.out.printf("Imported %d ETFs from %d lines in %.1f ms (%d lines and %d tickers skipped)%n",
+                    securities.size(), importer.getLinesImported(), (System.nanoTime() - start) / 1e6,
+                    importer.getLinesSkipped(), importer.getTickersSkipped());
+        } catch (IOException e) {
+            System.out.println("Unable to read from file: " + path);
+        }
+    }
+
+    /*
+     * REQUIRES: Clean input from user. Path of a directory and csv or col when prompted.
+     * EFFECTS: Prompts user for a directory and a format, and appends the histories,
+     *          positions, trades and events that are new since the last export to it
+     *          to one file per dataset in the directory, in the background. Returns once
+     *          the export is started; its outcome is printed when it completes.
+     */
+    private void executeExport() {
+        System.out.print("Please enter the directory to export to: ");
+        String directory = scanner.nextLine();
+        System.out.print("Please enter the format (csv or col): ");
+        Exporter.Format format = scanner.nextLine().equals("col") ? Exporter.Format.COLUMNAR : Exporter.Format.CSV;
+        try {
+            Exporter exporter = new Exporter(directory, format);
+            long start = System.nanoTime();
+            exporter.exportAsync(account).whenComplete((result, e) -> {
+                exporter.stop();
+                if (e == null) {
+                    System.out.printf("Exported %s to %s in %.1f ms%n", result, directory,
+                            (System.nanoTime() - start) / 1e6);
+                } else {
+                    System.out.println("Unable to export to directory: " + directory);
+                }
+            });
+            System.out.println("Exporting to " + directory + " in the background.");
+        } catch (IOException e) {
+            System.out.println("Unable to export to directory: " + directory);
+        }
+    }
+
     /*
      * EFFECTS: Presents available tickers for the account.
      */
@@ -173,7 +678,7 @@ public class TradingSimulatorCLI {
      *           for ticker, integer when prompted for number.
      * MODIFIES: account
      * EFFECTS: Present input for sell order creation. Calls
-     *          account.sellFundAtBidPrice(...) with the inputs.
+     *          account.sell(...) with the inputs.
      *          Notifies the user if the order was successfully
      *          executed or not.
      */
@@ -183,12 +688,8 @@ public class TradingSimulatorCLI {
         System.out.print("Please enter order amount: ");
         int order = Integer.parseInt(scanner.nextLine());
 
-        try {
-            account.sellFundAtBidPrice(order, security);
-            System.out.print("Order successfully executed. ");
-        } catch (InsufficientFundsException e) {
-            System.out.print("You do not have enough of this position to sell.");
-        }
+        account.sell(order, security, tradeResult);
+        System.out.print(tradeResult.getMessage() + " ");
 
         printAccountSummary();
     }
@@ -198,7 +699,7 @@ public class TradingSimulatorCLI {
      *           for ticker, integer when prompted for number.
      * MODIFIES: account
      * EFFECTS: Present input for buy order creation. Calls
-     *          account.sellFundAtBidPrice(...) with the inputs.
+     *          account.buy(...) with the inputs.
      *          Notifies the user if the order was successfully
      *          executed or not.
      */
@@ -208,27 +709,78 @@ public class TradingSimulatorCLI {
         System.out.print("Please enter order amount: ");
         int order = Integer.parseInt(scanner.nextLine());
 
-        try {
-            account.buyFundAtAskPrice(order, security);
-            System.out.print("Order successfully executed.");
-        } catch (InsufficientBalanceException e) {
-            System.out.print("You do not have enough cash.");
-        }
+        account.buy(order, security, tradeResult);
+        System.out.print(tradeResult.getMessage() + " ");
 
         printAccountSummary();
     }
 
     /*
      * EFFECTS: Requests input for a ticker and displays
-     *          price history for the ticker.
+     *          price history for the ticker, and the history adjusted
+     *          for its dividends and splits if it had any.
      */
     private void printHistory() {
         Security security = inputFund();
         System.out.println("Price history for " + security.getTicker() + ":");
         System.out.println(security.getHistory());
+        if (!security.getCorporateActions().isEmpty()) {
+            System.out.println("Adjusted for dividends and splits:");
+            System.out.println(security.getAdjustedHistory());
+        }
         System.out.println("Each item in list represents a day.");
     }
 
+    /*
+     * REQUIRES: Clean input from user. Strings when prompted
+     *           for ticker, integer when prompted for number.
+     * EFFECTS: Requests input for a ticker and number of days and displays
+     *          open, high, low, close and volume of the daily bars in that range.
+     */
+    private void printBars() {
+        Security security = inputFund();
+        System.out.print("Please enter number of days: ");
+        int days = Integer.parseInt(scanner.nextLine());
+
+        BarSeries bars = security.getBars();
+        long to = security.getLastHistoryUpdate().toEpochMilli();
+        int first = bars.firstIndexOverlapping(to - days * bars.getIntervalMillis());
+        System.out.println("Daily bars for " + security.getTicker() + ":");
+        System.out.println("Open      High      Low       Close     Volume");
+        for (int i = first; i < bars.size(); i++) {
+            System.out.printf("%-9.2f %-9.2f %-9.2f %-9.2f %d%n",
+                    bars.open(i), bars.high(i), bars.low(i), bars.close(i), bars.volume(i));
+        }
+    }
+
+    /*
+     * REQUIRES: Clean input from user. Strings when prompted
+     *           for ticker, integer when prompted for number.
+     * MODIFIES: account
+     * EFFECTS: Requests input for a ticker and displays its most recent intraday ticks.
+     *          If the ticker does not generate intraday ticks yet, requests the number of
+     *          ticks per day and starts generating them.
+     */
+    private void printTicks() {
+        Security security = inputFund();
+        TickStore ticks = security.getTicks();
+        if (ticks == null) {
+            System.out.print("Please enter number of ticks per day (0 to cancel): ");
+            security.setTicksPerDay(Integer.parseInt(scanner.nextLine()));
+            System.out.println("Intraday ticks start with the next simulated day.");
+            return;
+        }
+
+        System.out.print("Please enter number of ticks: ");
+        int count = Math.min(Integer.parseInt(scanner.nextLine()), ticks.size());
+        System.out.println("Last " + count + " of " + ticks.getTotalTicks() + " ticks for "
+                + security.getTicker() + ":");
+        for (int i = ticks.size() - count; i < ticks.size(); i++) {
+            long time = ticks.getTime(i);
+            System.out.printf("%s %.4f%n", Instant.ofEpochSecond(0, time), ticks.getPrice(i));
+        }
+    }
+
     /*
      * EFFECTS: Requests input for a ticker and displays
      *          price current quote for the ticker.
@@ -241,6 +793,7 @@ public class TradingSimulatorCLI {
 
         System.out.println("Current bid price: $" + bidPrice
                 + ", ask price: $" + askPrice);
+        StartupTimer.firstQuote();
     }
 
     /*
@@ -259,12 +812,27 @@ public class TradingSimulatorCLI {
         System.out.println("(acc)  : View Account Summary");
         System.out.println("(quote): Get a Quote for Current Bid and Ask Price of an ETF");
         System.out.println("(hist) : Get Past Market Prices for of an ETF");
+        System.out.println("(bars) : Get Daily Open, High, Low, Close and Volume of an ETF");
+        System.out.println("(ticks): Get Intraday Ticks of an ETF");
         System.out.println("(buy)  : Buy ETF At Current Ask Price");
         System.out.println("(sell) : Sell ETF At Current Bid Price");
         System.out.println("(add)  : Add an ETF to the simulation");
+        System.out.println("(import): Add ETFs and their history from a CSV file of ticker,date,close");
+        System.out.println("(export): Export histories, positions, trades and events for analysis");
         System.out.println("(list) : List all ETFs that the account is authorized to trade");
         System.out.println("(load) : Load from a previous save file");
         System.out.println("(save) : Save current state to a file");
+        System.out.println("(accts): List the accounts in the account catalog");
+        System.out.println("(open) : Open an account from the account catalog");
+        System.out.println("(store): Store the account in the account catalog");
+        System.out.println("(pnl)  : View Profit and Loss of Positions");
+        System.out.println("(risk) : View and Set Risk Limits of the Account");
+        System.out.println("(margin): View and Set Interest, Borrow Fees and Maintenance Margin");
+        System.out.println("(corp) : View and Schedule Dividends and Splits of an ETF");
+        System.out.println("(trades): Find or export recorded trades");
+        System.out.println("(stats): Show latency and throughput metrics");
+        System.out.println("(sim)  : Simulate many accounts trading this market");
+        System.out.println("(stress): Stress test the account or a save file against market scenarios");
         System.out.println("(exit) : Exit");
     }
 
@@ -275,13 +843,16 @@ public class TradingSimulatorCLI {
     private void initialize() {
         System.out.println("Welcome to ETF Trading Simulator");
         System.out.println("You can simulate buying and selling an ETF without real life consequences.\n");
+        StartupTimer.firstFrame();
         while (account == null) {
             System.out.println("Please select to create a new account or load a previous save:");
             System.out.println("(load) : Load from a previous save file");
+            System.out.println("(open) : Open an account from the account catalog");
             System.out.println("(new)  : Create a new account");
             System.out.println("(exit) : Exit");
             String action = scanner.nextLine();
-            if (!(action.contains("new") || action.contains("load") || action.contains("exit"))) {
+            if (!(action.contains("new") || action.contains("load") || action.contains("open")
+                    || action.contains("exit"))) {
                 action = "";
             }
             processActions(action);
@@ -309,6 +880,7 @@ public class TradingSimulatorCLI {
         }
         Security security = new Security("SP500", 400, 0.07, .20);
         account = new Account(name, initialBalance, security);
+        startMarginEngine();
         System.out.println("Your account has been successfully created.");
         System.out.printf("You are only authorized to trade %s.\n", security.getTicker());
     }
@@ -3,19 +3,22 @@ package ui;
 import model.Account;
 import model.Event;
 import model.EventLog;
+import model.MarginEngine;
+import model.MarketClock;
 import model.Security;
-import model.exception.InsufficientBalanceException;
-import model.exception.InsufficientFundsException;
+import model.TradeResult;
+import persistence.AutoSaver;
 import persistence.JsonReader;
-import persistence.JsonWriter;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
 import java.awt.event.*;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.util.List;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -25,17 +28,26 @@ import java.util.concurrent.TimeUnit;
  */
 public class TradingSimulatorGUI {
     private GuiState state;  // GuiState stores the important state parameters.
-    private Account account; // Stores all account related information.
+    private volatile Account account; // Stores all account related information.
+    private final RefreshPipeline refresh = new RefreshPipeline(this::applyView); // Coalesces view refreshes
+    private final TradeResult tradeResult = new TradeResult(); // Outcome of the last order placed
+    private volatile MarginEngine marginEngine; // Settles interest, fees and margin calls of account every day
+    private boolean servicesStarted = false; // True once saving and the scheduled updater are started
 
     private static final String JSON_STORE = "./data/user.json"; // Directory of user save file
-    private JsonWriter jsonWriter;                               // jsonWriter object used for saving
+    private static final int AUTOSAVE_INTERVAL = 60;             // Seconds between automatic saves
+    private static final long MIN_UPDATE_MILLIS = 16;            // Shortest time between scheduled updates
+    private AutoSaver autoSaver;                                  // autoSaver object used for saving
     private JsonReader jsonReader;                               // jsonWriter object used for loading
 
     private static final int WIDTH = 800;  // Represents frame width
     private static final int HEIGHT = 600; // Represents frame height
+    private static final int MARKET_CELL_HEIGHT = 18;  // Fixed height of market list cells
+    private static final int MARKET_CELL_WIDTH = 130;  // Fixed width of market list cells
     JFrame frame;                          // Main frame for the application
 
     private JList<Security> market;                // JList for all the tickers in the market
+    private JTextField searchField;                // JTextField filtering market by ticker prefix
     private JCheckBox viewSecurityInChartCheckBox; // JCheckBox for optionally displaying ticker in chart
     private JRadioButton buyAtAskPriceRadioButton; // JRadioButton for buy order
     private JRadioButton sellAtBidPriceRadioButton;// JRadioButton for sell order
@@ -48,34 +60,44 @@ public class TradingSimulatorGUI {
     private JLabel cashLabel;                      // JLabel for displaying cash in account
     private JScrollPane accountScrollPane;         // JScrollPane for accountTable
     private JPanel chartPanel;                     // JPanel for displaying the chart
+    private GraphDrawer chart;                     // Chart drawn in chartPanel
+    private final AbstractAction saveAction = new SaveAccountAction();         // Disabled until account shown
+    private final AbstractAction createSecurityAction = new CreateSecurityAction(); // Disabled until account shown
 
     /*
+     * REQUIRES: called on the EDT
      * EFFECTS: Initializes all fields of the instance:
-     *            Creates jsonReader and jsonWriter.
-     *            Initializes the simulator by loading last save.
-     *            Initializes GUI with relevant references and settings.
-     *            Creates a scheduled updater for updating chart and prices.
+     *            Creates jsonReader and autoSaver.
+     *            Initializes GUI with relevant references and settings and shows the frame,
+     *            with trading and saving disabled until an account is shown.
+     *            Starts loading the last save in the background.
+     *          Saving every AUTOSAVE_INTERVAL seconds and the scheduled updater for updating
+     *          chart and prices start once the first account is shown.
      */
     public TradingSimulatorGUI() {
         // createUIComponents() is called here.
         initializeJson();
-        initializeSimulator();
         initializeGUI();
-        scheduleUpdate(); // disable while debugging
+        initializeSimulator();
     }
 
     /*
-     * REQUIRES: account, quoteLabel, chart not null
      * MODIFIES: this
-     * EFFECTS: Creates a scheduled updater for updating chart and prices.
+     * EFFECTS: Creates a scheduled updater settling the financing of the trading days passed and
+     *          requesting a refresh of chart, prices and account every time UPDATE_INTERVAL passes
+     *          on the market clock, but no more often than once a frame.
      */
     private void scheduleUpdate() {
         Runnable update = () -> {
-            updateQuote();
-            updateChart();
+            MarginEngine engine = marginEngine;
+            if (engine != null) {
+                engine.settle();
+            }
+            refresh.request(RefreshPipeline.QUOTE | RefreshPipeline.CHART | RefreshPipeline.ACCOUNT);
         };
         ScheduledExecutorService executor = Executors.newScheduledThreadPool(1);
-        executor.scheduleAtFixedRate(update, 0, Security.UPDATE_INTERVAL, TimeUnit.SECONDS);
+        long period = MarketClock.getDefault().realTimeOf(Duration.ofSeconds(Security.UPDATE_INTERVAL)).toMillis();
+        executor.scheduleAtFixedRate(update, 0, Math.max(period, MIN_UPDATE_MILLIS), TimeUnit.MILLISECONDS);
     }
 
     /*
@@ -99,8 +121,11 @@ public class TradingSimulatorGUI {
         buyAtAskPriceRadioButton.addActionListener(this::buyRadioHandler);
         sellAtBidPriceRadioButton.addActionListener(this::sellRadioHandler);
         viewSecurityInChartCheckBox.addActionListener(this::viewCheckHandler);
+        searchField.getDocument().addDocumentListener(new SearchListener());
+        setAccountActionsEnabled(false);
         frame.setResizable(false);
         frame.setVisible(true);
+        StartupTimer.firstFrame();
     }
 
     private static class MainFrame extends JFrame implements WindowListener {
@@ -151,23 +176,36 @@ public class TradingSimulatorGUI {
     /*
      * REQUIRES: ./data/user.json to exist and be valid
      * MODIFIES: this
-     * EFFECTS: Initialize simulator using existing save file
+     * EFFECTS: Starts initializing simulator using existing save file in the background
      */
     private void initializeSimulator() {
         if (account == null) {
-            loadHandler();
+            loadAccount(false);
         }
     }
 
     /*
      * MODIFIES: this
-     * EFFECTS: Initializes jsonWriter, jsonReader using value in JSON_STORE
+     * EFFECTS: Initializes autoSaver, jsonReader using value in JSON_STORE.
      */
     private void initializeJson() {
-        jsonWriter = new JsonWriter(JSON_STORE);
+        autoSaver = new AutoSaver(JSON_STORE, () -> account);
         jsonReader = new JsonReader(JSON_STORE);
     }
 
+    /*
+     * MODIFIES: this
+     * EFFECTS: Starts saving the account in the background every AUTOSAVE_INTERVAL seconds and
+     *          the scheduled updater, unless they are already started.
+     */
+    private void startServices() {
+        if (!servicesStarted) {
+            servicesStarted = true;
+            autoSaver.start(AUTOSAVE_INTERVAL);
+            scheduleUpdate(); // disable while debugging
+        }
+    }
+
     /*
      * REQUIRES: frame not null
      * MODIFIES: this
@@ -191,7 +229,7 @@ public class TradingSimulatorGUI {
         fileMenu.setMnemonic('F');
         addMenuItem(fileMenu, new NewAccountAction(),
                 KeyStroke.getKeyStroke("control N"));
-        addMenuItem(fileMenu, new SaveAccountAction(),
+        addMenuItem(fileMenu, saveAction,
                 KeyStroke.getKeyStroke("control S"));
         addMenuItem(fileMenu, new LoadAccountAction(),
                 KeyStroke.getKeyStroke("control O"));
@@ -199,13 +237,25 @@ public class TradingSimulatorGUI {
 
         JMenu simulationMenu = new JMenu("Simulation");
         simulationMenu.setMnemonic('S');
-        addMenuItem(simulationMenu, new CreateSecurityAction(),
+        addMenuItem(simulationMenu, createSecurityAction,
                 KeyStroke.getKeyStroke("control X"));
         menuBar.add(simulationMenu);
 
         frame.setJMenuBar(menuBar);
     }
 
+    /*
+     * REQUIRES: executeButton not null
+     * MODIFIES: this
+     * EFFECTS: Enables trading, saving and creating securities if enabled, disables them
+     *          otherwise, since they all act on the account shown.
+     */
+    private void setAccountActionsEnabled(boolean enabled) {
+        executeButton.setEnabled(enabled);
+        saveAction.setEnabled(enabled);
+        createSecurityAction.setEnabled(enabled);
+    }
+
     /*
      * REQUIRES: theMenu, action, accelerator not null
      * MODIFIES: theMenu
@@ -227,6 +277,8 @@ public class TradingSimulatorGUI {
         state = new GuiState();
         market = new JList<>(state.getListSecurities());
         market.setCellRenderer(new MarketListCellRenderer());
+        market.setFixedCellHeight(MARKET_CELL_HEIGHT);
+        market.setFixedCellWidth(MARKET_CELL_WIDTH);
         MouseListener mouseListener = new MouseAdapter() {
             public void mouseClicked(MouseEvent evt) {
                 marketClickHandler();
@@ -240,7 +292,39 @@ public class TradingSimulatorGUI {
         accountTable.setPreferredScrollableViewportSize(accountTable.getPreferredSize());
         accountTable.setFillsViewportHeight(true);
 
-        chartPanel = new GraphDrawer(new Dimension(600, 400), state);
+        chart = new GraphDrawer(new Dimension(600, 400), state);
+        chart.setViewListener(() -> refresh.request(RefreshPipeline.CHART));
+        refresh.setChart(chart);
+        chartPanel = chart;
+    }
+
+    /*
+     * Represents a listener filtering the market list when the search field changes.
+     */
+    private class SearchListener implements DocumentListener {
+        /*
+         * EFFECTS: Calls searchHandler() upon text inserted.
+         */
+        @Override
+        public void insertUpdate(DocumentEvent e) {
+            searchHandler();
+        }
+
+        /*
+         * EFFECTS: Calls searchHandler() upon text removed.
+         */
+        @Override
+        public void removeUpdate(DocumentEvent e) {
+            searchHandler();
+        }
+
+        /*
+         * EFFECTS: Calls searchHandler() upon attributes changed.
+         */
+        @Override
+        public void changedUpdate(DocumentEvent e) {
+            searchHandler();
+        }
     }
 
     /*
@@ -324,20 +408,17 @@ public class TradingSimulatorGUI {
     }
 
     /*
-     * REQUIRES: account, frame, jsonWriter not null
+     * REQUIRES: account, frame, autoSaver not null
      * MODIFIES: this
-     * EFFECTS: Called upon save action from menu. Saves the account to JSON_STORE.
-     *          Creates a message dialog about save status.
+     * EFFECTS: Called upon save action from menu. Saves a snapshot of the account to JSON_STORE
+     *          in the background. Creates a message dialog about save status once it completes.
      */
     private void saveHandler() {
-        try {
-            jsonWriter.open();
-            jsonWriter.write(account);
-            jsonWriter.close();
-            JOptionPane.showMessageDialog(frame, "Saved " + account.getName() + " to " + JSON_STORE);
-        } catch (FileNotFoundException e) {
-            JOptionPane.showMessageDialog(frame, "Unable to write to file: " + JSON_STORE);
-        }
+        String name = account.getName();
+        autoSaver.saveNow().whenComplete((ignored, e) -> SwingUtilities.invokeLater(() ->
+                JOptionPane.showMessageDialog(frame, (e == null)
+                        ? "Saved " + name + " to " + JSON_STORE
+                        : "Unable to write to file: " + JSON_STORE)));
     }
 
     /*
@@ -366,34 +447,86 @@ public class TradingSimulatorGUI {
         state.reset();
         Security security = new Security("SP500", 400, 0.07, .20);
         account = new Account(name, initialAmount, security);
+        startMarginEngine();
+        refresh.setAccount(account);
+        state.getTableModel().setAccount(account);
         updateAll();
+        setAccountActionsEnabled(true);
+        startServices();
     }
 
-    private boolean initialLoad = true; // A boolean that allows no status display for the first load of the app
-                                        // Used by loadHandler.
+    /*
+     * MODIFIES: this
+     * EFFECTS: Starts settling the financing of the current account every trading day, closing
+     *          the engine of the previous account.
+     */
+    private void startMarginEngine() {
+        MarginEngine engine = new MarginEngine(account.getSecurities().get(0), 1);
+        engine.addAccount(account);
+        MarginEngine previous = marginEngine;
+        marginEngine = engine;
+        if (previous != null) {
+            previous.close();
+        }
+    }
 
     /*
-     * REQUIRES: ./data/user.json to exist and be valid
-     *           chartPanel, nameLabel, account, cashLabel, state, quoteLabel, frame,
-     *           viewSecurityInChartCheckBox, buyAtAskPriceRadioButton, sellAtBidPriceRadioButton,
-     *           not null
+     * REQUIRES: ./data/user.json to exist and be valid, frame not null
      * MODIFIES: this
-     * EFFECTS: Resets gui state, replaces account with new account from jsonReader,
-     *          updates all visual components, displays a notification for user if it not the first successful load.
-     *          Displays error if the load is not successful even if it is not the first load.
+     * EFFECTS: Called upon load action from menu. Loads the account from jsonReader in the
+     *          background and displays a notification for user once it is shown.
      */
     private void loadHandler() {
-        try {
-            state.reset();
-            account = jsonReader.read();
-            updateAll();
-            if (initialLoad) {
-                initialLoad = false;
+        loadAccount(true);
+    }
+
+    /*
+     * REQUIRES: ./data/user.json to exist and be valid
+     * MODIFIES: this, MarketClock
+     * EFFECTS: Reads the account from jsonReader on a background thread so that the frame stays
+     *          responsive and resumes the market from the time it was saved at, then shows it
+     *          on the event dispatch thread with showAccount(...).
+     *          Displays error if the load is not successful even if it is the first load.
+     */
+    private void loadAccount(boolean notify) {
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                Account loaded = jsonReader.read();
+                MarketClock.setDefault(jsonReader.getClock());
+                return loaded;
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }).whenComplete((loaded, e) -> SwingUtilities.invokeLater(() -> {
+            if (e == null) {
+                showAccount(loaded, notify);
             } else {
-                JOptionPane.showMessageDialog(frame, "Loaded " + account.getName() + " from " + JSON_STORE);
+                JOptionPane.showMessageDialog(frame, "Unable to read from file: " + JSON_STORE);
             }
-        } catch (IOException e) {
-            JOptionPane.showMessageDialog(frame, "Unable to read from file: " + JSON_STORE);
+        }));
+    }
+
+    /*
+     * REQUIRES: loaded not null, called on the EDT,
+     *           chartPanel, nameLabel, cashLabel, state, quoteLabel, frame,
+     *           viewSecurityInChartCheckBox, buyAtAskPriceRadioButton, sellAtBidPriceRadioButton,
+     *           not null
+     * MODIFIES: this
+     * EFFECTS: Resets gui state, replaces account with loaded, updates all visual components
+     *          and starts the background services if they are not started yet.
+     *          Displays a notification for user if notify.
+     */
+    private void showAccount(Account loaded, boolean notify) {
+        state.reset();
+        account = loaded;
+        startMarginEngine();
+        refresh.setAccount(account);
+        state.getTableModel().setAccount(account);
+        updateAll();
+        setAccountActionsEnabled(true);
+        startServices();
+        if (notify) {
+            JOptionPane.showMessageDialog(frame, "Loaded " + account.getName() + " from " + JSON_STORE);
         }
     }
 
@@ -426,13 +559,28 @@ public class TradingSimulatorGUI {
     /*
      * REQUIRES: account, ticker, market, state not null.
      * MODIFIES: this
-     * EFFECTS: Create a security and add to account.
+     * EFFECTS: Create a security and add to account. If it was added, notifies
+     *          market list and account table of the new row.
      */
     public void createSecurity(String ticker, double price, double annualReturn, double std) {
         Security security = new Security(ticker, price, annualReturn, std);
         account.addFund(security);
-        updateMarket();
-        updateAccountTable();
+        if (account.findFund(ticker) == security) {
+            state.getListSecurities().securityAdded(security);
+            state.getTableModel().securityAdded();
+        }
+    }
+
+    /*
+     * REQUIRES: searchField, market, state not null.
+     * MODIFIES: this
+     * EFFECTS: Filters market list to tickers starting with the text in searchField,
+     *          keeping the selected security selected if it is still listed.
+     */
+    private void searchHandler() {
+        Security selected = market.getSelectedValue();
+        state.getListSecurities().setFilter(searchField.getText().trim());
+        reselect(selected);
     }
 
     /*
@@ -442,30 +590,19 @@ public class TradingSimulatorGUI {
      * EFFECTS: Checks the state to decide execute buy order or sell order.
      *          Uses the value in quantityField or order amount.
      *          Shows a dialog whether the order was successful.
-     *          Updates account table and account cash displayed.
+     *          Updates the account table row and requests a refresh of account cash displayed.
      */
     private void executeTradeHandler(ActionEvent evt) {
+        Security selected = market.getSelectedValue();
         if (state.getBuySellState() == 0) { // time to buy
-            try {
-                account.buyFundAtAskPrice(
-                        Integer.parseInt(quantityField.getText()),
-                        market.getSelectedValue());
-                JOptionPane.showMessageDialog(frame, "Order successfully executed.");
-            } catch (InsufficientBalanceException e) {
-                JOptionPane.showMessageDialog(frame, "You do not have enough cash.");
-            }
+            account.buy(Integer.parseInt(quantityField.getText()), selected, tradeResult);
+            JOptionPane.showMessageDialog(frame, tradeResult.getMessage());
         } else if (state.getBuySellState() == 1) { // time to sell
-            try {
-                account.sellFundAtBidPrice(
-                        Integer.parseInt(quantityField.getText()),
-                        market.getSelectedValue());
-                JOptionPane.showMessageDialog(frame, "Order successfully executed.");
-            } catch (InsufficientFundsException e) {
-                JOptionPane.showMessageDialog(frame, "You do not have enough of this position to sell.");
-            }
+            account.sell(Integer.parseInt(quantityField.getText()), selected, tradeResult);
+            JOptionPane.showMessageDialog(frame, tradeResult.getMessage());
         }
-        updateAccountTable();
-        updateAccountNameCash();
+        state.getTableModel().positionChanged(selected);
+        refresh.request(RefreshPipeline.ACCOUNT);
     }
 
     /*
@@ -489,31 +626,47 @@ public class TradingSimulatorGUI {
     }
 
     /*
-     * REQUIRES: market, viewSecurityInChartCheckBox, quoteLabel not null
+     * REQUIRES: market, viewSecurityInChartCheckBox not null
      * MODIFIES: this
-     * EFFECTS: Updates the quote and checkbox for the selected security.
+     * EFFECTS: Updates the checkbox and requests a quote refresh for the selected security.
      */
     private void marketClickHandler() {
+        refresh.setSelected(market.getSelectedValue());
         updateCheckBox();
-        updateQuote();
+        refresh.request(RefreshPipeline.QUOTE);
     }
 
     /*
      * REQUIRES: market, state, account not null
      * MODIFIES: this
-     * EFFECTS: Updates the market list with the listed securities in state.
-     *          First save selected from market, then remove all from market,
-     *          add everything back from states listed securities, set the selected to saved security.
+     * EFFECTS: Points the market list at the securities of account and
+     *          keeps the selected security selected if it is still listed.
      */
     private void updateMarket() {
-        DefaultListModel<Security> listSecurities = state.getListSecurities();
         Security selected = market.getSelectedValue();
-        listSecurities.clear();
-        state.getListSecurities().addAll(account.getSecurities());
-        if (selected != null) {
-            market.setSelectedValue(selected, true);
-        } else {
+        state.getListSecurities().setAccount(account);
+        reselect(selected);
+    }
+
+    /*
+     * REQUIRES: market, state not null
+     * MODIFIES: this
+     * EFFECTS: Selects selected in market if it is listed, otherwise the first security listed.
+     *          If the selection changed, requests a refresh of quote and controls.
+     */
+    private void reselect(Security selected) {
+        int index = (selected == null) ? -1 : state.getListSecurities().indexOf(selected);
+        if (index >= 0) {
+            market.setSelectedIndex(index);
+            market.ensureIndexIsVisible(index);
+        } else if (state.getListSecurities().getSize() > 0) {
             market.setSelectedIndex(0);
+        } else {
+            market.clearSelection();
+        }
+        if (market.getSelectedValue() != selected) {
+            refresh.setSelected(market.getSelectedValue());
+            refresh.request(RefreshPipeline.QUOTE | RefreshPipeline.CONTROLS);
         }
     }
 
@@ -538,51 +691,40 @@ public class TradingSimulatorGUI {
     }
 
     /*
-     * REQUIRES: market, quoteLabel not null
-     * MODIFIES: this
-     * EFFECTS: Reads the selected ticker from market and updates the quote accordingly.
-     */
-    private void updateQuote() {
-        Security selected = market.getSelectedValue();
-        String bidPrice = String.format("%.2f", selected.getBidPrice());
-        String askPrice = String.format("%.2f", selected.getAskPrice());
-        String quote = "Current bid price: $" + bidPrice + " , ask price: $" + askPrice;
-        quoteLabel.setText(quote);
-    }
-
-    /*
-     * REQUIRES: state, account not null
+     * REQUIRES: model not null, called on the EDT
      * MODIFIES: this
-     * EFFECTS: Update account table with positions in the account.
+     * EFFECTS: Applies the view model computed by the refresh pipeline to the
+     *          visual components it refreshes.
      */
-    private void updateAccountTable() {
-        DefaultTableModel tableModel = state.getTableModel();
-        List<Security> securities = account.getSecurities();
-        tableModel.getDataVector().removeAllElements();
-        for (Security s : securities) {
-            tableModel.addRow(new Object[]{s.getTicker(), s.getSecurityPosition()});
+    private void applyView(RefreshPipeline.ViewModel model) {
+        if (model.has(RefreshPipeline.MARKET)) {
+            updateMarket();
+        }
+        if (model.has(RefreshPipeline.CONTROLS)) {
+            updateCheckBox();
+            updateRadio();
+        }
+        if (model.quote != null) {
+            quoteLabel.setText(model.quote);
+            StartupTimer.firstQuote();
+        }
+        if (model.has(RefreshPipeline.ACCOUNT)) {
+            nameLabel.setText(model.name);
+            cashLabel.setText(model.cash);
+            state.getTableModel().valuesChanged();
+        }
+        if (model.chart != null) {
+            chart.show(model.chart);
         }
     }
 
     /*
-     * REQUIRES: nameLabel, account, cashLabel not null
-     * MODIFIES: this
-     * EFFECTS: Sets nameLabel with name in account.
-     *          Sets cashLabel with balance in account.
-     */
-    private void updateAccountNameCash() {
-        String balance = String.format("%.2f", account.getBalance());
-        nameLabel.setText("Account Holder: " + account.getName());
-        cashLabel.setText("Buying Power: $" + balance);
-    }
-
-    /*
-     * REQUIRES: chartPanel not null
+     * REQUIRES: chart not null
      * MODIFIES: this
-     * EFFECTS: repaints chartPanel
+     * EFFECTS: Requests a new chart of the securities viewable in state.
      */
     private void updateChart() {
-        chartPanel.repaint();
+        chart.viewChanged();
     }
 
     /*
@@ -590,15 +732,10 @@ public class TradingSimulatorGUI {
      *           viewSecurityInChartCheckBox, buyAtAskPriceRadioButton, sellAtBidPriceRadioButton,
      *           not null
      * MODIFIES: this
-     * EFFECTS: Updates all visual components of importance.
+     * EFFECTS: Requests a refresh of all visual components of importance.
      */
     private void updateAll() {
-        updateCheckBox();
-        updateRadio();
-        updateMarket();
-        updateQuote();
-        updateAccountNameCash();
-        updateAccountTable();
         updateChart();
+        refresh.request(RefreshPipeline.ALL);
     }
 }
@@ -7,7 +7,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.time.Instant;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static model.Security.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -132,4 +134,90 @@ public class AccountTest {
         assertEquals(securityC, foundC);
         assertNull(foundD);
     }
+
+    @Test
+    void testIndexOf() {
+        Security securityB = new SecurityMock("B500", 200, 0.5, 0, now);
+        testAccount.addFund(securityB);
+        testAccount.addFund(new SecurityMock("B500", 300, 0.5, 0, now));
+
+        assertEquals(0, testAccount.indexOf(firstSecurity));
+        assertEquals(1, testAccount.indexOf(securityB));
+        assertEquals(-1, testAccount.indexOf(new SecurityMock("B500", 200, 0.5, 0, now)));
+        assertEquals(2, testAccount.getSecurities().size());
+    }
+
+    @Test
+    void testExecuteBasket() {
+        Security securityB = new SecurityMock("B500", 200, 0.5, 0, now);
+        testAccount.addFund(securityB);
+        try {
+            testAccount.executeBasket(List.of(Order.buy(3, firstSecurity), Order.buy(2, securityB)));
+            testAccount.executeBasket(List.of(Order.sell(1, firstSecurity), Order.buy(1, securityB)));
+        } catch (Exception ignored) {
+            fail();
+        }
+        assertEquals(2, firstSecurity.getPosition());
+        assertEquals(3, securityB.getPosition());
+        assertEquals(
+                1000 - 3 * (100 + ASK_SPREAD) - 3 * (200 + ASK_SPREAD) + (100 - BID_SPREAD),
+                testAccount.getBalance(),
+                EPSILON
+        );
+    }
+
+    @Test
+    void testExecuteBasketInsufficientBalance() {
+        Security securityB = new SecurityMock("B500", 200, 0.5, 0, now);
+        testAccount.addFund(securityB);
+        assertThrows(InsufficientBalanceException.class, () ->
+                testAccount.executeBasket(List.of(Order.buy(5, firstSecurity), Order.buy(3, securityB))));
+        assertEquals(1000, testAccount.getBalance(), EPSILON);
+        assertEquals(0, firstSecurity.getPosition());
+        assertEquals(0, securityB.getPosition());
+    }
+
+    @Test
+    void testExecuteBasketInsufficientFunds() {
+        assertThrows(InsufficientFundsException.class, () ->
+                testAccount.executeBasket(List.of(Order.buy(2, firstSecurity), Order.sell(3, firstSecurity))));
+        assertEquals(1000, testAccount.getBalance(), EPSILON);
+        assertEquals(0, firstSecurity.getPosition());
+    }
+
+    @Test
+    void testRebalanceToWeights() {
+        Security securityB = new SecurityMock("B500", 200, 0.5, 0, now);
+        testAccount.addFund(securityB);
+        Map<Security, Double> weights = new HashMap<>();
+        weights.put(firstSecurity, 0.5);
+        weights.put(securityB, 0.4);
+        try {
+            List<Order> orders = testAccount.rebalanceToWeights(weights);
+            assertEquals(2, orders.size());
+            assertEquals(4, firstSecurity.getPosition());
+            assertEquals(1, securityB.getPosition());
+
+            weights.remove(securityB);
+            orders = testAccount.rebalanceToWeights(weights);
+            assertEquals(Order.Side.SELL, orders.get(orders.size() - 1).getSide());
+            assertEquals(0, securityB.getPosition());
+        } catch (Exception ignored) {
+            fail();
+        }
+        assertTrue(testAccount.getBalance() >= 0);
+    }
+
+    @Test
+    void testFindFundsByPrefix() {
+        Security securityB = new SecurityMock("B500", 200, 0.5, 0, now);
+        Security securityC = new SecurityMock("A600", 200, 0.5, 0, now);
+        testAccount.addFund(securityB);
+        testAccount.addFund(securityC);
+
+        assertEquals(List.of(firstSecurity, securityC), testAccount.findFundsByPrefix("A"));
+        assertEquals(List.of(securityC), testAccount.findFundsByPrefix("A6"));
+        assertEquals(List.of(firstSecurity, securityC, securityB), testAccount.findFundsByPrefix(""));
+        assertTrue(testAccount.findFundsByPrefix("C").isEmpty());
+    }
 }
@@ -0,0 +1,50 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class BarSeriesTest {
+    private static final double EPSILON = 0.0001;
+
+    BarSeries testBars;
+
+    @BeforeEach
+    void runBefore() {
+        testBars = new BarSeries(1000);
+    }
+
+    @Test
+    void testAddTick() {
+        testBars.addTick(1500, 10.0);
+        testBars.addTick(1700, 12.0);
+        testBars.addTick(1900, 9.0);
+        testBars.addTick(2100, 11.0);
+        testBars.addVolume(5);
+        assertEquals(2, testBars.size());
+        assertEquals(1000, testBars.start(0));
+        assertEquals(10.0, testBars.open(0), EPSILON);
+        assertEquals(12.0, testBars.high(0), EPSILON);
+        assertEquals(9.0, testBars.low(0), EPSILON);
+        assertEquals(9.0, testBars.close(0), EPSILON);
+        assertEquals(0, testBars.volume(0));
+        assertEquals(2000, testBars.start(1));
+        assertEquals(11.0, testBars.close(1), EPSILON);
+        assertEquals(5, testBars.volume(1));
+    }
+
+    @Test
+    void testRangeQuery() {
+        for (int i = 0; i < 100; i++) {
+            testBars.addTick(i * 2000L, i);
+        }
+        assertEquals(100, testBars.size());
+        assertEquals(0, testBars.indexAtOrAfter(-5));
+        assertEquals(10, testBars.indexAtOrAfter(20000));
+        assertEquals(11, testBars.indexAtOrAfter(20001));
+        assertEquals(10, testBars.firstIndexOverlapping(20999));
+        assertEquals(11, testBars.firstIndexOverlapping(21000));
+        assertEquals(100, testBars.indexAtOrAfter(500000));
+    }
+}
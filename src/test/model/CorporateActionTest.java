@@ -0,0 +1,143 @@
+package model;
+
+import model.mock.SecurityMock;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static model.Security.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CorporateActionTest {
+    private static final double EPSILON = 0.000001;
+
+    SecurityMock testSecurity;
+    Account testAccount;
+    double dailyReturn;
+
+    @BeforeEach
+    void runBefore() {
+        testSecurity = new SecurityMock("A500", 100, 0.5, 0, Instant.now());
+        testAccount = new Account("John Smith", 2000, testSecurity);
+        dailyReturn = Math.pow(1.5, 1.0 / TRADING_DAYS_PER_INTERVAL);
+    }
+
+    @Test
+    void testExPriceAndFactor() {
+        CorporateAction dividend = CorporateAction.dividend(1, 2);
+        assertEquals(98, dividend.exPrice(100), EPSILON);
+        assertEquals(0.98, dividend.adjustmentFactor(100), EPSILON);
+        CorporateAction split = CorporateAction.split(1, 4);
+        assertEquals(25, split.exPrice(100), EPSILON);
+        assertEquals(0.25, split.adjustmentFactor(100), EPSILON);
+
+        JSONObject json = split.toJson();
+        assertEquals("SPLIT", json.getString("type"));
+        assertEquals(1, json.getInt("day"));
+        assertEquals(4, json.getDouble("amount"));
+    }
+
+    @Test
+    void testDividend() {
+        assertEquals(RejectReason.NONE, testAccount.buy(10, testSecurity));
+        testSecurity.addCorporateAction(CorporateAction.dividend(1, 2));
+        assertEquals(1, testSecurity.getScheduledActions().size());
+
+        testSecurity.passOneIntervalTime();
+        testAccount.markToMarket();
+        assertEquals(0, testSecurity.getScheduledActions().size());
+        assertEquals(1, testSecurity.getCorporateActions().size());
+        assertEquals(98 * dailyReturn, testSecurity.getHistory().get(1), EPSILON);
+        assertEquals(2000 - 10 * (100 + ASK_SPREAD) + 20, testAccount.getBalance(), EPSILON);
+        assertEquals(20, testAccount.getValuation().getRealizedPnl(), EPSILON);
+        assertEquals(10, testSecurity.getPosition());
+
+        testAccount.markToMarket();
+        assertEquals(2000 - 10 * (100 + ASK_SPREAD) + 20, testAccount.getBalance(), EPSILON);
+    }
+
+    @Test
+    void testSplit() {
+        assertEquals(RejectReason.NONE, testAccount.buy(5, testSecurity));
+        testSecurity.addCorporateAction(CorporateAction.split(1, 2));
+        testSecurity.passOneIntervalTime();
+        testAccount.markToMarket();
+
+        assertEquals(10, testSecurity.getPosition());
+        assertEquals(5 * (100 + ASK_SPREAD), testSecurity.getCostBasis(), EPSILON);
+        assertEquals(50 * dailyReturn, testSecurity.getHistory().get(1), EPSILON);
+        assertEquals(10 * (50 * dailyReturn - BID_SPREAD), testAccount.getValuation().getMarketValue(), EPSILON);
+    }
+
+    @Test
+    void testSplitPaysFractionInCash() {
+        assertEquals(RejectReason.NONE, testAccount.buy(5, testSecurity));
+        double balance = testAccount.getBalance();
+        testSecurity.addCorporateAction(CorporateAction.split(1, 1.5));
+        testSecurity.passOneIntervalTime();
+        testAccount.markToMarket();
+
+        assertEquals(7, testSecurity.getPosition());
+        assertEquals(balance + 0.5 * testSecurity.lastBidPrice(), testAccount.getBalance(), EPSILON);
+        assertEquals(5 * (100 + ASK_SPREAD) * 7 / 7.5, testSecurity.getCostBasis(), EPSILON);
+    }
+
+    @Test
+    void testTradeAppliesPendingActions() {
+        assertEquals(RejectReason.NONE, testAccount.buy(5, testSecurity));
+        testSecurity.addCorporateAction(CorporateAction.split(1, 2));
+        testSecurity.passOneIntervalTime();
+        assertEquals(RejectReason.NONE, testAccount.buy(1, testSecurity));
+        assertEquals(11, testSecurity.getPosition());
+    }
+
+    @Test
+    void testAdjustedHistory() {
+        testSecurity.addCorporateAction(CorporateAction.dividend(1, 2));
+        testSecurity.addCorporateAction(CorporateAction.split(2, 2));
+        testSecurity.passManyIntervalTime(3);
+
+        List<Double> history = testSecurity.getHistory();
+        AdjustedHistory adjusted = testSecurity.getAdjustedHistory();
+        assertEquals(4, adjusted.size());
+        assertEquals(100, history.get(0), EPSILON);
+        assertEquals(100 * 0.98 * 0.5, adjusted.get(0), EPSILON);
+        assertEquals(history.get(1) * 0.5, adjusted.get(1), EPSILON);
+        assertEquals(history.get(2), adjusted.get(2), EPSILON);
+        assertEquals(history.get(3), adjusted.get(3), EPSILON);
+        assertEquals(adjusted.get(1) * dailyReturn, adjusted.get(2), EPSILON);
+        assertThrows(IndexOutOfBoundsException.class, () -> adjusted.get(4));
+    }
+
+    @Test
+    void testLoadedActionsAreNotAppliedAgain() {
+        List<Double> history = new ArrayList<>(List.of(100.0, 50.0));
+        Security loaded = new SecurityMock("B500", 0.5, 0, history, Instant.now(), 10);
+        loaded.addCorporateAction(CorporateAction.split(1, 2));
+        loaded.addCorporateAction(CorporateAction.dividend(5, 1));
+        assertEquals(1, loaded.getCorporateActions().size());
+        assertEquals(1, loaded.getScheduledActions().size());
+
+        testAccount.addFund(loaded);
+        testAccount.applyCorporateActions();
+        assertEquals(10, loaded.getPosition());
+        assertEquals(2, loaded.snapshot().toJson().getJSONArray("corporateActions").length());
+    }
+
+    @Test
+    void testSnapshotKeepsPendingActions() {
+        assertEquals(RejectReason.NONE, testAccount.buy(5, testSecurity));
+        testSecurity.addCorporateAction(CorporateAction.dividend(1, 2));
+        testSecurity.passOneIntervalTime();
+        testSecurity.updateHistory();
+        JSONObject json = testAccount.snapshot().toJson().getJSONArray("securities").getJSONObject(0);
+        assertEquals(0, json.getInt("actionsApplied"));
+
+        testAccount.applyCorporateActions();
+        assertEquals(1, testAccount.snapshot().getSecurities().get(0).getActionsApplied());
+    }
+}
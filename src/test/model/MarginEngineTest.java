@@ -0,0 +1,139 @@
+package model;
+
+import model.mock.SecurityMock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static model.Security.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MarginEngineTest {
+    private static final double EPSILON = 0.000001;
+
+    Instant now;
+    SecurityMock testSecurity;
+    Account testAccount;
+
+    @BeforeEach
+    void runBefore() {
+        now = Instant.now();
+        testSecurity = new SecurityMock("A500", 100, 0.5, 0, now);
+        testAccount = new Account("John Smith", 1000, testSecurity);
+        testAccount.setLogging(false);
+    }
+
+    @Test
+    void testCashInterest() {
+        testAccount.getMarginTerms().setCashRate(0.0252);
+        assertEquals(0, testAccount.accrueDays(2));
+        assertEquals(1000 * 1.0001 * 1.0001, testAccount.getBalance(), EPSILON);
+        assertEquals(testAccount.getBalance() - 1000, testAccount.getValuation().getRealizedPnl(), EPSILON);
+    }
+
+    @Test
+    void testDebitInterest() {
+        testAccount.getRiskLimits().setMaxLeverage(2);
+        testAccount.getMarginTerms().setDebitRate(0.252);
+        assertEquals(RejectReason.NONE, testAccount.buy(15, testSecurity));
+        double balance = 1000 - 15 * (100 + ASK_SPREAD);
+        assertTrue(balance < 0);
+        testAccount.accrueDays(1);
+        assertEquals(balance * 1.001, testAccount.getBalance(), EPSILON);
+    }
+
+    @Test
+    void testShortBorrowFee() {
+        testAccount.getRiskLimits().setMaxShortPosition(10);
+        testAccount.getMarginTerms().setBorrowRate(0.252);
+        assertEquals(RejectReason.NONE, testAccount.sell(5, testSecurity));
+        assertEquals(-5, testSecurity.getPosition());
+        double shortValue = 5 * (100 - BID_SPREAD);
+        assertEquals(shortValue, testAccount.getValuation().getShortValue(), EPSILON);
+        assertEquals(shortValue, testAccount.getValuation().getGrossExposure(), EPSILON);
+
+        testAccount.accrueDays(1);
+        assertEquals(1000 + shortValue - shortValue * 0.001, testAccount.getBalance(), EPSILON);
+
+        assertEquals(RejectReason.NONE, testAccount.buy(5, testSecurity));
+        assertEquals(0, testAccount.getValuation().getShortValue(), EPSILON);
+    }
+
+    @Test
+    void testMarginCallLiquidatesEverything() {
+        testAccount.getRiskLimits().setMaxLeverage(2);
+        assertEquals(RejectReason.NONE, testAccount.buy(19, testSecurity));
+        assertEquals(0, testAccount.accrueDays(1));
+
+        testAccount.getMarginTerms().setMaintenanceMargin(0.6);
+        assertEquals(1, testAccount.accrueDays(1));
+        assertEquals(0, testSecurity.getPosition());
+        assertEquals(1000 - 19 * (ASK_SPREAD + BID_SPREAD), testAccount.getBalance(), EPSILON);
+        assertEquals(0, testAccount.getValuation().getGrossExposure(), EPSILON);
+    }
+
+    @Test
+    void testMarginCallLiquidatesLargestFirst() {
+        Security securityB = new SecurityMock("B500", 200, 0.5, 0, now);
+        testAccount.addFund(securityB);
+        testAccount.getRiskLimits().setMaxLeverage(2);
+        assertEquals(RejectReason.NONE, testAccount.buy(5, securityB));
+        assertEquals(RejectReason.NONE, testAccount.buy(4, testSecurity));
+
+        testAccount.getMarginTerms().setMaintenanceMargin(0.8);
+        assertEquals(1, testAccount.accrueDays(0));
+        assertEquals(0, securityB.getPosition());
+        assertEquals(4, testSecurity.getPosition());
+    }
+
+    @Test
+    void testEngineSettlesClosedDays() {
+        testAccount.getMarginTerms().setCashRate(0.0252);
+        MarginEngine engine = new MarginEngine(testSecurity, 1);
+        engine.addAccount(testAccount);
+        assertEquals(0, engine.settle());
+        assertEquals(1000, testAccount.getBalance(), EPSILON);
+
+        testSecurity.passManyIntervalTime(3);
+        assertEquals(0, engine.settle());
+        assertEquals(0, engine.getPendingDays());
+        assertEquals(1000 * Math.pow(1.0001, 3), testAccount.getBalance(), EPSILON);
+    }
+
+    @Test
+    void testClosedEngineSettlesNothing() {
+        testAccount.getMarginTerms().setCashRate(0.0252);
+        MarginEngine engine = new MarginEngine(testSecurity, 1);
+        engine.addAccount(testAccount);
+        engine.close();
+        assertTrue(engine.getAccounts().isEmpty());
+
+        testSecurity.passManyIntervalTime(3);
+        assertEquals(0, engine.settle());
+        assertEquals(0, engine.getPendingDays());
+        assertEquals(1000, testAccount.getBalance(), EPSILON);
+    }
+
+    @Test
+    void testEngineSettlesManyAccountsInParallel() {
+        MarginEngine engine = new MarginEngine(testSecurity, 4);
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            List<Security> securities = new ArrayList<>();
+            securities.add(testSecurity);
+            Account account = new Account("Account " + i, 1000, securities);
+            account.setLogging(false);
+            account.getMarginTerms().setCashRate(0.0252);
+            engine.addAccount(account);
+            accounts.add(account);
+        }
+        testSecurity.passManyIntervalTime(2);
+        engine.settle();
+        for (Account account : accounts) {
+            assertEquals(1000 * 1.0001 * 1.0001, account.getBalance(), EPSILON);
+        }
+    }
+}
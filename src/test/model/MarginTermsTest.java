@@ -0,0 +1,52 @@
+package model;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MarginTermsTest {
+    private static final double EPSILON = 0.000001;
+
+    MarginTerms testTerms;
+
+    @BeforeEach
+    void runBefore() {
+        testTerms = new MarginTerms();
+    }
+
+    @Test
+    void testDefaults() {
+        assertEquals(0, testTerms.dailyFinancing(1000, 0), EPSILON);
+        assertEquals(0, testTerms.dailyFinancing(-1000, 500), EPSILON);
+        assertFalse(testTerms.isMarginCall(1000, 1000));
+        assertFalse(testTerms.isMarginCall(0, 0));
+        assertTrue(testTerms.isMarginCall(249, 1000));
+    }
+
+    @Test
+    void testDailyFinancing() {
+        testTerms.setCashRate(0.0252);
+        testTerms.setDebitRate(0.252);
+        testTerms.setBorrowRate(0.504);
+        assertEquals(0.1, testTerms.dailyFinancing(1000, 0), EPSILON);
+        assertEquals(-1, testTerms.dailyFinancing(-1000, 0), EPSILON);
+        assertEquals(0.1 - 1, testTerms.dailyFinancing(1000, 500), EPSILON);
+    }
+
+    @Test
+    void testSetTermsAndJson() {
+        testTerms.setCashRate(0.01);
+        testTerms.setDebitRate(0.05);
+        testTerms.setBorrowRate(0.03);
+        testTerms.setMaintenanceMargin(0.3);
+        MarginTerms copy = new MarginTerms();
+        copy.setTerms(testTerms);
+        JSONObject json = copy.toJson();
+        assertEquals(0.01, json.getDouble("cashRate"));
+        assertEquals(0.05, json.getDouble("debitRate"));
+        assertEquals(0.03, json.getDouble("borrowRate"));
+        assertEquals(0.3, json.getDouble("maintenanceMargin"));
+    }
+}
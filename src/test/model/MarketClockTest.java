@@ -0,0 +1,95 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MarketClockTest {
+
+    @Test
+    void testDiscreteClock() {
+        Instant start = Instant.parse("2023-10-17T04:33:00Z");
+        DiscreteClock clock = MarketClock.discrete(start);
+        assertEquals(start, clock.now());
+        clock.advance(Duration.ofSeconds(30));
+        assertEquals(start.plusSeconds(30), clock.now());
+        clock.advanceDays(2);
+        assertEquals(start.plusSeconds(30).plus(Security.dayLength().multipliedBy(2)), clock.now());
+        assertEquals(Duration.ZERO, clock.realTimeOf(Duration.ofDays(1)));
+    }
+
+    @Test
+    void testSecurityFollowsDiscreteClock() {
+        DiscreteClock clock = MarketClock.discrete(Instant.EPOCH);
+        Security security = new Security("A500", 100, 0.08, 0.2);
+        security.setClock(clock);
+        assertSame(clock, security.getClock());
+        assertEquals(Instant.EPOCH, security.getLastHistoryUpdate());
+
+        clock.advanceDays(252 * 30);
+        assertEquals(1 + 252 * 30, security.getHistory().size());
+        assertEquals(clock.now(), security.getLastHistoryUpdate());
+        assertEquals(1 + 252 * 30, security.getHistory().size());
+    }
+
+    @Test
+    void testAcceleratedClock() throws InterruptedException {
+        MarketClock clock = MarketClock.accelerated(1000);
+        Instant start = clock.now();
+        Thread.sleep(20);
+        assertTrue(Duration.between(start, clock.now()).compareTo(Duration.ofSeconds(20)) >= 0);
+        assertEquals(Duration.ofMillis(15), clock.realTimeOf(Duration.ofSeconds(15)));
+    }
+
+    @Test
+    void testRealTimeClock() {
+        MarketClock clock = MarketClock.realTime();
+        Instant before = Instant.now();
+        assertFalse(clock.now().isBefore(before));
+        assertEquals(Duration.ofSeconds(15), clock.realTimeOf(Duration.ofSeconds(15)));
+    }
+
+    @Test
+    void testDefaultClock() {
+        MarketClock previous = MarketClock.getDefault();
+        DiscreteClock clock = MarketClock.discrete(Instant.EPOCH);
+        try {
+            MarketClock.setDefault(clock);
+            assertSame(clock, new Security("A500", 100, 0.08, 0.2).getClock());
+        } finally {
+            MarketClock.setDefault(previous);
+        }
+    }
+
+    @Test
+    void testResumeFrom() {
+        DiscreteClock clock = MarketClock.discrete(Instant.EPOCH);
+        assertSame(clock, clock.resumeFrom(Instant.EPOCH.minusSeconds(60)));
+        MarketClock resumed = clock.resumeFrom(Instant.EPOCH.plusSeconds(3600));
+        assertEquals(Instant.EPOCH.plusSeconds(3600), resumed.now());
+        clock.advance(Duration.ofSeconds(30));
+        assertEquals(Instant.EPOCH.plusSeconds(3630), resumed.now());
+        assertEquals(Duration.ZERO, resumed.realTimeOf(Duration.ofDays(1)));
+    }
+
+    @Test
+    void testSecurityAheadOfClock() {
+        MarketClock previous = MarketClock.getDefault();
+        DiscreteClock clock = MarketClock.discrete(Instant.EPOCH);
+        try {
+            MarketClock.setDefault(clock);
+            Security security = new Security("A500", 0.08, 0.2, List.of(100.0, 101.0),
+                    Instant.EPOCH.plusSeconds(3600), 0);
+            assertEquals(2, security.getHistory().size());
+            assertEquals(Instant.EPOCH, security.getLastHistoryUpdate());
+            clock.advanceDays(2);
+            assertEquals(4, security.getHistory().size());
+        } finally {
+            MarketClock.setDefault(previous);
+        }
+    }
+}
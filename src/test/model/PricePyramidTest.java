@@ -0,0 +1,62 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PricePyramidTest {
+    private static final double EPSILON = 0.0001;
+
+    List<Double> history;
+    PricePyramid testPyramid;
+
+    @BeforeEach
+    void runBefore() {
+        history = new ArrayList<>(List.of(10.0, 12.0, 8.0, 11.0, 9.0, 20.0, 15.0));
+        testPyramid = new PricePyramid(history);
+    }
+
+    @Test
+    void testInitialAggregates() {
+        assertEquals(7, testPyramid.size(0));
+        assertEquals(2, testPyramid.size(1));
+        assertEquals(1, testPyramid.size(4));
+        assertEquals(10.0, testPyramid.open(1, 0), EPSILON);
+        assertEquals(12.0, testPyramid.high(1, 0), EPSILON);
+        assertEquals(8.0, testPyramid.low(1, 0), EPSILON);
+        assertEquals(9.0, testPyramid.close(1, 0), EPSILON);
+        assertEquals(20.0, testPyramid.high(1, 1), EPSILON);
+        assertEquals(15.0, testPyramid.close(1, 1), EPSILON);
+        assertEquals(20.0, testPyramid.high(2, 0), EPSILON);
+    }
+
+    @Test
+    void testAppend() {
+        for (int i = 0; i < 100; i++) {
+            double price = 5.0 + i;
+            history.add(price);
+            testPyramid.append(price);
+        }
+        assertEquals(107, testPyramid.size(0));
+        assertEquals(22, testPyramid.size(1));
+        assertEquals(6, testPyramid.size(2));
+        assertEquals(104.0, testPyramid.close(1, 21), EPSILON);
+        assertEquals(104.0, testPyramid.high(2, 5), EPSILON);
+        assertEquals(5.0, testPyramid.low(2, 0), EPSILON);
+        assertEquals(104.0, testPyramid.close(0, 106), EPSILON);
+    }
+
+    @Test
+    void testLevelFor() {
+        assertEquals(0, testPyramid.levelFor(0.5));
+        assertEquals(0, testPyramid.levelFor(4.9));
+        assertEquals(1, testPyramid.levelFor(5));
+        assertEquals(2, testPyramid.levelFor(30));
+        assertEquals(4, testPyramid.levelFor(1000));
+        assertEquals(252, testPyramid.bucketSize(4));
+    }
+}
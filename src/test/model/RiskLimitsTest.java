@@ -0,0 +1,115 @@
+package model;
+
+import model.exception.InsufficientBalanceException;
+import model.exception.InsufficientFundsException;
+import model.mock.SecurityMock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static model.Security.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RiskLimitsTest {
+    private static final double EPSILON = 0.000001;
+
+    RiskLimits testLimits;
+
+    @BeforeEach
+    void runBefore() {
+        testLimits = new RiskLimits();
+    }
+
+    @Test
+    void testDefaultCashAccount() {
+        assertEquals(RejectReason.NONE, testLimits.check(10, 100, 0, 1000, 1000, 0));
+        assertEquals(RejectReason.INSUFFICIENT_BALANCE, testLimits.check(11, 100, 0, 1000, 1000, 0));
+        assertEquals(RejectReason.NONE, testLimits.check(-5, 100, 5, 0, 500, 0));
+        assertEquals(RejectReason.INSUFFICIENT_POSITION, testLimits.check(-6, 100, 5, 0, 500, 0));
+    }
+
+    @Test
+    void testOrderNotionalAndPosition() {
+        testLimits.setMaxOrderNotional(500);
+        testLimits.setMaxPosition(8);
+        assertEquals(RejectReason.NONE, testLimits.check(5, 100, 0, 1000, 1000, 0));
+        assertEquals(RejectReason.ORDER_NOTIONAL, testLimits.check(6, 100, 0, 1000, 1000, 0));
+        assertEquals(RejectReason.POSITION_LIMIT, testLimits.check(4, 100, 5, 1000, 1500, 0));
+        assertEquals(RejectReason.NONE, testLimits.check(-4, 100, 5, 1000, 1500, 0));
+    }
+
+    @Test
+    void testConcentration() {
+        testLimits.setMaxConcentration(0.5);
+        assertEquals(RejectReason.NONE, testLimits.check(5, 100, 0, 1000, 1000, 0));
+        assertEquals(RejectReason.CONCENTRATION, testLimits.check(6, 100, 0, 1000, 1000, 0));
+        assertEquals(RejectReason.CONCENTRATION, testLimits.check(1, 100, 0, 1000, -10, 0));
+    }
+
+    @Test
+    void testReducingPositionAboveLimits() {
+        testLimits.setMaxPosition(8);
+        testLimits.setMaxConcentration(0.5);
+        testLimits.setMaxShortPosition(10);
+        assertEquals(RejectReason.NONE, testLimits.check(-1, 100, 10, 0, 1000, 0));
+        assertEquals(RejectReason.POSITION_LIMIT, testLimits.check(1, 100, 10, 1000, 2000, 0));
+        assertEquals(RejectReason.NONE, testLimits.check(-2, 100, 5, 0, -10, 0));
+        assertEquals(RejectReason.NONE, testLimits.check(-10, 100, 5, 0, -10, 0));
+        assertEquals(RejectReason.CONCENTRATION, testLimits.check(-11, 100, 5, 0, -10, 0));
+    }
+
+    @Test
+    void testRateLimit() {
+        testLimits.setMaxOrdersPerSecond(2);
+        assertEquals(RejectReason.NONE, testLimits.check(1, 100, 0, 1000, 1000, 0));
+        assertEquals(RejectReason.NONE, testLimits.check(1, 100, 0, 1000, 1000, 500_000_000L));
+        assertEquals(RejectReason.RATE_LIMIT, testLimits.check(1, 100, 0, 1000, 1000, 999_999_999L));
+        assertEquals(RejectReason.NONE, testLimits.check(1, 100, 0, 1000, 1000, 1_000_000_000L));
+    }
+
+    @Test
+    void testLeverageAndShorts() {
+        testLimits.setMaxLeverage(2);
+        testLimits.setMaxShortPosition(3);
+        assertEquals(RejectReason.NONE, testLimits.check(20, 100, 0, 1000, 1000, 0));
+        assertEquals(RejectReason.INSUFFICIENT_BALANCE, testLimits.check(21, 100, 0, 1000, 1000, 0));
+        assertEquals(RejectReason.NONE, testLimits.check(-3, 100, 0, 1000, 1000, 0));
+        assertEquals(RejectReason.INSUFFICIENT_POSITION, testLimits.check(-4, 100, 0, 1000, 1000, 0));
+    }
+
+    @Test
+    void testAccountLimits() throws InsufficientBalanceException, InsufficientFundsException {
+        Security security = new SecurityMock("A500", 100, 0.5, 0, Instant.now());
+        Account account = new Account("John Smith", 1000, security);
+        account.getRiskLimits().setMaxOrderNotional(300);
+
+        assertEquals(RejectReason.ORDER_NOTIONAL, account.buy(3, security));
+        assertEquals(0, security.getSecurityPosition());
+        assertEquals(1000, account.getBalance());
+        InsufficientBalanceException e = assertThrows(InsufficientBalanceException.class,
+                () -> account.buyFundAtAskPrice(5, security));
+        assertEquals(RejectReason.ORDER_NOTIONAL, e.getReason());
+        assertEquals(RejectReason.NONE, account.buy(2, security));
+        assertEquals(2, security.getSecurityPosition());
+        assertEquals(RejectReason.INSUFFICIENT_POSITION, account.sell(3, security));
+    }
+
+    @Test
+    void testAccountShortSale() {
+        Security security = new SecurityMock("A500", 100, 0.5, 0, Instant.now());
+        Account account = new Account("John Smith", 1000, security);
+        account.getRiskLimits().setMaxShortPosition(5);
+
+        assertEquals(RejectReason.NONE, account.sell(4, security));
+        assertEquals(-4, security.getSecurityPosition());
+        assertEquals(1000 + 4 * (100 - BID_SPREAD), account.getBalance(), EPSILON);
+        assertEquals(-4 * (100 - BID_SPREAD), security.getCostBasis(), EPSILON);
+        assertEquals(RejectReason.INSUFFICIENT_POSITION, account.sell(2, security));
+
+        assertEquals(RejectReason.NONE, account.buy(6, security));
+        assertEquals(2, security.getSecurityPosition());
+        assertEquals(2 * (100 + ASK_SPREAD), security.getCostBasis(), EPSILON);
+        assertEquals(-4 * (ASK_SPREAD + BID_SPREAD), account.getValuation().getRealizedPnl(), EPSILON);
+    }
+}
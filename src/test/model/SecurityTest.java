@@ -3,12 +3,14 @@ package model;
 import model.mock.SecurityMock;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import persistence.HistoryCodec;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.PrimitiveIterator;
 
 import static model.Security.*;
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 public class SecurityTest {
     private static final double EPSILON = 0.05;
@@ -46,4 +48,100 @@ public class SecurityTest {
         assertEquals(100.17, history.get(1), EPSILON);
         assertEquals(100.32, history.get(2), EPSILON);
     }
+
+    @Test
+    void testGetBars() {
+        testFund.passManyIntervalTime(2);
+        BarSeries bars = testFund.getBars();
+        assertEquals(3, bars.size());
+        assertEquals(100, bars.close(0), EPSILON);
+        assertEquals(100.32, bars.close(2), EPSILON);
+        assertEquals(UPDATE_INTERVAL * 1000L, bars.start(1) - bars.start(0));
+
+        testFund.addVolume(7);
+        testFund.passOneIntervalTime();
+        assertEquals(4, testFund.getBars().size());
+        assertEquals(7, bars.volume(2));
+        assertEquals(0, bars.volume(3));
+    }
+
+    @Test
+    void testTicksPerDay() {
+        assertNull(testFund.getTicks());
+        testFund.setTicksPerDay(1000);
+        testFund.passManyIntervalTime(3);
+        TickStore ticks = testFund.getTicks();
+        assertEquals(1000, ticks.size());
+        assertEquals(1000, ticks.getTotalTicks());
+
+        List<Double> history = testFund.getHistory();
+        assertEquals(4, history.size());
+        assertEquals(ticks.getPrice(999), history.get(3), 0.000001);
+        BarSeries bars = testFund.getBars();
+        assertEquals(history.get(2), bars.open(3), 0.000001);
+        assertEquals(history.get(3), bars.close(3), 0.000001);
+        assertTrue(bars.high(3) >= Math.max(bars.open(3), bars.close(3)));
+        assertTrue(bars.low(3) <= Math.min(bars.open(3), bars.close(3)));
+
+        testFund.setTicksPerDay(0);
+        assertNull(testFund.getTicks());
+    }
+
+    @Test
+    void testSnapshotOfLongHistory() {
+        int days = TieredHistory.SEGMENT_SIZE + TieredHistory.HOT_CAPACITY;
+        testFund.passManyIntervalTime(days);
+        List<Double> history = testFund.getHistory();
+        AccountSnapshot.SecuritySnapshot snapshot = testFund.snapshot();
+        assertEquals(days + 1, snapshot.getHistorySize());
+
+        testFund.passOneIntervalTime();
+        testFund.getHistory();
+        assertEquals(days + 2, history.size());
+        assertEquals(days + 1, snapshot.getHistorySize());
+        assertEquals(100, snapshot.getPrice(0), EPSILON);
+        assertEquals(history.get(TieredHistory.SEGMENT_SIZE), snapshot.getPrice(TieredHistory.SEGMENT_SIZE));
+        assertEquals(history.get(days), snapshot.getLastPrice());
+        List<Double> saved = HistoryCodec.fromBase64(snapshot.toJson().getString("history"));
+        assertEquals(history.subList(0, days + 1), saved);
+    }
+
+    @Test
+    void testLazyHistory() {
+        String encoded = HistoryCodec.toBase64(new double[] {98, 99, 100}, 3);
+        SecurityMock lazyFund = new SecurityMock("A", 0.5, 0, encoded, List.of(), 100, Instant.now(), 3);
+        assertFalse(lazyFund.isHistoryLoaded());
+        assertEquals(100 + ASK_SPREAD, lazyFund.getAskPrice());
+        assertEquals(300, lazyFund.getCostBasis(), EPSILON);
+
+        lazyFund.passManyIntervalTime(2);
+        assertEquals(100.32 - BID_SPREAD, lazyFund.getBidPrice(), EPSILON);
+        AccountSnapshot.SecuritySnapshot snapshot = lazyFund.snapshot();
+        assertFalse(lazyFund.isHistoryLoaded());
+        assertEquals(5, snapshot.getHistorySize());
+        assertEquals(100.32, snapshot.getLastPrice(), EPSILON);
+        assertEquals(encoded, snapshot.toJson().getString("history"));
+        assertEquals(2, HistoryCodec.fromBase64(snapshot.toJson().getString("historyTail")).size());
+        PrimitiveIterator.OfDouble tail = snapshot.pricesFrom(4);
+        assertEquals(100.32, tail.nextDouble(), EPSILON);
+        assertFalse(tail.hasNext());
+        PrimitiveIterator.OfDouble streamed = snapshot.pricesFrom(1);
+        assertEquals(99, streamed.nextDouble());
+        assertEquals(100, streamed.nextDouble());
+        assertEquals(100.17, streamed.nextDouble(), EPSILON);
+        assertEquals(100.32, streamed.nextDouble(), EPSILON);
+        assertFalse(streamed.hasNext());
+        assertEquals(99, snapshot.getPrice(1));
+        assertEquals(100.17, snapshot.getPrice(3), EPSILON);
+        assertEquals(100.17, snapshot.pricesFrom(3).nextDouble(), EPSILON);
+
+        List<Double> history = lazyFund.getHistory();
+        assertTrue(lazyFund.isHistoryLoaded());
+        assertEquals(5, history.size());
+        assertEquals(98, history.get(0));
+        assertEquals(100.32, history.get(4), EPSILON);
+        lazyFund.passOneIntervalTime();
+        assertEquals(6, lazyFund.getHistory().size());
+        assertEquals(6, lazyFund.getPyramid().size(0));
+    }
 }
@@ -0,0 +1,56 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TickGeneratorTest {
+    @Test
+    void testGenerateDay() {
+        TickGenerator generator = new TickGenerator(1000, 1.001, 0.01, 1);
+        TickStore ticks = new TickStore(1000);
+        double close = generator.generateDay(100, 5_000, 1_000_000, ticks);
+
+        assertEquals(1000, ticks.size());
+        assertEquals(5_000 + 1_000, ticks.getTime(0));
+        assertEquals(5_000 + 1_000_000, ticks.getTime(999));
+        assertEquals(close, ticks.getPrice(999));
+        double high = 100;
+        double low = 100;
+        for (int i = 0; i < ticks.size(); i++) {
+            high = Math.max(high, ticks.getPrice(i));
+            low = Math.min(low, ticks.getPrice(i));
+        }
+        assertEquals(high, generator.getHigh());
+        assertEquals(low, generator.getLow());
+    }
+
+    @Test
+    void testSameSeedSameTicks() {
+        TickGenerator first = new TickGenerator(100, 1.001, 0.01, 7);
+        TickGenerator second = new TickGenerator(100, 1.001, 0.01, 7);
+        TickStore ticks = new TickStore(100);
+        assertEquals(first.generateDay(100, 0, 100, ticks), second.generateDay(100, 0, 100, ticks));
+    }
+
+    @Test
+    void testNoVolatility() {
+        TickGenerator generator = new TickGenerator(10, 1.01, 0, 1);
+        double close = generator.generateDay(100, 0, 10, new TickStore(10));
+        assertEquals(100 * Math.pow(1 + 0.01 / 10, 10), close, 0.000001);
+    }
+
+    @Test
+    void testTickersGenerateIndependently() {
+        double[] sequential = IntStream.range(0, 8).mapToDouble(ticker ->
+                new TickGenerator(1000, 1.0003, 0.0126, ticker).generateDay(100, 0, 1000, new TickStore(1000)))
+                .toArray();
+        double[] parallel = IntStream.range(0, 8).parallel().mapToDouble(ticker ->
+                new TickGenerator(1000, 1.0003, 0.0126, ticker).generateDay(100, 0, 1000, new TickStore(1000)))
+                .toArray();
+        assertArrayEquals(sequential, parallel);
+        assertNotEquals(sequential[0], sequential[1]);
+    }
+}
@@ -0,0 +1,52 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TickStoreTest {
+    private static final double EPSILON = 0.0001;
+
+    TickStore testTicks;
+
+    @BeforeEach
+    void runBefore() {
+        testTicks = new TickStore(4);
+    }
+
+    @Test
+    void testAppend() {
+        testTicks.append(10, 1.0);
+        testTicks.append(20, 2.0);
+        assertEquals(2, testTicks.size());
+        assertEquals(2, testTicks.getTotalTicks());
+        assertEquals(10, testTicks.getTime(0));
+        assertEquals(2.0, testTicks.getPrice(1), EPSILON);
+    }
+
+    @Test
+    void testAppendBeyondCapacity() {
+        for (int i = 1; i <= 10; i++) {
+            testTicks.append(i * 10, i);
+        }
+        assertEquals(4, testTicks.size());
+        assertEquals(10, testTicks.getTotalTicks());
+        for (int i = 0; i < 4; i++) {
+            assertEquals((i + 7) * 10, testTicks.getTime(i));
+            assertEquals(i + 7, testTicks.getPrice(i), EPSILON);
+        }
+    }
+
+    @Test
+    void testIndexAtOrAfter() {
+        for (int i = 1; i <= 6; i++) {
+            testTicks.append(i * 10, i);
+        }
+        assertEquals(0, testTicks.indexAtOrAfter(0));
+        assertEquals(0, testTicks.indexAtOrAfter(30));
+        assertEquals(1, testTicks.indexAtOrAfter(31));
+        assertEquals(3, testTicks.indexAtOrAfter(60));
+        assertEquals(4, testTicks.indexAtOrAfter(61));
+    }
+}
@@ -0,0 +1,84 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static model.TieredHistory.HOT_CAPACITY;
+import static model.TieredHistory.SEGMENT_SIZE;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TieredHistoryTest {
+    TieredHistory testHistory;
+
+    @BeforeEach
+    void runBefore() {
+        testHistory = new TieredHistory(List.of(1.0, 2.0, 3.0));
+    }
+
+    @Test
+    void testAddGet() {
+        assertEquals(3, testHistory.size());
+        assertEquals(0, testHistory.coldSize());
+        testHistory.add(4.0);
+        testHistory.setLastDouble(5.0);
+        assertEquals(4, testHistory.size());
+        assertEquals(1.0, testHistory.get(0));
+        assertEquals(5.0, testHistory.get(3));
+        assertThrows(IndexOutOfBoundsException.class, () -> testHistory.get(4));
+    }
+
+    @Test
+    void testSealing() {
+        int total = 2 * SEGMENT_SIZE + HOT_CAPACITY + 100;
+        for (int i = 3; i < total; i++) {
+            testHistory.addDouble(i + 1);
+        }
+        assertEquals(total, testHistory.size());
+        assertEquals(2 * SEGMENT_SIZE, testHistory.coldSize());
+        for (int i = 0; i < total; i++) {
+            assertEquals(i + 1, testHistory.getDouble(i));
+        }
+        testHistory.setLastDouble(-1);
+        assertEquals(-1, testHistory.get(total - 1));
+    }
+
+    @Test
+    void testSegmentsShareOneFile() throws IOException {
+        assertNull(testHistory.segmentFile());
+        int total = 3 * SEGMENT_SIZE + HOT_CAPACITY;
+        for (int i = 3; i < total; i++) {
+            testHistory.addDouble(i + 1);
+        }
+        Path file = testHistory.segmentFile();
+        assertEquals(3 * SEGMENT_SIZE, testHistory.coldSize());
+        assertEquals(3L * SEGMENT_SIZE * Double.BYTES, Files.size(file));
+        assertEquals(SEGMENT_SIZE + 1, testHistory.getDouble(SEGMENT_SIZE));
+    }
+
+    @Test
+    void testCopySharesSegments() {
+        int total = SEGMENT_SIZE + HOT_CAPACITY + 10;
+        for (int i = 3; i < total; i++) {
+            testHistory.addDouble(i + 1);
+        }
+        TieredHistory copy = new TieredHistory(testHistory);
+        assertEquals(total, copy.size());
+        assertEquals(SEGMENT_SIZE, copy.coldSize());
+        assertNull(copy.segmentFile());
+        copy.setLastDouble(-1);
+        assertEquals(total, testHistory.getDouble(total - 1));
+        assertEquals(-1, copy.getDouble(total - 1));
+        for (int i = total; i < total + SEGMENT_SIZE; i++) {
+            copy.addDouble(i + 1);
+        }
+        assertEquals(2 * SEGMENT_SIZE, copy.coldSize());
+        assertNotEquals(testHistory.segmentFile(), copy.segmentFile());
+        assertEquals(1, copy.getDouble(0));
+        assertEquals(total + SEGMENT_SIZE, copy.getDouble(total + SEGMENT_SIZE - 1));
+    }
+}
@@ -0,0 +1,200 @@
+package model;
+
+import model.exception.InsufficientBalanceException;
+import model.exception.InsufficientFundsException;
+import model.mock.SecurityMock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TradeLogTest {
+    private static final String JOURNAL = "./data/testTradeLog.bin";
+
+    TradeLog testLog;
+
+    @BeforeEach
+    void runBefore() {
+        testLog = TradeLog.getInstance();
+        testLog.clear();
+    }
+
+    private TradeRecord trade(long time, String ticker) {
+        return new TradeRecord(time, "John Smith", ticker, Order.Side.BUY, 1, 100, TradeRecord.Status.FILLED);
+    }
+
+    @Test
+    void testQueryByTime() {
+        for (int i = 0; i < 100; i++) {
+            testLog.record(trade(i * 10, (i % 2 == 0) ? "A500" : "B500"));
+        }
+        assertEquals(100, testLog.size());
+        List<TradeRecord> trades = testLog.query(null, 100, 200);
+        assertEquals(10, trades.size());
+        assertEquals(100, trades.get(0).getTimeMillis());
+        assertEquals(190, trades.get(9).getTimeMillis());
+        assertEquals(100, testLog.query(null, Long.MIN_VALUE, Long.MAX_VALUE).size());
+        assertEquals(0, testLog.query(null, 2000, 3000).size());
+    }
+
+    @Test
+    void testQueryByTicker() {
+        for (int i = 0; i < 100; i++) {
+            testLog.record(trade(i * 10, (i % 2 == 0) ? "A500" : "B500"));
+        }
+        List<TradeRecord> trades = testLog.query("B500", 100, 200);
+        assertEquals(5, trades.size());
+        for (TradeRecord trade : trades) {
+            assertEquals("B500", trade.getTicker());
+        }
+        assertEquals(110, trades.get(0).getTimeMillis());
+        assertEquals(0, testLog.query("C500", Long.MIN_VALUE, Long.MAX_VALUE).size());
+    }
+
+    @Test
+    void testQueryOutOfOrder() {
+        testLog.record(trade(30, "A500"));
+        testLog.record(trade(10, "A500"));
+        testLog.record(trade(20, "B500"));
+        List<TradeRecord> trades = testLog.query(null, 10, 30);
+        assertEquals(2, trades.size());
+        assertEquals(10, trades.get(0).getTimeMillis());
+        assertEquals(20, trades.get(1).getTimeMillis());
+        trades = testLog.query("A500", 0, 100);
+        assertEquals(10, trades.get(0).getTimeMillis());
+        assertEquals(30, trades.get(1).getTimeMillis());
+    }
+
+    @Test
+    void testAccountTrades() throws InsufficientBalanceException {
+        Security security = new SecurityMock("A500", 100, 0.5, 0, Instant.now());
+        Account account = new Account("John Smith", 1000, security);
+        account.buyFundAtAskPrice(5, security);
+        assertThrows(InsufficientFundsException.class, () -> account.sellFundAtBidPrice(10, security));
+
+        List<TradeRecord> trades = testLog.query("A500", Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(2, trades.size());
+        assertEquals("John Smith", trades.get(0).getAccount());
+        assertEquals(Order.Side.BUY, trades.get(0).getSide());
+        assertEquals(5, trades.get(0).getQuantity());
+        assertEquals(100 + Security.ASK_SPREAD, trades.get(0).getPrice(), 0.0001);
+        assertEquals(TradeRecord.Status.FILLED, trades.get(0).getStatus());
+        assertEquals(Order.Side.SELL, trades.get(1).getSide());
+        assertEquals(TradeRecord.Status.REJECTED, trades.get(1).getStatus());
+
+        account.setLogging(false);
+        account.buyFundAtAskPrice(1, security);
+        assertEquals(2, testLog.size());
+    }
+
+    @Test
+    void testJournal() throws IOException {
+        new File(JOURNAL).delete();
+        try {
+            testLog.open(JOURNAL);
+            testLog.record(trade(10, "A500"));
+            testLog.record(trade(20, "B500"));
+            testLog.record(new TradeRecord(30, "Jane Doe", "A500", Order.Side.SELL, 2, 101.5,
+                    TradeRecord.Status.REJECTED));
+            testLog.close();
+
+            try (RandomAccessFile file = new RandomAccessFile(JOURNAL, "rw")) {
+                file.setLength(file.length() - 3);
+            }
+            testLog.clear();
+            testLog.open(JOURNAL);
+            assertEquals(2, testLog.size());
+            testLog.record(new TradeRecord(40, "Jane Doe", "A500", Order.Side.SELL, 2, 101.5,
+                    TradeRecord.Status.REJECTED));
+            testLog.close();
+
+            testLog.clear();
+            testLog.open(JOURNAL);
+            List<TradeRecord> trades = testLog.query("A500", Long.MIN_VALUE, Long.MAX_VALUE);
+            assertEquals(2, trades.size());
+            assertEquals("Jane Doe", trades.get(1).getAccount());
+            assertEquals(Order.Side.SELL, trades.get(1).getSide());
+            assertEquals(101.5, trades.get(1).getPrice());
+            assertEquals(TradeRecord.Status.REJECTED, trades.get(1).getStatus());
+            assertEquals(40, trades.get(1).getTimeMillis());
+        } finally {
+            testLog.close();
+            testLog.clear();
+            new File(JOURNAL).delete();
+        }
+    }
+
+    @Test
+    void testOpenAsync() throws IOException {
+        new File(JOURNAL).delete();
+        try {
+            testLog.open(JOURNAL);
+            for (int i = 0; i < 1000; i++) {
+                testLog.record(trade(i, "A500"));
+            }
+            testLog.close();
+
+            testLog.clear();
+            CompletableFuture<Void> opened = testLog.openAsync(JOURNAL);
+            testLog.record(trade(1000, "B500"));
+            opened.join();
+            assertEquals(1001, testLog.size());
+            assertEquals("B500", testLog.get(1000).getTicker());
+            testLog.close();
+
+            testLog.clear();
+            testLog.open(JOURNAL);
+            assertEquals(1001, testLog.size());
+            assertEquals(1000, testLog.get(1000).getTimeMillis());
+        } finally {
+            testLog.close();
+            testLog.clear();
+            new File(JOURNAL).delete();
+        }
+        assertThrows(CompletionException.class, () -> testLog.openAsync("./data/noSuchDirectory/trades.bin").join());
+    }
+
+    @Test
+    void testCorruptJournal() throws IOException {
+        new File(JOURNAL).delete();
+        try {
+            testLog.open(JOURNAL);
+            testLog.record(trade(10, "A500"));
+            testLog.record(trade(20, "B500"));
+            testLog.close();
+            long length = new File(JOURNAL).length();
+            try (RandomAccessFile file = new RandomAccessFile(JOURNAL, "rw")) {
+                file.seek(length);
+                file.write(new byte[] {'X', 1, 2, 3});
+            }
+
+            testLog.clear();
+            testLog.open(JOURNAL);
+            assertEquals(2, testLog.size());
+            assertEquals(length, new File(JOURNAL).length());
+            testLog.record(trade(30, "A500"));
+            testLog.close();
+            try (RandomAccessFile file = new RandomAccessFile(JOURNAL, "rw")) {
+                file.seek(length + 13);
+                file.writeInt(7);
+            }
+
+            testLog.clear();
+            testLog.open(JOURNAL);
+            assertEquals(2, testLog.size());
+            assertEquals(length, new File(JOURNAL).length());
+        } finally {
+            testLog.close();
+            testLog.clear();
+            new File(JOURNAL).delete();
+        }
+    }
+}
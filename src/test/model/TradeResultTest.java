@@ -0,0 +1,98 @@
+package model;
+
+import com.sun.management.ThreadMXBean;
+import model.exception.InsufficientBalanceException;
+import model.mock.SecurityMock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.List;
+
+import static model.Security.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TradeResultTest {
+    private static final double EPSILON = 0.000001;
+
+    Account testAccount;
+    Security testSecurity;
+    TradeResult testResult;
+
+    @BeforeEach
+    void runBefore() {
+        testSecurity = new SecurityMock("A500", 100, 0.5, 0, Instant.now());
+        testAccount = new Account("John Smith", 1000, testSecurity);
+        testAccount.setLogging(false);
+        testResult = new TradeResult();
+    }
+
+    @Test
+    void testFilled() {
+        assertEquals(RejectReason.NONE, testAccount.buy(5, testSecurity, testResult));
+        assertTrue(testResult.isFilled());
+        assertEquals(Order.Side.BUY, testResult.getSide());
+        assertEquals(5, testResult.getQuantity());
+        assertEquals(testSecurity, testResult.getSecurity());
+        assertEquals(100 + ASK_SPREAD, testResult.getPrice(), EPSILON);
+        assertEquals("Order successfully executed: Bought A500 QTY5 at $100.01.", testResult.getMessage());
+
+        assertEquals(RejectReason.NONE, testAccount.sell(2, testSecurity, testResult));
+        assertEquals(Order.Side.SELL, testResult.getSide());
+        assertEquals(100 - BID_SPREAD, testResult.getPrice(), EPSILON);
+        assertEquals(3, testSecurity.getPosition());
+    }
+
+    @Test
+    void testRejected() {
+        assertEquals(RejectReason.INSUFFICIENT_BALANCE, testAccount.buy(11, testSecurity, testResult));
+        assertFalse(testResult.isFilled());
+        assertEquals(RejectReason.INSUFFICIENT_BALANCE.getMessage(), testResult.getMessage());
+
+        assertEquals(RejectReason.INSUFFICIENT_POSITION, testAccount.sell(1, testSecurity, testResult));
+        assertEquals(RejectReason.INSUFFICIENT_POSITION, testResult.getReason());
+        assertEquals(1000, testAccount.getBalance(), EPSILON);
+        assertEquals(0, testSecurity.getPosition());
+    }
+
+    @Test
+    void testSubmitBasket() {
+        assertEquals(RejectReason.INSUFFICIENT_POSITION,
+                testAccount.submitBasket(List.of(Order.buy(2, testSecurity), Order.sell(3, testSecurity))));
+        assertEquals(RejectReason.INSUFFICIENT_BALANCE,
+                testAccount.submitBasket(List.of(Order.buy(11, testSecurity))));
+        assertEquals(RejectReason.NONE,
+                testAccount.submitBasket(List.of(Order.buy(3, testSecurity), Order.sell(1, testSecurity))));
+        assertEquals(2, testSecurity.getPosition());
+    }
+
+    @Test
+    void testExceptionWrapperHasNoStackTrace() {
+        InsufficientBalanceException e = assertThrows(InsufficientBalanceException.class,
+                () -> testAccount.buyFundAtAskPrice(11, testSecurity));
+        assertEquals(RejectReason.INSUFFICIENT_BALANCE, e.getReason());
+        assertEquals(0, e.getStackTrace().length);
+    }
+
+    @Test
+    void testRejectionsDoNotAllocate() {
+        // Warm up so that the rejected path is compiled before allocation is measured
+        for (int i = 0; i < 20000; i++) {
+            testAccount.buy(11, testSecurity, testResult);
+        }
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        // The first rounds may still allocate while the path is being compiled
+        long allocated = Long.MAX_VALUE;
+        for (int round = 0; round < 10 && allocated > 0; round++) {
+            long before = threads.getThreadAllocatedBytes(thread);
+            for (int i = 0; i < 100000; i++) {
+                testAccount.buy(11, testSecurity, testResult);
+            }
+            allocated = threads.getThreadAllocatedBytes(thread) - before;
+        }
+        assertFalse(testResult.isFilled());
+        assertEquals(0, allocated);
+    }
+}
@@ -0,0 +1,132 @@
+package model;
+
+import model.exception.InsufficientBalanceException;
+import model.exception.InsufficientFundsException;
+import model.mock.SecurityMock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static model.Security.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ValuationTest {
+    private static final double EPSILON = 0.000001;
+
+    Account testAccount;
+    SecurityMock firstSecurity;
+    Valuation testValuation;
+
+    @BeforeEach
+    void runBefore() {
+        firstSecurity = new SecurityMock("A500", 100, 0.5, 0, Instant.now());
+        testAccount = new Account("John Smith", 1000, firstSecurity);
+        testValuation = testAccount.getValuation();
+    }
+
+    @Test
+    void testEmpty() {
+        assertEquals(0, testValuation.getMarketValue());
+        assertEquals(0, testValuation.getCostBasis());
+        assertEquals(0, testValuation.getUnrealizedPnl());
+        assertEquals(0, testValuation.getRealizedPnl());
+        assertEquals(1000, testAccount.getEquity());
+    }
+
+    @Test
+    void testBuy() throws InsufficientBalanceException {
+        testAccount.buyFundAtAskPrice(5, firstSecurity);
+        assertEquals(5 * (100 + ASK_SPREAD), firstSecurity.getCostBasis(), EPSILON);
+        assertEquals(5 * (100 + ASK_SPREAD), testValuation.getCostBasis(), EPSILON);
+        assertEquals(5 * (100 - BID_SPREAD), testValuation.getMarketValue(), EPSILON);
+        assertEquals(-5 * (ASK_SPREAD + BID_SPREAD), testValuation.getUnrealizedPnl(), EPSILON);
+        assertEquals(testAccount.getBalance() + 5 * (100 - BID_SPREAD), testAccount.getEquity(), EPSILON);
+    }
+
+    @Test
+    void testPriceTick() throws InsufficientBalanceException {
+        testAccount.buyFundAtAskPrice(5, firstSecurity);
+        firstSecurity.passManyIntervalTime(3);
+        testAccount.markToMarket();
+
+        double bidPrice = firstSecurity.lastBidPrice();
+        assertTrue(bidPrice > 100);
+        assertEquals(5 * bidPrice, testValuation.getMarketValue(), EPSILON);
+        assertEquals(5 * bidPrice, testValuation.getMarketValue(firstSecurity), EPSILON);
+        assertEquals(5 * bidPrice - 5 * (100 + ASK_SPREAD), testValuation.getUnrealizedPnl(firstSecurity), EPSILON);
+        assertEquals(testValuation.getUnrealizedPnl(firstSecurity), testValuation.getUnrealizedPnl(), EPSILON);
+    }
+
+    @Test
+    void testSell() throws InsufficientBalanceException, InsufficientFundsException {
+        testAccount.buyFundAtAskPrice(5, firstSecurity);
+        firstSecurity.passOneIntervalTime();
+        testAccount.sellFundAtBidPrice(2, firstSecurity);
+
+        double bidPrice = firstSecurity.lastBidPrice();
+        assertEquals(2 * (bidPrice - (100 + ASK_SPREAD)), testValuation.getRealizedPnl(), EPSILON);
+        assertEquals(3 * (100 + ASK_SPREAD), testValuation.getCostBasis(), EPSILON);
+        assertEquals(3 * bidPrice, testValuation.getMarketValue(), EPSILON);
+
+        testAccount.sellFundAtBidPrice(3, firstSecurity);
+        assertEquals(0, testValuation.getCostBasis(), EPSILON);
+        assertEquals(0, testValuation.getMarketValue(), EPSILON);
+        assertEquals(5 * (bidPrice - (100 + ASK_SPREAD)), testValuation.getRealizedPnl(), EPSILON);
+        assertEquals(testAccount.getBalance(), testAccount.getEquity(), EPSILON);
+    }
+
+    @Test
+    void testBasket() throws InsufficientBalanceException, InsufficientFundsException {
+        Security securityB = new SecurityMock("B500", 200, 0.5, 0, Instant.now());
+        testAccount.addFund(securityB);
+        testAccount.buyFundAtAskPrice(2, firstSecurity);
+
+        List<Order> orders = new ArrayList<>();
+        orders.add(Order.sell(1, firstSecurity));
+        orders.add(Order.buy(1, firstSecurity));
+        orders.add(Order.buy(3, securityB));
+        testAccount.executeBasket(orders);
+
+        assertEquals(2, firstSecurity.getSecurityPosition());
+        assertEquals(3, securityB.getSecurityPosition());
+        assertEquals(2 * 100 + 200 * 3 - 5 * BID_SPREAD, testValuation.getMarketValue(), EPSILON);
+        assertEquals(2 * (100 + ASK_SPREAD) + 3 * (200 + ASK_SPREAD), testValuation.getCostBasis(), EPSILON);
+        assertEquals(-(ASK_SPREAD + BID_SPREAD), testValuation.getRealizedPnl(), EPSILON);
+    }
+
+    @Test
+    void testMarkOnlyHeld() throws InsufficientBalanceException, InsufficientFundsException {
+        SecurityMock securityB = new SecurityMock("B500", 200, 0.5, 0, Instant.now());
+        testAccount.addFund(securityB);
+        testAccount.buyFundAtAskPrice(2, firstSecurity);
+        firstSecurity.passManyIntervalTime(3);
+        securityB.passManyIntervalTime(3);
+        testAccount.markToMarket();
+        assertEquals(4, firstSecurity.snapshot().getHistorySize());
+        assertEquals(1, securityB.snapshot().getHistorySize());
+
+        testAccount.sellFundAtBidPrice(2, firstSecurity);
+        firstSecurity.passManyIntervalTime(1);
+        testAccount.markToMarket();
+        assertEquals(4, firstSecurity.snapshot().getHistorySize());
+        assertEquals(0, testValuation.getMarketValue(), EPSILON);
+    }
+
+    @Test
+    void testLoadedPositions() {
+        List<Double> history = new ArrayList<>();
+        history.add(100.0);
+        history.add(110.0);
+        List<Security> securities = new ArrayList<>();
+        securities.add(new SecurityMock("A500", 0.5, 0, history, Instant.now(), 10));
+        Account account = new Account("John Smith", 1000, 25, securities);
+
+        assertEquals(1100, securities.get(0).getCostBasis(), EPSILON);
+        assertEquals(10 * (110 - BID_SPREAD), account.getValuation().getMarketValue(), EPSILON);
+        assertEquals(25, account.getValuation().getRealizedPnl(), EPSILON);
+        assertEquals(1000 + 10 * (110 - BID_SPREAD), account.getEquity(), EPSILON);
+    }
+}
@@ -0,0 +1,73 @@
+package model.metrics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+    LatencyHistogram testHistogram;
+
+    @BeforeEach
+    void runBefore() {
+        testHistogram = new LatencyHistogram();
+    }
+
+    @Test
+    void testEmpty() {
+        assertEquals(0, testHistogram.getCount());
+        assertEquals(0, testHistogram.getMean());
+        assertEquals(0, testHistogram.getMax());
+        assertEquals(0, testHistogram.getPercentile(99));
+    }
+
+    @Test
+    void testPercentiles() {
+        for (int i = 1; i <= 1000; i++) {
+            testHistogram.record(i * 1000L);
+        }
+        assertEquals(1000, testHistogram.getCount());
+        assertEquals(500500, testHistogram.getMean(), 0.001);
+        assertEquals(1_000_000, testHistogram.getMax());
+        assertEquals(500_000, testHistogram.getPercentile(50), 500_000 / 16.0);
+        assertEquals(990_000, testHistogram.getPercentile(99), 990_000 / 16.0);
+        assertEquals(1_000_000, testHistogram.getPercentile(100));
+    }
+
+    @Test
+    void testSmallAndLargeValues() {
+        testHistogram.record(-5);
+        testHistogram.record(3);
+        testHistogram.record(Long.MAX_VALUE);
+        assertEquals(0, testHistogram.getPercentile(1));
+        assertEquals(3, testHistogram.getPercentile(60));
+        assertEquals(Long.MAX_VALUE, testHistogram.getPercentile(100));
+    }
+
+    @Test
+    void testRegistryReport() {
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        registry.counter("test.counter").add(3);
+        registry.gauge("test.gauge", () -> 1.5);
+        registry.histogram("test.latency").record(2000);
+        assertSame(registry.counter("test.counter"), registry.counter("test.counter"));
+        String report = registry.report();
+        assertTrue(report.contains("test.counter"));
+        assertTrue(report.contains("1.50"));
+        assertTrue(report.contains("test.latency"));
+    }
+
+    @Test
+    void testJmxHasNoOperations() throws JMException {
+        MetricsRegistry.getInstance().registerJmx();
+        ReflectionException e = assertThrows(ReflectionException.class, () -> ManagementFactory
+                .getPlatformMBeanServer().invoke(new ObjectName("tradingSimulator:type=Metrics"), "reset",
+                        new Object[0], new String[0]));
+        assertTrue(e.getCause() instanceof NoSuchMethodException);
+    }
+}
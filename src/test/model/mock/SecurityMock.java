@@ -1,5 +1,6 @@
 package model.mock;
 
+import model.MarketClock;
 import model.Security;
 
 import java.time.Instant;
@@ -26,6 +27,13 @@ public class SecurityMock extends Security {
         this.lastTime = now.plus(1, ChronoUnit.SECONDS);
     }
 
+    public SecurityMock(String ticker, double yearlyReturn, double volatility, String encodedHistory,
+                        List<Double> tail, double lastPrice, Instant now, int securityPosition) {
+        super(ticker, yearlyReturn, volatility, encodedHistory, tail, lastPrice, now, securityPosition);
+        this.now = now;
+        this.lastTime = now.plus(1, ChronoUnit.SECONDS);
+    }
+
     @Override
     protected double randomReturn() {
         Double temp = super.randomReturn();
@@ -34,10 +42,9 @@ public class SecurityMock extends Security {
     }
 
     @Override
-    protected Instant now() {
-        Instant temp = super.now();
-        assertNotNull(temp);
-        return this.now;
+    protected long nowNanos() {
+        long temp = super.nowNanos();
+        return (this.now == null) ? temp : MarketClock.toNanos(this.now);
     }
 
     public void setNow(Instant now) {
@@ -0,0 +1,76 @@
+package model.simulation;
+
+import model.EventLog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SimulationRunnerTest {
+    SimulationRunner testRunner;
+
+    @BeforeEach
+    void runBefore() {
+        testRunner = new SimulationRunner(252, 1, 4);
+        testRunner.addSecurity("A500", 100, 0.08, 0.2);
+        testRunner.addSecurity("BOND", 50, 0.03, 0.05);
+    }
+
+    @Test
+    void testRun() throws IOException {
+        for (int i = 0; i < 100; i++) {
+            testRunner.addAccount("account-" + i, 10000, i, Strategy.rebalanceEvery(21));
+        }
+        testRunner.addAccount("cash", 10000, 0, Strategy.hold());
+        StringWriter out = new StringWriter();
+        SimulationSummary summary = testRunner.run(out);
+
+        List<SimulationResult> results = summary.getResults();
+        assertEquals(101, results.size());
+        assertEquals("account-0", results.get(0).getName());
+        assertEquals("cash", results.get(100).getName());
+        assertEquals(0, results.get(100).getTotalReturn(), 1e-9);
+        assertEquals(0, results.get(100).getMaxDrawdown());
+        assertEquals(0, summary.getRejections());
+        assertTrue(summary.getMinReturn() <= summary.getMeanReturn());
+        assertTrue(summary.getMeanReturn() <= summary.getMaxReturn());
+        assertTrue(summary.getWorstDrawdown() > 0);
+
+        String[] lines = out.toString().split(System.lineSeparator());
+        assertEquals(102, lines.length);
+        assertEquals(SimulationResult.CSV_HEADER, lines[0]);
+    }
+
+    @Test
+    void testRunLogsNothing() throws IOException {
+        testRunner.addAccount("first", 10000, 1, Strategy.rebalanceEvery(21));
+        int events = EventLog.getInstance().getEvents().size();
+        testRunner.run(new StringWriter());
+        assertEquals(events, EventLog.getInstance().getEvents().size());
+    }
+
+    @Test
+    void testSameSeedSameResult() throws IOException {
+        testRunner.addAccount("first", 10000, 42, Strategy.buyAndHold());
+        testRunner.addAccount("second", 10000, 42, Strategy.buyAndHold());
+        testRunner.addAccount("third", 10000, 43, Strategy.buyAndHold());
+        List<SimulationResult> results = testRunner.run(new StringWriter()).getResults();
+
+        assertEquals(results.get(0).getFinalEquity(), results.get(1).getFinalEquity());
+        assertEquals(results.get(0).getMaxDrawdown(), results.get(1).getMaxDrawdown());
+        assertNotEquals(results.get(0).getFinalEquity(), results.get(2).getFinalEquity());
+    }
+
+    @Test
+    void testRejections() throws IOException {
+        testRunner.addAccount("broke", 1, 0, (account, step) ->
+                account.buy(1, account.getSecurities().get(0)));
+        SimulationSummary summary = testRunner.run(new StringWriter());
+        assertEquals(252, summary.getRejections());
+        assertEquals(252, summary.getResults().get(0).getRejections());
+    }
+}
@@ -0,0 +1,114 @@
+package model.simulation;
+
+import model.Account;
+import model.CorporateAction;
+import model.RejectReason;
+import model.Security;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static model.Security.BID_SPREAD;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StressTesterTest {
+    private static final double EPSILON = 0.000001;
+
+    Security testSecurity;
+    Account testAccount;
+
+    @BeforeEach
+    void runBefore() {
+        List<Double> history = new ArrayList<>(List.of(100.0, 110.0, 99.0, 89.1, 95.0, 100.0));
+        testSecurity = new Security("A500", 0.08, 0.2, history, Instant.now(), 10);
+        List<Security> securities = new ArrayList<>();
+        securities.add(testSecurity);
+        testAccount = new Account("John Smith", 1000, securities);
+        testAccount.setLogging(false);
+    }
+
+    @Test
+    void testShock() {
+        StressTester tester = StressTester.fork(testAccount, 2);
+        double start = 1000 + 10 * (100 - BID_SPREAD);
+        assertEquals(start, tester.getStartEquity(), EPSILON);
+
+        StressResult result = tester.run(List.of(Scenario.shock(-0.2)), 0).get(0);
+        assertEquals("shock -20%", result.getScenario());
+        assertEquals(1, result.getDays());
+        assertEquals(1000 + 10 * (80 - BID_SPREAD), result.getEndEquity(), EPSILON);
+        assertEquals(result.getEndEquity(), result.getMinEquity(), EPSILON);
+        assertEquals(-200, result.getPnl(), EPSILON);
+        assertEquals(200 / start, result.getMaxDrawdown(), EPSILON);
+        assertFalse(result.isMarginCall());
+    }
+
+    @Test
+    void testForkDoesNotTouchLiveState() {
+        StressTester tester = StressTester.fork(testAccount, 2);
+        assertEquals(RejectReason.NONE, testAccount.sell(10, testSecurity));
+        tester.run(Scenario.standardSet(), 0);
+
+        assertEquals(1000 + 10 * (100 - BID_SPREAD), tester.getStartEquity(), EPSILON);
+        assertEquals(0, testSecurity.getPosition());
+        assertEquals(6, testSecurity.getHistory().size());
+    }
+
+    @Test
+    void testMarginCall() {
+        testAccount.getRiskLimits().setMaxLeverage(2);
+        assertEquals(RejectReason.NONE, testAccount.buy(29, testSecurity));
+        StressTester tester = StressTester.fork(testAccount, 1);
+
+        List<StressResult> results = tester.run(List.of(Scenario.shock(-0.05), Scenario.shock(-0.4)), 0);
+        assertFalse(results.get(0).isMarginCall());
+        assertEquals(1, results.get(1).getMarginCallDay());
+        assertTrue(results.get(1).getLeverage() > 2);
+    }
+
+    @Test
+    void testWorstHistory() {
+        StressResult result = StressTester.fork(testAccount, 1).run(List.of(Scenario.worstHistory(2)), 0).get(0);
+        assertEquals(2, result.getDays());
+        assertEquals(1000 + 10 * (100 * 0.9 * 0.9 - BID_SPREAD), result.getEndEquity(), EPSILON);
+
+        result = StressTester.fork(testAccount, 1).run(List.of(Scenario.worstHistory(10)), 0).get(0);
+        assertEquals(10, result.getDays());
+        assertEquals(1000 + 10 * (100 - BID_SPREAD), result.getEndEquity(), EPSILON);
+    }
+
+    @Test
+    void testDailyReturnsCorrectedForSplits() {
+        List<Double> history = new ArrayList<>(List.of(100.0, 50.0, 55.0));
+        Security split = new Security("B500", 0.08, 0.2, history, Instant.now(), 0);
+        split.addCorporateAction(CorporateAction.split(1, 2));
+        double[] returns = Scenario.dailyReturns(split.snapshot());
+        assertEquals(1, returns[0], EPSILON);
+        assertEquals(1.1, returns[1], EPSILON);
+    }
+
+    @Test
+    void testRandomPathsInParallel() throws IOException {
+        List<Scenario> scenarios = Collections.nCopies(500, Scenario.volatilitySpike(3, 21));
+        List<StressResult> results = StressTester.fork(testAccount, 4).run(scenarios, 42);
+        List<StressResult> again = StressTester.fork(testAccount, 4).run(scenarios, 42);
+        assertEquals(500, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(results.get(i).getEndEquity(), again.get(i).getEndEquity());
+        }
+        assertNotEquals(results.get(0).getEndEquity(), results.get(1).getEndEquity());
+
+        StringWriter out = new StringWriter();
+        StressTester.writeCsv(results, out);
+        String[] lines = out.toString().split(System.lineSeparator());
+        assertEquals(501, lines.length);
+        assertEquals(StressResult.CSV_HEADER, lines[0]);
+        assertTrue(lines[1].startsWith("volatility x3.0 21d,21,"));
+    }
+}
@@ -0,0 +1,182 @@
+package persistence;
+
+import model.Account;
+import model.Security;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class AccountCatalogTest {
+    private Path directory;
+    private AccountCatalog catalog;
+
+    @BeforeEach
+    void runBefore() throws IOException {
+        directory = Files.createTempDirectory("catalog");
+        catalog = new AccountCatalog(directory.toString(), 4);
+    }
+
+    @AfterEach
+    void runAfter() throws IOException {
+        catalog.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    // EFFECTS: returns an account called name holding a security for every ticker
+    private Account account(String name, String... tickers) {
+        Account account = new Account(name, 1000, new Security(tickers[0], 100, 0.07, 0.2));
+        for (int i = 1; i < tickers.length; i++) {
+            account.addFund(new Security(tickers[i], 50, 0.07, 0.2));
+        }
+        return account;
+    }
+
+    @Test
+    void testSaveAndList() throws IOException {
+        catalog.save(account("Mark", "SP500", "QQQ"));
+        catalog.save(account("Anna", "BRK"));
+
+        List<AccountCatalog.Entry> entries = new AccountCatalog(directory.toString(), 1).list();
+        assertEquals(2, entries.size());
+        assertEquals("Anna", entries.get(0).getName());
+        assertEquals(List.of("BRK"), entries.get(0).getTickers());
+        AccountCatalog.Entry mark = entries.get(1);
+        assertEquals("Mark", mark.getName());
+        assertEquals(List.of("SP500", "QQQ"), mark.getTickers());
+        assertEquals(Files.size(directory.resolve(mark.getFile())), mark.getSize());
+        assertTrue(mark.getLastModified() > 0);
+
+        Account loaded = catalog.load("Mark");
+        assertEquals("Mark", loaded.getName());
+        assertEquals(1000, loaded.getBalance());
+        assertEquals(2, loaded.getSecurities().size());
+    }
+
+    @Test
+    void testListNeverOpensAccountFiles() throws IOException {
+        catalog.save(account("Mark", "SP500"));
+        Files.write(directory.resolve(catalog.find("Mark").getFile()), new byte[] {'x'});
+        AccountCatalog reopened = new AccountCatalog(directory.toString(), 1);
+        assertEquals(List.of("SP500"), reopened.list().get(0).getTickers());
+        assertThrows(RuntimeException.class, () -> reopened.load("Mark"));
+    }
+
+    @Test
+    void testLoadMissing() {
+        assertThrows(IOException.class, () -> catalog.load("Nobody"));
+    }
+
+    @Test
+    void testFileNames() throws IOException {
+        catalog.save(account("a b", "SP500"));
+        catalog.save(account("a_b", "SP500"));
+        catalog.save(account("index", "SP500"));
+        assertEquals("a_b.json", catalog.find("a b").getFile());
+        assertEquals("a_b-2.json", catalog.find("a_b").getFile());
+        assertNotEquals(AccountCatalog.INDEX_FILE, catalog.find("index").getFile());
+        assertEquals("a_b", catalog.load("a_b").getName());
+    }
+
+    @Test
+    void testFileNamesAcrossCatalogs() throws IOException {
+        AccountCatalog other = new AccountCatalog(directory.toString(), 1);
+        catalog.save(account("a b", "SP500"));
+        other.save(account("a_b", "QQQ"));
+        other.close();
+        assertEquals("a_b-2.json", catalog.list().get(1).getFile());
+        assertEquals("SP500", catalog.load("a b").getSecurities().get(0).getTicker());
+        assertEquals("QQQ", catalog.load("a_b").getSecurities().get(0).getTicker());
+    }
+
+    @Test
+    void testFailedWriteKeepsFile() throws IOException {
+        Path full = Paths.get("/dev/full");
+        assumeTrue(Files.isWritable(full));
+        catalog.save(account("Mark", "SP500"));
+        AccountCatalog.Entry saved = catalog.find("Mark");
+        Path temp = directory.resolve(saved.getFile() + ".tmp");
+        Files.createSymbolicLink(temp, full);
+
+        assertThrows(IOException.class, () -> catalog.save(account("Mark", "SP500", "QQQ")));
+        assertFalse(Files.exists(temp, LinkOption.NOFOLLOW_LINKS));
+        assertEquals(saved.getSize(), catalog.find("Mark").getSize());
+        assertEquals(saved.getSize(), Files.size(directory.resolve(saved.getFile())));
+        assertEquals(1, catalog.load("Mark").getSecurities().size());
+    }
+
+    @Test
+    void testSaveAllAndLoadAll() {
+        List<Account> accounts = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            accounts.add(account("Account " + i, "SP500", "T" + i));
+            names.add("Account " + i);
+        }
+        catalog.saveAll(accounts).join();
+        Map<String, Account> loaded = catalog.loadAll(names).join();
+        assertEquals(20, loaded.size());
+        assertEquals("T7", loaded.get("Account 7").getSecurities().get(1).getTicker());
+
+        names.add("Nobody");
+        CompletionException e = assertThrows(CompletionException.class, () -> catalog.loadAll(names).join());
+        assertTrue(e.getCause() instanceof IOException);
+    }
+
+    @Test
+    void testConcurrentCatalogs() throws Exception {
+        int writers = 4;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            int id = w;
+            Thread thread = new Thread(() -> {
+                try {
+                    AccountCatalog own = new AccountCatalog(directory.toString(), 2);
+                    start.await();
+                    for (int i = 0; i < 10; i++) {
+                        own.save(account("Shared", "SP500"));
+                        own.save(account("Writer " + id, "SP500"));
+                    }
+                    own.close();
+                } catch (Exception | AssertionError e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(List.of(), failures);
+
+        List<AccountCatalog.Entry> entries = catalog.list();
+        assertEquals(writers + 1, entries.size());
+        assertEquals("Shared", entries.get(0).getName());
+        assertEquals("Shared", catalog.load("Shared").getName());
+    }
+}
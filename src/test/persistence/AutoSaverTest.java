@@ -0,0 +1,102 @@
+package persistence;
+
+import model.Account;
+import model.AccountSnapshot;
+import model.mock.SecurityMock;
+import org.junit.jupiter.api.Test;
+import persistence.mock.JsonReaderMock;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class AutoSaverTest extends JsonTest {
+    private static final String DESTINATION = "./data/testAutoSaverAccount.json";
+
+    @Test
+    void testSaveNow() {
+        Instant now = Instant.parse("2023-10-17T04:33:00.122226Z");
+        SecurityMock firstFund = new SecurityMock("A500", 100, 0.5, 0, now);
+        Account account = new Account("John Smith", 1000, firstFund);
+        firstFund.passManyIntervalTime(3);
+        firstFund.updateHistory();
+
+        AutoSaver saver = new AutoSaver(DESTINATION, () -> account);
+        try {
+            saver.saveNow().join();
+            assertEquals(1, saver.getSaves());
+            assertEquals(0, saver.getFailures());
+            assertTrue(saver.getLastBytes() > 0);
+            assertEquals(saver.getLastBytes(), saver.getTotalBytes());
+            assertTrue(saver.getLastLatencyNanos() > 0);
+
+            Account readAccount = new JsonReaderMock(DESTINATION).read();
+            assertAccountsEqual(account, readAccount);
+        } catch (IOException e) {
+            fail("Couldn't read saved file");
+        } finally {
+            saver.stop();
+            new File(DESTINATION).delete();
+        }
+    }
+
+    @Test
+    void testSaveNowFailure() {
+        Account account = new Account("John Smith", 1000, new SecurityMock("A500", 100, 0.5, 0, Instant.now()));
+        AutoSaver saver = new AutoSaver("./data/noSuchDirectory/testAutoSaverAccount.json", () -> account);
+        assertThrows(CompletionException.class, () -> saver.saveNow().join());
+        assertEquals(0, saver.getSaves());
+        assertEquals(1, saver.getFailures());
+        saver.stop();
+    }
+
+    @Test
+    void testSaveNowWriteError() throws IOException {
+        Path full = Paths.get("/dev/full");
+        assumeTrue(Files.isWritable(full));
+        Path temp = Paths.get(DESTINATION + ".tmp");
+        Files.createSymbolicLink(temp, full);
+        Account account = new Account("John Smith", 1000, new SecurityMock("A500", 100, 0.5, 0, Instant.now()));
+        AutoSaver saver = new AutoSaver(DESTINATION, () -> account);
+        try {
+            assertThrows(CompletionException.class, () -> saver.saveNow().join());
+            assertEquals(0, saver.getSaves());
+            assertEquals(1, saver.getFailures());
+            assertFalse(Files.exists(Paths.get(DESTINATION)));
+            assertFalse(Files.exists(temp, LinkOption.NOFOLLOW_LINKS));
+        } finally {
+            saver.stop();
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Test
+    void testSnapshotIsolation() {
+        SecurityMock firstFund = new SecurityMock("A500", 100, 0.5, 0, Instant.now());
+        Account account = new Account("John Smith", 1000, firstFund);
+        AccountSnapshot snapshot = account.snapshot();
+        try {
+            account.buyFundAtAskPrice(5, firstFund);
+        } catch (Exception e) {
+            fail();
+        }
+        firstFund.passManyIntervalTime(2);
+        firstFund.updateHistory();
+
+        AccountSnapshot later = account.snapshot();
+        assertEquals(1000, snapshot.getBalance(), EPSILON);
+        assertEquals(0, snapshot.getSecurities().get(0).getSecurityPosition());
+        assertEquals(1, snapshot.getSecurities().get(0).getHistorySize());
+        assertEquals(5, later.getSecurities().get(0).getSecurityPosition());
+        assertEquals(3, later.getSecurities().get(0).getHistorySize());
+        assertEquals(firstFund.getHistory().get(2), later.getSecurities().get(0).getPrice(2), EPSILON);
+    }
+}
@@ -0,0 +1,102 @@
+package persistence;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarFileTest {
+    private static final String[] NAMES = {"ticker", "day", "time", "price"};
+    private static final ColumnarFile.Type[] TYPES = {ColumnarFile.Type.STRING, ColumnarFile.Type.INT,
+        ColumnarFile.Type.LONG, ColumnarFile.Type.DOUBLE};
+
+    private Path file;
+
+    @BeforeEach
+    void runBefore() throws IOException {
+        file = Files.createTempFile("columnar", ".col");
+    }
+
+    @AfterEach
+    void runAfter() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    // EFFECTS: appends rows rows starting at day from to file
+    private void write(int from, int rows) throws IOException {
+        try (ColumnarFile.Writer writer = new ColumnarFile.Writer(file, NAMES, TYPES)) {
+            for (int day = from; day < from + rows; day++) {
+                writer.put((day % 3 == 0) ? "SP500" : "QQQ").put(day).put(day * 1000L).put(day / 4.0).endRow();
+            }
+        }
+    }
+
+    @Test
+    void testRoundTripAcrossRowGroups() throws IOException {
+        int rows = ColumnarFile.ROW_GROUP_SIZE + 10;
+        write(0, rows);
+        Map<String, List<Object>> columns = ColumnarFile.read(file);
+        assertEquals(List.of(NAMES), List.copyOf(columns.keySet()));
+        for (List<Object> values : columns.values()) {
+            assertEquals(rows, values.size());
+        }
+        int last = rows - 1;
+        assertEquals("SP500", columns.get("ticker").get(0));
+        assertEquals("QQQ", columns.get("ticker").get(last));
+        assertEquals(last, columns.get("day").get(last));
+        assertEquals(last * 1000L, columns.get("time").get(last));
+        assertEquals(last / 4.0, columns.get("price").get(last));
+    }
+
+    @Test
+    void testAppend() throws IOException {
+        write(0, 5);
+        long size = Files.size(file);
+        write(5, 5);
+        assertTrue(Files.size(file) > size);
+        Map<String, List<Object>> columns = ColumnarFile.read(file);
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), columns.get("day"));
+        assertEquals("QQQ", columns.get("ticker").get(7));
+        assertEquals("SP500", columns.get("ticker").get(9));
+    }
+
+    @Test
+    void testPartialRowGroupRemoved() throws IOException {
+        write(0, 5);
+        long size = Files.size(file);
+        write(5, 5);
+        try (RandomAccessFile partial = new RandomAccessFile(file.toFile(), "rw")) {
+            partial.setLength(size + 10);
+        }
+        assertThrows(IOException.class, () -> ColumnarFile.read(file));
+        write(10, 2);
+        assertEquals(List.of(0, 1, 2, 3, 4, 10, 11), ColumnarFile.read(file).get("day"));
+    }
+
+    @Test
+    void testEmptyWriter() throws IOException {
+        new ColumnarFile.Writer(file, NAMES, TYPES).close();
+        Map<String, List<Object>> columns = ColumnarFile.read(file);
+        assertEquals(4, columns.size());
+        assertTrue(columns.get("price").isEmpty());
+    }
+
+    @Test
+    void testDifferentColumns() throws IOException {
+        write(0, 1);
+        assertThrows(IOException.class, () -> new ColumnarFile.Writer(file, new String[] {"ticker"},
+                new ColumnarFile.Type[] {ColumnarFile.Type.STRING}));
+        Files.write(file, new byte[] {1, 2, 3, 4});
+        assertThrows(IOException.class, () -> ColumnarFile.read(file));
+        assertThrows(IOException.class, () -> new ColumnarFile.Writer(file, NAMES, TYPES));
+        assertEquals(4, Files.size(file));
+    }
+}
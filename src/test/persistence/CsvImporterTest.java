@@ -0,0 +1,133 @@
+package persistence;
+
+import model.Security;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvImporterTest {
+    private static final double EPSILON = 0.000001;
+
+    private Path file;
+
+    @BeforeEach
+    void runBefore() throws IOException {
+        file = Files.createTempFile("prices", ".csv");
+    }
+
+    @AfterEach
+    void runAfter() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    // EFFECTS: returns the number parsed by CsvImporter from text
+    private double parse(String text) {
+        return CsvImporter.parseDouble(ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII)), 0, text.length());
+    }
+
+    @Test
+    void testParseDouble() {
+        assertEquals(123.45, parse("123.45"));
+        assertEquals(-0.5, parse("-0.5"));
+        assertEquals(7, parse(" 7 "));
+        assertEquals(100, parse("100."));
+        assertEquals(1.5e10, parse("1.5e10"));
+        assertEquals(0.1234567890123456789, parse("0.1234567890123456789"), EPSILON);
+        assertTrue(Double.isNaN(parse("close")));
+        assertTrue(Double.isNaN(parse("")));
+        assertTrue(Double.isNaN(parse("-")));
+    }
+
+    @Test
+    void testImportFile() throws IOException {
+        Files.write(file, ("ticker,date,close\r\n"
+                + "SP500,2024-01-02,400.5\r\n"
+                + "QQQ,2024-01-02,300\r\n"
+                + "\r\n"
+                + "SP500,2024-01-03,401.25\r\n"
+                + "QQQ,2024-01-03\r\n"
+                + "QQQ,2024-01-03,-1\r\n"
+                + "QQQ,2024-01-04,303\r\n"
+                + "SP500,2024-01-04,402\r\n"
+                + "BRK,2024-01-04,500\n").getBytes(StandardCharsets.US_ASCII));
+        Instant now = Instant.now();
+        CsvImporter importer = new CsvImporter(2);
+        List<Security> securities = importer.importFile(file, now);
+
+        assertEquals(2, securities.size());
+        Security sp500 = securities.get(0);
+        assertEquals("SP500", sp500.getTicker());
+        assertEquals("QQQ", securities.get(1).getTicker());
+        assertEquals(6, importer.getLinesImported());
+        assertEquals(3, importer.getLinesSkipped());
+        assertEquals(1, importer.getTickersSkipped());
+
+        assertFalse(sp500.isHistoryLoaded());
+        assertEquals(402 - Security.BID_SPREAD, sp500.lastBidPrice());
+        assertEquals(0, sp500.getSecurityPosition());
+        assertEquals(List.of(400.5, 401.25, 402.0), sp500.getHistory().subList(0, 3));
+    }
+
+    @Test
+    void testOtherColumns() throws IOException {
+        Files.write(file, "1,2,A\n3,4,A\n".getBytes(StandardCharsets.US_ASCII));
+        List<Security> securities = new CsvImporter(2, 1, 1).importFile(file, Instant.now());
+        assertEquals("A", securities.get(0).getTicker());
+        assertEquals(4 - Security.BID_SPREAD, securities.get(0).lastBidPrice());
+    }
+
+    @Test
+    void testEstimates() {
+        Random random = new Random(1);
+        double returnPerDay = Math.pow(1.08, 1.0 / Security.TRADING_DAYS_PER_INTERVAL);
+        double stdDevPerDay = 0.25 / Math.sqrt(Security.TRADING_DAYS_PER_INTERVAL);
+        double[] prices = new double[200_000];
+        prices[0] = 100;
+        for (int i = 1; i < prices.length; i++) {
+            prices[i] = prices[i - 1] * (random.nextGaussian() * stdDevPerDay + returnPerDay);
+        }
+        assertEquals(0.08, CsvImporter.estimateYearlyReturn(prices, prices.length), 0.02);
+        assertEquals(0.25, CsvImporter.estimateVolatility(prices, prices.length), 0.005);
+        assertEquals(0, CsvImporter.estimateVolatility(new double[] {1, 2}, 2));
+    }
+
+    @Test
+    void testParallelChunks() throws IOException {
+        int tickers = 100;
+        int days = 1500;
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("ticker,date,close\n");
+            for (int day = 0; day < days; day++) {
+                for (int t = 0; t < tickers; t++) {
+                    writer.write("T" + t + ",d" + day + "," + (t + 1) + "." + day + "\n");
+                }
+            }
+        }
+        CsvImporter importer = new CsvImporter(4);
+        List<Security> securities = importer.importFile(file, Instant.now());
+
+        // Large enough to be split into several chunks parsed in parallel
+        assertTrue(Files.size(file) > 2 * (1 << 20));
+        assertEquals(tickers, securities.size());
+        assertEquals((long) tickers * days, importer.getLinesImported());
+        assertEquals(1, importer.getLinesSkipped());
+        Security last = securities.get(tickers - 1);
+        assertEquals("T" + (tickers - 1), last.getTicker());
+        List<Double> history = last.getHistory();
+        for (int day = 0; day < days; day++) {
+            assertEquals(Double.parseDouble(tickers + "." + day), history.get(day));
+        }
+    }
+}
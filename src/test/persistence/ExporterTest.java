@@ -0,0 +1,212 @@
+package persistence;
+
+import model.Account;
+import model.Event;
+import model.EventLog;
+import model.MarketClock;
+import model.Order;
+import model.Security;
+import model.TradeLog;
+import model.TradeRecord;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExporterTest {
+    private Path directory;
+    private Security security;
+    private Account account;
+
+    @BeforeEach
+    void runBefore() throws IOException {
+        directory = Files.createTempDirectory("export");
+        TradeLog.getInstance().clear();
+        EventLog.getInstance().clear();
+        List<Double> history = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            history.add(100.0 + i);
+        }
+        Instant lastUpdate = Instant.now().minus(Security.dayLength().multipliedBy(3));
+        security = new Security("SP500", 0.07, 0.2, history, lastUpdate, 10);
+        account = new Account("John Smith", 1000, security);
+    }
+
+    @AfterEach
+    void runAfter() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    // EFFECTS: records count trades of ticker in the trade log
+    private void trade(int count, String ticker) {
+        for (int i = 0; i < count; i++) {
+            TradeLog.getInstance().record(new TradeRecord(i, "John Smith", ticker, Order.Side.BUY, 1, 100,
+                    TradeRecord.Status.FILLED));
+        }
+    }
+
+    // EFFECTS: returns the number of events the state file counts as exported, 0 if there is none
+    private int eventsExported() throws IOException {
+        Path state = directory.resolve("export-csv.json");
+        if (!Files.exists(state)) {
+            return 0;
+        }
+        return new JSONObject(Files.readString(state)).getInt("events");
+    }
+
+    // EFFECTS: returns the lines of the CSV file of dataset
+    private List<String> lines(String dataset) throws IOException {
+        return Files.readAllLines(directory.resolve(dataset + ".csv"));
+    }
+
+    @Test
+    void testCsvExport() throws IOException {
+        trade(2, "SP500");
+        EventLog.getInstance().logEvent(new Event("Bought, \"SP500\""));
+        Exporter exporter = new Exporter(directory.toString(), Exporter.Format.CSV);
+        Exporter.Result result = exporter.exportAsync(account).join();
+        exporter.stop();
+        assertEquals(100, result.getHistory());
+        assertEquals(1, result.getPositions());
+        assertEquals(2, result.getTrades());
+        int events = 0;
+        for (Event ignored : EventLog.getInstance()) {
+            events++;
+        }
+        assertEquals(events, result.getEvents());
+
+        List<String> history = lines("history");
+        assertEquals("account,ticker,day,time,price", history.get(0));
+        assertEquals(101, history.size());
+        assertTrue(history.get(100).startsWith("John Smith,SP500,99,"));
+        assertTrue(history.get(100).endsWith(",199.0"));
+        List<String> positions = lines("positions");
+        assertTrue(positions.get(1).endsWith(",John Smith,SP500,10,1990.0,199.0"));
+        assertEquals("time,account,ticker,side,quantity,price,status", lines("trades").get(0));
+        assertEquals("1,John Smith,SP500,BUY,1,100.0,FILLED", lines("trades").get(2));
+        assertEquals(events + 1, lines("events").size());
+        assertTrue(lines("events").get(events).endsWith(",\"Bought, \"\"SP500\"\"\""));
+    }
+
+    @Test
+    void testIncrementalExport() throws IOException {
+        Exporter exporter = new Exporter(directory.toString(), Exporter.Format.CSV);
+        trade(2, "SP500");
+        exporter.export(account.snapshot(), 1);
+
+        security.updateHistory();
+        int days = security.getHistory().size() - 100;
+        assertTrue(days >= 3);
+        trade(3, "QQQ");
+        Exporter reopened = new Exporter(directory.toString(), Exporter.Format.CSV);
+        Exporter.Result result = reopened.export(account.snapshot(), 2);
+        assertEquals(days, result.getHistory());
+        assertEquals(3, result.getTrades());
+        assertEquals(100 + days + 1, lines("history").size());
+        assertTrue(lines("history").get(101).startsWith("John Smith,SP500,100,"));
+        assertEquals(3, lines("positions").size());
+        assertEquals(6, lines("trades").size());
+        assertTrue(lines("trades").get(5).contains(",QQQ,"));
+
+        result = reopened.export(account.snapshot(), 3);
+        assertEquals(0, result.getHistory());
+        assertEquals(0, result.getTrades());
+        assertEquals(0, result.getEvents());
+
+        TradeLog.getInstance().clear();
+        trade(1, "BRK");
+        assertEquals(1, reopened.export(account.snapshot(), 4).getTrades());
+        assertTrue(lines("trades").get(6).contains(",BRK,"));
+    }
+
+    @Test
+    void testExportAccountsToOneDirectory() throws IOException {
+        Exporter exporter = new Exporter(directory.toString(), Exporter.Format.CSV);
+        exporter.export(account.snapshot(), 1);
+        Account other = new Account("Anna", 1000, new Security("SP500", 50, 0.07, 0.2));
+        assertEquals(1, exporter.export(other.snapshot(), 2).getHistory());
+        assertTrue(lines("history").get(101).startsWith("Anna,SP500,0,"));
+
+        Exporter reopened = new Exporter(directory.toString(), Exporter.Format.CSV);
+        assertEquals(0, reopened.export(account.snapshot(), 3).getHistory());
+        assertEquals(0, reopened.export(other.snapshot(), 4).getHistory());
+        assertEquals(102, lines("history").size());
+    }
+
+    @Test
+    void testPositionsAtMarketTime() throws IOException {
+        Instant marketTime = Instant.EPOCH.plus(Security.dayLength().multipliedBy(1000));
+        security.setClock(MarketClock.discrete(marketTime));
+        Exporter exporter = new Exporter(directory.toString(), Exporter.Format.CSV);
+        exporter.exportAsync(account).join();
+        exporter.stop();
+        assertTrue(lines("positions").get(1).startsWith(marketTime.toEpochMilli() + ",John Smith,SP500,"));
+    }
+
+    @Test
+    void testFailedExportKeepsWrittenFiles() throws IOException {
+        trade(2, "SP500");
+        Files.createDirectory(directory.resolve("trades.csv"));
+        Exporter exporter = new Exporter(directory.toString(), Exporter.Format.CSV);
+        assertThrows(IOException.class, () -> exporter.export(account.snapshot(), 1));
+        assertEquals(101, lines("history").size());
+        assertEquals(2, lines("positions").size());
+
+        Files.delete(directory.resolve("trades.csv"));
+        Exporter.Result result = new Exporter(directory.toString(), Exporter.Format.CSV)
+                .export(account.snapshot(), 2);
+        assertEquals(0, result.getHistory());
+        assertEquals(2, result.getTrades());
+        assertEquals(101, lines("history").size());
+        assertEquals(3, lines("trades").size());
+    }
+
+    @Test
+    void testColumnarExport() throws IOException {
+        trade(2, "SP500");
+        Exporter exporter = new Exporter(directory.toString(), Exporter.Format.COLUMNAR);
+        exporter.export(account.snapshot(), 1);
+        security.updateHistory();
+        trade(1, "QQQ");
+        exporter.export(account.snapshot(), 2);
+
+        Map<String, List<Object>> history = ColumnarFile.read(directory.resolve("history.col"));
+        assertEquals(security.getHistory(), history.get("price"));
+        assertEquals(security.getHistory().size() - 1, history.get("day").get(history.get("day").size() - 1));
+        List<Object> times = history.get("time");
+        assertTrue((Long) times.get(0) < (Long) times.get(times.size() - 1));
+        Map<String, List<Object>> trades = ColumnarFile.read(directory.resolve("trades.col"));
+        assertEquals(List.of("SP500", "SP500", "QQQ"), trades.get("ticker"));
+        assertEquals(List.of(1L, 2L), ColumnarFile.read(directory.resolve("positions.col")).get("time"));
+        assertFalse(Files.exists(directory.resolve("history.csv")));
+    }
+
+    @Test
+    void testBackgroundExport() throws Exception {
+        Exporter exporter = new Exporter(directory.toString(), Exporter.Format.CSV);
+        exporter.start(1, () -> account);
+        Path positions = directory.resolve("positions.csv");
+        for (int i = 0; i < 50 && eventsExported() == 0; i++) {
+            Thread.sleep(100);
+        }
+        exporter.stop();
+        assertTrue(Files.exists(positions));
+        assertEquals(101, lines("history").size());
+    }
+}
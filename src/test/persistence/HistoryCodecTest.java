@@ -0,0 +1,76 @@
+package persistence;
+
+import org.json.JSONArray;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistoryCodecTest {
+    // EFFECTS: returns a random walk of days prices with daily volatility like Security
+    private double[] randomWalk(int days, long seed) {
+        Random random = new Random(seed);
+        double[] prices = new double[days];
+        prices[0] = 400;
+        for (int i = 1; i < days; i++) {
+            prices[i] = prices[i - 1] * (1.0003 + random.nextGaussian() * 0.0126);
+        }
+        return prices;
+    }
+
+    @Test
+    void testRoundTrip() {
+        double[] prices = randomWalk(1000, 1);
+        prices[500] = prices[499];
+        prices[501] = prices[499];
+        double[] decoded = HistoryCodec.decode(HistoryCodec.encode(prices, prices.length));
+        assertArrayEquals(prices, decoded);
+    }
+
+    @Test
+    void testRoundTripEdgeCases() {
+        assertEquals(0, HistoryCodec.decode(HistoryCodec.encode(new double[0], 0)).length);
+        double[] prices = {100, 100, 0.001, 1e300, -5, 100, 100.5, Double.MIN_VALUE};
+        assertArrayEquals(prices, HistoryCodec.decode(HistoryCodec.encode(prices, prices.length)));
+        assertArrayEquals(new double[]{100, 100}, HistoryCodec.decode(HistoryCodec.encode(prices, 2)));
+    }
+
+    @Test
+    void testBase64() {
+        double[] prices = randomWalk(50, 2);
+        List<Double> decoded = HistoryCodec.fromBase64(HistoryCodec.toBase64(prices, prices.length));
+        assertEquals(prices.length, decoded.size());
+        for (int i = 0; i < prices.length; i++) {
+            assertEquals(prices[i], decoded.get(i));
+        }
+    }
+
+    @Test
+    void testCompressionRatio() {
+        double[] prices = randomWalk(10_000, 3);
+        JSONArray json = new JSONArray();
+        for (double price : prices) {
+            json.put(price);
+        }
+        int jsonBytes = json.toString().getBytes(StandardCharsets.UTF_8).length;
+        int rawBytes = prices.length * Double.BYTES;
+        int encodedBytes = HistoryCodec.encode(prices, prices.length).length;
+        int base64Bytes = HistoryCodec.toBase64(prices, prices.length).length();
+        assertTrue(encodedBytes < rawBytes);
+        assertTrue(base64Bytes < jsonBytes);
+    }
+
+    @Test
+    void testStreamingDecoder() {
+        double[] prices = randomWalk(10_000, 4);
+        HistoryCodec.Decoder decoder = new HistoryCodec.Decoder(HistoryCodec.encode(prices, prices.length));
+        assertEquals(prices.length, decoder.remaining());
+        for (double price : prices) {
+            assertEquals(price, decoder.next());
+        }
+        assertEquals(0, decoder.remaining());
+    }
+}
@@ -1,14 +1,20 @@
 package persistence;
 
 import model.Account;
+import model.BarSeries;
+import model.CorporateAction;
+import model.DiscreteClock;
+import model.MarketClock;
+import model.Security;
 import model.mock.SecurityMock;
 import org.junit.jupiter.api.Test;
 import persistence.mock.JsonReaderMock;
 
 import java.io.IOException;
 import java.time.Instant;
+import java.util.List;
 
-import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assertions.*;
 
 class JsonReaderTest extends JsonTest {
 
@@ -59,4 +65,105 @@ class JsonReaderTest extends JsonTest {
             fail("Couldn't read from file");
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void testReaderLazyHistory() {
+        try {
+            Security fund = new Security("A500", 0.5, 0.2, List.of(100.0, 101.0, 102.0), Instant.now(), 4);
+            JsonWriter writer = new JsonWriter("./data/testReaderLazyHistory.json");
+            writer.open();
+            writer.write(new Account("John Smith", 1000, fund));
+            writer.close();
+
+            Account readAccount = new JsonReader("./data/testReaderLazyHistory.json").read();
+            Security readFund = readAccount.getSecurities().get(0);
+            assertFalse(readFund.isHistoryLoaded());
+            assertEquals(102 - Security.BID_SPREAD, readFund.lastBidPrice());
+            assertEquals(408, readFund.getCostBasis());
+
+            writer = new JsonWriter("./data/testReaderLazyHistory.json");
+            writer.open();
+            writer.write(readAccount);
+            writer.close();
+            assertFalse(readFund.isHistoryLoaded());
+
+            Security rereadFund = new JsonReader("./data/testReaderLazyHistory.json").read().getSecurities().get(0);
+            assertEquals(fund.getHistory(), rereadFund.getHistory());
+            assertTrue(rereadFund.isHistoryLoaded());
+        } catch (IOException e) {
+            fail("Exception should not have been thrown");
+        }
+    }
+
+    @Test
+    void testReaderResumesMarketTime() {
+        MarketClock previous = MarketClock.getDefault();
+        DiscreteClock clock = MarketClock.discrete(Instant.EPOCH);
+        try {
+            Security fund = new Security("A500", 100, 0.5, 0.2);
+            fund.setClock(MarketClock.discrete(Instant.EPOCH.plusSeconds(3600)));
+            JsonWriter writer = new JsonWriter("./data/testReaderMarketTime.json");
+            writer.open();
+            writer.write(new Account("John Smith", 1000, fund));
+            writer.close();
+
+            MarketClock.setDefault(clock);
+            JsonReader reader = new JsonReader("./data/testReaderMarketTime.json");
+            Security readFund = reader.read().getSecurities().get(0);
+            assertSame(clock, MarketClock.getDefault());
+            assertEquals(Instant.EPOCH, clock.now());
+            assertSame(reader.getClock(), readFund.getClock());
+            assertEquals(Instant.EPOCH.plusSeconds(3600), readFund.getClock().now());
+            assertEquals(1, readFund.getHistory().size());
+            clock.advanceDays(2);
+            assertEquals(3, readFund.getHistory().size());
+        } catch (IOException e) {
+            fail("Exception should not have been thrown");
+        } finally {
+            MarketClock.setDefault(previous);
+        }
+    }
+
+    @Test
+    void testReaderKeepsPendingActions() {
+        try {
+            Security fund = new Security("A500", 0.5, 0.2, List.of(100.0, 101.0), Instant.now(), 10);
+            fund.addCorporateAction(CorporateAction.dividend(1, 2));
+            Account account = new Account("John Smith", 1000, fund);
+            account.setActionsApplied(fund, 0);
+            JsonWriter writer = new JsonWriter("./data/testReaderPendingActions.json");
+            writer.open();
+            writer.write(account);
+            writer.close();
+
+            Account readAccount = new JsonReader("./data/testReaderPendingActions.json").read();
+            assertEquals(1000, readAccount.getBalance());
+            readAccount.applyCorporateActions();
+            assertEquals(1020, readAccount.getBalance());
+            readAccount.applyCorporateActions();
+            assertEquals(1020, readAccount.getBalance());
+        } catch (IOException e) {
+            fail("Exception should not have been thrown");
+        }
+    }
+
+    @Test
+    void testReaderKeepsVolumes() {
+        try {
+            Security fund = new Security("A500", 0.5, 0.2, List.of(100.0, 101.0), Instant.now(), 10);
+            fund.addVolume(5);
+            Account account = new Account("John Smith", 1000, fund);
+            JsonWriter writer = new JsonWriter("./data/testReaderVolumes.json");
+            writer.open();
+            writer.write(account);
+            writer.close();
+
+            Account readAccount = new JsonReader("./data/testReaderVolumes.json").read();
+            BarSeries bars = readAccount.getSecurities().get(0).getBars();
+            assertEquals(0, bars.volume(0));
+            assertEquals(5, bars.volume(1));
+        } catch (IOException e) {
+            fail("Exception should not have been thrown");
+        }
+    }
+}
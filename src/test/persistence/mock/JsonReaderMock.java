@@ -18,7 +18,7 @@ public class JsonReaderMock extends JsonReader {
     protected Security makeFund(JSONObject jsonObject) {
         Security temp = super.makeFund(jsonObject);
         Instant lastUpdate = Instant.parse(jsonObject.getString("lastUpdate"));
-        List<Double> history = makeHistory(jsonObject.getJSONArray("history"));
+        List<Double> history = parseHistory(jsonObject);
 
         return new SecurityMock(temp.getTicker(),
                 temp.getYearlyReturn(),